@@ -38,8 +38,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -123,6 +128,18 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String DYNAMIC_INDEXING_PREFIX = "dynamicIndexingPrefix";
 
+  /**
+   * Configuration for the maximum number of data rows that are fetched together when reading by index. The matching
+   * data rows are read with a single multi-get per batch, rather than one get per index entry. It can be set in the
+   * dataset properties and overridden in the runtime arguments. A value of 1 reads one data row at a time.
+   */
+  public static final String INDEX_SCAN_BATCH_SIZE = "indexScanBatchSize";
+
+  /**
+   * Default value for {@link #INDEX_SCAN_BATCH_SIZE}.
+   */
+  public static final int DEFAULT_INDEX_SCAN_BATCH_SIZE = 100;
+
   /**
    * Column key used to store the existence of a row in the secondary index.
    */
@@ -136,6 +153,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
   private final byte[] keyPrefix;
+  private final int indexScanBatchSize;
 
   /**
    * Configuration time constructor.
@@ -152,6 +170,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     this.indexedColumns = columnsToIndex;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
     this.keyPrefix = Bytes.EMPTY_BYTE_ARRAY;
+    this.indexScanBatchSize = DEFAULT_INDEX_SCAN_BATCH_SIZE;
   }
 
   /**
@@ -164,12 +183,32 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix) {
+    this(name, table, index, columnsToIndex, keyPrefix, DEFAULT_INDEX_SCAN_BATCH_SIZE);
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param keyPrefix the dynamic indexing prefix. See {@link IndexedTable#DYNAMIC_INDEXING_PREFIX}
+   * @param indexScanBatchSize the maximum number of data rows to fetch together when reading by index.
+   *                           See {@link IndexedTable#INDEX_SCAN_BATCH_SIZE}
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex, byte[] keyPrefix,
+                      int indexScanBatchSize) {
     super(name, table, index);
+    if (indexScanBatchSize <= 0) {
+      throw new IllegalArgumentException("Index scan batch size must be positive: " + indexScanBatchSize);
+    }
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
     this.keyPrefix = keyPrefix;
+    this.indexScanBatchSize = indexScanBatchSize;
   }
 
   /**
@@ -659,14 +698,23 @@ public class IndexedTable extends AbstractDataset implements Table {
     put(put);
   }
 
+  /**
+   * Scanner over the data rows referenced by the entries of an index scan. The data rows are fetched in batches of
+   * up to {@link #indexScanBatchSize} rows with a single multi-get, instead of one get per index entry. Because of
+   * that, the data rows of a batch are read before the caller sees the first row of the batch.
+   */
   private abstract class AbstractIndexScanner implements Scanner {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
+    // data rows fetched but not yet returned
+    private final Deque<Row> fetchedRows;
+    private boolean indexExhausted;
 
     AbstractIndexScanner(Scanner baseScanner, byte[] column) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.fetchedRows = new ArrayDeque<>();
     }
 
     /**
@@ -680,9 +728,31 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
-      // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      // keep fetching until we have a data row, or we exhaust the index
+      while (fetchedRows.isEmpty() && !indexExhausted) {
+        fetchNextBatch();
+      }
+      return fetchedRows.poll();
+    }
+
+    @Override
+    public void close() {
+      baseScanner.close();
+    }
+
+    /**
+     * Scans the next batch of matching index entries and fetches the corresponding data rows.
+     */
+    private void fetchNextBatch() {
+      List<Get> gets = new ArrayList<>();
+      List<byte[]> columnValues = new ArrayList<>();
+      while (gets.size() < indexScanBatchSize) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          // end of index
+          indexExhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -694,23 +764,26 @@ public class IndexedTable extends AbstractDataset implements Table {
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
         if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
-          // to be sure this row isn't a false positive in the scan.
-          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
-            continue;
-          }
-          return row;
+          gets.add(new Get(rowkey));
+          columnValues.add(columnValue);
         }
       }
-      // end of index
-      return null;
-    }
+      if (gets.isEmpty()) {
+        return;
+      }
 
-    @Override
-    public void close() {
-      baseScanner.close();
+      List<Row> rows = gets.size() == 1 ? Collections.singletonList(table.get(gets.get(0).getRow())) : table.get(gets);
+      Iterator<byte[]> columnValuesIter = columnValues.iterator();
+      for (Row row : rows) {
+        byte[] columnValue = columnValuesIter.next();
+        // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+        // to be sure this row isn't a false positive in the scan.
+        // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
+        if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
+          continue;
+        }
+        fetchedRows.add(row);
+      }
     }
   }
 
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 /**
  * DatasetDefinition for {@link IndexedTable}.
@@ -52,6 +53,7 @@ public class IndexedTableDefinition
         throw new IllegalArgumentException("columnsToIndex must be specified");
       }
     }
+    parseIndexScanBatchSize(properties.getProperties().get(IndexedTable.INDEX_SCAN_BATCH_SIZE));
     return super.configure(instanceName, properties);
   }
 
@@ -82,6 +84,7 @@ public class IndexedTableDefinition
         }
       }
     }
+    parseIndexScanBatchSize(newProperties.getProperties().get(IndexedTable.INDEX_SCAN_BATCH_SIZE));
     return super.reconfigure(instanceName, newProperties, currentSpec);
   }
 
@@ -110,11 +113,36 @@ public class IndexedTableDefinition
       columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
     }
 
+    // The batch size for index scans can be overridden by the runtime arguments
+    String batchSizeProp = arguments.get(IndexedTable.INDEX_SCAN_BATCH_SIZE);
+    int indexScanBatchSize = parseIndexScanBatchSize(
+      batchSizeProp == null ? spec.getProperty(IndexedTable.INDEX_SCAN_BATCH_SIZE) : batchSizeProp);
+
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
     return new IndexedTable(spec.getName(), table, index, columnsToIndex,
-                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix));
+                            keyPrefix == null ? Bytes.EMPTY_BYTE_ARRAY : Bytes.toBytes(keyPrefix),
+                            indexScanBatchSize);
+  }
+
+  /**
+   * Helper method to parse the batch size for index scans, which must be a positive integer if specified.
+   */
+  private int parseIndexScanBatchSize(@Nullable String value) {
+    if (value == null) {
+      return IndexedTable.DEFAULT_INDEX_SCAN_BATCH_SIZE;
+    }
+    try {
+      int batchSize = Integer.parseInt(value.trim());
+      if (batchSize > 0) {
+        return batchSize;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to throw the exception below
+    }
+    throw new IllegalArgumentException(String.format("%s must be a positive integer, but is '%s'",
+                                                     IndexedTable.INDEX_SCAN_BATCH_SIZE, value));
   }
 
   /**
@@ -61,7 +61,11 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
       if (ProcessState.AVAILABLE != consumablePartition.getProcessState()) {
         continue;
       }
-      PartitionDetail partition = getPartitionedFileSet().getPartition(consumablePartition.getPartitionKey());
+      // partitions that were just added to the working set don't need to be read again
+      PartitionDetail partition = workingSet.getPopulatedPartition(consumablePartition.getPartitionKey());
+      if (partition == null) {
+        partition = getPartitionedFileSet().getPartition(consumablePartition.getPartitionKey());
+      }
       if (partition == null) {
         // no longer exists, so skip it and remove it from the working set
         iter.remove();
@@ -96,8 +100,7 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
   @Override
   public void untake(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
     doExpiry(workingSet);
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookup(partitionKeys)) {
       // don't need to assertInProgress because untake() already does that
       consumablePartition.untake();
     }
@@ -107,11 +110,10 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
    * Removes the given partition keys from the working set, as they have been successfully processed.
    */
   protected void commit(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookup(partitionKeys)) {
       assertInProgress(consumablePartition);
-      workingSet.remove(key);
     }
+    workingSet.removeAll(partitionKeys);
   }
 
   /**
@@ -120,15 +122,14 @@ public class ConcurrentPartitionConsumer extends AbstractPartitionConsumer {
    */
   protected void abort(ConsumerWorkingSet workingSet, List<? extends PartitionKey> partitionKeys) {
     List<PartitionKey> discardedPartitions = new ArrayList<>();
-    for (PartitionKey key : partitionKeys) {
-      ConsumablePartition consumablePartition = workingSet.lookup(key);
+    for (ConsumablePartition consumablePartition : workingSet.lookup(partitionKeys)) {
       assertInProgress(consumablePartition);
       // either reset its processState, or remove it from the workingSet, depending on how many tries it already has
       if (consumablePartition.getNumFailures() < getConfiguration().getMaxRetries()) {
         consumablePartition.retry();
       } else {
-        discardedPartitions.add(key);
-        workingSet.lookup(key).discard();
+        discardedPartitions.add(consumablePartition.getPartitionKey());
+        consumablePartition.discard();
       }
     }
     if (!discardedPartitions.isEmpty()) {
@@ -23,18 +23,37 @@ import io.cdap.cdap.api.dataset.lib.PartitionDetail;
 import io.cdap.cdap.api.dataset.lib.PartitionKey;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Keeps track of a list of partitions that are either available for consuming or are currently being consumed.
  */
 public class ConsumerWorkingSet {
 
-  private static final int VERSION = 0;
+  // version of the format that serializes the partition keys as JSON
+  private static final int JSON_KEY_VERSION = 0;
+  // version of the format that serializes the partition keys in binary, with the field names written only once
+  private static final int VERSION = 1;
+
+  private static final byte STRING_TYPE = 0;
+  private static final byte LONG_TYPE = 1;
+  private static final byte INT_TYPE = 2;
 
   private final List<ConsumablePartition> partitions;
+  // partitions added by the last call to populate, which saves reading them again when consuming them
+  private final Map<PartitionKey, PartitionDetail> populatedPartitions = new HashMap<>();
 
   private PartitionConsumerState partitionConsumerState;
 
@@ -81,6 +100,15 @@ public class ConsumerWorkingSet {
     throw new IllegalArgumentException("PartitionKey not found: " + partitionKey);
   }
 
+  /**
+   * Removes the ConsumablePartitions with the given PartitionKeys from the working set. Unlike calling
+   * {@link #remove(PartitionKey)} for each key, this takes time linear in the size of the working set.
+   */
+  public void removeAll(Collection<? extends PartitionKey> partitionKeys) {
+    Set<PartitionKey> keys = new HashSet<>(partitionKeys);
+    partitions.removeIf(partition -> keys.contains(partition.getPartitionKey()));
+  }
+
   /**
    * @return the ConsumablePartition with the given PartitionKey, from the working set
    */
@@ -93,6 +121,41 @@ public class ConsumerWorkingSet {
     throw new IllegalArgumentException("PartitionKey not found: " + partitionKey);
   }
 
+  /**
+   * Looks up the ConsumablePartitions with the given PartitionKeys. Unlike calling {@link #lookup(PartitionKey)} for
+   * each key, this takes time linear in the size of the working set.
+   *
+   * @return the ConsumablePartitions from the working set, in the order of the given keys
+   * @throws IllegalArgumentException if any of the keys is not in the working set
+   */
+  public List<ConsumablePartition> lookup(Collection<? extends PartitionKey> partitionKeys) {
+    Set<PartitionKey> keys = new HashSet<>(partitionKeys);
+    Map<PartitionKey, ConsumablePartition> byKey = new HashMap<>();
+    for (ConsumablePartition partition : partitions) {
+      if (keys.contains(partition.getPartitionKey())) {
+        byKey.putIfAbsent(partition.getPartitionKey(), partition);
+      }
+    }
+    List<ConsumablePartition> result = new ArrayList<>(partitionKeys.size());
+    for (PartitionKey key : partitionKeys) {
+      ConsumablePartition partition = byKey.get(key);
+      if (partition == null) {
+        throw new IllegalArgumentException("PartitionKey not found: " + key);
+      }
+      result.add(partition);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the partition with the given key if it was added to the working set by the last call to
+   * {@link #populate(PartitionedFileSet, ConsumerConfiguration)} on this instance, or {@code null} otherwise.
+   */
+  @Nullable
+  PartitionDetail getPopulatedPartition(PartitionKey partitionKey) {
+    return populatedPartitions.get(partitionKey);
+  }
+
   /**
    * Populates the ConsumerWorkingSet by fetching partitions from the given PartitionedFileSet.
    *
@@ -105,8 +168,10 @@ public class ConsumerWorkingSet {
     io.cdap.cdap.api.dataset.lib.PartitionConsumerResult result =
       partitionedFileSet.consumePartitions(partitionConsumerState, numToPopulate, predicate);
     List<PartitionDetail> partitions = result.getPartitions();
+    populatedPartitions.clear();
     for (PartitionDetail partition : partitions) {
       addPartition(partition.getPartitionKey());
+      populatedPartitions.put(partition.getPartitionKey(), partition);
     }
     partitionConsumerState = result.getPartitionConsumerState();
   }
@@ -115,7 +180,10 @@ public class ConsumerWorkingSet {
   public static ConsumerWorkingSet fromBytes(byte[] bytes) {
     ByteBuffer bb = ByteBuffer.wrap(bytes);
     byte serializationFormatVersion = bb.get();
-    if (serializationFormatVersion != VERSION) {
+    if (serializationFormatVersion == VERSION) {
+      return fromBytes(bb);
+    }
+    if (serializationFormatVersion != JSON_KEY_VERSION) {
       throw new IllegalArgumentException("Unsupported serialization format: " + serializationFormatVersion);
     }
 
@@ -134,14 +202,114 @@ public class ConsumerWorkingSet {
     return new ConsumerWorkingSet(PartitionConsumerState.fromBytes(markerBytes), partitions);
   }
 
+  // deserializes the binary format, after the version byte
+  private static ConsumerWorkingSet fromBytes(ByteBuffer bb) {
+    int numFields = bb.getInt();
+    List<String> fieldNames = new ArrayList<>(numFields);
+    for (int i = 0; i < numFields; i++) {
+      fieldNames.add(readString(bb));
+    }
+
+    int numPartitions = bb.getInt();
+    List<ConsumablePartition> partitions = new ArrayList<>(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      ProcessState processState = ProcessState.fromByte(bb.get());
+      long timestamp = bb.getLong();
+      int numFailures = bb.getInt();
+      int numKeyFields = bb.getInt();
+      PartitionKey.Builder builder = PartitionKey.builder();
+      for (int j = 0; j < numKeyFields; j++) {
+        String fieldName = fieldNames.get(bb.getInt());
+        byte type = bb.get();
+        switch (type) {
+          case STRING_TYPE:
+            builder.addStringField(fieldName, readString(bb));
+            break;
+          case LONG_TYPE:
+            builder.addLongField(fieldName, bb.getLong());
+            break;
+          case INT_TYPE:
+            builder.addIntField(fieldName, bb.getInt());
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown partition field type: " + type);
+        }
+      }
+      partitions.add(new DefaultConsumablePartition(builder.build(), processState, timestamp, numFailures));
+    }
+
+    int sizeOfMarker = bb.getInt();
+    byte[] markerBytes = new byte[sizeOfMarker];
+    bb.get(markerBytes);
+    return new ConsumerWorkingSet(PartitionConsumerState.fromBytes(markerBytes), partitions);
+  }
+
   // serializes this ConsumerWorkingSet into a byte array
   public byte[] toBytes() {
+    Map<String, Integer> fieldIndexes = new LinkedHashMap<>();
+    for (ConsumablePartition partition : partitions) {
+      for (Map.Entry<String, Comparable> field : partition.getPartitionKey().getFields().entrySet()) {
+        if (!isSupportedType(field.getValue())) {
+          // Partition keys that are not created from a Partitioning can have fields of other types
+          return toJsonKeyBytes();
+        }
+        if (!fieldIndexes.containsKey(field.getKey())) {
+          fieldIndexes.put(field.getKey(), fieldIndexes.size());
+        }
+      }
+    }
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bos)) {
+      out.writeByte(VERSION);
+      out.writeInt(fieldIndexes.size());
+      for (String fieldName : fieldIndexes.keySet()) {
+        writeString(out, fieldName);
+      }
+
+      out.writeInt(partitions.size());
+      for (ConsumablePartition partition : partitions) {
+        out.writeByte(partition.getProcessState().toByte());
+        out.writeLong(partition.getTimestamp());
+        out.writeInt(partition.getNumFailures());
+        Map<String, Comparable> fields = partition.getPartitionKey().getFields();
+        out.writeInt(fields.size());
+        for (Map.Entry<String, Comparable> field : fields.entrySet()) {
+          out.writeInt(fieldIndexes.get(field.getKey()));
+          Comparable value = field.getValue();
+          if (value instanceof String) {
+            out.writeByte(STRING_TYPE);
+            writeString(out, (String) value);
+          } else if (value instanceof Long) {
+            out.writeByte(LONG_TYPE);
+            out.writeLong((Long) value);
+          } else {
+            out.writeByte(INT_TYPE);
+            out.writeInt((Integer) value);
+          }
+        }
+      }
+
+      byte[] markerBytes = partitionConsumerState.toBytes();
+      out.writeInt(markerBytes.length);
+      out.write(markerBytes);
+    } catch (IOException e) {
+      // can't happen, since it is written to memory
+      throw new IllegalStateException("Failed to serialize the consumer working set", e);
+    }
+    return bos.toByteArray();
+  }
+
+  // serializes this ConsumerWorkingSet into a byte array, with the partition keys as JSON
+  private byte[] toJsonKeyBytes() {
+    List<byte[]> partitionsBytes = new ArrayList<>(partitions.size());
     // first byte for serialization format version
     int numBytes = 1;
     numBytes += Bytes.SIZEOF_INT;
 
     for (ConsumablePartition partition : partitions) {
       byte[] partitionBytes = ((DefaultConsumablePartition) partition).toBytes();
+      partitionsBytes.add(partitionBytes);
       numBytes += Bytes.SIZEOF_INT;
       numBytes += partitionBytes.length;
     }
@@ -151,10 +319,9 @@ public class ConsumerWorkingSet {
     numBytes += markerBytes.length;
 
     ByteBuffer bb = ByteBuffer.allocate(numBytes);
-    bb.put((byte) VERSION);
+    bb.put((byte) JSON_KEY_VERSION);
     bb.putInt(partitions.size());
-    for (ConsumablePartition partition : partitions) {
-      byte[] partitionBytes = ((DefaultConsumablePartition) partition).toBytes();
+    for (byte[] partitionBytes : partitionsBytes) {
       bb.putInt(partitionBytes.length);
       bb.put(partitionBytes);
     }
@@ -164,6 +331,22 @@ public class ConsumerWorkingSet {
     return bb.array();
   }
 
+  private static boolean isSupportedType(Comparable value) {
+    return value instanceof String || value instanceof Long || value instanceof Integer;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = Bytes.toBytes(value);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer bb) {
+    byte[] bytes = new byte[bb.getInt()];
+    bb.get(bytes);
+    return Bytes.toString(bytes);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -283,12 +283,28 @@ public interface Store {
    * @param namespaces fetch run history that is belonged to one of these namespaces
    * @param earliestStopTime fetch run history that has stopped at or after the earliestStopTime in seconds
    * @param latestStartTime fetch run history that has started before the latestStartTime in seconds
-   * @param limit max number of entries to fetch for this history call
+   * @param limit max number of entries to fetch from each namespace
    * @return map of logged runs
    */
   Map<ProgramRunId, RunRecordMeta> getHistoricalRuns(Set<NamespaceId> namespaces,
                                                      long earliestStopTime, long latestStartTime, int limit);
 
+  /**
+   * Adds the completed run records that were written before the run records stop time index existed to the index.
+   * Until this is done, queries for the runs in a time range scan all completed run records.
+   *
+   * @param batchSize the number of run records to index in each transaction
+   */
+  void backfillRunRecordsStopTimeIndex(int batchSize);
+
+  /**
+   * Rewrites the completed run records that are stored as JSON, as written by older versions, in the binary
+   * encoding. JSON run records remain readable, but take longer to decode.
+   *
+   * @param batchSize the number of run records to read in each transaction
+   */
+  void migrateRunRecordsEncoding(int batchSize);
+
   /**
    * Fetches the run record for particular run of a program.
    *
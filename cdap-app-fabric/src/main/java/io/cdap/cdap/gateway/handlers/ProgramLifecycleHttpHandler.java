@@ -82,6 +82,7 @@ import io.cdap.cdap.proto.ProgramHistory;
 import io.cdap.cdap.proto.ProgramLiveInfo;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.ProgramStatusResult;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.ProtoTrigger;
 import io.cdap.cdap.proto.RunCountResult;
@@ -116,6 +117,7 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1031,18 +1033,21 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
                           @PathParam("namespace-id") String namespaceId) throws Exception {
 
     List<BatchProgram> programs = validateAndGetBatchInput(request, BATCH_PROGRAMS_TYPE);
+    List<ProgramId> programIds = programs.stream()
+      .map(program -> new ProgramId(namespaceId, program.getAppId(), program.getProgramType(), program.getProgramId()))
+      .collect(Collectors.toList());
 
     List<BatchProgramStatus> statuses = new ArrayList<>(programs.size());
-    for (BatchProgram program : programs) {
-      ProgramId programId = new ProgramId(namespaceId, program.getAppId(), program.getProgramType(),
-                                          program.getProgramId());
-      try {
-        ProgramStatus programStatus = lifecycleService.getProgramStatus(programId);
+    Iterator<BatchProgram> programIterator = programs.iterator();
+    for (ProgramStatusResult statusResult : lifecycleService.getProgramStatuses(programIds)) {
+      BatchProgram program = programIterator.next();
+      ProgramStatus programStatus = statusResult.getStatus();
+      if (programStatus == null) {
         statuses.add(new BatchProgramStatus(
-          program, HttpResponseStatus.OK.code(), null, programStatus.name()));
-      } catch (NotFoundException e) {
+          program, HttpResponseStatus.NOT_FOUND.code(), statusResult.getException().getMessage(), null));
+      } else {
         statuses.add(new BatchProgramStatus(
-          program, HttpResponseStatus.NOT_FOUND.code(), e.getMessage(), null));
+          program, HttpResponseStatus.OK.code(), null, programStatus.name()));
       }
     }
     responder.sendJson(HttpResponseStatus.OK, GSON.toJson(statuses));
@@ -16,12 +16,9 @@
 
 package io.cdap.cdap.internal.app.runtime.batch.dataset.input;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import io.cdap.cdap.api.data.batch.PartitionedFileSetInputContext;
 import io.cdap.cdap.api.dataset.lib.PartitionKey;
-import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import io.cdap.cdap.data2.dataset2.lib.partitioned.PartitionPathMappingCodec;
 import io.cdap.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -30,7 +27,6 @@ import org.apache.hadoop.mapreduce.MRJobConfig;
 import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 
-import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.Map;
@@ -42,11 +38,6 @@ import java.util.Set;
  */
 class BasicPartitionedFileSetInputContext extends BasicInputContext implements PartitionedFileSetInputContext {
 
-  private static final Gson GSON =
-    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
-
-  private static final Type STRING_PARTITION_KEY_MAP_TYPE = new TypeToken<Map<String, PartitionKey>>() { }.getType();
-
   private final Map<String, PartitionKey> pathToPartitionMapping;
 
   private final boolean isCombineInputFormat;
@@ -78,8 +69,7 @@ class BasicPartitionedFileSetInputContext extends BasicInputContext implements P
 
     this.conf = multiInputTaggedSplit.getConf();
     String mappingString = conf.get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
-    this.pathToPartitionMapping =
-      GSON.fromJson(Objects.requireNonNull(mappingString), STRING_PARTITION_KEY_MAP_TYPE);
+    this.pathToPartitionMapping = PartitionPathMappingCodec.decode(Objects.requireNonNull(mappingString));
   }
 
   @Override
@@ -68,6 +68,7 @@ import io.cdap.cdap.proto.ProgramRecord;
 import io.cdap.cdap.proto.ProgramRunClusterStatus;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.ProgramStatusResult;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.RunCountResult;
 import io.cdap.cdap.proto.RunRecord;
@@ -134,6 +135,7 @@ public class ProgramLifecycleService {
   private final ProvisionerNotifier provisionerNotifier;
   private final ProvisioningService provisioningService;
   private final ProgramStateWriter programStateWriter;
+  private final ProgramRunStatusView programRunStatusView;
   private final int maxConcurrentRuns;
 
   @Inject
@@ -143,7 +145,7 @@ public class ProgramLifecycleService {
                           PreferencesService preferencesService, AuthorizationEnforcer authorizationEnforcer,
                           AuthenticationContext authenticationContext,
                           ProvisionerNotifier provisionerNotifier, ProvisioningService provisioningService,
-                          ProgramStateWriter programStateWriter) {
+                          ProgramStateWriter programStateWriter, ProgramRunStatusView programRunStatusView) {
     this.maxConcurrentRuns = cConf.getInt(Constants.AppFabric.MAX_CONCURRENT_RUNS);
     this.store = store;
     this.profileService = profileService;
@@ -155,6 +157,7 @@ public class ProgramLifecycleService {
     this.provisionerNotifier = provisionerNotifier;
     this.provisioningService = provisioningService;
     this.programStateWriter = programStateWriter;
+    this.programRunStatusView = programRunStatusView;
   }
 
   /**
@@ -174,6 +177,51 @@ public class ProgramLifecycleService {
     return getExistingAppProgramStatus(appSpec, programId);
   }
 
+  /**
+   * Returns the status of the given programs. The specification of each application is read once, and the statuses
+   * are served from the {@link ProgramRunStatusView} if it is loaded, or else from one scan of the active runs
+   * per application.
+   *
+   * @param programIds the ids of the programs for which the status call is made
+   * @return the status results in the same order as the given program ids; for a program or application that
+   *         doesn't exist, the result contains a {@link NotFoundException}
+   * @throws UnauthorizedException if the principal does not have access to any of the programs
+   */
+  public List<ProgramStatusResult> getProgramStatuses(Collection<ProgramId> programIds) throws Exception {
+    Map<ApplicationId, ApplicationSpecification> appSpecs = new HashMap<>();
+    Map<ApplicationId, Map<ProgramId, List<RunRecordMeta>>> appActiveRuns = new HashMap<>();
+    List<ProgramStatusResult> result = new ArrayList<>(programIds.size());
+
+    for (ProgramId programId : programIds) {
+      ApplicationId appId = programId.getParent();
+      // populate spec cache if this is the first time we've seen the appid.
+      if (!appSpecs.containsKey(appId)) {
+        appSpecs.put(appId, store.getApplication(appId));
+      }
+      ApplicationSpecification appSpec = appSpecs.get(appId);
+      if (appSpec == null) {
+        result.add(new ProgramStatusResult(programId, null, new NotFoundException(appId)));
+        continue;
+      }
+
+      AuthorizationUtil.ensureAccess(programId, authorizationEnforcer, authenticationContext.getPrincipal());
+      if (getExistingAppProgramSpecification(appSpec, programId) == null) {
+        result.add(new ProgramStatusResult(programId, null, new NotFoundException(programId)));
+        continue;
+      }
+
+      ProgramStatus status = programRunStatusView.getProgramStatus(programId);
+      if (status == null) {
+        Map<ProgramId, List<RunRecordMeta>> activeRuns = appActiveRuns.computeIfAbsent(
+          appId, id -> store.getActiveRuns(id).values().stream()
+            .collect(Collectors.groupingBy(meta -> meta.getProgramRunId().getParent())));
+        status = getProgramStatus(activeRuns.getOrDefault(programId, Collections.emptyList()));
+      }
+      result.add(new ProgramStatusResult(programId, status, null));
+    }
+    return result;
+  }
+
   /**
    * Returns the program run count of the given program.
    *
@@ -302,7 +350,8 @@ public class ProgramLifecycleService {
       throw new NotFoundException(programId);
     }
 
-    return getProgramStatus(store.getActiveRuns(programId).values());
+    ProgramStatus status = programRunStatusView.getProgramStatus(programId);
+    return status == null ? getProgramStatus(store.getActiveRuns(programId).values()) : status;
   }
 
   /**
@@ -316,15 +365,8 @@ public class ProgramLifecycleService {
    */
   @VisibleForTesting
   static ProgramStatus getProgramStatus(Collection<RunRecordMeta> runRecords) {
-    boolean hasStarting = false;
-    for (RunRecordMeta runRecord : runRecords) {
-      ProgramRunStatus runStatus = runRecord.getStatus();
-      if (runStatus == ProgramRunStatus.RUNNING || runStatus == ProgramRunStatus.SUSPENDED) {
-        return ProgramStatus.RUNNING;
-      }
-      hasStarting = hasStarting || runStatus == ProgramRunStatus.STARTING || runStatus == ProgramRunStatus.PENDING;
-    }
-    return hasStarting ? ProgramStatus.STARTING : ProgramStatus.STOPPED;
+    return ProgramRunStatusView.getProgramStatus(runRecords.stream().map(RunRecordMeta::getStatus)
+                                                    .collect(Collectors.toList()));
   }
 
   /**
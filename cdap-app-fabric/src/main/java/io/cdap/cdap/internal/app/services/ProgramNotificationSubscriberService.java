@@ -56,6 +56,7 @@ import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.TableNotFoundException;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,6 +67,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +95,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
   private final ProgramStateWriter programStateWriter;
   private final Queue<Runnable> tasks;
   private final MetricsCollectionService metricsCollectionService;
+  private final ProgramRunStatusView programRunStatusView;
 
   @Inject
   ProgramNotificationSubscriberService(MessagingService messagingService, CConfiguration cConf,
@@ -100,7 +103,8 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
                                        ProvisionerNotifier provisionerNotifier,
                                        ProgramLifecycleService programLifecycleService,
                                        ProvisioningService provisioningService,
-                                       ProgramStateWriter programStateWriter, TransactionRunner transactionRunner) {
+                                       ProgramStateWriter programStateWriter, TransactionRunner transactionRunner,
+                                       ProgramRunStatusView programRunStatusView) {
     super("program.status", cConf, cConf.get(Constants.AppFabric.PROGRAM_STATUS_EVENT_TOPIC),
           cConf.getInt(Constants.AppFabric.STATUS_EVENT_FETCH_SIZE),
           cConf.getLong(Constants.AppFabric.STATUS_EVENT_POLL_DELAY_MILLIS),
@@ -112,6 +116,30 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     this.programStateWriter = programStateWriter;
     this.tasks = new LinkedList<>();
     this.metricsCollectionService = metricsCollectionService;
+    this.programRunStatusView = programRunStatusView;
+  }
+
+  @Override
+  protected void doStartUp() throws Exception {
+    super.doStartUp();
+    try {
+      TransactionRunners.run(getTransactionRunner(), context -> {
+        loadProgramRunStatusView(context);
+      }, IOException.class);
+    } catch (Exception e) {
+      // The view will be loaded when processing the next batch of messages. Until then, status is read from the store.
+      LOG.warn("Failed to load the status of active program runs", e);
+    }
+  }
+
+  @Override
+  protected void doShutdown() throws Exception {
+    programRunStatusView.clear();
+    super.doShutdown();
+  }
+
+  private void loadProgramRunStatusView(StructuredTableContext context) throws IOException {
+    programRunStatusView.load(getAppMetadataStore(context).getActiveRuns(meta -> true));
   }
 
   @Nullable
@@ -129,16 +157,28 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
   @Override
   protected void processMessages(StructuredTableContext structuredTableContext,
                                  Iterator<ImmutablePair<String, Notification>> messages) throws Exception {
+    if (!programRunStatusView.isLoaded()) {
+      loadProgramRunStatusView(structuredTableContext);
+    }
+
     ProgramHeartbeatTable heartbeatDataset = new ProgramHeartbeatTable(structuredTableContext);
     List<Runnable> tasks = new LinkedList<>();
+    Map<ProgramRunId, ProgramRunStatus> recordedStatuses = new LinkedHashMap<>();
     while (messages.hasNext()) {
       ImmutablePair<String, Notification> messagePair = messages.next();
       List<Runnable> runnables = processNotification(heartbeatDataset,
                                                      messagePair.getFirst().getBytes(StandardCharsets.UTF_8),
-                                                     messagePair.getSecond(), structuredTableContext);
+                                                     messagePair.getSecond(), structuredTableContext,
+                                                     recordedStatuses);
       tasks.addAll(runnables);
     }
 
+    // Update the status view only after the transaction is committed. It is done before other tasks, so that it is
+    // not delayed by failures of those tasks.
+    if (!recordedStatuses.isEmpty()) {
+      tasks.add(0, () -> programRunStatusView.update(recordedStatuses));
+    }
+
     // Only add post processing tasks if all messages are processed. If there is exception in the processNotifiation,
     // messages will be replayed.
     this.tasks.addAll(tasks);
@@ -160,13 +200,15 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
    * @param messageIdBytes the raw message id in the TMS for the notification
    * @param notification the {@link Notification} to process
    * @param context context to get the table for operations
+   * @param recordedStatuses map to collect the program run statuses recorded by processing the notification
    * @return a {@link List} of {@link Runnable} tasks to run after the transactional processing of the whole
    *         messages batch is completed
    * @throws Exception if failed to process the given notification
    */
   private List<Runnable> processNotification(ProgramHeartbeatTable programHeartbeatTable,
                                              byte[] messageIdBytes, Notification notification,
-                                             StructuredTableContext context) throws Exception {
+                                             StructuredTableContext context,
+                                             Map<ProgramRunId, ProgramRunStatus> recordedStatuses) throws Exception {
     AppMetadataStore appMetadataStore = AppMetadataStore.create(context);
     Map<String, String> properties = notification.getProperties();
     // Required parameters
@@ -213,21 +255,23 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     List<Runnable> result = new ArrayList<>();
     if (programRunStatus != null) {
       handleProgramEvent(programRunId, programRunStatus, notification, messageIdBytes,
-                         appMetadataStore, programHeartbeatTable).ifPresent(result::add);
+                         appMetadataStore, programHeartbeatTable, recordedStatuses).ifPresent(result::add);
     }
     if (clusterStatus == null) {
       return result;
     }
 
     handleClusterEvent(programRunId, clusterStatus, notification,
-                       messageIdBytes, appMetadataStore, context).ifPresent(result::add);
+                       messageIdBytes, appMetadataStore, context, recordedStatuses).ifPresent(result::add);
     return result;
   }
 
   private Optional<Runnable> handleProgramEvent(ProgramRunId programRunId, ProgramRunStatus programRunStatus,
                                                 Notification notification, byte[] messageIdBytes,
                                                 AppMetadataStore appMetadataStore,
-                                                ProgramHeartbeatTable programHeartbeatTable) throws Exception {
+                                                ProgramHeartbeatTable programHeartbeatTable,
+                                                Map<ProgramRunId, ProgramRunStatus> recordedStatuses)
+    throws Exception {
     LOG.trace("Processing program status notification: {}", notification);
     Map<String, String> properties = notification.getProperties();
     String twillRunId = notification.getProperties().get(ProgramOptionConstants.TWILL_RUN_ID);
@@ -352,6 +396,7 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
     }
 
     if (recordedRunRecord != null) {
+      recordedStatuses.put(programRunId, recordedRunRecord.getStatus());
       // We need to publish the message so that the trigger subscriber can pick it up and start the trigger if
       // necessary
       publishRecordedStatus(notification, programRunId, recordedRunRecord.getStatus());
@@ -391,7 +436,9 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
   private Optional<Runnable> handleClusterEvent(ProgramRunId programRunId, ProgramRunClusterStatus clusterStatus,
                                                 Notification notification, byte[] messageIdBytes,
                                                 AppMetadataStore appMetadataStore,
-                                                StructuredTableContext context) throws IOException {
+                                                StructuredTableContext context,
+                                                Map<ProgramRunId, ProgramRunStatus> recordedStatuses)
+    throws IOException {
     Map<String, String> properties = notification.getProperties();
 
     ProgramOptions programOptions = createProgramOptions(programRunId.getParent(), properties);
@@ -402,9 +449,13 @@ public class ProgramNotificationSubscriberService extends AbstractNotificationSu
       GSON.fromJson(properties.get(ProgramOptionConstants.PROGRAM_DESCRIPTOR), ProgramDescriptor.class);
     switch (clusterStatus) {
       case PROVISIONING:
-        appMetadataStore.recordProgramProvisioning(programRunId, programOptions.getUserArguments().asMap(),
-                                                   programOptions.getArguments().asMap(), messageIdBytes,
-                                                   programDescriptor.getArtifactId().toApiArtifactId());
+        RunRecordMeta provisioningMeta =
+          appMetadataStore.recordProgramProvisioning(programRunId, programOptions.getUserArguments().asMap(),
+                                                     programOptions.getArguments().asMap(), messageIdBytes,
+                                                     programDescriptor.getArtifactId().toApiArtifactId());
+        if (provisioningMeta != null) {
+          recordedStatuses.put(programRunId, provisioningMeta.getStatus());
+        }
 
         ProvisionRequest provisionRequest = new ProvisionRequest(programRunId, programOptions, programDescriptor,
                                                                  userId);
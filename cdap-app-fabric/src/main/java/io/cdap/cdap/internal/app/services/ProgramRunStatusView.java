@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.services;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory view of the status of all active program runs. It is loaded from the active run records when the
+ * {@link ProgramNotificationSubscriberService} starts, and then kept up to date with the program state transitions
+ * recorded by that service, so that program status can be answered without scanning the run records.
+ *
+ * The view is only used after it has been loaded. Before that, and after the subscriber service stopped,
+ * {@link #getProgramStatus(ProgramId)} returns {@code null} and the caller has to read the status from the store.
+ */
+public class ProgramRunStatusView {
+
+  // Map from program to the status of its active runs, keyed by run id. It is null if the view is not loaded.
+  // The per program maps are immutable, so that a reader always sees a consistent set of runs.
+  private volatile ConcurrentMap<ProgramId, Map<String, ProgramRunStatus>> activeRuns;
+
+  /**
+   * Loads the view from the given active run records, replacing any existing content.
+   */
+  public void load(Map<ProgramRunId, RunRecordMeta> activeRunRecords) {
+    ConcurrentMap<ProgramId, Map<String, ProgramRunStatus>> runs = new ConcurrentHashMap<>();
+    Map<ProgramId, Map<String, ProgramRunStatus>> builders = new HashMap<>();
+    for (Map.Entry<ProgramRunId, RunRecordMeta> entry : activeRunRecords.entrySet()) {
+      ProgramRunId runId = entry.getKey();
+      builders.computeIfAbsent(runId.getParent(), k -> new HashMap<>()).put(runId.getRun(),
+                                                                            entry.getValue().getStatus());
+    }
+    builders.forEach((programId, statuses) -> runs.put(programId, ImmutableMap.copyOf(statuses)));
+    activeRuns = runs;
+  }
+
+  /**
+   * Clears the view. Program status won't be served from the view until it is loaded again.
+   */
+  void clear() {
+    activeRuns = null;
+  }
+
+  /**
+   * Returns whether the view is loaded.
+   */
+  public boolean isLoaded() {
+    return activeRuns != null;
+  }
+
+  /**
+   * Applies the given program run status transitions, which must have been persisted already. Runs that reached an
+   * end state are removed from the view.
+   */
+  void update(Map<ProgramRunId, ProgramRunStatus> transitions) {
+    ConcurrentMap<ProgramId, Map<String, ProgramRunStatus>> runs = activeRuns;
+    if (runs == null) {
+      return;
+    }
+    for (Map.Entry<ProgramRunId, ProgramRunStatus> entry : transitions.entrySet()) {
+      ProgramRunId runId = entry.getKey();
+      ProgramRunStatus status = entry.getValue();
+      runs.compute(runId.getParent(), (programId, statuses) -> {
+        Map<String, ProgramRunStatus> updated = statuses == null ? new HashMap<>() : new HashMap<>(statuses);
+        if (status.isEndState()) {
+          updated.remove(runId.getRun());
+        } else {
+          updated.put(runId.getRun(), status);
+        }
+        return updated.isEmpty() ? null : ImmutableMap.copyOf(updated);
+      });
+    }
+  }
+
+  /**
+   * Returns the status of the given program based on its active runs, or {@code null} if the view is not loaded.
+   * The existence of the program is not checked.
+   */
+  @Nullable
+  public ProgramStatus getProgramStatus(ProgramId programId) {
+    ConcurrentMap<ProgramId, Map<String, ProgramRunStatus>> runs = activeRuns;
+    if (runs == null) {
+      return null;
+    }
+    return getProgramStatus(runs.getOrDefault(programId, Collections.emptyMap()).values());
+  }
+
+  /**
+   * Returns the program status based on the statuses of the active runs of a program.
+   * A program is RUNNING if there are any RUNNING or SUSPENDED runs.
+   * A program is STARTING if there are any PENDING or STARTING runs and no RUNNING runs.
+   * Otherwise, it is STOPPED.
+   *
+   * @param runStatuses statuses of the runs of the program
+   * @return the program status
+   */
+  static ProgramStatus getProgramStatus(Iterable<ProgramRunStatus> runStatuses) {
+    boolean hasStarting = false;
+    for (ProgramRunStatus runStatus : runStatuses) {
+      if (runStatus == ProgramRunStatus.RUNNING || runStatus == ProgramRunStatus.SUSPENDED) {
+        return ProgramStatus.RUNNING;
+      }
+      hasStarting = hasStarting || runStatus == ProgramRunStatus.STARTING || runStatus == ProgramRunStatus.PENDING;
+    }
+    return hasStarting ? ProgramStatus.STARTING : ProgramStatus.STOPPED;
+  }
+}
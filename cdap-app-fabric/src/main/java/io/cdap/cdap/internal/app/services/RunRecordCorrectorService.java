@@ -170,6 +170,22 @@ public abstract class RunRecordCorrectorService extends AbstractIdleService {
       initialDelay = 300L;
     }
 
+    // Index the run records written by earlier versions and rewrite them in the binary encoding once,
+    // before the first run of the deleter
+    localDatasetDeleterService.execute(() -> {
+      try {
+        store.backfillRunRecordsStopTimeIndex(txBatchSize);
+      } catch (Exception e) {
+        LOG.warn("Failed to add existing run records to the stop time index. " +
+                   "Run history queries will keep scanning all run records until it succeeds on restart.", e);
+      }
+      try {
+        store.migrateRunRecordsEncoding(txBatchSize);
+      } catch (Exception e) {
+        LOG.warn("Failed to rewrite existing run records in the binary encoding. " +
+                   "It will be retried on restart.", e);
+      }
+    });
     Runnable runnable = new LocalDatasetDeleterRunnable(namespaceAdmin, store, datasetFramework);
     localDatasetDeleterService.scheduleWithFixedDelay(runnable, initialDelay, interval, TimeUnit.SECONDS);
   }
@@ -65,6 +65,7 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -96,6 +97,13 @@ import javax.annotation.Nullable;
  *
  * Workflow node state is updated whenever program state is updated
  * and we notice that the program belongs to a workflow.
+ *
+ * Completed run records are also indexed by the time bucket the run stopped in:
+ *
+ * namespace|stop time bucket|status|app|version|programtype|program|runid
+ *
+ * so that queries for runs that were active during a time window only scan the buckets of each namespace after the
+ * window start.
  */
 public class AppMetadataStore {
 
@@ -112,6 +120,17 @@ public class AppMetadataStore {
   private static final String TYPE_COUNT = "runRecordCount";
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
   private static final String SMALLEST_POSSIBLE_STRING = "";
+  private static final long STOP_TIME_BUCKET_SECS = TimeUnit.HOURS.toSeconds(1);
+  // number of stop time index hits whose run records are fetched together
+  private static final int STOP_TIME_INDEX_READ_BATCH_SIZE = 100;
+  // the position of the stop time index backfill is kept in the subscriber state table
+  private static final String STOP_TIME_INDEX_BACKFILL_TOPIC = "run_records_stop_time_index";
+  private static final String STOP_TIME_INDEX_BACKFILL_SUBSCRIBER = "backfill";
+  private static final String STOP_TIME_INDEX_BACKFILL_COMPLETED = "completed";
+  // the position of the migration of JSON run records to the binary encoding is kept in the same way
+  private static final String RUN_RECORD_ENCODING_MIGRATION_TOPIC = "run_records_encoding";
+  private static final String RUN_RECORD_ENCODING_MIGRATION_SUBSCRIBER = "migration";
+  private static final String RUN_RECORD_ENCODING_MIGRATION_COMPLETED = "completed";
 
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
     .put(ProgramRunStatus.PENDING, TYPE_RUN_RECORD_ACTIVE)
@@ -126,22 +145,34 @@ public class AppMetadataStore {
 
 
   private final StructuredTableContext context;
+  @Nullable
+  private final ApplicationMetaCache applicationMetaCache;
   private StructuredTable applicationSpecificationTable;
   private StructuredTable workflowNodeStateTable;
   private StructuredTable runRecordsTable;
   private StructuredTable workflowsTable;
   private StructuredTable programCountsTable;
   private StructuredTable subscriberStateTable;
+  private StructuredTable runRecordsStopTimeIndexTable;
 
   /**
    * Static method for creating an instance of {@link AppMetadataStore}.
    */
   public static AppMetadataStore create(StructuredTableContext context) {
-    return new AppMetadataStore(context);
+    return new AppMetadataStore(context, null);
+  }
+
+  /**
+   * Static method for creating an instance of {@link AppMetadataStore} that reuses the applications decoded by
+   * earlier transactions from the given cache.
+   */
+  static AppMetadataStore create(StructuredTableContext context, ApplicationMetaCache applicationMetaCache) {
+    return new AppMetadataStore(context, applicationMetaCache);
   }
 
-  private AppMetadataStore(StructuredTableContext context) {
+  private AppMetadataStore(StructuredTableContext context, @Nullable ApplicationMetaCache applicationMetaCache) {
     this.context = context;
+    this.applicationMetaCache = applicationMetaCache;
   }
 
   private StructuredTable getApplicationSpecificationTable() {
@@ -210,6 +241,18 @@ public class AppMetadataStore {
     return subscriberStateTable;
   }
 
+  private StructuredTable getRunRecordsStopTimeIndexTable() {
+    try {
+      if (runRecordsStopTimeIndexTable == null) {
+        runRecordsStopTimeIndexTable =
+          context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_STOP_TIME_INDEX);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runRecordsStopTimeIndexTable;
+  }
+
   @Nullable
   public ApplicationMeta getApplication(ApplicationId appId) throws IOException {
     return getApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion());
@@ -220,30 +263,16 @@ public class AppMetadataStore {
     throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     Optional<StructuredRow> row = getApplicationSpecificationTable().read(fields);
-    if (!row.isPresent()) {
-      return null;
-    }
-    return GSON.fromJson(
-      row.get().getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD), ApplicationMeta.class);
+    return row.isPresent() ? decodeApplicationMeta(row.get()) : null;
   }
 
   public List<ApplicationMeta> getAllApplications(String namespaceId) throws IOException {
-    return
-      scanWithRange(
-        getNamespaceRange(namespaceId),
-        ApplicationMeta.class,
-        getApplicationSpecificationTable(),
-        StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplications(getNamespaceRange(namespaceId));
   }
 
   public List<ApplicationMeta> getAllAppVersions(String namespaceId, String appId)
     throws IOException {
-    return
-      scanWithRange(
-        getNamespaceAndApplicationRange(namespaceId, appId),
-        ApplicationMeta.class,
-        getApplicationSpecificationTable(),
-        StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    return scanApplications(getNamespaceAndApplicationRange(namespaceId, appId));
   }
 
   public List<ApplicationId> getAllAppVersionsAppIds(String namespaceId, String appId)
@@ -284,11 +313,17 @@ public class AppMetadataStore {
     throws IOException {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     getApplicationSpecificationTable().delete(fields);
+    if (applicationMetaCache != null) {
+      applicationMetaCache.invalidate(new ApplicationId(namespaceId, appId, versionId));
+    }
   }
 
   public void deleteApplications(String namespaceId)
     throws IOException {
     getApplicationSpecificationTable().deleteAll(getNamespaceRange(namespaceId));
+    if (applicationMetaCache != null) {
+      applicationMetaCache.invalidateAll(namespaceId);
+    }
   }
 
   // todo: do we need appId? may be use from appSpec?
@@ -362,9 +397,8 @@ public class AppMetadataStore {
       // Update the parent Workflow run record by adding node id and program run id in the properties
       Map<String, String> properties = new HashMap<>(record.getProperties());
       properties.put(workflowNodeId, programRunId.getRun());
-      writeToStructuredTableWithPrimaryKeys(
-        runRecordFields, RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build(),
-        getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+      writeRunRecord(runRecordFields,
+                     RunRecordMeta.builder(record).setProperties(properties).setSourceId(sourceId).build());
     }
   }
 
@@ -425,8 +459,7 @@ public class AppMetadataStore {
       .setPrincipal(systemArgs.get(ProgramOptionConstants.PRINCIPAL))
       .build();
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_ACTIVE, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONING, programRunId);
@@ -480,8 +513,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.PROVISIONED, programRunId);
     return meta;
   }
@@ -520,8 +552,7 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONING, programRunId);
     return meta;
   }
@@ -561,8 +592,8 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addStopTimeIndex(meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.DEPROVISIONED, programRunId);
     return meta;
   }
@@ -601,8 +632,8 @@ public class AppMetadataStore {
       .setCluster(cluster)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addStopTimeIndex(meta);
     LOG.trace("Recorded {} for program {}", ProgramRunClusterStatus.ORPHANED, programRunId);
     return meta;
   }
@@ -643,8 +674,8 @@ public class AppMetadataStore {
       .build();
 
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, startTs);
-    writeToStructuredTableWithPrimaryKeys(
-      fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(fields, meta);
+    addStopTimeIndex(meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.REJECTED, programRunId);
@@ -690,8 +721,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.STARTING, programRunId);
     return meta;
   }
@@ -737,8 +767,7 @@ public class AppMetadataStore {
       .setTwillRunId(twillRunId)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.RUNNING, programRunId);
     return meta;
   }
@@ -813,8 +842,7 @@ public class AppMetadataStore {
       }
     }
     RunRecordMeta meta = builder.build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
     LOG.trace("Recorded {} for program {}", toStatus, programRunId);
     return meta;
   }
@@ -860,8 +888,8 @@ public class AppMetadataStore {
       .setStatus(runStatus)
       .setSourceId(sourceId)
       .build();
-    writeToStructuredTableWithPrimaryKeys(
-      key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    writeRunRecord(key, meta);
+    addStopTimeIndex(meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -1203,7 +1231,7 @@ public class AppMetadataStore {
    * @param namespaces fetch run history that is belonged to one of these namespaces
    * @param earliestStopTime fetch run history that has stopped at or after the earliestStopTime in seconds
    * @param latestStartTime fetch run history that has started before the latestStartTime in seconds
-   * @param limit max number of entries to fetch for this history call
+   * @param limit max number of entries to fetch from each namespace
    * @return map of logged runs
    */
   public Map<ProgramRunId, RunRecordMeta> getHistoricalRuns(final Set<NamespaceId> namespaces,
@@ -1211,19 +1239,95 @@ public class AppMetadataStore {
                                                             final int limit)
     throws IOException {
     Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+    boolean indexed = isStopTimeIndexComplete();
     for (NamespaceId namespaceId : namespaces) {
+      if (indexed) {
+        addHistoricalRunsFromIndex(namespaceId.getNamespace(), earliestStopTime, latestStartTime, limit, result);
+        continue;
+      }
       // get active runs in a time window with range [earliestStopTime, latestStartTime),
       // which excludes program run records that stopped before earliestStopTime and
       // program run records that started after latestStartTime, all remaining records are active
       // at some point within the time window and will be returned
       result.putAll(getProgramRunIdMap(Range.singleton(
         getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)),
-                                       meta -> meta.getStopTs() != null && meta.getStopTs() >= earliestStopTime
-                                         && meta.getStartTs() < latestStartTime, null, limit));
+        meta -> meta.getStopTs() != null && meta.getStopTs() >= earliestStopTime
+          && meta.getStartTs() < latestStartTime, null, limit));
     }
     return result;
   }
 
+  /**
+   * Adds up to limit run records of the given namespace that are active within the given time window to the result,
+   * using the stop time index to find them.
+   */
+  private void addHistoricalRunsFromIndex(String namespace, long earliestStopTime, long latestStartTime, int limit,
+                                          Map<ProgramRunId, RunRecordMeta> result) throws IOException {
+    List<StructuredRow> hits = new ArrayList<>();
+    int found = 0;
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsStopTimeIndexTable().scan(getStopTimeIndexRange(namespace, earliestStopTime),
+                                                  Integer.MAX_VALUE)) {
+      while (iterator.hasNext() && found < limit) {
+        StructuredRow row = iterator.next();
+        if (!isInTimeWindow(row, earliestStopTime, latestStartTime)) {
+          continue;
+        }
+        hits.add(row);
+        // never read more hits than still needed, since index entries of deleted run records are skipped
+        if (hits.size() >= Math.min(STOP_TIME_INDEX_READ_BATCH_SIZE, limit - found)) {
+          found += readIndexedRuns(hits, result);
+          hits.clear();
+        }
+      }
+    }
+    if (!hits.isEmpty()) {
+      readIndexedRuns(hits, result);
+    }
+  }
+
+  /**
+   * Reads the run records that the given stop time index rows refer to and adds them to the result. The run records
+   * of each program are read with one scan over the start times of the hits, rather than one read per hit.
+   *
+   * @return the number of run records added
+   */
+  private int readIndexedRuns(List<StructuredRow> hits,
+                              Map<ProgramRunId, RunRecordMeta> result) throws IOException {
+    Map<ProgramId, List<StructuredRow>> hitsByProgram = hits.stream()
+      .collect(Collectors.groupingBy(AppMetadataStore::getStopTimeIndexProgramId, LinkedHashMap::new,
+                                     Collectors.toList()));
+    int added = 0;
+    for (Map.Entry<ProgramId, List<StructuredRow>> entry : hitsByProgram.entrySet()) {
+      Set<String> runIds = new HashSet<>();
+      long minStartTime = Long.MAX_VALUE;
+      long maxStartTime = Long.MIN_VALUE;
+      for (StructuredRow row : entry.getValue()) {
+        runIds.add(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD));
+        long startTime = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
+        minStartTime = Math.min(minStartTime, startTime);
+        maxStartTime = Math.max(maxStartTime, startTime);
+      }
+      // run records are keyed by inverted start time, so the latest start time is the beginning of the range
+      List<Field<?>> begin = getRunRecordProgramPrefix(TYPE_RUN_RECORD_COMPLETED, entry.getKey());
+      begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME,
+                                 getInvertedTsKeyPart(maxStartTime)));
+      List<Field<?>> end = getRunRecordProgramPrefix(TYPE_RUN_RECORD_COMPLETED, entry.getKey());
+      end.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, getInvertedTsKeyPart(minStartTime)));
+
+      List<RunRecordMeta> runs = new ArrayList<>();
+      // index entries whose run record no longer exists are skipped
+      enumerateProgramRuns(Range.create(begin, Range.Bound.INCLUSIVE, end, Range.Bound.INCLUSIVE), null,
+                           row -> runIds.contains(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)),
+                           Integer.MAX_VALUE, runs::add);
+      for (RunRecordMeta meta : runs) {
+        result.put(meta.getProgramRunId(), meta);
+      }
+      added += runs.size();
+    }
+    return added;
+  }
+
   private Map<ProgramRunId, RunRecordMeta> getHistoricalRuns(List<Field<?>> historyKey, ProgramRunStatus status,
                                                              final long startTime, final long endTime, int limit,
                                                              @Nullable Predicate<RunRecordMeta> valueFilter)
@@ -1296,6 +1400,8 @@ public class AppMetadataStore {
   public void deleteProgramHistory(String namespaceId, String appId, String versionId)
     throws IOException {
     ApplicationId applicationId = new ApplicationId(namespaceId, appId, versionId);
+    // the stop time index keys are built from the completed run records, so they are deleted first
+    deleteStopTimeIndex(applicationId);
     getRunRecordsTable()
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId)));
     getRunRecordsTable()
@@ -1313,6 +1419,7 @@ public class AppMetadataStore {
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
+    getRunRecordsStopTimeIndexTable().deleteAll(Range.singleton(getStopTimeIndexNamespacePrefix(namespaceId)));
   }
 
   /**
@@ -1449,6 +1556,26 @@ public class AppMetadataStore {
   @VisibleForTesting
   Set<RunId> getRunningInRangeForStatus(String statusKey, final long startTimeInSecs,
                                         final long endTimeInSecs) throws IOException {
+    if (TYPE_RUN_RECORD_COMPLETED.equals(statusKey) && isStopTimeIndexComplete()) {
+      // Completed runs can be found from the stop time index without reading the run records
+      Set<RunId> result = new HashSet<>();
+      String namespace = getNextStopTimeIndexNamespace(null);
+      while (namespace != null) {
+        try (CloseableIterator<StructuredRow> iterator =
+               getRunRecordsStopTimeIndexTable().scan(getStopTimeIndexRange(namespace, startTimeInSecs),
+                                                      Integer.MAX_VALUE)) {
+          while (iterator.hasNext()) {
+            StructuredRow row = iterator.next();
+            if (isInTimeWindow(row, startTimeInSecs, endTimeInSecs)) {
+              result.add(RunIds.fromString(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD)));
+            }
+          }
+        }
+        namespace = getNextStopTimeIndexNamespace(namespace);
+      }
+      return result;
+    }
+
     // Create time filter to get running programs between start and end time
     Predicate<RunRecordMeta> timeFilter = (runRecordMeta) ->
       runRecordMeta.getStartTs() < endTimeInSecs &&
@@ -1471,6 +1598,7 @@ public class AppMetadataStore {
     deleteTable(getWorkflowsTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
+    getRunRecordsStopTimeIndexTable().deleteAll(Range.all());
   }
 
   private void deleteTable(StructuredTable table, String firstKey) throws IOException {
@@ -1524,6 +1652,9 @@ public class AppMetadataStore {
     List<Field<?>> fields = getApplicationPrimaryKeys(namespaceId, appId, versionId);
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD, serialized));
     getApplicationSpecificationTable().upsert(fields);
+    if (applicationMetaCache != null) {
+      applicationMetaCache.invalidate(new ApplicationId(namespaceId, appId, versionId));
+    }
   }
 
   private List<Field<?>> getWorkflowPrimaryKeysWithoutNode(ProgramRunId programRunId) {
@@ -1563,7 +1694,33 @@ public class AppMetadataStore {
     return fields;
   }
 
-  // Do NOT use with type = RunRecordMeta since that needs custom deserialization {@link deserializeRunRecordMeta}
+  private List<ApplicationMeta> scanApplications(Range range) throws IOException {
+    List<ApplicationMeta> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator =
+           getApplicationSpecificationTable().scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(decodeApplicationMeta(iterator.next()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Decodes the {@link ApplicationMeta} stored in the given row of the application specifications table,
+   * reusing the cached one if the serialized form is unchanged.
+   */
+  private ApplicationMeta decodeApplicationMeta(StructuredRow row) {
+    String serialized = row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD);
+    if (applicationMetaCache == null) {
+      return GSON.fromJson(serialized, ApplicationMeta.class);
+    }
+    ApplicationId appId = new ApplicationId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD),
+                                            row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+                                            row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD));
+    return applicationMetaCache.get(appId, serialized, data -> GSON.fromJson(data, ApplicationMeta.class));
+  }
+
+  // Do NOT use with type = RunRecordMeta since that needs custom deserialization {@link RunRecordMetaCodec}
   private <T> List<T> scanWithRange(Range range, Type typeofT, StructuredTable table, String field)
     throws IOException {
     List<T> result = new ArrayList<>();
@@ -1582,6 +1739,11 @@ public class AppMetadataStore {
     table.upsert(keys);
   }
 
+  private void writeRunRecord(List<Field<?>> keys, RunRecordMeta meta) throws IOException {
+    keys.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, RunRecordMetaCodec.encode(meta)));
+    getRunRecordsTable().upsert(keys);
+  }
+
   private List<Field<?>> getRunRecordStatusPrefix(String status) {
     List<Field<?>> fields = new ArrayList<>();
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, status));
@@ -1634,14 +1796,208 @@ public class AppMetadataStore {
     return deserializeRunRecordMeta(row.get());
   }
 
+  /**
+   * Adds the given completed run record to the stop time index. Run records that don't have a stop time are ignored.
+   */
+  private void addStopTimeIndex(RunRecordMeta meta) throws IOException {
+    Long stopTs = meta.getStopTs();
+    if (stopTs == null) {
+      return;
+    }
+    List<Field<?>> fields = getStopTimeIndexKey(meta, stopTs);
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, meta.getStartTs()));
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_STOP_TIME, stopTs));
+    getRunRecordsStopTimeIndexTable().upsert(fields);
+  }
+
+  /**
+   * Returns the key of the given completed run record in the stop time index.
+   */
+  private List<Field<?>> getStopTimeIndexKey(RunRecordMeta meta, long stopTs) {
+    ProgramRunId programRunId = meta.getProgramRunId();
+    List<Field<?>> fields = getStopTimeIndexNamespacePrefix(programRunId.getNamespace());
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_STOP_TIME_BUCKET, getStopTimeBucket(stopTs)));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, meta.getStatus().name()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, programRunId.getApplication()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, programRunId.getVersion()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, programRunId.getType().name()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programRunId.getProgram()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD, programRunId.getRun()));
+    return fields;
+  }
+
+  private List<Field<?>> getStopTimeIndexNamespacePrefix(String namespace) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, namespace));
+    return fields;
+  }
+
+  /**
+   * Returns the range of the stop time index that covers all runs of the given namespace stopped at or after the
+   * given time. Only the buckets starting from the one containing the given time are included.
+   */
+  private Range getStopTimeIndexRange(String namespace, long earliestStopTime) {
+    List<Field<?>> begin = getStopTimeIndexNamespacePrefix(namespace);
+    begin.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_STOP_TIME_BUCKET,
+                               getStopTimeBucket(earliestStopTime)));
+    return Range.create(begin, Range.Bound.INCLUSIVE, getStopTimeIndexNamespacePrefix(namespace),
+                        Range.Bound.INCLUSIVE);
+  }
+
+  /**
+   * Returns the first namespace in the stop time index after the given one, or {@code null} if there is none.
+   *
+   * @param namespace the namespace to start after, or {@code null} to get the first namespace
+   */
+  @Nullable
+  private String getNextStopTimeIndexNamespace(@Nullable String namespace) throws IOException {
+    Range range = namespace == null
+      ? Range.all()
+      : Range.from(getStopTimeIndexNamespacePrefix(namespace), Range.Bound.EXCLUSIVE);
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsStopTimeIndexTable().scan(range, 1)) {
+      return iterator.hasNext()
+        ? iterator.next().getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)
+        : null;
+    }
+  }
+
+  /**
+   * Returns whether the run of the given stop time index row stopped at or after the earliestStopTime and
+   * started before the latestStartTime.
+   */
+  private boolean isInTimeWindow(StructuredRow row, long earliestStopTime, long latestStartTime) {
+    Long stopTime = row.getLong(StoreDefinition.AppMetadataStore.RUN_STOP_TIME);
+    Long startTime = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
+    // index rows deleted earlier in the same transaction can be returned by the scan without any values
+    return stopTime != null && startTime != null && stopTime >= earliestStopTime && startTime < latestStartTime;
+  }
+
+  /**
+   * Deletes the rows of the completed runs of the given application from the stop time index. The keys are built
+   * from the completed run records of the application, so that the index rows of other applications are not read.
+   */
+  private void deleteStopTimeIndex(ApplicationId applicationId) throws IOException {
+    List<List<Field<?>>> keys = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(
+             Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)),
+             Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        RunRecordMeta meta = deserializeRunRecordMeta(iterator.next());
+        if (meta.getStopTs() != null) {
+          keys.add(getStopTimeIndexKey(meta, meta.getStopTs()));
+        }
+      }
+    }
+    for (List<Field<?>> key : keys) {
+      getRunRecordsStopTimeIndexTable().delete(key);
+    }
+  }
+
+  /**
+   * Returns whether all completed run records are in the stop time index, including the ones written before the
+   * index existed. Until then, time window queries have to scan the run records.
+   */
+  private boolean isStopTimeIndexComplete() throws IOException {
+    return STOP_TIME_INDEX_BACKFILL_COMPLETED.equals(
+      retrieveSubscriberState(STOP_TIME_INDEX_BACKFILL_TOPIC, STOP_TIME_INDEX_BACKFILL_SUBSCRIBER));
+  }
+
+  /**
+   * Adds the next batch of completed run records to the stop time index, continuing from the position where the
+   * previous batch ended. Runs completed after the index was added are already indexed and are simply written again.
+   *
+   * @param batchSize the maximum number of run records to index
+   * @return {@code true} if all completed run records are indexed
+   */
+  public boolean backfillStopTimeIndex(int batchSize) throws IOException {
+    String position = retrieveSubscriberState(STOP_TIME_INDEX_BACKFILL_TOPIC, STOP_TIME_INDEX_BACKFILL_SUBSCRIBER);
+    if (STOP_TIME_INDEX_BACKFILL_COMPLETED.equals(position)) {
+      return true;
+    }
+
+    List<RunRecordMeta> runs = new ArrayList<>();
+    enumerateProgramRuns(getCompletedRunRecordsRange(position), null, null, batchSize, runs::add);
+    for (RunRecordMeta meta : runs) {
+      addStopTimeIndex(meta);
+    }
+    if (runs.size() < batchSize) {
+      persistSubscriberState(STOP_TIME_INDEX_BACKFILL_TOPIC, STOP_TIME_INDEX_BACKFILL_SUBSCRIBER,
+                             STOP_TIME_INDEX_BACKFILL_COMPLETED);
+      return true;
+    }
+    RunRecordMeta last = runs.get(runs.size() - 1);
+    persistSubscriberState(STOP_TIME_INDEX_BACKFILL_TOPIC, STOP_TIME_INDEX_BACKFILL_SUBSCRIBER,
+                           GSON.toJson(new RunRecordPosition(last.getProgramRunId(), last.getStartTs())));
+    return false;
+  }
+
+  /**
+   * Rewrites the completed run records of the next batch that are still stored as JSON in the binary encoding of
+   * {@link RunRecordMetaCodec}, continuing from the position where the previous batch ended. Active run records are
+   * rewritten on their next state transition.
+   *
+   * @param batchSize the maximum number of run records to read
+   * @return {@code true} if all completed run records are in the binary encoding
+   */
+  public boolean migrateRunRecordEncoding(int batchSize) throws IOException {
+    String position = retrieveSubscriberState(RUN_RECORD_ENCODING_MIGRATION_TOPIC,
+                                              RUN_RECORD_ENCODING_MIGRATION_SUBSCRIBER);
+    if (RUN_RECORD_ENCODING_MIGRATION_COMPLETED.equals(position)) {
+      return true;
+    }
+
+    List<StructuredRow> rows = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTable().scan(getCompletedRunRecordsRange(position), batchSize)) {
+      iterator.forEachRemaining(rows::add);
+    }
+    for (StructuredRow row : rows) {
+      if (RunRecordMetaCodec.isJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA))) {
+        writeRunRecord(new ArrayList<>(row.getPrimaryKeys()), deserializeRunRecordMeta(row));
+      }
+    }
+    if (rows.size() < batchSize) {
+      persistSubscriberState(RUN_RECORD_ENCODING_MIGRATION_TOPIC, RUN_RECORD_ENCODING_MIGRATION_SUBSCRIBER,
+                             RUN_RECORD_ENCODING_MIGRATION_COMPLETED);
+      return true;
+    }
+    RunRecordMeta last = deserializeRunRecordMeta(rows.get(rows.size() - 1));
+    persistSubscriberState(RUN_RECORD_ENCODING_MIGRATION_TOPIC, RUN_RECORD_ENCODING_MIGRATION_SUBSCRIBER,
+                           GSON.toJson(new RunRecordPosition(last.getProgramRunId(), last.getStartTs())));
+    return false;
+  }
+
+  /**
+   * Returns the range of the completed run records that follow the given position.
+   *
+   * @param position the position of the last run record processed, or {@code null} to start from the first one
+   */
+  private Range getCompletedRunRecordsRange(@Nullable String position) {
+    List<Field<?>> prefix = getRunRecordStatusPrefix(TYPE_RUN_RECORD_COMPLETED);
+    if (position == null) {
+      return Range.singleton(prefix);
+    }
+    RunRecordPosition last = GSON.fromJson(position, RunRecordPosition.class);
+    return Range.create(getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, last.getProgramRunId(), last.startTs),
+                        Range.Bound.EXCLUSIVE, prefix, Range.Bound.INCLUSIVE);
+  }
+
+  private static ProgramId getStopTimeIndexProgramId(StructuredRow row) {
+    return new ApplicationId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD),
+                             row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+                             row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD))
+      .program(ProgramType.valueOf(row.getString(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD)),
+               row.getString(StoreDefinition.AppMetadataStore.PROGRAM_FIELD));
+  }
+
+  private static long getStopTimeBucket(long stopTs) {
+    return stopTs - stopTs % STOP_TIME_BUCKET_SECS;
+  }
+
   private static RunRecordMeta deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordMeta existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordMeta.class);
-    RunRecordMeta newMeta = RunRecordMeta.builder(existing)
-      .setProgramRunId(
-        getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-      .build();
-    return newMeta;
+    return RunRecordMetaCodec.decode(getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())),
+                                     row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA));
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -1665,4 +2021,33 @@ public class AppMetadataStore {
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programId.getProgram()));
     return fields;
   }
+
+  /**
+   * The last completed run record processed by a batch of the stop time index backfill or of the run record
+   * encoding migration.
+   */
+  private static final class RunRecordPosition {
+    private final String namespace;
+    private final String application;
+    private final String version;
+    private final String programType;
+    private final String program;
+    private final String run;
+    private final long startTs;
+
+    RunRecordPosition(ProgramRunId programRunId, long startTs) {
+      this.namespace = programRunId.getNamespace();
+      this.application = programRunId.getApplication();
+      this.version = programRunId.getVersion();
+      this.programType = programRunId.getType().name();
+      this.program = programRunId.getProgram();
+      this.run = programRunId.getRun();
+      this.startTs = startTs;
+    }
+
+    ProgramRunId getProgramRunId() {
+      return new ApplicationId(namespace, application, version)
+        .program(ProgramType.valueOf(programType), program).run(run);
+    }
+  }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.proto.id.ApplicationId;
+
+import java.util.function.Function;
+
+/**
+ * A bounded cache of decoded {@link ApplicationMeta}, weighted by the size of the serialized application.
+ *
+ * Each entry remembers the serialized form it was decoded from. Since the serialized form carries the last update
+ * time of the application, it acts as the version of the entry: a cached entry is only used if the serialized form
+ * read from the store is identical, hence writes done by other processes or transactions never result in a stale
+ * read. Local writes invalidate the entry to release the memory early.
+ *
+ * Hits and misses are emitted as the {@link Constants.Metrics.AppMetadataStore#APPLICATION_CACHE_HITS} and
+ * {@link Constants.Metrics.AppMetadataStore#APPLICATION_CACHE_MISSES} metrics.
+ */
+@Singleton
+public final class ApplicationMetaCache {
+
+  // Maximum total size in characters of the serialized applications kept in the cache
+  private static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+
+  private final Cache<ApplicationId, Entry> cache;
+  private volatile MetricsContext metricsContext;
+
+  @Inject
+  public ApplicationMetaCache() {
+    this(DEFAULT_MAX_WEIGHT);
+  }
+
+  ApplicationMetaCache(long maxWeight) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher((Weigher<ApplicationId, Entry>) (key, entry) -> entry.serialized.length())
+      .build();
+    this.metricsContext = new NoopMetricsContext(Constants.Metrics.STORAGE_METRICS_TAGS);
+  }
+
+  /**
+   * Optional guice injection for the {@link MetricsCollectionService}. If not set, the hits and misses of the cache
+   * are not emitted.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS);
+  }
+
+  /**
+   * Returns the {@link ApplicationMeta} for the given serialized form, decoding it only if the cache doesn't have
+   * an entry decoded from the same serialized form.
+   *
+   * @param appId the application id
+   * @param serialized the serialized {@link ApplicationMeta} as read from the store
+   * @param decoder function to decode the serialized form
+   * @return the decoded {@link ApplicationMeta}
+   */
+  ApplicationMeta get(ApplicationId appId, String serialized, Function<String, ApplicationMeta> decoder) {
+    Entry entry = cache.getIfPresent(appId);
+    if (entry != null && entry.serialized.equals(serialized)) {
+      metricsContext.increment(Constants.Metrics.AppMetadataStore.APPLICATION_CACHE_HITS, 1L);
+      return entry.meta;
+    }
+    metricsContext.increment(Constants.Metrics.AppMetadataStore.APPLICATION_CACHE_MISSES, 1L);
+    ApplicationMeta meta = decoder.apply(serialized);
+    cache.put(appId, new Entry(serialized, meta));
+    return meta;
+  }
+
+  /**
+   * Removes the entry of the given application.
+   */
+  void invalidate(ApplicationId appId) {
+    cache.invalidate(appId);
+  }
+
+  /**
+   * Removes the entries of all applications in the given namespace.
+   */
+  void invalidateAll(String namespace) {
+    cache.asMap().keySet().removeIf(appId -> namespace.equals(appId.getNamespace()));
+  }
+
+  /**
+   * A decoded {@link ApplicationMeta} together with the serialized form it was decoded from.
+   */
+  private static final class Entry {
+    private final String serialized;
+    private final ApplicationMeta meta;
+
+    private Entry(String serialized, ApplicationMeta meta) {
+      this.serialized = serialized;
+      this.meta = meta;
+    }
+  }
+}
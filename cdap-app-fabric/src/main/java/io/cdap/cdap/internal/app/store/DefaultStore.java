@@ -95,10 +95,16 @@ public class DefaultStore implements Store {
   private static final Type STRING_MAP_TYPE = new TypeToken<Map<String, String>>() { }.getType();
 
   private TransactionRunner transactionRunner;
+  private final ApplicationMetaCache applicationMetaCache;
 
-  @Inject
   public DefaultStore(TransactionRunner transactionRunner) {
+    this(transactionRunner, new ApplicationMetaCache());
+  }
+
+  @Inject
+  public DefaultStore(TransactionRunner transactionRunner, ApplicationMetaCache applicationMetaCache) {
     this.transactionRunner = transactionRunner;
+    this.applicationMetaCache = applicationMetaCache;
   }
 
   /**
@@ -112,7 +118,7 @@ public class DefaultStore implements Store {
   }
 
   private AppMetadataStore getAppMetadataStore(StructuredTableContext context) {
-    return AppMetadataStore.create(context);
+    return AppMetadataStore.create(context, applicationMetaCache);
   }
 
   private WorkflowTable getWorkflowTable(StructuredTableContext context) throws TableNotFoundException {
@@ -384,6 +390,26 @@ public class DefaultStore implements Store {
     });
   }
 
+  @Override
+  public void backfillRunRecordsStopTimeIndex(int batchSize) {
+    boolean completed = false;
+    while (!completed) {
+      completed = TransactionRunners.run(transactionRunner, context -> {
+        return getAppMetadataStore(context).backfillStopTimeIndex(batchSize);
+      });
+    }
+  }
+
+  @Override
+  public void migrateRunRecordsEncoding(int batchSize) {
+    boolean completed = false;
+    while (!completed) {
+      completed = TransactionRunners.run(transactionRunner, context -> {
+        return getAppMetadataStore(context).migrateRunRecordEncoding(batchSize);
+      });
+    }
+  }
+
   /**
    * Returns run record for a given run.
    *
@@ -19,11 +19,20 @@ package io.cdap.cdap.internal.app.services;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Injector;
 import io.cdap.cdap.AllProgramsApp;
+import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.api.artifact.ArtifactScope;
 import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.app.program.ProgramDescriptor;
 import io.cdap.cdap.app.runtime.ProgramOptions;
+import io.cdap.cdap.app.runtime.ProgramStateWriter;
+import io.cdap.cdap.app.store.Store;
+import io.cdap.cdap.common.NotFoundException;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.internal.app.runtime.BasicArguments;
+import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
+import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.app.services.http.AppFabricTestBase;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
@@ -32,10 +41,13 @@ import io.cdap.cdap.internal.provision.MockProvisioner;
 import io.cdap.cdap.internal.provision.ProvisioningService;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.ProgramStatusResult;
 import io.cdap.cdap.proto.ProgramType;
+import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.proto.profile.Profile;
 import io.cdap.cdap.proto.provisioner.ProvisionerInfo;
 import org.junit.AfterClass;
@@ -47,9 +59,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ProgramLifecycleService tests.
@@ -161,6 +175,66 @@ public class ProgramLifecycleServiceTest extends AppFabricTestBase {
     Assert.assertEquals(ProgramStatus.STOPPED, status);
   }
 
+  @Test
+  public void testGetProgramStatuses() throws Exception {
+    deploy(AllProgramsApp.class, 200);
+    ApplicationId appId = NamespaceId.DEFAULT.app(AllProgramsApp.NAME);
+    ProgramId serviceId = appId.program(ProgramType.SERVICE, AllProgramsApp.NoOpService.NAME);
+    ProgramId workerId = appId.program(ProgramType.WORKER, AllProgramsApp.NoOpWorker.NAME);
+    ProgramId missingProgramId = appId.program(ProgramType.SERVICE, "missing");
+    ProgramId missingAppProgramId = NamespaceId.DEFAULT.app("missing").program(ProgramType.SERVICE, "service");
+    List<ProgramId> programIds = Arrays.asList(serviceId, missingAppProgramId, missingProgramId, workerId);
+
+    // Results are in the order of the request, with an exception for each missing application or program
+    List<ProgramStatusResult> results = programLifecycleService.getProgramStatuses(programIds);
+    Assert.assertEquals(programIds.size(), results.size());
+    for (int i = 0; i < programIds.size(); i++) {
+      Assert.assertEquals(programIds.get(i), results.get(i).getProgramId());
+    }
+    Assert.assertEquals(ProgramStatus.STOPPED, results.get(0).getStatus());
+    Assert.assertNull(results.get(1).getStatus());
+    Assert.assertEquals(new NotFoundException(appId.getParent().app("missing")).getMessage(),
+                        results.get(1).getException().getMessage());
+    Assert.assertNull(results.get(2).getStatus());
+    Assert.assertEquals(new NotFoundException(missingProgramId).getMessage(),
+                        results.get(2).getException().getMessage());
+    Assert.assertEquals(ProgramStatus.STOPPED, results.get(3).getStatus());
+
+    // Record a run of the service through program state notifications, which keep the status view up to date
+    ProgramStateWriter programStateWriter = getInjector().getInstance(ProgramStateWriter.class);
+    ApplicationSpecification appSpec = getInjector().getInstance(Store.class).getApplication(appId);
+    Map<String, String> systemArgs = new HashMap<>();
+    systemArgs.put(ProgramOptionConstants.SKIP_PROVISIONING, Boolean.TRUE.toString());
+    systemArgs.put(SystemArguments.PROFILE_NAME, ProfileId.NATIVE.getScopedName());
+    ProgramRunId runId = serviceId.run(RunIds.generate());
+    programStateWriter.start(runId, new SimpleProgramOptions(serviceId, new BasicArguments(systemArgs),
+                                                             new BasicArguments()),
+                             null, new ProgramDescriptor(serviceId, appSpec));
+    waitForStatus(ProgramStatus.STARTING, serviceId);
+    programStateWriter.running(runId, null);
+    waitForStatus(ProgramStatus.RUNNING, serviceId);
+    Assert.assertEquals(ProgramStatus.STOPPED,
+                        programLifecycleService.getProgramStatuses(Collections.singleton(workerId)).get(0).getStatus());
+
+    // Without the view, the status is read from the active run records
+    ProgramRunStatusView programRunStatusView = getInjector().getInstance(ProgramRunStatusView.class);
+    programRunStatusView.clear();
+    results = programLifecycleService.getProgramStatuses(Arrays.asList(serviceId, workerId));
+    Assert.assertEquals(ProgramStatus.RUNNING, results.get(0).getStatus());
+    Assert.assertEquals(ProgramStatus.STOPPED, results.get(1).getStatus());
+
+    // The view is loaded again when the next notification is processed
+    programStateWriter.completed(runId);
+    waitForStatus(ProgramStatus.STOPPED, serviceId);
+    Tasks.waitFor(true, programRunStatusView::isLoaded, 10, TimeUnit.SECONDS);
+    Assert.assertEquals(ProgramStatus.STOPPED, programRunStatusView.getProgramStatus(serviceId));
+  }
+
+  private void waitForStatus(ProgramStatus expected, ProgramId programId) throws Exception {
+    Tasks.waitFor(expected, () -> programLifecycleService.getProgramStatuses(Collections.singleton(programId))
+      .get(0).getStatus(), 10, TimeUnit.SECONDS);
+  }
+
   @Test
   public void testProfileProgramTypeRestrictions() throws Exception {
     deploy(AllProgramsApp.class, 200);
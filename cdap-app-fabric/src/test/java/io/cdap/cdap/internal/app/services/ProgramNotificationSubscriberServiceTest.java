@@ -43,6 +43,7 @@ import io.cdap.cdap.internal.app.store.AppMetadataStore;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
 import io.cdap.cdap.internal.profile.ProfileService;
 import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramStatus;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
@@ -135,6 +136,61 @@ public class ProgramNotificationSubscriberServiceTest {
     programStateWriter.completed(runId);
   }
 
+  @Test
+  public void testProgramRunStatusView() throws Exception {
+    ProgramRunStatusView programRunStatusView = injector.getInstance(ProgramRunStatusView.class);
+    Tasks.waitFor(true, programRunStatusView::isLoaded, 10, TimeUnit.SECONDS);
+
+    ProgramId programId = NamespaceId.DEFAULT.app("viewapp").program(ProgramType.SERVICE, "s");
+    ProgramId otherProgramId = NamespaceId.DEFAULT.app("viewapp").program(ProgramType.WORKER, "w");
+    Map<String, String> systemArguments = new HashMap<>();
+    systemArguments.put(ProgramOptionConstants.SKIP_PROVISIONING, Boolean.TRUE.toString());
+    systemArguments.put(SystemArguments.PROFILE_NAME, ProfileId.NATIVE.getScopedName());
+    ProgramOptions programOptions = new SimpleProgramOptions(programId, new BasicArguments(systemArguments),
+                                                             new BasicArguments());
+    ArtifactId artifactId = NamespaceId.DEFAULT.artifact("testArtifact", "1.0").toApiArtifactId();
+    ApplicationSpecification appSpec = new DefaultApplicationSpecification(
+      "viewapp", "1.0.0", "desc", null, artifactId,
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+      Collections.emptyMap());
+    ProgramDescriptor programDescriptor = new ProgramDescriptor(programId, appSpec);
+
+    ProgramRunId runId1 = programId.run(RunIds.generate());
+    programStateWriter.start(runId1, programOptions, null, programDescriptor);
+    waitForViewStatus(programRunStatusView, programId, ProgramStatus.STARTING);
+    programStateWriter.running(runId1, null);
+    waitForViewStatus(programRunStatusView, programId, ProgramStatus.RUNNING);
+    programStateWriter.suspend(runId1);
+    checkProgramStatus(artifactId, runId1, ProgramRunStatus.SUSPENDED);
+    Assert.assertEquals(ProgramStatus.RUNNING, programRunStatusView.getProgramStatus(programId));
+
+    // A second run that is starting doesn't change the status while the first one is active
+    ProgramRunId runId2 = programId.run(RunIds.generate());
+    programStateWriter.start(runId2, programOptions, null, programDescriptor);
+    checkProgramStatus(artifactId, runId2, ProgramRunStatus.STARTING);
+    Assert.assertEquals(ProgramStatus.RUNNING, programRunStatusView.getProgramStatus(programId));
+    Assert.assertEquals(ProgramStatus.STOPPED, programRunStatusView.getProgramStatus(otherProgramId));
+
+    // Runs that reach an end state are removed from the view
+    programStateWriter.error(runId1, new Throwable("Testing"));
+    waitForViewStatus(programRunStatusView, programId, ProgramStatus.STARTING);
+    programStateWriter.running(runId2, null);
+    waitForViewStatus(programRunStatusView, programId, ProgramStatus.RUNNING);
+    programStateWriter.completed(runId2);
+    waitForViewStatus(programRunStatusView, programId, ProgramStatus.STOPPED);
+
+    // The view agrees with the run records
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertTrue(AppMetadataStore.create(context).getActiveRuns(programId).isEmpty());
+    });
+  }
+
+  private void waitForViewStatus(ProgramRunStatusView programRunStatusView, ProgramId programId,
+                                 ProgramStatus expected) throws Exception {
+    Tasks.waitFor(expected, () -> programRunStatusView.getProgramStatus(programId), 10, TimeUnit.SECONDS);
+  }
+
   @Test
   public void testMetricsEmit() throws Exception {
     ProfileService profileService = injector.getInstance(ProfileService.class);
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.services;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ProgramRunStatusView}.
+ */
+public class ProgramRunStatusViewTest {
+
+  @Test
+  public void testNotLoaded() {
+    ProgramRunStatusView view = new ProgramRunStatusView();
+    ProgramId programId = NamespaceId.DEFAULT.app("app").mr("mr");
+    Assert.assertFalse(view.isLoaded());
+    Assert.assertNull(view.getProgramStatus(programId));
+
+    // Updates are ignored until the view is loaded
+    view.update(Collections.singletonMap(programId.run(RunIds.generate()), ProgramRunStatus.RUNNING));
+    Assert.assertNull(view.getProgramStatus(programId));
+
+    view.load(Collections.emptyMap());
+    Assert.assertTrue(view.isLoaded());
+    Assert.assertEquals(ProgramStatus.STOPPED, view.getProgramStatus(programId));
+
+    view.clear();
+    Assert.assertFalse(view.isLoaded());
+    Assert.assertNull(view.getProgramStatus(programId));
+  }
+
+  @Test
+  public void testTransitions() {
+    ProgramId programId = NamespaceId.DEFAULT.app("app").workflow("workflow");
+    ProgramRunId run1 = programId.run(RunIds.generate());
+    ProgramRunId run2 = programId.run(RunIds.generate());
+
+    ProgramRunStatusView view = new ProgramRunStatusView();
+    view.load(Collections.singletonMap(run1, createRunRecord(run1, ProgramRunStatus.PENDING)));
+    Assert.assertEquals(ProgramStatus.STARTING, view.getProgramStatus(programId));
+
+    view.update(ImmutableMap.of(run1, ProgramRunStatus.RUNNING, run2, ProgramRunStatus.PENDING));
+    Assert.assertEquals(ProgramStatus.RUNNING, view.getProgramStatus(programId));
+
+    view.update(Collections.singletonMap(run1, ProgramRunStatus.SUSPENDED));
+    Assert.assertEquals(ProgramStatus.RUNNING, view.getProgramStatus(programId));
+
+    view.update(Collections.singletonMap(run1, ProgramRunStatus.COMPLETED));
+    Assert.assertEquals(ProgramStatus.STARTING, view.getProgramStatus(programId));
+
+    view.update(Collections.singletonMap(run2, ProgramRunStatus.FAILED));
+    Assert.assertEquals(ProgramStatus.STOPPED, view.getProgramStatus(programId));
+
+    // Transitions of other programs don't affect the program
+    ProgramId otherId = NamespaceId.DEFAULT.app("app").spark("spark");
+    view.update(Collections.singletonMap(otherId.run(RunIds.generate()), ProgramRunStatus.STARTING));
+    Assert.assertEquals(ProgramStatus.STOPPED, view.getProgramStatus(programId));
+    Assert.assertEquals(ProgramStatus.STARTING, view.getProgramStatus(otherId));
+  }
+
+  @Test
+  public void testManyPrograms() {
+    // Simulates the batch status of 1000 programs, with a quarter of them having an active run
+    List<ProgramId> programIds = new ArrayList<>();
+    Map<ProgramRunId, RunRecordMeta> activeRuns = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      ProgramId programId = new NamespaceId("ns" + (i % 10)).app("app" + (i % 100)).workflow("workflow" + i);
+      programIds.add(programId);
+      if (i % 4 == 0) {
+        ProgramRunId runId = programId.run(RunIds.generate());
+        activeRuns.put(runId, createRunRecord(runId, ProgramRunStatus.RUNNING));
+      }
+    }
+
+    ProgramRunStatusView view = new ProgramRunStatusView();
+    view.load(activeRuns);
+
+    for (int i = 0; i < programIds.size(); i++) {
+      Assert.assertEquals(i % 4 == 0 ? ProgramStatus.RUNNING : ProgramStatus.STOPPED,
+                          view.getProgramStatus(programIds.get(i)));
+    }
+
+    // Stop all the runs and check again
+    Map<ProgramRunId, ProgramRunStatus> transitions = new HashMap<>();
+    activeRuns.keySet().forEach(runId -> transitions.put(runId, ProgramRunStatus.KILLED));
+    view.update(transitions);
+    for (ProgramId programId : programIds) {
+      Assert.assertEquals(ProgramStatus.STOPPED, view.getProgramStatus(programId));
+    }
+  }
+
+  private RunRecordMeta createRunRecord(ProgramRunId runId, ProgramRunStatus status) {
+    return RunRecordMeta.builder()
+      .setProgramRunId(runId)
+      .setStartTime(RunIds.getTime(runId.getRun(), TimeUnit.SECONDS))
+      .setArtifactId(new ArtifactId("r", new ArtifactVersion("1.0"), ArtifactScope.USER))
+      .setStatus(status)
+      .setSourceId(new byte[] { 0 })
+      .build();
+  }
+}
@@ -743,6 +743,57 @@ public class ProgramLifecycleHttpHandlerTest extends AppFabricTestBase {
                         returnedBody.get(2).get("error").getAsString());
   }
 
+  @Test
+  public void testBatchStatusAcrossApps() throws Exception {
+    String statusUrl = getVersionedAPIPath("status", Constants.Gateway.API_VERSION_3_TOKEN, TEST_NAMESPACE1);
+    deploy(AllProgramsApp.class, 200, Constants.Gateway.API_VERSION_3_TOKEN, TEST_NAMESPACE1);
+    deploy(AppWithServices.class, 200, Constants.Gateway.API_VERSION_3_TOKEN, TEST_NAMESPACE1);
+    ServiceId serviceId = new ServiceId(TEST_NAMESPACE1, AppWithServices.NAME, AppWithServices.SERVICE_NAME);
+    startProgram(serviceId);
+    waitState(serviceId, RUNNING);
+
+    // Programs of different applications, interleaved with missing applications and programs
+    List<Map<String, String>> request = Arrays.asList(
+      ImmutableMap.of("appId", AllProgramsApp.NAME, "programType", "Service",
+                      "programId", AllProgramsApp.NoOpService.NAME),
+      ImmutableMap.of("appId", "NotExist", "programType", "Service", "programId", "Service"),
+      ImmutableMap.of("appId", AppWithServices.NAME, "programType", "Service",
+                      "programId", AppWithServices.SERVICE_NAME),
+      ImmutableMap.of("appId", AllProgramsApp.NAME, "programType", "Service", "programId", "NotExist"),
+      ImmutableMap.of("appId", AllProgramsApp.NAME, "programType", "Worker",
+                      "programId", AllProgramsApp.NoOpWorker.NAME),
+      ImmutableMap.of("appId", "NotExist", "programType", "Worker", "programId", "Worker")
+    );
+    HttpResponse response = doPost(statusUrl, new Gson().toJson(request));
+    Assert.assertEquals(200, response.getResponseCode());
+    List<JsonObject> returnedBody = readResponse(response, LIST_OF_JSONOBJECT_TYPE);
+    Assert.assertEquals(request.size(), returnedBody.size());
+    // Results are in the order of the request
+    for (int i = 0; i < request.size(); i++) {
+      Assert.assertEquals(request.get(i).get("appId"), returnedBody.get(i).get("appId").getAsString());
+      Assert.assertEquals(request.get(i).get("programId"), returnedBody.get(i).get("programId").getAsString());
+    }
+    String missingAppError = new NotFoundException(new ApplicationId(TEST_NAMESPACE1, "NotExist")).getMessage();
+    Assert.assertEquals(STOPPED, returnedBody.get(0).get("status").getAsString());
+    Assert.assertEquals(404, returnedBody.get(1).get("statusCode").getAsInt());
+    Assert.assertEquals(missingAppError, returnedBody.get(1).get("error").getAsString());
+    Assert.assertEquals(200, returnedBody.get(2).get("statusCode").getAsInt());
+    Assert.assertEquals(RUNNING, returnedBody.get(2).get("status").getAsString());
+    Assert.assertEquals(404, returnedBody.get(3).get("statusCode").getAsInt());
+    Assert.assertEquals(new NotFoundException(new ProgramId(TEST_NAMESPACE1, AllProgramsApp.NAME, ProgramType.SERVICE,
+                                                            "NotExist")).getMessage(),
+                        returnedBody.get(3).get("error").getAsString());
+    Assert.assertEquals(STOPPED, returnedBody.get(4).get("status").getAsString());
+    Assert.assertEquals(404, returnedBody.get(5).get("statusCode").getAsInt());
+    Assert.assertEquals(missingAppError, returnedBody.get(5).get("error").getAsString());
+
+    stopProgram(serviceId);
+    waitState(serviceId, STOPPED);
+    response = doPost(statusUrl, new Gson().toJson(request.subList(2, 3)));
+    returnedBody = readResponse(response, LIST_OF_JSONOBJECT_TYPE);
+    Assert.assertEquals(STOPPED, returnedBody.get(0).get("status").getAsString());
+  }
+
   @Test
   public void testBatchInstances() throws Exception {
     String instancesUrl1 = getVersionedAPIPath("instances", Constants.Gateway.API_VERSION_3_TOKEN,
@@ -18,11 +18,18 @@ package io.cdap.cdap.internal.app.store;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import io.cdap.cdap.AllProgramsApp;
+import io.cdap.cdap.AppWithServices;
+import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
+import io.cdap.cdap.internal.app.deploy.Specifications;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.proto.ProgramRunStatus;
 import io.cdap.cdap.proto.ProgramType;
@@ -31,8 +38,14 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.StructuredTable;
+import io.cdap.cdap.spi.data.table.field.Field;
+import io.cdap.cdap.spi.data.table.field.Fields;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
@@ -290,6 +303,13 @@ public abstract class AppMetadataStoreTest {
       });
     }
 
+    // Scan the run records before the stop time index is complete, then scan the index
+    assertScanRunningInRange(expected);
+    backfillStopTimeIndex();
+    assertScanRunningInRange(expected);
+  }
+
+  private void assertScanRunningInRange(TreeSet<Long> expected) {
     // Run full scan
     runScan(expected, 0, Long.MAX_VALUE);
 
@@ -331,6 +351,170 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testGetHistoricalRuns() throws Exception {
+    NamespaceId ns1 = new NamespaceId("ns1");
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    // Add a run every hour that stops half an hour later, alternating between two namespaces
+    List<ProgramRunId> runs = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      NamespaceId namespace = i % 2 == 0 ? NamespaceId.DEFAULT : ns1;
+      ProgramId program = namespace.app("app" + i).workflow("program");
+      RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(i * hour));
+      ProgramRunId programRunId = program.run(runId);
+      runs.add(programRunId);
+      long stopTime = i * hour + hour / 2;
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        recordProvisionAndStart(programRunId, metadataStoreDataset);
+        metadataStoreDataset.recordProgramRunning(
+          programRunId, RunIds.getTime(runId, TimeUnit.SECONDS), null,
+          AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        metadataStoreDataset.recordProgramStop(programRunId, stopTime, ProgramRunStatus.COMPLETED, null,
+                                               AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      });
+    }
+    // Drop the index rows, as if the runs were recorded before the index existed
+    TransactionRunners.run(transactionRunner, context -> {
+      context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_STOP_TIME_INDEX).deleteAll(Range.all());
+    });
+
+    // Until the backfill is done the run records are scanned, afterwards the index is used
+    assertHistoricalRuns(runs, hour);
+    backfillStopTimeIndex();
+    assertHistoricalRuns(runs, hour);
+
+    // Deleting the program history should remove the runs from the index
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.deleteProgramHistory(ns1.getNamespace());
+      store.deleteProgramHistory(NamespaceId.DEFAULT.getNamespace(), runs.get(3).getApplication(),
+                                 runs.get(3).getVersion());
+      Set<RunId> expected = runs.stream()
+        .filter(run -> run.getNamespaceId().equals(NamespaceId.DEFAULT) && !run.equals(runs.get(3)))
+        .map(run -> RunIds.fromString(run.getRun()))
+        .collect(Collectors.toSet());
+      Assert.assertEquals(expected, store.getRunningInRangeForStatus("runRecordCompleted", 0, Long.MAX_VALUE));
+      Assert.assertEquals(ImmutableSet.of(runs.get(5)),
+                          store.getHistoricalRuns(ImmutableSet.of(NamespaceId.DEFAULT, ns1), 4 * hour, 8 * hour,
+                                                  Integer.MAX_VALUE).keySet());
+    });
+    // Only the index rows of the remaining runs are left
+    TransactionRunners.run(transactionRunner, context -> {
+      Set<RunId> indexed = new HashSet<>();
+      try (CloseableIterator<StructuredRow> iterator =
+             context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_STOP_TIME_INDEX).scan(Range.all(),
+                                                                                                  Integer.MAX_VALUE)) {
+        iterator.forEachRemaining(
+          row -> indexed.add(RunIds.fromString(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD))));
+      }
+      Assert.assertEquals(runs.stream()
+                            .filter(run -> run.getNamespaceId().equals(NamespaceId.DEFAULT) && !run.equals(runs.get(3)))
+                            .map(run -> RunIds.fromString(run.getRun()))
+                            .collect(Collectors.toSet()),
+                          indexed);
+    });
+  }
+
+  private void assertHistoricalRuns(List<ProgramRunId> runs, long hour) {
+    NamespaceId ns1 = runs.get(0).getNamespaceId();
+    Set<NamespaceId> namespaces = ImmutableSet.of(NamespaceId.DEFAULT, ns1);
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      // Runs 4 to 7 stopped after 4 hours and started before 8 hours
+      Assert.assertEquals(new HashSet<>(runs.subList(3, 7)),
+                          store.getHistoricalRuns(namespaces, 4 * hour, 8 * hour, Integer.MAX_VALUE).keySet());
+      // Only the even runs are in the default namespace
+      Assert.assertEquals(ImmutableSet.of(runs.get(3), runs.get(5)),
+                          store.getHistoricalRuns(Collections.singleton(NamespaceId.DEFAULT), 4 * hour, 8 * hour,
+                                                  Integer.MAX_VALUE).keySet());
+      // Stop time is inclusive and start time is exclusive
+      Assert.assertEquals(ImmutableSet.of(runs.get(3)),
+                          store.getHistoricalRuns(namespaces, 4 * hour + hour / 2, 5 * hour,
+                                                  Integer.MAX_VALUE).keySet());
+      // The limit applies to each namespace
+      Map<ProgramRunId, RunRecordMeta> limited = store.getHistoricalRuns(namespaces, 0, Long.MAX_VALUE, 2);
+      Assert.assertEquals(4, limited.size());
+      Assert.assertEquals(2, limited.keySet().stream().filter(run -> run.getNamespaceId().equals(ns1)).count());
+      Assert.assertEquals(2, store.getHistoricalRuns(Collections.singleton(ns1), 0, Long.MAX_VALUE, 2).size());
+      Assert.assertTrue(store.getHistoricalRuns(namespaces, 11 * hour, Long.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+      Assert.assertEquals(runs.stream().map(run -> RunIds.fromString(run.getRun())).collect(Collectors.toSet()),
+                          store.getRunningInRangeForStatus("runRecordCompleted", 0, Long.MAX_VALUE));
+    });
+  }
+
+  private void backfillStopTimeIndex() {
+    // Use a small batch size to index the run records in multiple batches
+    boolean completed = false;
+    while (!completed) {
+      completed = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).backfillStopTimeIndex(3);
+      });
+    }
+  }
+
+  @Test
+  public void testMigrateRunRecordEncoding() throws Exception {
+    ProgramId program = NamespaceId.DEFAULT.app("migrate").workflow("program");
+    Map<ProgramRunId, RunRecordMeta> expected = new HashMap<>();
+    for (int i = 1; i <= 7; i++) {
+      RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(i * 100));
+      ProgramRunId programRunId = program.run(runId);
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        recordProvisionAndStart(programRunId, metadataStoreDataset);
+        metadataStoreDataset.recordProgramRunning(
+          programRunId, RunIds.getTime(runId, TimeUnit.SECONDS), null,
+          AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        metadataStoreDataset.recordProgramStop(programRunId, RunIds.getTime(runId, TimeUnit.SECONDS) + 10,
+                                               ProgramRunStatus.COMPLETED, null,
+                                               AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+        expected.put(programRunId, metadataStoreDataset.getRun(programRunId));
+      });
+    }
+
+    // Rewrite the completed run records as JSON, as they were stored by earlier versions
+    Gson gson = new Gson();
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      List<StructuredRow> rows = new ArrayList<>();
+      Range range = Range.singleton(Collections.singleton(
+        Fields.stringField(StoreDefinition.AppMetadataStore.RUN_STATUS, "runRecordCompleted")));
+      try (CloseableIterator<StructuredRow> iterator = table.scan(range, Integer.MAX_VALUE)) {
+        iterator.forEachRemaining(rows::add);
+      }
+      Assert.assertEquals(expected.size(), rows.size());
+      for (StructuredRow row : rows) {
+        RunRecordMeta meta = RunRecordMetaCodec.decode(
+          program, row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA));
+        List<Field<?>> fields = new ArrayList<>(row.getPrimaryKeys());
+        fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA, gson.toJson(meta)));
+        table.upsert(fields);
+      }
+    });
+
+    // Use a small batch size to migrate the run records in multiple batches
+    boolean completed = false;
+    while (!completed) {
+      completed = TransactionRunners.run(transactionRunner, context -> {
+        return AppMetadataStore.create(context).migrateRunRecordEncoding(3);
+      });
+    }
+
+    TransactionRunners.run(transactionRunner, context -> {
+      StructuredTable table = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS);
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), Integer.MAX_VALUE)) {
+        iterator.forEachRemaining(
+          row -> Assert.assertFalse(RunRecordMetaCodec.isJson(
+            row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA))));
+      }
+      AppMetadataStore store = AppMetadataStore.create(context);
+      for (Map.Entry<ProgramRunId, RunRecordMeta> entry : expected.entrySet()) {
+        Assert.assertEquals(entry.getValue(), store.getRun(entry.getKey()));
+      }
+    });
+  }
+
   @Test
   public void testGetRuns() throws Exception {
     // Add some run records
@@ -725,6 +909,66 @@ public abstract class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testApplicationCache() throws Exception {
+    ApplicationId appId = NamespaceId.DEFAULT.app("cachedApp");
+    ApplicationSpecification spec = Specifications.from(new AllProgramsApp());
+    ApplicationMetaCache cache = new ApplicationMetaCache();
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      store.writeApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion(), spec);
+    });
+
+    AtomicReference<ApplicationMeta> cached = new AtomicReference<>();
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      cached.set(store.getApplication(appId));
+      Assert.assertNotNull(cached.get());
+    });
+
+    // Reading an unchanged application, either directly or through a scan, should not decode it again
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      Assert.assertSame(cached.get(), store.getApplication(appId));
+      Assert.assertSame(cached.get(), Iterables.getOnlyElement(
+        store.getAllAppVersions(appId.getNamespace(), appId.getApplication())));
+      // A store without the cache always decodes
+      Assert.assertNotSame(cached.get(), AppMetadataStore.create(context).getApplication(appId));
+    });
+
+    // An application updated through the cache should be decoded again
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      store.updateAppSpec(appId.getNamespace(), appId.getApplication(), appId.getVersion(),
+                          Specifications.from(new AppWithServices()));
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      ApplicationMeta updated = store.getApplication(appId);
+      Assert.assertNotSame(cached.get(), updated);
+      Assert.assertEquals(AppWithServices.NAME, updated.getSpec().getName());
+      cached.set(updated);
+    });
+
+    // An application deleted and written again without going through the cache, as done by another process,
+    // should be decoded again too
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      store.deleteApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion());
+      store.writeApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion(), spec);
+    });
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context, cache);
+      ApplicationMeta rewritten = store.getApplication(appId);
+      Assert.assertNotSame(cached.get(), rewritten);
+      Assert.assertEquals(spec.getName(), rewritten.getSpec().getName());
+      store.deleteApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion());
+      Assert.assertNull(store.getApplication(appId));
+    });
+  }
+
+
   private List<ProgramRunId> addProgramCount(ProgramId programId, int count) throws Exception {
     List<ProgramRunId> runIds = new ArrayList<>();
     for (int i = 0; i < count; i++) {
@@ -72,16 +72,20 @@ import io.cdap.cdap.etl.mock.batch.MockRuntimeDatasetSource;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.MockSource;
 import io.cdap.cdap.etl.mock.batch.NodeStatesAction;
+import io.cdap.cdap.etl.mock.batch.aggregator.DistinctAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountReducibleAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.GroupFilterAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.IdentityAggregator;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
 import io.cdap.cdap.etl.mock.condition.MockCondition;
 import io.cdap.cdap.etl.mock.test.HydratorTestBase;
 import io.cdap.cdap.etl.mock.transform.DropNullTransform;
+import io.cdap.cdap.etl.mock.transform.FieldsPrefixTransform;
 import io.cdap.cdap.etl.mock.transform.FilterErrorTransform;
 import io.cdap.cdap.etl.mock.transform.FlattenErrorTransform;
 import io.cdap.cdap.etl.mock.transform.IdentityTransform;
+import io.cdap.cdap.etl.mock.transform.IntValueFilterTransform;
 import io.cdap.cdap.etl.mock.transform.NullFieldSplitterTransform;
 import io.cdap.cdap.etl.mock.transform.SleepTransform;
 import io.cdap.cdap.etl.mock.transform.StringValueFilterTransform;
@@ -1854,6 +1858,201 @@ public class DataPipelineTest extends HydratorTestBase {
     testParallelAggregators(Engine.SPARK);
   }
 
+  @Test
+  public void testMapRedReducibleAggregator() throws Exception {
+    testReducibleAggregator(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSparkReducibleAggregator() throws Exception {
+    testReducibleAggregator(Engine.SPARK);
+  }
+
+  @Test
+  public void testSparkSkewedReducibleAggregator() throws Exception {
+    testReducibleAggregator(Engine.SPARK, "-skew",
+                            ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SKEW_SALT_COUNT, "4"));
+  }
+
+  @Test
+  public void testSparkSQLDistinctAggregator() throws Exception {
+    String sourceName = "distinctAggInput-sql";
+    String sinkName = "distinctAggOutput-sql";
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+    /*
+       source --> distinct --> sink
+     */
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .setEngine(Engine.SPARK)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, inputSchema)))
+      .addStage(new ETLStage("distinct", DistinctAggregator.getPlugin("user")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "distinct")
+      .addConnection("distinct", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("DistinctAggApp-sql");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 4L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "mary").set("item", 5L).build()));
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SPARK_SQL_ENABLED, "true"));
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Schema outputSchema = Schema.recordOf(
+      "testRecord.distinct",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING))
+    );
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "samuel").build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").build(),
+      StructuredRecord.builder(outputSchema).set("user", "mary").build());
+    Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    validateMetric(5, appId, "source.records.out");
+    validateMetric(5, appId, "distinct.records.in");
+    validateMetric(3, appId, "distinct.records.out");
+    validateMetric(3, appId, "sink.records.in");
+  }
+
+  @Test
+  public void testSparkSQLChainedAggregators() throws Exception {
+    String sourceName = "chainedAggInput-sql";
+    String sinkName = "chainedAggOutput-sql";
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+    /*
+       source --> distinct1 --> distinct2 --> sink
+     */
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .setEngine(Engine.SPARK)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, inputSchema)))
+      .addStage(new ETLStage("distinct1", DistinctAggregator.getPlugin("user,item")))
+      .addStage(new ETLStage("distinct2", DistinctAggregator.getPlugin("user")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "distinct1")
+      .addConnection("distinct1", "distinct2")
+      .addConnection("distinct2", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("ChainedAggApp-sql");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "mary").set("item", 4L).build()));
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SPARK_SQL_ENABLED, "true"));
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Schema outputSchema = Schema.recordOf(
+      "testRecord.distinct.distinct",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING))
+    );
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "samuel").build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").build(),
+      StructuredRecord.builder(outputSchema).set("user", "mary").build());
+    Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    // the rows of distinct1 are passed to distinct2 without converting them to records, and are still counted
+    validateMetric(5, appId, "source.records.out");
+    validateMetric(5, appId, "distinct1.records.in");
+    validateMetric(4, appId, "distinct1.records.out");
+    validateMetric(4, appId, "distinct2.records.in");
+    validateMetric(3, appId, "distinct2.records.out");
+    validateMetric(3, appId, "sink.records.in");
+  }
+
+  private void testReducibleAggregator(Engine engine) throws Exception {
+    // use a small number of combined groups, so that the mappers emit partially combined groups
+    testReducibleAggregator(engine, "",
+                            ImmutableMap.of(io.cdap.cdap.etl.common.Constants.AGGREGATOR_COMBINE_MAX_GROUPS, "2"));
+  }
+
+  private void testReducibleAggregator(Engine engine, String suffix,
+                                       Map<String, String> runtimeArgs) throws Exception {
+    String sourceName = "reducibleAggInput-" + engine.name() + suffix;
+    String sinkName = "reducibleAggOutput-" + engine.name() + suffix;
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+    /*
+       source --> agg --> sink
+     */
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .setEngine(engine)
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, inputSchema)))
+      .addStage(new ETLStage("agg", FieldCountReducibleAggregator.getPlugin("user")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "agg")
+      .addConnection("agg", "sink")
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("ReducibleAggApp-" + engine + suffix);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    DataSetManager<Table> inputManager = getDataset(NamespaceId.DEFAULT.dataset(sourceName));
+    MockSource.writeInput(inputManager, ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 4L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "mary").set("item", 5L).build()));
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(runtimeArgs);
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    Schema outputSchema = Schema.recordOf(
+      "user.count",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("ct", Schema.of(Schema.Type.LONG))
+    );
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "all").set("ct", 5L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "samuel").set("ct", 3L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").set("ct", 1L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "mary").set("ct", 1L).build());
+    Set<StructuredRecord> actual = Sets.newHashSet(MockSink.readOutput(sinkManager));
+    Assert.assertEquals(expected, actual);
+
+    validateMetric(5, appId, "source.records.out");
+    validateMetric(5, appId, "agg.records.in");
+    validateMetric(4, appId, "agg.aggregator.groups");
+    validateMetric(4, appId, "agg.records.out");
+    validateMetric(4, appId, "sink.records.in");
+  }
+
   private void testSequentialAggregators(Engine engine) throws Exception {
     String sourceName = "linearAggInput-" + engine.name();
     String sinkName = "linearAggOutput-" + engine.name();
@@ -2201,12 +2400,170 @@ public class DataPipelineTest extends HydratorTestBase {
     testInnerJoinWithMultiOutput(Engine.MAPREDUCE);
   }
 
+  @Test
+  public void testColumnarTransformsSpark() throws Exception {
+    /*
+     * source --> filter --> prefix --> identity --> sink
+     *
+     * all the transforms are columnar, so they run as one chain over batches of 2 records.
+     * The filter drops the record whose x is 3 as an error, and keeps the record whose x is null
+     */
+    Schema inputSchema = Schema.recordOf(
+      "item",
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("x", Schema.nullableOf(Schema.of(Schema.Type.INT)))
+    );
+    Schema outputSchema = Schema.recordOf(
+      "prefixed.outfields",
+      Schema.Field.of("p_name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("p_x", Schema.nullableOf(Schema.of(Schema.Type.INT)))
+    );
+    String sourceName = "columnarInput";
+    String sinkName = "columnarOutput";
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, inputSchema)))
+      .addStage(new ETLStage("filter", IntValueFilterTransform.getPlugin("x", 3)))
+      .addStage(new ETLStage("prefix", FieldsPrefixTransform.getPlugin("p_", inputSchema.toString())))
+      .addStage(new ETLStage("identity", IdentityTransform.getPlugin()))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "filter")
+      .addConnection("filter", "prefix")
+      .addConnection("prefix", "identity")
+      .addConnection("identity", "sink")
+      .setEngine(Engine.SPARK)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("ColumnarApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    List<StructuredRecord> input = new ArrayList<>();
+    Set<StructuredRecord> expected = new HashSet<>();
+    for (int i = 0; i < 5; i++) {
+      input.add(StructuredRecord.builder(inputSchema).set("name", "item" + i).set("x", i).build());
+      if (i != 3) {
+        expected.add(StructuredRecord.builder(outputSchema).set("p_name", "item" + i).set("p_x", i).build());
+      }
+    }
+    input.add(StructuredRecord.builder(inputSchema).set("name", "itemNull").build());
+    expected.add(StructuredRecord.builder(outputSchema).set("p_name", "itemNull").build());
+    DataSetManager<Table> inputManager = getDataset(sourceName);
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.COLUMNAR_ENABLED, "true",
+                                          io.cdap.cdap.etl.common.Constants.COLUMNAR_BATCH_SIZE, "2"));
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Assert.assertEquals(expected, Sets.newHashSet(MockSink.readOutput(sinkManager)));
+
+    validateMetric(6, appId, "filter.records.in");
+    validateMetric(5, appId, "filter.records.out");
+    validateMetric(1, appId, "filter.records.error");
+    validateMetric(5, appId, "prefix.records.out");
+    validateMetric(5, appId, "identity.records.out");
+    validateMetric(5, appId, "sink.records.in");
+  }
+
+  @Test
+  public void testSourcePushdownMR() throws Exception {
+    testSourcePushdown(Engine.MAPREDUCE);
+  }
+
+  @Test
+  public void testSourcePushdownSpark() throws Exception {
+    testSourcePushdown(Engine.SPARK);
+  }
+
+  private void testSourcePushdown(Engine engine) throws Exception {
+    /*
+     * source --> filter1 --> filter2 --> sink
+     *
+     * the predicates of both filters are pushed down into the source, which skips the filtered records
+     */
+    Schema schema = Schema.recordOf(
+      "item",
+      Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("x", Schema.of(Schema.Type.INT))
+    );
+    String sourceName = "pushdownInput-" + engine;
+    String sinkName = "pushdownOutput-" + engine;
+    ETLBatchConfig etlConfig = ETLBatchConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(sourceName, schema, true)))
+      .addStage(new ETLStage("filter1", IntValueFilterTransform.getPlugin("x", 3)))
+      .addStage(new ETLStage("filter2", IntValueFilterTransform.getPlugin("x", 1)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "filter1")
+      .addConnection("filter1", "filter2")
+      .addConnection("filter2", "sink")
+      .setEngine(engine)
+      .build();
+
+    AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("PushdownApp-" + engine);
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    List<StructuredRecord> input = new ArrayList<>();
+    Set<StructuredRecord> expected = new HashSet<>();
+    for (int i = 0; i < 5; i++) {
+      StructuredRecord record = StructuredRecord.builder(schema).set("name", "item" + i).set("x", i).build();
+      input.add(record);
+      if (i != 1 && i != 3) {
+        expected.add(record);
+      }
+    }
+    DataSetManager<Table> inputManager = getDataset(sourceName);
+    MockSource.writeInput(inputManager, input);
+
+    WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
+    workflowManager.start();
+    workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
+
+    DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Assert.assertEquals(expected, Sets.newHashSet(MockSink.readOutput(sinkManager)));
+
+    validateMetric(3, appId, "source.records.out");
+    validateMetric(3, appId, "filter1.records.in");
+    validateMetric(3, appId, "filter2.records.out");
+    validateMetric(3, appId, "sink.records.in");
+  }
+
   @Test
   public void testInnerJoinSpark() throws Exception {
     testInnerJoinWithMultiOutput(Engine.SPARK);
   }
 
+  @Test
+  public void testBroadcastInnerJoinSpark() throws Exception {
+    // all the inputs are small enough to be broadcast, so all the joins after the first input are broadcast joins
+    testInnerJoinWithMultiOutput(Engine.SPARK, "-broadcast",
+                                 ImmutableMap.of(io.cdap.cdap.etl.common.Constants.JOINER_BROADCAST_ESTIMATE, "true"));
+    // the inputs are cached before their size is estimated, so their records are only counted once
+    validateMetric(7, NamespaceId.DEFAULT.app("InnerJoinApp-" + Engine.SPARK + "-broadcast"),
+                   "innerJoiner-" + Engine.SPARK + "-broadcast.records.in");
+  }
+
+  @Test
+  public void testSkewedInnerJoinSpark() throws Exception {
+    // sample all the records, so that the keys of the join are hot keys spread over multiple partitions
+    testInnerJoinWithMultiOutput(Engine.SPARK, "-skew",
+                                 ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SKEW_SALT_COUNT, "4",
+                                                 io.cdap.cdap.etl.common.Constants.SKEW_SAMPLE_FRACTION, "1.0"));
+  }
+
+  @Test
+  public void testSparkSQLInnerJoinSpark() throws Exception {
+    testInnerJoinWithMultiOutput(Engine.SPARK, "-sql",
+                                 ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SPARK_SQL_ENABLED, "true"));
+  }
+
   private void testInnerJoinWithMultiOutput(Engine engine) throws Exception {
+    testInnerJoinWithMultiOutput(engine, "", Collections.emptyMap());
+  }
+
+  private void testInnerJoinWithMultiOutput(Engine engine, String suffix,
+                                            Map<String, String> runtimeArgs) throws Exception {
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2228,14 +2585,14 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1InnerJoinInput-" + engine;
-    String input2Name = "source2InnerJoinInput-" + engine;
-    String input3Name = "source3InnerJoinInput-" + engine;
-    String outputName = "innerJoinOutput-" + engine;
-    String outputName2 = "innerJoinOutput2-" + engine;
-    String joinerName = "innerJoiner-" + engine;
-    String sinkName = "innerJoinSink-" + engine;
-    String sinkName2 = "innerJoinSink-2" + engine;
+    String input1Name = "source1InnerJoinInput-" + engine + suffix;
+    String input2Name = "source2InnerJoinInput-" + engine + suffix;
+    String input3Name = "source3InnerJoinInput-" + engine + suffix;
+    String outputName = "innerJoinOutput-" + engine + suffix;
+    String outputName2 = "innerJoinOutput2-" + engine + suffix;
+    String joinerName = "innerJoiner-" + engine + suffix;
+    String sinkName = "innerJoinSink-" + engine + suffix;
+    String sinkName2 = "innerJoinSink-2" + engine + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2260,7 +2617,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + engine + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -2302,7 +2659,7 @@ public class DataPipelineTest extends HydratorTestBase {
     MockSource.writeInput(inputManager, ImmutableList.of(recordTrasCar, recordTrasBike));
 
     WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
-    workflowManager.start();
+    workflowManager.start(runtimeArgs);
     workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
 
     StructuredRecord joinRecordSamuel = StructuredRecord.builder(outSchema)
@@ -2339,7 +2696,25 @@ public class DataPipelineTest extends HydratorTestBase {
     testOuterJoin(Engine.SPARK);
   }
 
+  @Test
+  public void testSparkSQLOuterJoinSpark() throws Exception {
+    testOuterJoin(Engine.SPARK, "-sql", ImmutableMap.of(io.cdap.cdap.etl.common.Constants.SPARK_SQL_ENABLED, "true"));
+  }
+
+  @Test
+  public void testBroadcastOuterJoinSpark() throws Exception {
+    // the non-required inputs are small enough to be broadcast, so they are left outer joined without a shuffle
+    testOuterJoin(Engine.SPARK, "-broadcast",
+                  ImmutableMap.of(io.cdap.cdap.etl.common.Constants.JOINER_BROADCAST_ESTIMATE, "true"));
+    validateMetric(9, NamespaceId.DEFAULT.app("OuterJoinApp-" + Engine.SPARK + "-broadcast"),
+                   "outerJoiner-" + Engine.SPARK + "-broadcast.records.in");
+  }
+
   private void testOuterJoin(Engine engine) throws Exception {
+    testOuterJoin(engine, "", Collections.emptyMap());
+  }
+
+  private void testOuterJoin(Engine engine, String suffix, Map<String, String> runtimeArgs) throws Exception {
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2361,12 +2736,12 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1OuterJoinInput-" + engine;
-    String input2Name = "source2OuterJoinInput-" + engine;
-    String input3Name = "source3OuterJoinInput-" + engine;
-    String outputName = "outerJoinOutput-" + engine;
-    String joinerName = "outerJoiner-" + engine;
-    String sinkName = "outerJoinSink-" + engine;
+    String input1Name = "source1OuterJoinInput-" + engine + suffix;
+    String input2Name = "source2OuterJoinInput-" + engine + suffix;
+    String input3Name = "source3OuterJoinInput-" + engine + suffix;
+    String outputName = "outerJoinOutput-" + engine + suffix;
+    String joinerName = "outerJoiner-" + engine + suffix;
+    String sinkName = "outerJoinSink-" + engine + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2388,7 +2763,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + engine + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -2433,7 +2808,7 @@ public class DataPipelineTest extends HydratorTestBase {
     MockSource.writeInput(inputManager, ImmutableList.of(recordTrasCar, recordTrasPlane, recordTrasBike));
 
     WorkflowManager workflowManager = appManager.getWorkflowManager(SmartWorkflow.NAME);
-    workflowManager.start();
+    workflowManager.start(runtimeArgs);
     workflowManager.waitForRun(ProgramRunStatus.COMPLETED, 5, TimeUnit.MINUTES);
 
     StructuredRecord joinRecordSamuel = StructuredRecord.builder(outSchema)
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.datastreams;
+
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.spark.streaming.BatchCompletedHandler;
+import io.cdap.cdap.etl.spark.streaming.BatchCompletedListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handler of completed micro batches that estimates the input rate a pipeline can sustain from the processing time
+ * of its micro batches and reports it as pipeline metrics, along with the size and delays of the micro batches.
+ *
+ * After each micro batch, the processing rate of the batch gives the input rate that the pipeline can sustain while
+ * keeping the processing time at {@link #TARGET_UTILIZATION} of the batch interval, reduced further to drain the
+ * batches that are queued. The estimate is cut at once when a saturated batch shows a lower rate, for example when
+ * the latency of a sink spikes, and only raised gradually when it goes up, always within the configured bounds.
+ * Batches that are processed well within the interval, such as near empty ones, are dominated by the fixed cost of
+ * a micro batch, so they can only raise the estimate.
+ *
+ * Spark doesn't allow a listener to change the rate limits of the sources or the batch interval of a running
+ * context, so this monitor doesn't apply the rate. The rate limiting is done by Spark backpressure, which the
+ * {@link DataStreamsSparkLauncher} configures with the same bounds. The micro batches are reported by a
+ * {@link BatchCompletedListener}.
+ */
+class BatchRateMonitor implements BatchCompletedHandler {
+  private static final Logger LOG = LoggerFactory.getLogger(BatchRateMonitor.class);
+  static final double TARGET_UTILIZATION = 0.9d;
+  // weight of the latest sustainable rate when the estimate is raised
+  private static final double INCREASE_WEIGHT = 0.5d;
+
+  private final Metrics metrics;
+  private final long batchIntervalMillis;
+  private final long minRate;
+  private final long maxRate;
+  // negative until a micro batch with records was processed
+  private double sustainableRate;
+  private boolean overloaded;
+
+  /**
+   * Creates a monitor.
+   *
+   * @param metrics the metrics to emit the estimates to
+   * @param batchIntervalMillis the batch interval of the pipeline
+   * @param minRate the minimum rate in records per second
+   * @param maxRate the maximum rate in records per second, or 0 for no maximum
+   */
+  BatchRateMonitor(Metrics metrics, long batchIntervalMillis, long minRate, long maxRate) {
+    this.metrics = metrics;
+    this.batchIntervalMillis = batchIntervalMillis;
+    this.minRate = minRate;
+    this.maxRate = maxRate <= 0 ? Long.MAX_VALUE : maxRate;
+    this.sustainableRate = -1d;
+  }
+
+  /**
+   * Updates the sustainable rate with a completed micro batch.
+   *
+   * @param numRecords the number of records read by the micro batch
+   * @param processingMillis the processing time of the micro batch, or a negative value if it is unknown
+   * @param schedulingDelayMillis the time the micro batch waited for the previous ones to be processed
+   */
+  @Override
+  public void batchCompleted(long numRecords, long processingMillis, long schedulingDelayMillis) {
+    metrics.count(Constants.Metrics.STREAMING_BATCH_RECORDS, (int) Math.min(numRecords, Integer.MAX_VALUE));
+    if (processingMillis < 0) {
+      return;
+    }
+    long schedulingDelay = Math.max(0L, schedulingDelayMillis);
+    metrics.gauge(Constants.Metrics.STREAMING_BATCH_PROCESSING_TIME, processingMillis);
+    metrics.gauge(Constants.Metrics.STREAMING_BATCH_SCHEDULING_DELAY, schedulingDelay);
+
+    boolean batchOverloaded = processingMillis > batchIntervalMillis || schedulingDelay > batchIntervalMillis;
+    if (batchOverloaded) {
+      metrics.count(Constants.Metrics.STREAMING_BATCH_OVERLOADED, 1);
+    }
+    if (batchOverloaded != overloaded) {
+      if (batchOverloaded) {
+        LOG.warn("Micro batches are queuing up. The last micro batch took {} ms to process and waited {} ms, " +
+                   "with a batch interval of {} ms.", processingMillis, schedulingDelay, batchIntervalMillis);
+      } else {
+        LOG.info("Micro batches are processed within the batch interval of {} ms again.", batchIntervalMillis);
+      }
+      overloaded = batchOverloaded;
+    }
+
+    if (numRecords > 0 && processingMillis > 0) {
+      double batchRate = numRecords * 1000d / processingMillis * TARGET_UTILIZATION *
+        batchIntervalMillis / (batchIntervalMillis + schedulingDelay);
+      boolean saturated = processingMillis + schedulingDelay > batchIntervalMillis * TARGET_UTILIZATION;
+      if (sustainableRate < 0 || (saturated && batchRate < sustainableRate)) {
+        sustainableRate = batchRate;
+      } else if (batchRate > sustainableRate) {
+        sustainableRate += (batchRate - sustainableRate) * INCREASE_WEIGHT;
+      }
+      sustainableRate = Math.min(Math.max(sustainableRate, minRate), maxRate);
+    }
+    if (sustainableRate >= 0) {
+      metrics.gauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE, Math.round(sustainableRate));
+      metrics.gauge(Constants.Metrics.STREAMING_SUSTAINABLE_BATCH_SIZE,
+                    Math.round(sustainableRate * batchIntervalMillis / 1000d));
+    }
+  }
+
+}
@@ -98,6 +98,22 @@ public class DataStreamsSparkLauncher extends AbstractSpark {
 
     SparkConf sparkConf = new SparkConf();
     sparkConf.set("spark.streaming.backpressure.enabled", "true");
+    // bound the rate that backpressure sets for each source. The initial rate bounds the first micro batches of
+    // sources that are not receivers. Direct Kafka sources ignore the receiver rate and only take a maximum rate per
+    // partition, so the maximum rate of the pipeline bounds each of their partitions rather than their total.
+    // Spark properties of the pipeline take precedence.
+    Map<String, String> runtimeArguments = context.getRuntimeArguments();
+    String minRate = runtimeArguments.get(Constants.STREAMING_MIN_RATE);
+    if (minRate != null) {
+      sparkConf.set("spark.streaming.backpressure.pid.minRate", String.valueOf(Long.parseLong(minRate)));
+    }
+    String maxRate = runtimeArguments.get(Constants.STREAMING_MAX_RATE);
+    if (maxRate != null) {
+      String rate = String.valueOf(Long.parseLong(maxRate));
+      sparkConf.set("spark.streaming.receiver.maxRate", rate);
+      sparkConf.set("spark.streaming.kafka.maxRatePerPartition", rate);
+      sparkConf.set("spark.streaming.backpressure.initialRate", rate);
+    }
     for (Map.Entry<String, String> property : spec.getProperties().entrySet()) {
       sparkConf.set(property.getKey(), property.getValue());
     }
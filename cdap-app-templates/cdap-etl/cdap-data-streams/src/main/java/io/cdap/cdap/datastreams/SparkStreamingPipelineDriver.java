@@ -46,6 +46,7 @@ import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.plugin.PipelinePluginContext;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.StreamingCompat;
+import io.cdap.cdap.etl.spark.streaming.BatchCompletedListener;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -62,6 +63,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
@@ -164,6 +166,15 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
     }
 
     JavaStreamingContext jssc = run(pipelineSpec, pipelinePhase, sec, checkpointDir, context);
+    // listeners are not part of the checkpoint, so they are added whether or not the context was recovered
+    Map<String, String> arguments = sec.getRuntimeArguments();
+    if (Boolean.parseBoolean(arguments.getOrDefault(Constants.STREAMING_RATE_MONITOR_ENABLED, "true"))) {
+      String minRate = arguments.get(Constants.STREAMING_MIN_RATE);
+      String maxRate = arguments.get(Constants.STREAMING_MAX_RATE);
+      jssc.ssc().addStreamingListener(new BatchCompletedListener(new BatchRateMonitor(
+        sec.getMetrics(), pipelineSpec.getBatchIntervalMillis(),
+        minRate == null ? 0L : Long.parseLong(minRate), maxRate == null ? 0L : Long.parseLong(maxRate))));
+    }
     jssc.start();
 
     boolean stopped = false;
@@ -196,6 +207,12 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
         PipelinePluginContext pluginContext = new PipelinePluginContext(sec.getPluginContext(), sec.getMetrics(),
                                                                         pipelineSpec.isStageLoggingEnabled(),
                                                                         pipelineSpec.isProcessTimingEnabled());
+        // set the checkpoint directory before the pipeline is added to the context, so that stages that keep state
+        // across micro batches can tell whether their state will be checkpointed
+        if (checkpointDir != null) {
+          jssc.checkpoint(checkpointDir);
+          jssc.sparkContext().hadoopConfiguration().set("fs.defaultFS", checkpointDir);
+        }
         // TODO: figure out how to get partitions to use for aggregators and joiners.
         // Seems like they should be set at configure time instead of runtime? but that requires an API change.
         try {
@@ -205,10 +222,6 @@ public class SparkStreamingPipelineDriver implements JavaSparkMain {
         } catch (Exception e) {
           throw new RuntimeException(e);
         }
-        if (checkpointDir != null) {
-          jssc.checkpoint(checkpointDir);
-          jssc.sparkContext().hadoopConfiguration().set("fs.defaultFS", checkpointDir);
-        }
         return jssc;
       }
     };
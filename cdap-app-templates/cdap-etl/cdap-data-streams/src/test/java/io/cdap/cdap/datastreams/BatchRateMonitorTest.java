@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.datastreams;
+
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.mock.common.MockMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BatchRateMonitor}.
+ */
+public class BatchRateMonitorTest {
+
+  @Test
+  public void testSinkLatencySpike() {
+    MockMetrics metrics = new MockMetrics();
+    BatchRateMonitor monitor = new BatchRateMonitor(metrics, 1000L, 0L, 0L);
+
+    // 900 records processed in 450 ms, so 1800 records per second can be processed in 90% of the interval
+    monitor.batchCompleted(900L, 450L, 0L);
+    Assert.assertEquals(1800L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(1800L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_BATCH_SIZE));
+    Assert.assertEquals(0, metrics.getCount(Constants.Metrics.STREAMING_BATCH_OVERLOADED));
+
+    // the sink slows down, so the batch takes longer than the interval and the next one has to wait
+    monitor.batchCompleted(900L, 3000L, 0L);
+    Assert.assertEquals(270L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    monitor.batchCompleted(900L, 3000L, 2000L);
+    Assert.assertEquals(90L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(2000L, metrics.getGauge(Constants.Metrics.STREAMING_BATCH_SCHEDULING_DELAY));
+    Assert.assertEquals(2, metrics.getCount(Constants.Metrics.STREAMING_BATCH_OVERLOADED));
+
+    // once the sink recovers, the rate is raised gradually
+    monitor.batchCompleted(900L, 450L, 0L);
+    Assert.assertEquals(945L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    monitor.batchCompleted(900L, 450L, 0L);
+    Assert.assertEquals(1373L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(2, metrics.getCount(Constants.Metrics.STREAMING_BATCH_OVERLOADED));
+    Assert.assertEquals(4500, metrics.getCount(Constants.Metrics.STREAMING_BATCH_RECORDS));
+  }
+
+  @Test
+  public void testNearEmptyBatches() {
+    MockMetrics metrics = new MockMetrics();
+    BatchRateMonitor monitor = new BatchRateMonitor(metrics, 1000L, 0L, 0L);
+
+    monitor.batchCompleted(900L, 450L, 0L);
+    Assert.assertEquals(1800L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+
+    // a near empty batch is dominated by the fixed cost of a micro batch, so it doesn't lower the rate
+    monitor.batchCompleted(1L, 100L, 5L);
+    Assert.assertEquals(1800L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+
+    // but a saturated one does, however few records it read
+    monitor.batchCompleted(10L, 1000L, 0L);
+    Assert.assertEquals(9L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(0, metrics.getCount(Constants.Metrics.STREAMING_BATCH_OVERLOADED));
+    Assert.assertEquals(911, metrics.getCount(Constants.Metrics.STREAMING_BATCH_RECORDS));
+  }
+
+  @Test
+  public void testBounds() {
+    MockMetrics metrics = new MockMetrics();
+    BatchRateMonitor monitor = new BatchRateMonitor(metrics, 10000L, 100L, 5000L);
+
+    // nothing is known about the sustainable rate until a batch with records is processed
+    monitor.batchCompleted(0L, 5L, 0L);
+    Assert.assertEquals(0L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(5L, metrics.getGauge(Constants.Metrics.STREAMING_BATCH_PROCESSING_TIME));
+
+    monitor.batchCompleted(100000L, 1000L, 0L);
+    Assert.assertEquals(5000L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(50000L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_BATCH_SIZE));
+
+    monitor.batchCompleted(10L, 20000L, 0L);
+    Assert.assertEquals(100L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+
+    // empty batches and batches without processing time keep the sustainable rate
+    monitor.batchCompleted(0L, 10L, 0L);
+    monitor.batchCompleted(10L, -1L, -1L);
+    Assert.assertEquals(100L, metrics.getGauge(Constants.Metrics.STREAMING_SUSTAINABLE_RATE));
+    Assert.assertEquals(100020, metrics.getCount(Constants.Metrics.STREAMING_BATCH_RECORDS));
+  }
+}
@@ -35,6 +35,7 @@ import io.cdap.cdap.etl.mock.alert.NullAlertTransform;
 import io.cdap.cdap.etl.mock.alert.TMSAlertPublisher;
 import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountReducibleAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.GroupFilterAggregator;
 import io.cdap.cdap.etl.mock.batch.joiner.DupeFlagger;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
@@ -457,6 +458,190 @@ public class DataStreamsTest extends HydratorTestBase {
     validateMetric(appId, "sink2.records.in", 5);
   }
 
+  @Test
+  public void testStatefulAggregator() throws Exception {
+    String sinkName = "statefulAggOutput";
+
+    Schema inputSchema = Schema.recordOf(
+      "testRecord",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("item", Schema.of(Schema.Type.LONG))
+    );
+
+    // records are spread across micro batches, so the counts of all the records are only output if the
+    // aggregate values are kept across micro batches
+    List<StructuredRecord> input = ImmutableList.of(
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 1L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 2L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "john").set("item", 3L).build(),
+      StructuredRecord.builder(inputSchema).set("user", "samuel").set("item", 4L).build());
+
+    DataStreamsConfig pipelineConfig = DataStreamsConfig.builder()
+      .setBatchInterval("1s")
+      .addStage(new ETLStage("source", MockSource.getPlugin(inputSchema, input, 1500L)))
+      .addStage(new ETLStage("agg", FieldCountReducibleAggregator.getPlugin("user")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "agg")
+      .addConnection("agg", "sink")
+      .setCheckpointDir(checkpointDir)
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, pipelineConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("StatefulAggApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.STREAMING_STATEFUL_AGGREGATION_ENABLED,
+                                       "true"));
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 10, TimeUnit.SECONDS);
+
+    Schema outputSchema = Schema.recordOf(
+      "user.count",
+      Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("ct", Schema.of(Schema.Type.LONG))
+    );
+    final Set<StructuredRecord> expected = ImmutableSet.of(
+      StructuredRecord.builder(outputSchema).set("user", "all").set("ct", 4L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "samuel").set("ct", 3L).build(),
+      StructuredRecord.builder(outputSchema).set("user", "john").set("ct", 1L).build());
+
+    final DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Tasks.waitFor(
+      true,
+      new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          sinkManager.flush();
+          Set<StructuredRecord> outputRecords = new HashSet<>(MockSink.readOutput(sinkManager));
+          return outputRecords.containsAll(expected);
+        }
+      },
+      1,
+      TimeUnit.MINUTES);
+
+    sparkManager.stop();
+    sparkManager.waitForStopped(30, TimeUnit.SECONDS);
+
+    validateMetric(appId, "agg.records.in", 4);
+  }
+
+  @Test
+  public void testStatefulAggregatorAfterWindower() throws Exception {
+    /*
+     * source --> window(width=30,interval=1) --> reducible aggregator --> sink
+     */
+    Schema schema = Schema.recordOf("data", Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    List<StructuredRecord> input = ImmutableList.of(
+      StructuredRecord.builder(schema).set("x", "abc").build(),
+      StructuredRecord.builder(schema).set("x", "abc").build(),
+      StructuredRecord.builder(schema).set("x", "abc").build());
+
+    String sinkName = "statefulWindowOut";
+    DataStreamsConfig etlConfig = DataStreamsConfig.builder()
+      .addStage(new ETLStage("source", MockSource.getPlugin(schema, input, 1000L)))
+      .addStage(new ETLStage("window", Window.getPlugin(30, 1)))
+      .addStage(new ETLStage("agg", FieldCountReducibleAggregator.getPlugin("x")))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "window")
+      .addConnection("window", "agg")
+      .addConnection("agg", "sink")
+      .setBatchInterval("1s")
+      .setCheckpointDir(checkpointDir)
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("StatefulWindowerApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.STREAMING_STATEFUL_AGGREGATION_ENABLED,
+                                       "true"));
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 10, TimeUnit.SECONDS);
+
+    // the windower emits the records of the window in every micro batch, so the aggregator must aggregate each
+    // micro batch on its own. A running aggregate would output counts above 3 once a window contains all 3 records.
+    final DataSetManager<Table> outputManager = getDataset(sinkName);
+    Tasks.waitFor(
+      true,
+      new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          outputManager.flush();
+          boolean sawThree = false;
+          for (StructuredRecord record : MockSink.readOutput(outputManager)) {
+            long count = record.get("ct");
+            if (count == 3L) {
+              sawThree = true;
+            }
+            Assert.assertTrue(count <= 3L);
+          }
+          return sawThree;
+        }
+      },
+      2,
+      TimeUnit.MINUTES);
+
+    // let a few more micro batches go through the full window
+    TimeUnit.SECONDS.sleep(3);
+    outputManager.flush();
+    for (StructuredRecord record : MockSink.readOutput(outputManager)) {
+      long count = record.get("ct");
+      Assert.assertTrue(count <= 3L);
+    }
+
+    sparkManager.stop();
+  }
+
+  @Test
+  public void testRateControl() throws Exception {
+    String sinkName = "rateControlOutput";
+    Schema schema = Schema.recordOf("testRecord", Schema.Field.of("id", Schema.of(Schema.Type.LONG)));
+
+    // the synthetic source emits its records as fast as it can, but is limited to 5 records per second
+    List<StructuredRecord> input = new ArrayList<>();
+    for (long i = 0; i < 20; i++) {
+      input.add(StructuredRecord.builder(schema).set("id", i).build());
+    }
+
+    DataStreamsConfig pipelineConfig = DataStreamsConfig.builder()
+      .setBatchInterval("1s")
+      .addStage(new ETLStage("source", MockSource.getPlugin(schema, input, 0L)))
+      .addStage(new ETLStage("sink", MockSink.getPlugin(sinkName)))
+      .addConnection("source", "sink")
+      .disableCheckpoints()
+      .build();
+
+    AppRequest<DataStreamsConfig> appRequest = new AppRequest<>(APP_ARTIFACT, pipelineConfig);
+    ApplicationId appId = NamespaceId.DEFAULT.app("RateControlApp");
+    ApplicationManager appManager = deployApplication(appId, appRequest);
+
+    SparkManager sparkManager = appManager.getSparkManager(DataStreamsSparkLauncher.NAME);
+    sparkManager.start(ImmutableMap.of(io.cdap.cdap.etl.common.Constants.STREAMING_MAX_RATE, "5"));
+    sparkManager.waitForRun(ProgramRunStatus.RUNNING, 10, TimeUnit.SECONDS);
+
+    final Set<StructuredRecord> expected = new HashSet<>(input);
+    final DataSetManager<Table> sinkManager = getDataset(sinkName);
+    Tasks.waitFor(
+      true,
+      new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          sinkManager.flush();
+          return new HashSet<>(MockSink.readOutput(sinkManager)).containsAll(expected);
+        }
+      },
+      1,
+      TimeUnit.MINUTES);
+
+    sparkManager.stop();
+    sparkManager.waitForStopped(30, TimeUnit.SECONDS);
+
+    // the monitor counts the records of every micro batch and its sustainable rate is within the maximum rate
+    validateMetric(appId, io.cdap.cdap.etl.common.Constants.Metrics.STREAMING_BATCH_RECORDS, 20);
+    long rate = getMetric(appId, io.cdap.cdap.etl.common.Constants.Metrics.STREAMING_SUSTAINABLE_RATE);
+    Assert.assertTrue(rate > 0 && rate <= 5);
+  }
+
   @Test
   public void testWindower() throws Exception {
     /*
@@ -16,11 +16,16 @@
 
 package io.cdap.cdap.etl.api;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Join configuration to hold information about join to be performed
  */
 public class JoinConfig {
   private Iterable<String> requiredInputs;
+  private Map<String, Long> inputSizeHints;
 
   /**
    * Creates new instance of {@link JoinConfig}
@@ -30,7 +35,19 @@ public class JoinConfig {
    * meet join criteria.
    */
   public JoinConfig(Iterable<String> requiredInputs) {
+    this(requiredInputs, Collections.emptyMap());
+  }
+
+  /**
+   * Creates new instance of {@link JoinConfig} with hints about the size of the inputs.
+   * @param requiredInputs iterable of input stage names. This will be used to find out type of the join.
+   * @param inputSizeHints map from input stage name to the approximate number of records of that input. The execution
+   * engine may use it to join a small input by broadcasting it to all the partitions of the other inputs,
+   * instead of shuffling all the inputs.
+   */
+  public JoinConfig(Iterable<String> requiredInputs, Map<String, Long> inputSizeHints) {
     this.requiredInputs = requiredInputs;
+    this.inputSizeHints = Collections.unmodifiableMap(new HashMap<>(inputSizeHints));
   }
 
   /**
@@ -40,4 +57,12 @@ public class JoinConfig {
   public Iterable<String> getRequiredInputs() {
     return requiredInputs;
   }
+
+  /**
+   * Returns the approximate number of records of the inputs that have a size hint.
+   * @return map from input stage name to its approximate number of records
+   */
+  public Map<String, Long> getInputSizeHints() {
+    return inputSizeHints;
+  }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Groups all input objects into collections and reduces each group into an aggregate value, which is then
+ * used to emit the output objects of the group. Objects that have the same group key are placed into the same group.
+ *
+ * Unlike an {@link Aggregator}, the aggregation does not need all the objects of a group at once. Objects are merged
+ * into an aggregate value as they come, and aggregate values computed on different partitions of the data are
+ * then merged together. This allows execution engines to combine values before they are shuffled, and only shuffle
+ * one aggregate value per group and partition.
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group
+ * @param <AGG_VALUE> Type of the aggregate value
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+
+  /**
+   * Emit the group key(s) for a given input value. If no group key is emitted, the input value
+   * is filtered out. If multiple group keys are emitted, the input value will be present in multiple groups.
+   *
+   * @param groupValue the value to group
+   * @param emitter the emitter to emit zero or more group keys for the input
+   * @throws Exception if there is some error getting the group
+   */
+  void groupBy(GROUP_VALUE groupValue, Emitter<GROUP_KEY> emitter) throws Exception;
+
+  /**
+   * Create the aggregate value of a group from the first value of the group seen in a partition.
+   *
+   * @param groupValue the first value of the group
+   * @return the aggregate value of the group
+   * @throws Exception if there is some error creating the aggregate value
+   */
+  AGG_VALUE initializeAggregateValue(GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge a value of a group into the aggregate value of the group. The given aggregate value may be modified
+   * and returned.
+   *
+   * @param aggValue the aggregate value of the group
+   * @param groupValue the value to merge
+   * @return the aggregate value of the group with the value merged in
+   * @throws Exception if there is some error merging the value
+   */
+  AGG_VALUE mergeValues(AGG_VALUE aggValue, GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge two aggregate values of the same group, computed on different partitions of the data. The first
+   * aggregate value may be modified and returned.
+   *
+   * @param aggValue1 the first aggregate value
+   * @param aggValue2 the second aggregate value
+   * @return the aggregate value of the group with both aggregate values merged
+   * @throws Exception if there is some error merging the aggregate values
+   */
+  AGG_VALUE mergePartitions(AGG_VALUE aggValue1, AGG_VALUE aggValue2) throws Exception;
+
+  /**
+   * Emit zero or more output objects for a group once all its values have been merged.
+   *
+   * @param groupKey the key for the group
+   * @param aggValue the aggregate value of the group
+   * @param emitter the emitter to emit aggregate values for the group
+   * @throws Exception if there is some error emitting the output
+   */
+  void finalize(GROUP_KEY groupKey, AGG_VALUE aggValue, Emitter<OUT> emitter) throws Exception;
+}
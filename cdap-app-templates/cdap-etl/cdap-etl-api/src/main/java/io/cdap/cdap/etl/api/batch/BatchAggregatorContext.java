@@ -51,4 +51,15 @@ public interface BatchAggregatorContext extends BatchContext {
    */
   void setGroupValueClass(Class<?> groupValueClass);
 
+  /**
+   * Set the aggregate value class of a {@link BatchReducibleAggregator}. This is not required if the aggregator is
+   * parameterized with a concrete class for the aggregate value. Execution engines that don't shuffle aggregate
+   * values ignore it.
+   *
+   * @param aggregateValueClass the aggregate value class
+   */
+  default void setAggregateValueClass(Class<?> aggregateValueClass) {
+    // no-op
+  }
+
 }
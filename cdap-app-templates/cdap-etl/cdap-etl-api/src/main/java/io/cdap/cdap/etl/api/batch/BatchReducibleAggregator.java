@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api.batch;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+
+import java.util.Iterator;
+
+/**
+ * A {@link BatchAggregator} that aggregates groups with the {@link ReducibleAggregator} methods, which allows
+ * execution engines to combine the values of a group before they are shuffled. In Spark, the aggregation is
+ * performed with a combineByKey instead of a groupByKey. In MapReduce, values are combined in the mapper and only
+ * the aggregate values are sent to the reducer, hence the aggregate value must be a supported type like the
+ * group key and value.
+ *
+ * Execution engines that need all values of a group at once use {@link #aggregate(Object, Iterator, Emitter)},
+ * which is implemented with the {@link ReducibleAggregator} methods.
+ *
+ * @param <GROUP_KEY> group key type. Must be a supported type
+ * @param <GROUP_VALUE> group value type. Must be a supported type
+ * @param <AGG_VALUE> aggregate value type. Must be a supported type
+ * @param <OUT> output object type
+ */
+@Beta
+public abstract class BatchReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends BatchAggregator<GROUP_KEY, GROUP_VALUE, OUT>
+  implements ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+
+  @Override
+  public void aggregate(GROUP_KEY groupKey, Iterator<GROUP_VALUE> groupValues,
+                        Emitter<OUT> emitter) throws Exception {
+    if (!groupValues.hasNext()) {
+      return;
+    }
+    AGG_VALUE aggValue = initializeAggregateValue(groupValues.next());
+    while (groupValues.hasNext()) {
+      aggValue = mergeValues(aggValue, groupValues.next());
+    }
+    finalize(groupKey, aggValue, emitter);
+  }
+}
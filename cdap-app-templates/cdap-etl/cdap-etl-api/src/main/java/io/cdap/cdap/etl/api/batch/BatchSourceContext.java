@@ -18,6 +18,8 @@ package io.cdap.cdap.etl.api.batch;
 
 import io.cdap.cdap.api.annotation.Beta;
 import io.cdap.cdap.api.data.batch.Input;
+import io.cdap.cdap.etl.api.pushdown.PushdownSource;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 
 /**
  * Context of a Batch Source.
@@ -38,4 +40,14 @@ public interface BatchSourceContext extends BatchContext {
    * @return a boolean value which indicates the pipeline is running in preview mode.
    */
   boolean isPreviewEnabled();
+
+  /**
+   * Returns the projection and filters pushed down into this source by the pipeline planner. It is only
+   * non-empty for sources that implement {@link PushdownSource}.
+   *
+   * @return the pushdown for this source
+   */
+  default SourcePushdown getPushdown() {
+    return SourcePushdown.NONE;
+  }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api.columnar;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Emits the rows of a {@link RecordBatch} that a {@link ColumnarTransform} drops because they are errors, like the
+ * record level transform emits them with {@link io.cdap.cdap.etl.api.Emitter#emitError}.
+ */
+@Beta
+public interface BatchErrorEmitter {
+
+  /**
+   * Emits a row of the input batch as an error.
+   *
+   * @param row the row of the input batch, from 0 to the number of rows of the batch - 1
+   * @param errorCode the error code, as in an {@link io.cdap.cdap.etl.api.InvalidEntry}
+   * @param errorMsg the error message
+   */
+  void emitError(int row, int errorCode, String errorMsg);
+}
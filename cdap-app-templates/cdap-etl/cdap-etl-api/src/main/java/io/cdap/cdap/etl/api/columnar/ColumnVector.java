@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api.columnar;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import javax.annotation.Nullable;
+
+/**
+ * The values of one field for the rows of a {@link RecordBatch}. Values of int, long, float, double and boolean
+ * fields are kept in primitive arrays, while values of any other type are kept as objects, in the same form as in a
+ * {@link io.cdap.cdap.api.data.format.StructuredRecord}.
+ */
+@Beta
+public final class ColumnVector {
+  private final Schema schema;
+  private final Schema.Type type;
+  private final boolean[] nulls;
+  private final int[] ints;
+  private final long[] longs;
+  private final float[] floats;
+  private final double[] doubles;
+  private final boolean[] booleans;
+  private final Object[] objects;
+
+  /**
+   * Creates a column vector for values of the given schema.
+   *
+   * @param schema schema of the values, which can be nullable
+   * @param capacity number of values the vector holds
+   */
+  public ColumnVector(Schema schema, int capacity) {
+    this.schema = schema;
+    this.type = schema.isNullable() ? schema.getNonNullable().getType() : schema.getType();
+    this.nulls = new boolean[capacity];
+    this.ints = type == Schema.Type.INT ? new int[capacity] : null;
+    this.longs = type == Schema.Type.LONG ? new long[capacity] : null;
+    this.floats = type == Schema.Type.FLOAT ? new float[capacity] : null;
+    this.doubles = type == Schema.Type.DOUBLE ? new double[capacity] : null;
+    this.booleans = type == Schema.Type.BOOLEAN ? new boolean[capacity] : null;
+    this.objects = ints == null && longs == null && floats == null && doubles == null && booleans == null ?
+      new Object[capacity] : null;
+  }
+
+  /**
+   * @return the schema of the values
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the number of values the vector holds
+   */
+  public int getCapacity() {
+    return nulls.length;
+  }
+
+  public boolean isNull(int row) {
+    return nulls[row];
+  }
+
+  public void setNull(int row) {
+    nulls[row] = true;
+  }
+
+  public int getInt(int row) {
+    return ints[row];
+  }
+
+  public void setInt(int row, int value) {
+    ints[row] = value;
+    nulls[row] = false;
+  }
+
+  public long getLong(int row) {
+    return longs[row];
+  }
+
+  public void setLong(int row, long value) {
+    longs[row] = value;
+    nulls[row] = false;
+  }
+
+  public float getFloat(int row) {
+    return floats[row];
+  }
+
+  public void setFloat(int row, float value) {
+    floats[row] = value;
+    nulls[row] = false;
+  }
+
+  public double getDouble(int row) {
+    return doubles[row];
+  }
+
+  public void setDouble(int row, double value) {
+    doubles[row] = value;
+    nulls[row] = false;
+  }
+
+  public boolean getBoolean(int row) {
+    return booleans[row];
+  }
+
+  public void setBoolean(int row, boolean value) {
+    booleans[row] = value;
+    nulls[row] = false;
+  }
+
+  /**
+   * Returns the value of a field that is not of a primitive type, such as a string.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  public <T> T getObject(int row) {
+    return (T) objects[row];
+  }
+
+  /**
+   * Sets the value of a field that is not of a primitive type, such as a string.
+   */
+  public void setObject(int row, @Nullable Object value) {
+    objects[row] = value;
+    nulls[row] = value == null;
+  }
+
+  /**
+   * Returns the value at the given row, boxed if it is of a primitive type.
+   */
+  @Nullable
+  public Object get(int row) {
+    if (nulls[row]) {
+      return null;
+    }
+    switch (type) {
+      case INT:
+        return ints[row];
+      case LONG:
+        return longs[row];
+      case FLOAT:
+        return floats[row];
+      case DOUBLE:
+        return doubles[row];
+      case BOOLEAN:
+        return booleans[row];
+      default:
+        return objects[row];
+    }
+  }
+
+  /**
+   * Sets the value at the given row from a boxed value if it is of a primitive type.
+   */
+  public void set(int row, @Nullable Object value) {
+    if (value == null) {
+      setNull(row);
+      return;
+    }
+    switch (type) {
+      case INT:
+        setInt(row, (Integer) value);
+        break;
+      case LONG:
+        setLong(row, (Long) value);
+        break;
+      case FLOAT:
+        setFloat(row, (Float) value);
+        break;
+      case DOUBLE:
+        setDouble(row, (Double) value);
+        break;
+      case BOOLEAN:
+        setBoolean(row, (Boolean) value);
+        break;
+      default:
+        setObject(row, value);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api.columnar;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Implemented by a {@link io.cdap.cdap.etl.api.Transform} of records that can also transform a whole
+ * {@link RecordBatch} at once. Execution engines that support columnar execution may call
+ * {@link #transform(RecordBatch)} instead of the record level transform method, and chain consecutive columnar
+ * transforms without creating records between them.
+ *
+ * The batch transform must output the same records as the record level transform, except that it can't emit alerts.
+ * Records for which the record level transform emits an error are dropped from the output batch, and their rows are
+ * emitted with the {@link BatchErrorEmitter} so that they are counted as errors. Execution engines only use columnar
+ * execution for stages whose errors and alerts are not consumed by another stage.
+ */
+@Beta
+public interface ColumnarTransform {
+
+  /**
+   * Transforms a batch of records.
+   *
+   * @param input the batch to transform
+   * @param errorEmitter emitter for the rows of the input batch that are errors
+   * @return the transformed batch, which can share column vectors with the input batch
+   * @throws Exception if there was an error transforming the batch
+   */
+  RecordBatch transform(RecordBatch input, BatchErrorEmitter errorEmitter) throws Exception;
+}
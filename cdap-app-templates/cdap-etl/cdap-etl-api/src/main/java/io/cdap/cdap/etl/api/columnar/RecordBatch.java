@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.api.columnar;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A batch of records of the same schema, kept as one {@link ColumnVector} per field.
+ *
+ * A batch can have a selection of the rows of its column vectors, so that rows can be filtered out without copying
+ * the columns. Rows of the batch are numbered from 0 to {@link #getNumRows()} - 1, and {@link #getRowIndex(int)}
+ * gives the index of a row in the column vectors.
+ */
+@Beta
+public final class RecordBatch {
+  private final Schema schema;
+  private final ColumnVector[] columns;
+  private final Map<String, Integer> columnIndexes;
+  // indexes in the column vectors of the rows of the batch, or null if the batch has all the rows of the vectors
+  private final int[] selection;
+  private final int numRows;
+
+  /**
+   * Creates a batch with all the rows of the given column vectors.
+   *
+   * @param schema schema of the records in the batch
+   * @param columns one column vector for each field of the schema, in the same order
+   * @param numRows number of rows in the batch, which must not be more than the capacity of the column vectors
+   */
+  public RecordBatch(Schema schema, ColumnVector[] columns, int numRows) {
+    this(schema, columns, null, numRows);
+  }
+
+  private RecordBatch(Schema schema, ColumnVector[] columns, @Nullable int[] selection, int numRows) {
+    List<Schema.Field> fields = schema.getFields();
+    if (fields == null || fields.size() != columns.length) {
+      throw new IllegalArgumentException("A record batch must have one column vector for each field of the schema.");
+    }
+    this.schema = schema;
+    this.columns = columns;
+    this.columnIndexes = new HashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      columnIndexes.put(fields.get(i).getName(), i);
+    }
+    this.selection = selection;
+    this.numRows = numRows;
+  }
+
+  /**
+   * Creates a batch from records.
+   *
+   * @param schema schema of the records
+   * @param records records to put in the batch, which must all have the given schema
+   * @return a batch that has the values of the records
+   */
+  public static RecordBatch fromRecords(Schema schema, List<StructuredRecord> records) {
+    List<Schema.Field> fields = schema.getFields();
+    ColumnVector[] columns = new ColumnVector[fields.size()];
+    for (int i = 0; i < columns.length; i++) {
+      Schema.Field field = fields.get(i);
+      ColumnVector column = new ColumnVector(field.getSchema(), records.size());
+      for (int row = 0; row < records.size(); row++) {
+        column.set(row, records.get(row).get(field.getName()));
+      }
+      columns[i] = column;
+    }
+    return new RecordBatch(schema, columns, records.size());
+  }
+
+  /**
+   * @return the schema of the records in the batch
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the number of rows in the batch
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+
+  /**
+   * Returns the index in the column vectors of the given row of the batch.
+   */
+  public int getRowIndex(int row) {
+    return selection == null ? row : selection[row];
+  }
+
+  /**
+   * Returns the column vector of the given field.
+   *
+   * @throws IllegalArgumentException if the field is not in the schema of the batch
+   */
+  public ColumnVector getColumn(String fieldName) {
+    Integer index = columnIndexes.get(fieldName);
+    if (index == null) {
+      throw new IllegalArgumentException(String.format("Field '%s' is not in the record batch.", fieldName));
+    }
+    return columns[index];
+  }
+
+  /**
+   * Returns a batch with the given rows of this batch.
+   *
+   * @param rowIndexes indexes in the column vectors of the rows to keep, as returned by {@link #getRowIndex(int)}
+   * @param numRows number of rows to keep
+   * @return a batch that shares the column vectors of this batch
+   */
+  public RecordBatch select(int[] rowIndexes, int numRows) {
+    return new RecordBatch(schema, columns, rowIndexes, numRows);
+  }
+
+  /**
+   * Returns a batch with the same rows as this batch, and the given columns. This can be used to project, rename,
+   * or compute fields, while keeping the rows selected in this batch.
+   *
+   * @param schema schema of the records in the returned batch
+   * @param columns one column vector for each field of the schema, that has a value at the index of each row of
+   *                this batch
+   * @return a batch with the given columns
+   */
+  public RecordBatch withColumns(Schema schema, ColumnVector[] columns) {
+    return new RecordBatch(schema, columns, selection, numRows);
+  }
+
+  /**
+   * Returns the given row of the batch as a record.
+   */
+  public StructuredRecord getRecord(int row) {
+    int index = getRowIndex(row);
+    List<Schema.Field> fields = schema.getFields();
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (int i = 0; i < columns.length; i++) {
+      builder.set(fields.get(i).getName(), columns[i].get(index));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns all the rows of the batch as records.
+   */
+  public List<StructuredRecord> toRecords() {
+    List<StructuredRecord> records = new ArrayList<>(numRows);
+    for (int row = 0; row < numRows; row++) {
+      records.add(getRecord(row));
+    }
+    return records;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.pushdown;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A simple predicate on a single field of a record, comparing the value of the field with a literal.
+ * The literal is kept in its string form and is interpreted according to the schema of the field.
+ */
+@Beta
+public final class FieldPredicate implements Serializable {
+  private static final long serialVersionUID = -2217410338826510343L;
+
+  /**
+   * The comparison done by the predicate.
+   */
+  public enum Operator {
+    EQUAL,
+    NOT_EQUAL,
+    LESS_THAN,
+    LESS_THAN_OR_EQUAL,
+    GREATER_THAN,
+    GREATER_THAN_OR_EQUAL,
+    IS_NULL,
+    IS_NOT_NULL
+  }
+
+  private final String fieldName;
+  private final Operator operator;
+  private final String value;
+
+  /**
+   * Creates a predicate.
+   *
+   * @param fieldName the name of the field to compare
+   * @param operator the comparison to do
+   * @param value the literal to compare the field with. Must be {@code null} only for
+   *              {@link Operator#IS_NULL} and {@link Operator#IS_NOT_NULL}
+   * @throws IllegalArgumentException if the value is missing for a comparison
+   */
+  public FieldPredicate(String fieldName, Operator operator, @Nullable String value) {
+    if (value == null && operator != Operator.IS_NULL && operator != Operator.IS_NOT_NULL) {
+      throw new IllegalArgumentException(String.format("A value must be given to compare field '%s' with %s.",
+                                                       fieldName, operator));
+    }
+    this.fieldName = fieldName;
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * @return the name of the field to compare
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the comparison done by the predicate
+   */
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /**
+   * @return the literal to compare the field with, or {@code null} for null checks
+   */
+  @Nullable
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Evaluates the predicate on a record. Records that don't have the field, or whose field has a type that
+   * can't be compared with a literal, satisfy the predicate, so that a source never drops a record because of
+   * a predicate it can't evaluate. A null value satisfies {@link Operator#IS_NULL} and {@link Operator#NOT_EQUAL}.
+   *
+   * @param record the record to evaluate the predicate on
+   * @return whether the record satisfies the predicate
+   * @throws NumberFormatException if the literal can't be parsed as the type of the field
+   */
+  public boolean test(StructuredRecord record) {
+    Schema.Field field = record.getSchema().getField(fieldName);
+    if (field == null) {
+      return true;
+    }
+    Object fieldValue = record.get(fieldName);
+    if (operator == Operator.IS_NULL || operator == Operator.IS_NOT_NULL) {
+      return (fieldValue == null) == (operator == Operator.IS_NULL);
+    }
+    if (fieldValue == null) {
+      return operator == Operator.NOT_EQUAL;
+    }
+
+    Schema fieldSchema = field.getSchema();
+    Object literal = parse(fieldSchema.isNullable() ? fieldSchema.getNonNullable() : fieldSchema);
+    if (literal == null || !(fieldValue instanceof Comparable)) {
+      return true;
+    }
+    @SuppressWarnings("unchecked")
+    int comparison = ((Comparable<Object>) fieldValue).compareTo(literal);
+    switch (operator) {
+      case EQUAL:
+        return comparison == 0;
+      case NOT_EQUAL:
+        return comparison != 0;
+      case LESS_THAN:
+        return comparison < 0;
+      case LESS_THAN_OR_EQUAL:
+        return comparison <= 0;
+      case GREATER_THAN:
+        return comparison > 0;
+      case GREATER_THAN_OR_EQUAL:
+        return comparison >= 0;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Parses the literal as a value of the given schema, or returns {@code null} if the schema is not a simple type.
+   */
+  @Nullable
+  private Object parse(Schema schema) {
+    switch (schema.getType()) {
+      case INT:
+        return Integer.valueOf(value);
+      case LONG:
+        return Long.valueOf(value);
+      case FLOAT:
+        return Float.valueOf(value);
+      case DOUBLE:
+        return Double.valueOf(value);
+      case BOOLEAN:
+        return Boolean.valueOf(value);
+      case STRING:
+      case ENUM:
+        return value;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FieldPredicate that = (FieldPredicate) o;
+    return Objects.equals(fieldName, that.fieldName) &&
+      operator == that.operator &&
+      Objects.equals(value, that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fieldName, operator, value);
+  }
+
+  @Override
+  public String toString() {
+    return "FieldPredicate{" +
+      "fieldName='" + fieldName + '\'' +
+      ", operator=" + operator +
+      ", value='" + value + '\'' +
+      '}';
+  }
+}
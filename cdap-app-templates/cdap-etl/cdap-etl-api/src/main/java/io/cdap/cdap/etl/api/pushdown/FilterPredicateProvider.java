@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.pushdown;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.List;
+
+/**
+ * Implemented by transforms that only filter records: they emit each input record unchanged or drop it. The
+ * pipeline planner uses it at deployment time to push the predicates of the filters that directly follow a source
+ * into that source. Transforms that don't implement it are assumed to change the records.
+ *
+ * It is called after the stage was configured. The transform keeps filtering the records itself, since a source is
+ * free to ignore the predicates. The planner doesn't call it for stages whose properties contain macros, but
+ * implementations must still return an empty list if a config field they depend on is a macro, since the field
+ * doesn't have its runtime value yet.
+ */
+@Beta
+public interface FilterPredicateProvider {
+
+  /**
+   * Returns predicates that are satisfied by every record the transform emits. They don't have to describe the
+   * filter exactly, any predicate implied by the filter can be returned.
+   *
+   * @return the predicates satisfied by the emitted records, or an empty list if there are none to push down
+   */
+  List<FieldPredicate> getFilterPredicates();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.pushdown;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.etl.api.batch.BatchSourceContext;
+
+/**
+ * Implemented by batch sources that can read only some of the fields or some of the records of their input, for
+ * example by pruning the columns of a columnar file format or the partitions of a partitioned dataset.
+ *
+ * The pipeline planner calls it at deployment time, after the source was configured, to decide what to push down.
+ * The result is available to the source when it prepares the run, through {@link BatchSourceContext#getPushdown()}.
+ */
+@Beta
+public interface PushdownSource {
+
+  /**
+   * @return whether the source can skip reading fields that are not required by the pipeline
+   */
+  boolean supportsProjection();
+
+  /**
+   * @param predicate a predicate that all the records used by the pipeline satisfy
+   * @return whether the source can use the predicate to skip reading records
+   */
+  boolean supportsPredicate(FieldPredicate predicate);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.pushdown;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by single input stages, such as transforms, aggregators and sinks, that read only some of the fields of
+ * their input records. The pipeline planner uses it at deployment time to compute the fields that the sources of the
+ * pipeline need to read. Stages that don't implement it are assumed to read all fields.
+ *
+ * It is called after the stage was configured. It is not used for stages that emit errors, since error records
+ * carry the whole input record. The planner doesn't call it for stages whose properties contain macros, but
+ * implementations must still return {@code null} if a config field they depend on is a macro, since the field
+ * doesn't have its runtime value yet.
+ */
+@Beta
+public interface RequiredFieldsProvider {
+
+  /**
+   * Returns the fields of the input records that are read to produce the given output fields.
+   *
+   * @param requiredOutputFields the fields of the output records that are read by later stages, or {@code null}
+   *                             if all of them are read or the stage has no output
+   * @return the fields of the input records that are read, or {@code null} if all of them are read
+   */
+  @Nullable
+  Set<String> getRequiredInputFields(@Nullable Set<String> requiredOutputFields);
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.pushdown;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * The projection and filters that the pipeline planner pushed down into a {@link PushdownSource}.
+ *
+ * Both are hints: the stages that declared them still project and filter the records, so a source may read more
+ * fields and more records than requested, but must never drop a field that is required or a record that satisfies
+ * all the predicates.
+ */
+@Beta
+public final class SourcePushdown implements Serializable {
+  private static final long serialVersionUID = 6041187346553802337L;
+
+  /**
+   * A pushdown that requires all fields and all records.
+   */
+  public static final SourcePushdown NONE = new SourcePushdown(null, Collections.emptyList());
+
+  private final Set<String> requiredFields;
+  private final List<FieldPredicate> predicates;
+
+  public SourcePushdown(@Nullable Set<String> requiredFields, List<FieldPredicate> predicates) {
+    this.requiredFields = requiredFields == null ?
+      null : Collections.unmodifiableSet(new LinkedHashSet<>(requiredFields));
+    this.predicates = Collections.unmodifiableList(new ArrayList<>(predicates));
+  }
+
+  /**
+   * @return the fields of the output of the source that are read by the pipeline, or {@code null} if all fields
+   *         are required
+   */
+  @Nullable
+  public Set<String> getRequiredFields() {
+    return requiredFields;
+  }
+
+  /**
+   * @return the predicates that all records used by the pipeline satisfy. Records that don't satisfy one of them
+   *         are dropped by a later stage, so the source may skip reading them
+   */
+  public List<FieldPredicate> getPredicates() {
+    return predicates == null ? Collections.emptyList() : predicates;
+  }
+
+  /**
+   * @return whether there is nothing to push down
+   */
+  public boolean isEmpty() {
+    return requiredFields == null && getPredicates().isEmpty();
+  }
+
+  /**
+   * Evaluates all the predicates on a record.
+   *
+   * @param record the record to evaluate the predicates on
+   * @return whether the record satisfies all the predicates
+   */
+  public boolean test(StructuredRecord record) {
+    for (FieldPredicate predicate : getPredicates()) {
+      if (!predicate.test(record)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SourcePushdown that = (SourcePushdown) o;
+    return Objects.equals(requiredFields, that.requiredFields) &&
+      Objects.equals(getPredicates(), that.getPredicates());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(requiredFields, getPredicates());
+  }
+
+  @Override
+  public String toString() {
+    return "SourcePushdown{" +
+      "requiredFields=" + requiredFields +
+      ", predicates=" + predicates +
+      '}';
+  }
+}
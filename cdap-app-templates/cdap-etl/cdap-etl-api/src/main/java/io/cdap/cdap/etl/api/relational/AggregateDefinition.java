@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Definition of an aggregation that groups records on the values of some fields, and outputs one record for each
+ * group with the group by fields and the aggregate functions computed over the records of the group.
+ * Records with null group by fields are grouped together.
+ */
+@Beta
+public final class AggregateDefinition {
+  private final List<String> groupByFields;
+  private final List<AggregateFunction> functions;
+
+  /**
+   * Creates an aggregate definition.
+   *
+   * @param groupByFields names of the fields to group on, which keep their name in the output of the aggregation
+   * @param functions aggregate functions computed for each group
+   */
+  public AggregateDefinition(List<String> groupByFields, List<AggregateFunction> functions) {
+    this.groupByFields = Collections.unmodifiableList(new ArrayList<>(groupByFields));
+    this.functions = Collections.unmodifiableList(new ArrayList<>(functions));
+  }
+
+  /**
+   * @return the names of the fields to group on
+   */
+  public List<String> getGroupByFields() {
+    return groupByFields;
+  }
+
+  /**
+   * @return the aggregate functions computed for each group
+   */
+  public List<AggregateFunction> getFunctions() {
+    return functions;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Objects;
+
+/**
+ * An aggregate function of a field, computed for each group of an aggregation.
+ */
+@Beta
+public final class AggregateFunction {
+
+  /**
+   * Type of aggregate function. Null values of the field are ignored by all the functions.
+   */
+  public enum Type {
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+  }
+
+  private final Type type;
+  private final String fieldName;
+  private final String alias;
+
+  /**
+   * Creates an aggregate function.
+   *
+   * @param type type of the function
+   * @param fieldName name of the field the function is computed on
+   * @param alias name of the computed value in the output of the aggregation
+   */
+  public AggregateFunction(Type type, String fieldName, String alias) {
+    this.type = type;
+    this.fieldName = fieldName;
+    this.alias = alias;
+  }
+
+  /**
+   * @return the type of the function
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the name of the field the function is computed on
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the name of the computed value in the output of the aggregation
+   */
+  public String getAlias() {
+    return alias;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    AggregateFunction that = (AggregateFunction) o;
+    return type == that.type &&
+      Objects.equals(fieldName, that.fieldName) &&
+      Objects.equals(alias, that.alias);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, fieldName, alias);
+  }
+
+  @Override
+  public String toString() {
+    return "AggregateFunction{" +
+      "type=" + type +
+      ", fieldName='" + fieldName + '\'' +
+      ", alias='" + alias + '\'' +
+      '}';
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Implemented by a {@link io.cdap.cdap.etl.api.batch.BatchAggregator} of records that can describe its aggregation
+ * with an {@link AggregateDefinition}. Execution engines that support relational execution may run the aggregation
+ * described by the definition instead of calling the groupBy and aggregate methods of the aggregator.
+ *
+ * The aggregation described by the definition must output the same records as the aggregator, except that it can't
+ * emit errors or alerts. Execution engines only use it for stages whose errors and alerts are not consumed by
+ * another stage.
+ */
+@Beta
+public interface DeclarativeAggregator {
+
+  /**
+   * Returns the definition of the aggregation. It is called on an aggregator that is configured, but not
+   * initialized.
+   *
+   * @return the definition of the aggregation
+   */
+  AggregateDefinition getAggregateDefinition();
+}
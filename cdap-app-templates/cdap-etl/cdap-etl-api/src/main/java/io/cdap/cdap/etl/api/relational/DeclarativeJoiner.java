@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Implemented by a {@link io.cdap.cdap.etl.api.batch.BatchJoiner} of records that can describe its join with a
+ * {@link JoinDefinition}. Execution engines that support relational execution may run the join described by the
+ * definition instead of calling the joinOn and merge methods of the joiner. The type of join is still given by the
+ * required inputs of the {@link io.cdap.cdap.etl.api.JoinConfig} of the joiner.
+ *
+ * The join described by the definition must output the same records as the joinOn and merge methods.
+ */
+@Beta
+public interface DeclarativeJoiner {
+
+  /**
+   * Returns the definition of the join. It is called after the joiner is initialized.
+   *
+   * @return the definition of the join
+   */
+  JoinDefinition getJoinDefinition();
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definition of an equi-join of the input stages of a joiner. Records of the input stages are joined when their key
+ * fields are equal, with the key fields of the stages compared in order. Null keys are equal to each other, as they
+ * are when records are joined on the key returned by the joinOn method of a joiner.
+ */
+@Beta
+public final class JoinDefinition {
+  private final Map<String, List<String>> keys;
+  private final List<JoinField> selectedFields;
+
+  /**
+   * Creates a join definition.
+   *
+   * @param keys map from input stage name to the names of its key fields. All the stages must have the same number
+   *             of key fields, of the same types.
+   * @param selectedFields the fields in the output of the join, in the order of the output schema
+   */
+  public JoinDefinition(Map<String, List<String>> keys, List<JoinField> selectedFields) {
+    Integer numKeyFields = null;
+    Map<String, List<String>> copy = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : keys.entrySet()) {
+      if (numKeyFields != null && numKeyFields != entry.getValue().size()) {
+        throw new IllegalArgumentException("All the input stages of a join must have the same number of key fields.");
+      }
+      numKeyFields = entry.getValue().size();
+      copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+    }
+    this.keys = Collections.unmodifiableMap(copy);
+    this.selectedFields = Collections.unmodifiableList(new ArrayList<>(selectedFields));
+  }
+
+  /**
+   * @return map from input stage name to the names of its key fields
+   */
+  public Map<String, List<String>> getKeys() {
+    return keys;
+  }
+
+  /**
+   * @return the fields in the output of the join, in the order of the output schema
+   */
+  public List<JoinField> getSelectedFields() {
+    return selectedFields;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.relational;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A field of an input stage of a join, selected in the output of the join.
+ */
+@Beta
+public final class JoinField {
+  private final String stageName;
+  private final String fieldName;
+  private final String alias;
+
+  /**
+   * Creates a selected field that keeps its name in the output of the join.
+   *
+   * @param stageName name of the input stage
+   * @param fieldName name of the field in the records of the input stage
+   */
+  public JoinField(String stageName, String fieldName) {
+    this(stageName, fieldName, null);
+  }
+
+  /**
+   * Creates a selected field that is renamed in the output of the join.
+   *
+   * @param stageName name of the input stage
+   * @param fieldName name of the field in the records of the input stage
+   * @param alias name of the field in the output of the join, or {@code null} to keep the name of the field
+   */
+  public JoinField(String stageName, String fieldName, @Nullable String alias) {
+    this.stageName = stageName;
+    this.fieldName = fieldName;
+    this.alias = alias;
+  }
+
+  /**
+   * @return the name of the input stage
+   */
+  public String getStageName() {
+    return stageName;
+  }
+
+  /**
+   * @return the name of the field in the records of the input stage
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the alias of the field, or {@code null} if it keeps its name in the output of the join
+   */
+  @Nullable
+  public String getAlias() {
+    return alias;
+  }
+
+  /**
+   * @return the name of the field in the output of the join
+   */
+  public String getOutputName() {
+    return alias == null ? fieldName : alias;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    JoinField that = (JoinField) o;
+    return Objects.equals(stageName, that.stageName) &&
+      Objects.equals(fieldName, that.fieldName) &&
+      Objects.equals(alias, that.alias);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(stageName, fieldName, alias);
+  }
+
+  @Override
+  public String toString() {
+    return "JoinField{" +
+      "stageName='" + stageName + '\'' +
+      ", fieldName='" + fieldName + '\'' +
+      ", alias='" + alias + '\'' +
+      '}';
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.batch;
+
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.common.Destroyables;
+import io.cdap.cdap.etl.common.FusedTransform;
+import io.cdap.cdap.etl.common.RecordInfo;
+
+/**
+ * Processes a linear chain of transforms that were fused into a single {@link FusedTransform}. Gets the value from a
+ * RecordInfo before passing it on to the first transform of the chain. Records output by the last transform of the
+ * chain are sent to the emitter of that transform.
+ *
+ * @param <T> type of input object
+ */
+public class FusedTransformPipeStage<T> extends PipeStage<RecordInfo<T>> {
+  private final FusedTransform<T, Object> transform;
+  private final Emitter<Object> emitter;
+
+  public FusedTransformPipeStage(String stageName, FusedTransform<T, Object> transform, Emitter<Object> emitter) {
+    super(stageName);
+    this.transform = transform;
+    this.emitter = emitter;
+  }
+
+  @Override
+  public void consumeInput(RecordInfo<T> input) throws Exception {
+    try {
+      transform.transform(input.getValue(), emitter);
+    } catch (StageFailureException e) {
+      throw e;
+    } catch (Exception e) {
+      // attribute the failure to the transform in the chain that failed
+      String failedStage = transform.getFailedStage();
+      if (failedStage == null) {
+        throw e;
+      }
+      throw createStageFailure(failedStage, e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    Destroyables.destroyQuietly(transform);
+  }
+}
@@ -46,15 +46,25 @@ public abstract class PipeStage<T> implements Destroyable {
       // Another stage has already failed, just throw the exception as-is
       throw e;
     } catch (Exception e) {
-      Throwable rootCause = Throwables.getRootCause(e);
-      // Create StageFailureException to save the Stage information
-      throw new StageFailureException(
-        String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
-                        "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
-        rootCause);
+      throw createStageFailure(stageName, e);
     }
   }
 
+  /**
+   * Creates the exception to throw when a stage failed, which saves the stage information.
+   *
+   * @param stageName the name of the failed stage
+   * @param e the failure
+   * @return the exception to throw
+   */
+  static StageFailureException createStageFailure(String stageName, Exception e) {
+    Throwable rootCause = Throwables.getRootCause(e);
+    return new StageFailureException(
+      String.format("Failed to execute pipeline stage '%s' with the error: %s. Please review your pipeline " +
+                      "configuration and check the system logs for more details.", stageName, rootCause.getMessage()),
+      rootCause);
+  }
+
   /**
    * Consume an input record, throwing an exception if there is a failure
    *
@@ -26,6 +26,7 @@ import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchConfigurable;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.BatchSinkContext;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
@@ -171,6 +172,13 @@ public class MapReducePreparer extends PipelinePhasePreparer {
       if (outputValClass == null) {
         outputValClass = TypeChecker.getGroupValueClass(aggregator);
       }
+      // values of a reducible aggregator are combined in the mapper, so aggregate values are shuffled instead
+      if (aggregator instanceof BatchReducibleAggregator) {
+        outputValClass = aggregatorContext.getAggregateValueClass();
+        if (outputValClass == null) {
+          outputValClass = TypeChecker.getAggregateValueClass((BatchReducibleAggregator<?, ?, ?, ?>) aggregator);
+        }
+      }
       hConf.set(ETLMapReduce.MAP_KEY_CLASS, outputKeyClass.getName());
       hConf.set(ETLMapReduce.MAP_VAL_CLASS, outputValClass.getName());
       job.setMapOutputKeyClass(getOutputKeyClass(stageName, outputKeyClass));
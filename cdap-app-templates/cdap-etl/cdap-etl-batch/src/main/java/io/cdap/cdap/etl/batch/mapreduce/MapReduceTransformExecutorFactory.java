@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.etl.batch.mapreduce;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
@@ -30,18 +31,22 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.ErrorTransform;
 import io.cdap.cdap.etl.api.JoinElement;
 import io.cdap.cdap.etl.api.Joiner;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
 import io.cdap.cdap.etl.api.SplitterTransform;
 import io.cdap.cdap.etl.api.StageLifecycle;
 import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.Transformation;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.batch.ConnectorSourceEmitter;
 import io.cdap.cdap.etl.batch.DirectOutputPipeStage;
+import io.cdap.cdap.etl.batch.FusedTransformPipeStage;
 import io.cdap.cdap.etl.batch.MultiOutputTransformPipeStage;
 import io.cdap.cdap.etl.batch.PipeEmitter;
 import io.cdap.cdap.etl.batch.PipeStage;
@@ -55,6 +60,7 @@ import io.cdap.cdap.etl.common.BasicArguments;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
 import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.FusedTransform;
 import io.cdap.cdap.etl.common.NoErrorEmitter;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelinePhase;
@@ -69,16 +75,20 @@ import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
 /**
@@ -97,6 +107,10 @@ public class MapReduceTransformExecutorFactory<T> {
   private final int numberOfRecordsPreview;
   private final BasicArguments arguments;
   private final boolean isPipelineContainsCondition;
+  private final Configuration hConf;
+  private final int maxCombinedGroups;
+  private final List<MapperReducibleAggregatorTransformation<?, ?, ?, ?, ?>> combiners;
+  private final boolean fusionEnabled;
   private boolean isMapPhase;
 
   public MapReduceTransformExecutorFactory(MapReduceTaskContext taskContext,
@@ -120,6 +134,13 @@ public class MapReduceTransformExecutorFactory<T> {
     this.isMapPhase = hadoopContext instanceof Mapper.Context;
     this.arguments = arguments;
     this.isPipelineContainsCondition = isPipelineContainsCondition;
+    this.hConf = hConf;
+    String maxCombinedGroups = arguments.get(Constants.AGGREGATOR_COMBINE_MAX_GROUPS);
+    this.maxCombinedGroups = maxCombinedGroups == null ?
+      Constants.DEFAULT_AGGREGATOR_COMBINE_MAX_GROUPS : Integer.parseInt(maxCombinedGroups);
+    this.combiners = new ArrayList<>();
+    String fusionEnabled = arguments.get(Constants.MAPREDUCE_FUSION_ENABLED);
+    this.fusionEnabled = fusionEnabled == null || Boolean.parseBoolean(fusionEnabled);
   }
 
   private MapReduceRuntimeContext createRuntimeContext(StageSpec stageInfo) {
@@ -138,13 +159,17 @@ public class MapReduceTransformExecutorFactory<T> {
     splitterTransform.initialize(transformContext);
 
     StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
-    TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
-    StageStatisticsCollector collector = isPipelineContainsCondition
-      ? new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
+    StageStatisticsCollector collector = getStatisticsCollector(stageName);
     return new TrackedMultiOutputTransform<>(splitterTransform, stageMetrics, taskContext.getDataTracer(stageName),
                                              collector);
   }
 
+  private StageStatisticsCollector getStatisticsCollector(String stageName) {
+    TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
+    return isPipelineContainsCondition ?
+      new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
+  }
+
   @SuppressWarnings("unchecked")
   private <IN, OUT> TrackedTransform<IN, OUT> getTransformation(StageSpec stageSpec) throws Exception {
 
@@ -153,13 +178,26 @@ public class MapReduceTransformExecutorFactory<T> {
     String stageName = stageSpec.getName();
     String pluginType = stageSpec.getPluginType();
     StageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
-    TaskAttemptContext taskAttemptContext = (TaskAttemptContext) taskContext.getHadoopContext();
-    StageStatisticsCollector collector = isPipelineContainsCondition ?
-      new MapReduceStageStatisticsCollector(stageName, taskAttemptContext) : new NoopStageStatisticsCollector();
+    StageStatisticsCollector collector = getStatisticsCollector(stageName);
     if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
       BatchAggregator<?, ?, ?> batchAggregator = pluginInstantiator.newPluginInstance(stageName, macroEvaluator);
       BatchRuntimeContext runtimeContext = createRuntimeContext(stageSpec);
       batchAggregator.initialize(runtimeContext);
+      if (batchAggregator instanceof BatchReducibleAggregator) {
+        BatchReducibleAggregator<?, ?, ?, ?> reducibleAggregator =
+          (BatchReducibleAggregator<?, ?, ?, ?>) batchAggregator;
+        if (isMapPhase) {
+          MapperReducibleAggregatorTransformation combiner =
+            new MapperReducibleAggregatorTransformation(reducibleAggregator, mapOutputKeyClassName,
+                                                        mapOutputValClassName, maxCombinedGroups);
+          combiners.add(combiner);
+          return getTrackedEmitKeyStep(combiner, stageMetrics, taskContext.getDataTracer(stageName), collector);
+        }
+        return getTrackedAggregateStep(new ReducerReducibleAggregatorTransformation(reducibleAggregator,
+                                                                                    mapOutputKeyClassName,
+                                                                                    mapOutputValClassName, hConf),
+                                       stageMetrics, taskContext.getDataTracer(stageName), collector);
+      }
       if (isMapPhase) {
         return getTrackedEmitKeyStep(new MapperAggregatorTransformation(batchAggregator, mapOutputKeyClassName,
                                                                         mapOutputValClassName),
@@ -215,9 +253,20 @@ public class MapReduceTransformExecutorFactory<T> {
     List<String> traversalOrder = pipeline.getDag().getTopologicalOrder();
     Collections.reverse(traversalOrder);
 
+    // linear chains of transforms are executed by a single pipe stage, registered under the first stage of the chain
+    Map<String, List<String>> fusedChains = fusionEnabled ? getFusedChains(pipeline, this::isTraced) : Collections.emptyMap();
+    Set<String> fusedStages = new HashSet<>();
+    for (List<String> chain : fusedChains.values()) {
+      fusedStages.addAll(chain.subList(1, chain.size()));
+    }
+
     Map<String, PipeStage> pipeStages = new HashMap<>();
     for (String stageName : traversalOrder) {
-      pipeStages.put(stageName, getPipeStage(pipeline, stageName, pipeStages, outputWriter));
+      if (fusedChains.containsKey(stageName)) {
+        pipeStages.put(stageName, getFusedPipeStage(pipeline, fusedChains.get(stageName), pipeStages));
+      } else if (!fusedStages.contains(stageName)) {
+        pipeStages.put(stageName, getPipeStage(pipeline, stageName, pipeStages, outputWriter));
+      }
     }
 
     // sourceStageName will be null in reducers, so need to handle that case
@@ -225,6 +274,18 @@ public class MapReduceTransformExecutorFactory<T> {
     return new PipeTransformExecutor<>(pipeStages, startingPoints);
   }
 
+  /**
+   * Emits the groups combined so far by the aggregators of the executors created by this factory. This must be
+   * called once all the input of the mapper has been processed.
+   *
+   * @throws Exception if there was an error emitting the combined groups
+   */
+  public void flush() throws Exception {
+    for (MapperReducibleAggregatorTransformation<?, ?, ?, ?, ?> combiner : combiners) {
+      combiner.flush();
+    }
+  }
+
   private PipeStage getPipeStage(PipelinePhase pipeline, String stageName, Map<String, PipeStage> pipeStages,
                                  OutputWriter<?, ?> outputWriter) throws Exception {
     StageSpec stageSpec = pipeline.getStage(stageName);
@@ -259,8 +320,24 @@ public class MapReduceTransformExecutorFactory<T> {
       }
     }
 
-    // create PipeEmitter, which holds all output PipeStages it needs to write to and wraps any output it gets
-    // into a RecordInfo
+    PipeEmitter pipeEmitter = getPipeEmitter(pipeline, stageName, pipeStages);
+
+    if (SplitterTransform.PLUGIN_TYPE.equals(pluginType)) {
+      // this is a SplitterTransform, needs to emit records to the right outputs based on port
+      return new MultiOutputTransformPipeStage<>(stageName, getMultiOutputTransform(stageSpec), pipeEmitter);
+    } else {
+      return new UnwrapPipeStage<>(stageName, getTransformation(stageSpec), pipeEmitter);
+    }
+  }
+
+  /**
+   * Creates the PipeEmitter of a stage, which holds all output PipeStages it needs to write to and wraps any output it
+   * gets into a RecordInfo. All the outputs of the stage must already be in the given pipe stages.
+   */
+  private PipeEmitter getPipeEmitter(PipelinePhase pipeline, String stageName, Map<String, PipeStage> pipeStages) {
+    StageSpec stageSpec = pipeline.getStage(stageName);
+    String pluginType = stageSpec.getPluginType();
+
     // ConnectorSources require a special emitter since they need to build RecordInfo from the temporary dataset
     PipeEmitter.Builder emitterBuilder =
       Constants.Connector.PLUGIN_TYPE.equals(pluginType) && pipeline.getSources().contains(stageName) ?
@@ -294,14 +371,68 @@ public class MapReduceTransformExecutorFactory<T> {
         }
       }
     }
-    PipeEmitter pipeEmitter = emitterBuilder.build();
+    return emitterBuilder.build();
+  }
 
-    if (SplitterTransform.PLUGIN_TYPE.equals(pluginType)) {
-      // this is a SplitterTransform, needs to emit records to the right outputs based on port
-      return new MultiOutputTransformPipeStage<>(stageName, getMultiOutputTransform(stageSpec), pipeEmitter);
-    } else {
-      return new UnwrapPipeStage<>(stageName, getTransformation(stageSpec), pipeEmitter);
+  /**
+   * Finds the linear chains of stages that can be executed by a single {@link FusedTransformPipeStage}.
+   *
+   * @param pipeline the pipeline phase
+   * @param traced whether records of a stage are traced for preview
+   * @return map from the first stage of each chain to all the stages of the chain, in execution order
+   */
+  @VisibleForTesting
+  static Map<String, List<String>> getFusedChains(PipelinePhase pipeline, Predicate<String> traced) {
+    // stage -> first stage of the chain it belongs to
+    Map<String, String> chainHeads = new HashMap<>();
+    Map<String, List<String>> chains = new HashMap<>();
+    for (String stageName : pipeline.getDag().getTopologicalOrder()) {
+      String head = stageName;
+      if (canFuseWithInput(pipeline, stageName, traced)) {
+        head = chainHeads.get(pipeline.getStageInputs(stageName).iterator().next());
+      }
+      chainHeads.put(stageName, head);
+      chains.computeIfAbsent(head, k -> new ArrayList<>()).add(stageName);
     }
+    chains.values().removeIf(chain -> chain.size() < 2);
+    return chains;
+  }
+
+  /**
+   * Returns whether a stage can be fused with its input, which is the case if the stage is a transform with a single
+   * input, and that input is a source or a transform whose only output is the stage. Stages that are traced for
+   * preview are never fused, since the fused chain does not trace records.
+   */
+  private static boolean canFuseWithInput(PipelinePhase pipeline, String stageName, Predicate<String> traced) {
+    Set<String> inputs = pipeline.getStageInputs(stageName);
+    if (!Transform.PLUGIN_TYPE.equals(pipeline.getStage(stageName).getPluginType()) || inputs.size() != 1 ||
+      pipeline.getSinks().contains(stageName) || traced.test(stageName)) {
+      return false;
+    }
+    String inputName = inputs.iterator().next();
+    String inputType = pipeline.getStage(inputName).getPluginType();
+    return (Transform.PLUGIN_TYPE.equals(inputType) || BatchSource.PLUGIN_TYPE.equals(inputType)) &&
+      pipeline.getStageOutputs(inputName).size() == 1 && !pipeline.getSinks().contains(inputName) &&
+      !traced.test(inputName);
+  }
+
+  private boolean isTraced(String stageName) {
+    return taskContext.getDataTracer(stageName).isEnabled();
+  }
+
+  private PipeStage getFusedPipeStage(PipelinePhase pipeline, List<String> chain,
+                                      Map<String, PipeStage> pipeStages) throws Exception {
+    FusedTransform.Builder builder = FusedTransform.builder();
+    String lastStage = chain.get(chain.size() - 1);
+    PipeEmitter lastEmitter = getPipeEmitter(pipeline, lastStage, pipeStages);
+    for (String stageName : chain) {
+      // stages before the last one have no output other than the next stage of the chain, so their errors and
+      // alerts are handled by an emitter without consumers, just like they would be if they were not fused
+      PipeEmitter errorEmitter = stageName.equals(lastStage) ? lastEmitter : PipeEmitter.builder(stageName).build();
+      builder.addStage(stageName, getInitializedTransformation(pipeline.getStage(stageName)),
+                       new DefaultStageMetrics(metrics, stageName), getStatisticsCollector(stageName), errorEmitter);
+    }
+    return new FusedTransformPipeStage<>(chain.get(0), builder.build(), lastEmitter);
   }
 
   /**
@@ -512,6 +643,118 @@ public class MapReduceTransformExecutorFactory<T> {
     }
   }
 
+  /**
+   * A Transformation that combines the values of each group into an aggregate value using a reducible aggregator,
+   * so that only one aggregate value per group is sent to the reducers instead of every value. Groups are kept in
+   * memory, and are emitted when the number of groups reaches a maximum, and when the mapper is done with its input.
+   *
+   * @param <GROUP_KEY> type of group key output by the aggregator
+   * @param <GROUP_VAL> type of group value used by the aggregator
+   * @param <AGG_VAL>   type of aggregate value used by the aggregator
+   * @param <OUT_KEY>   type of output key for mapreduce. Must implement WritableComparable
+   * @param <OUT_VAL>   type of output value for mapreduce. Must implement Writable
+   */
+  private static class MapperReducibleAggregatorTransformation<GROUP_KEY, GROUP_VAL, AGG_VAL,
+    OUT_KEY extends Writable, OUT_VAL extends Writable>
+    implements Transformation<GROUP_VAL, KeyValue<OUT_KEY, OUT_VAL>> {
+    private final ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, ?> aggregator;
+    private final NoErrorEmitter<GROUP_KEY> groupKeyEmitter;
+    private final WritableConversion<GROUP_KEY, OUT_KEY> keyConversion;
+    private final WritableConversion<AGG_VAL, OUT_VAL> valConversion;
+    private final int maxGroups;
+    private final Map<GROUP_KEY, AGG_VAL> groups;
+    private Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter;
+
+    MapperReducibleAggregatorTransformation(ReducibleAggregator<GROUP_KEY, GROUP_VAL, AGG_VAL, ?> aggregator,
+                                            String groupKeyClassName, String aggValClassName, int maxGroups) {
+      this.aggregator = aggregator;
+      this.groupKeyEmitter =
+        new NoErrorEmitter<>("Errors and Alerts cannot be emitted from the groupBy method of an aggregator");
+      WritableConversion<GROUP_KEY, OUT_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
+      WritableConversion<AGG_VAL, OUT_VAL> valConversion = WritableConversions.getConversion(aggValClassName);
+      this.keyConversion = keyConversion == null ? new CastConversion<>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<>() : valConversion;
+      this.maxGroups = maxGroups;
+      this.groups = new HashMap<>();
+    }
+
+    @Override
+    public void transform(GROUP_VAL input, Emitter<KeyValue<OUT_KEY, OUT_VAL>> emitter) throws Exception {
+      // the emitter is always the same one, which writes to the mapreduce context
+      this.emitter = emitter;
+      groupKeyEmitter.reset();
+      aggregator.groupBy(input, groupKeyEmitter);
+      for (GROUP_KEY groupKey : groupKeyEmitter.getEntries()) {
+        AGG_VAL aggValue = groups.get(groupKey);
+        groups.put(groupKey, aggValue == null ?
+          aggregator.initializeAggregateValue(input) : aggregator.mergeValues(aggValue, input));
+      }
+      if (groups.size() >= maxGroups) {
+        flush();
+      }
+    }
+
+    void flush() throws Exception {
+      for (Map.Entry<GROUP_KEY, AGG_VAL> group : groups.entrySet()) {
+        emitter.emit(new KeyValue<>(keyConversion.toWritable(group.getKey()),
+                                    valConversion.toWritable(group.getValue())));
+      }
+      groups.clear();
+    }
+  }
+
+  /**
+   * A Transformation that merges the aggregate values combined by the mappers for a group using a reducible
+   * aggregator, and emits the output of the group.
+   *
+   * @param <GROUP_KEY>  type of group key output by the aggregator
+   * @param <AGG_VAL>    type of aggregate value used by the aggregator
+   * @param <OUT>        type of output of the aggregator
+   * @param <REDUCE_KEY> type of reduce key for mapreduce. Must implement WritableComparable
+   * @param <REDUCE_VAL> type of reduce value for mapreduce. Must implement Writable
+   */
+  private static class ReducerReducibleAggregatorTransformation<GROUP_KEY, AGG_VAL, OUT,
+    REDUCE_KEY extends WritableComparable, REDUCE_VAL extends Writable>
+    implements Transformation<KeyValue<REDUCE_KEY, Iterator<REDUCE_VAL>>, OUT> {
+    private final ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT> aggregator;
+    private final WritableConversion<GROUP_KEY, REDUCE_KEY> keyConversion;
+    private final WritableConversion<AGG_VAL, REDUCE_VAL> valConversion;
+    private final Configuration hConf;
+    private final boolean isWritableValue;
+
+    ReducerReducibleAggregatorTransformation(ReducibleAggregator<GROUP_KEY, ?, AGG_VAL, OUT> aggregator,
+                                             String groupKeyClassName, String aggValClassName,
+                                             Configuration hConf) {
+      this.aggregator = aggregator;
+      WritableConversion<GROUP_KEY, REDUCE_KEY> keyConversion = WritableConversions.getConversion(groupKeyClassName);
+      WritableConversion<AGG_VAL, REDUCE_VAL> valConversion = WritableConversions.getConversion(aggValClassName);
+      this.keyConversion = keyConversion == null ? new CastConversion<>() : keyConversion;
+      this.valConversion = valConversion == null ? new CastConversion<>() : valConversion;
+      this.hConf = hConf;
+      this.isWritableValue = valConversion == null;
+    }
+
+    @Override
+    public void transform(KeyValue<REDUCE_KEY, Iterator<REDUCE_VAL>> input, Emitter<OUT> emitter) throws Exception {
+      GROUP_KEY groupKey = keyConversion.fromWritable(input.getKey());
+      Iterator<REDUCE_VAL> values = input.getValue();
+      if (!values.hasNext()) {
+        return;
+      }
+      AGG_VAL aggValue = getAggregateValue(values.next());
+      while (values.hasNext()) {
+        aggValue = aggregator.mergePartitions(aggValue, getAggregateValue(values.next()));
+      }
+      aggregator.finalize(groupKey, aggValue, emitter);
+    }
+
+    private AGG_VAL getAggregateValue(REDUCE_VAL value) {
+      // mapreduce reuses the same instance for all values of a group, so values that are used directly as
+      // aggregate values need to be copied
+      return valConversion.fromWritable(isWritableValue ? WritableUtils.clone(value, hConf) : value);
+    }
+  }
+
   /**
    * Conversion that doesn't do anything but cast types to each other.
    * This is used in the MapperAggregatorTransformation and ReducerAggregatorTransformation when the user is already
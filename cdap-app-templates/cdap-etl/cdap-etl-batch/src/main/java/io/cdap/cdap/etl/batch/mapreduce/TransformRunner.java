@@ -62,6 +62,7 @@ public class TransformRunner<KEY, VALUE> {
     .create();
   private final PipeTransformExecutor<KeyValue<KEY, VALUE>> transformExecutor;
   private final OutputWriter<Object, Object> outputWriter;
+  private final MapReduceTransformExecutorFactory<KeyValue<KEY, VALUE>> transformExecutorFactory;
 
   public TransformRunner(MapReduceTaskContext<Object, Object> context,
                          Metrics metrics) throws Exception {
@@ -100,7 +101,7 @@ public class TransformRunner<KEY, VALUE> {
       }
     }
 
-    MapReduceTransformExecutorFactory<KeyValue<KEY, VALUE>> transformExecutorFactory =
+    this.transformExecutorFactory =
       new MapReduceTransformExecutorFactory<>(context, pluginInstantiator, metrics,
                                               new BasicArguments(context.getWorkflowToken(), runtimeArgs),
                                               sourceStage, phaseSpec.getNumOfRecordsPreview(),
@@ -142,6 +143,13 @@ public class TransformRunner<KEY, VALUE> {
     transformExecutor.runOneIteration(input);
   }
 
+  /**
+   * Emits the records buffered by the pipeline. This must be called once all the input has been processed.
+   */
+  public void flush() throws Exception {
+    transformExecutorFactory.flush();
+  }
+
   public void destroy() {
     Destroyables.destroyQuietly(transformExecutor);
   }
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.batch.mapreduce;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.etl.api.AlertPublisher;
+import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.SplitterTransform;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.batch.BatchSink;
+import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.common.PipelinePhase;
+import io.cdap.cdap.etl.proto.v2.spec.PluginSpec;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for the chains of transforms that {@link MapReduceTransformExecutorFactory} fuses into a single pipe stage.
+ */
+public class MapReduceTransformExecutorFactoryTest {
+
+  private static final ArtifactId ARTIFACT_ID =
+    new ArtifactId("art", new ArtifactVersion("1.0.0"), ArtifactScope.USER);
+  private static final Set<String> PLUGIN_TYPES =
+    ImmutableSet.of(BatchSource.PLUGIN_TYPE, Transform.PLUGIN_TYPE, SplitterTransform.PLUGIN_TYPE,
+                    ErrorTransform.PLUGIN_TYPE, AlertPublisher.PLUGIN_TYPE, BatchSink.PLUGIN_TYPE);
+
+  @Test
+  public void testLinearChain() {
+    // source --> t1 --> t2 --> t3 --> sink
+    PipelinePhase pipeline = PipelinePhase.builder(PLUGIN_TYPES)
+      .addStage(stage("source", BatchSource.PLUGIN_TYPE))
+      .addStage(stage("t1", Transform.PLUGIN_TYPE))
+      .addStage(stage("t2", Transform.PLUGIN_TYPE))
+      .addStage(stage("t3", Transform.PLUGIN_TYPE))
+      .addStage(stage("sink", BatchSink.PLUGIN_TYPE))
+      .addConnection("source", "t1")
+      .addConnection("t1", "t2")
+      .addConnection("t2", "t3")
+      .addConnection("t3", "sink")
+      .build();
+
+    Assert.assertEquals(ImmutableMap.of("source", Arrays.asList("source", "t1", "t2", "t3")),
+                        MapReduceTransformExecutorFactory.getFusedChains(pipeline, stage -> false));
+  }
+
+  @Test
+  public void testSplitter() {
+    //                        |port a--> t1 --> t2 --> sink1
+    // source --> splitter ---|
+    //                        |port b--> t3 --> sink2
+    PipelinePhase pipeline = PipelinePhase.builder(PLUGIN_TYPES)
+      .addStage(stage("source", BatchSource.PLUGIN_TYPE))
+      .addStage(StageSpec.builder("splitter", plugin(SplitterTransform.PLUGIN_TYPE))
+                  .addOutput("t1", "a", null)
+                  .addOutput("t3", "b", null)
+                  .build())
+      .addStage(stage("t1", Transform.PLUGIN_TYPE))
+      .addStage(stage("t2", Transform.PLUGIN_TYPE))
+      .addStage(stage("t3", Transform.PLUGIN_TYPE))
+      .addStage(stage("sink1", BatchSink.PLUGIN_TYPE))
+      .addStage(stage("sink2", BatchSink.PLUGIN_TYPE))
+      .addConnection("source", "splitter")
+      .addConnection("splitter", "t1")
+      .addConnection("splitter", "t3")
+      .addConnection("t1", "t2")
+      .addConnection("t2", "sink1")
+      .addConnection("t3", "sink2")
+      .build();
+
+    // The splitter is never fused, and the stages after it start their own chains
+    Assert.assertEquals(ImmutableMap.of("t1", Arrays.asList("t1", "t2")),
+                        MapReduceTransformExecutorFactory.getFusedChains(pipeline, stage -> false));
+  }
+
+  @Test
+  public void testErrorAndAlertOutputs() {
+    // source --> t1 --> t2 --> t3 --> t4 --> sink1
+    //                   |             |
+    //                   |--> error    |--> alerts
+    //                        |
+    //                        |--> sink2
+    PipelinePhase pipeline = PipelinePhase.builder(PLUGIN_TYPES)
+      .addStage(stage("source", BatchSource.PLUGIN_TYPE))
+      .addStage(stage("t1", Transform.PLUGIN_TYPE))
+      .addStage(stage("t2", Transform.PLUGIN_TYPE))
+      .addStage(stage("t3", Transform.PLUGIN_TYPE))
+      .addStage(stage("t4", Transform.PLUGIN_TYPE))
+      .addStage(stage("error", ErrorTransform.PLUGIN_TYPE))
+      .addStage(stage("alerts", AlertPublisher.PLUGIN_TYPE))
+      .addStage(stage("sink1", BatchSink.PLUGIN_TYPE))
+      .addStage(stage("sink2", BatchSink.PLUGIN_TYPE))
+      .addConnection("source", "t1")
+      .addConnection("t1", "t2")
+      .addConnection("t2", "t3")
+      .addConnection("t2", "error")
+      .addConnection("error", "sink2")
+      .addConnection("t3", "t4")
+      .addConnection("t3", "alerts")
+      .addConnection("t4", "sink1")
+      .build();
+
+    // A stage with error or alert outputs can only end a chain, and error transforms are never fused
+    Assert.assertEquals(ImmutableMap.of("source", Arrays.asList("source", "t1", "t2")),
+                        MapReduceTransformExecutorFactory.getFusedChains(pipeline, stage -> false));
+  }
+
+  @Test
+  public void testPreviewTracing() {
+    // source --> t1 --> t2 --> t3 --> t4 --> sink
+    PipelinePhase pipeline = PipelinePhase.builder(PLUGIN_TYPES)
+      .addStage(stage("source", BatchSource.PLUGIN_TYPE))
+      .addStage(stage("t1", Transform.PLUGIN_TYPE))
+      .addStage(stage("t2", Transform.PLUGIN_TYPE))
+      .addStage(stage("t3", Transform.PLUGIN_TYPE))
+      .addStage(stage("t4", Transform.PLUGIN_TYPE))
+      .addStage(stage("sink", BatchSink.PLUGIN_TYPE))
+      .addConnection("source", "t1")
+      .addConnection("t1", "t2")
+      .addConnection("t2", "t3")
+      .addConnection("t3", "t4")
+      .addConnection("t4", "sink")
+      .build();
+
+    // Traced stages are not fused, neither with their input nor with their output
+    Assert.assertEquals(ImmutableMap.of("source", Arrays.asList("source", "t1"), "t3", Arrays.asList("t3", "t4")),
+                        MapReduceTransformExecutorFactory.getFusedChains(pipeline, "t2"::equals));
+    // In preview all stages are traced, so nothing is fused
+    Assert.assertEquals(Collections.emptyMap(),
+                        MapReduceTransformExecutorFactory.getFusedChains(pipeline, stage -> true));
+  }
+
+  @Test
+  public void testMultiInputHead() {
+    // source1 --|
+    //           |--> t1 --> t2 --> t3 --> sink
+    // source2 --|
+    PipelinePhase pipeline = PipelinePhase.builder(PLUGIN_TYPES)
+      .addStage(stage("source1", BatchSource.PLUGIN_TYPE))
+      .addStage(stage("source2", BatchSource.PLUGIN_TYPE))
+      .addStage(stage("t1", Transform.PLUGIN_TYPE))
+      .addStage(stage("t2", Transform.PLUGIN_TYPE))
+      .addStage(stage("t3", Transform.PLUGIN_TYPE))
+      .addStage(stage("sink", BatchSink.PLUGIN_TYPE))
+      .addConnection("source1", "t1")
+      .addConnection("source2", "t1")
+      .addConnection("t1", "t2")
+      .addConnection("t2", "t3")
+      .addConnection("t3", "sink")
+      .build();
+
+    // A stage with multiple inputs is not fused with them, but starts a chain that receives the records of both
+    Map<String, List<String>> chains = MapReduceTransformExecutorFactory.getFusedChains(pipeline, stage -> false);
+    Assert.assertEquals(ImmutableMap.of("t1", Arrays.asList("t1", "t2", "t3")), chains);
+  }
+
+  private static StageSpec stage(String name, String pluginType) {
+    return StageSpec.builder(name, plugin(pluginType)).build();
+  }
+
+  private static PluginSpec plugin(String pluginType) {
+    return new PluginSpec(pluginType, "plugin", Collections.emptyMap(), ARTIFACT_ID);
+  }
+}
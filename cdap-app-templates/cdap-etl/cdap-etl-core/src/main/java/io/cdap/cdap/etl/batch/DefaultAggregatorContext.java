@@ -29,6 +29,7 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
   private Integer numPartitions;
   private Class<?> groupKeyClass;
   private Class<?> groupValueClass;
+  private Class<?> aggregateValueClass;
 
   public DefaultAggregatorContext(PipelineRuntime pipelineRuntime, StageSpec stageSpec,
                                   DatasetContext datasetContext, Admin admin) {
@@ -54,6 +55,11 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
     this.groupValueClass = groupValueClass;
   }
 
+  @Override
+  public void setAggregateValueClass(Class<?> aggregateValueClass) {
+    this.aggregateValueClass = aggregateValueClass;
+  }
+
   public Integer getNumPartitions() {
     return numPartitions;
   }
@@ -65,4 +71,8 @@ public class DefaultAggregatorContext extends AbstractBatchContext implements Ba
   public Class<?> getGroupValueClass() {
     return groupValueClass;
   }
+
+  public Class<?> getAggregateValueClass() {
+    return aggregateValueClass;
+  }
 }
@@ -28,6 +28,7 @@ import io.cdap.cdap.etl.api.StageSubmitterContext;
 import io.cdap.cdap.etl.api.batch.BatchContext;
 import io.cdap.cdap.etl.api.batch.BatchSinkContext;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 import io.cdap.cdap.etl.batch.AbstractBatchContext;
 import io.cdap.cdap.etl.batch.preview.NullOutputFormatProvider;
 import io.cdap.cdap.etl.common.ExternalDatasets;
@@ -52,6 +53,7 @@ public class MapReduceBatchContext extends AbstractBatchContext
   private static final Caller CALLER = NoStageLoggingCaller.wrap(Caller.DEFAULT);
   private final MapReduceContext mrContext;
   private final boolean isPreviewEnabled;
+  private final SourcePushdown pushdown;
   private final Set<String> outputNames;
   private final Set<String> inputNames;
   private final Set<String> connectorDatasets;
@@ -63,6 +65,7 @@ public class MapReduceBatchContext extends AbstractBatchContext
     this.outputNames = new HashSet<>();
     this.inputNames = new HashSet<>();
     this.isPreviewEnabled = context.getDataTracer(stageSpec.getName()).isEnabled();
+    this.pushdown = stageSpec.getPushdown();
     this.connectorDatasets = Collections.unmodifiableSet(connectorDatasets);
   }
 
@@ -99,6 +102,11 @@ public class MapReduceBatchContext extends AbstractBatchContext
     return isPreviewEnabled;
   }
 
+  @Override
+  public SourcePushdown getPushdown() {
+    return pushdown;
+  }
+
   /**
    * @return set of inputs that were added
    */
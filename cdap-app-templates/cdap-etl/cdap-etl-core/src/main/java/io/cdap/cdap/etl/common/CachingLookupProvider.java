@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupProvider;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link LookupProvider} that provides {@link Lookup} with a size bounded read-through cache in front of the
+ * {@link Lookup} provided by another {@link LookupProvider}. Each {@link Lookup} has its own cache, which lives
+ * as long as the task that requested it. Keys that don't exist are cached as well.
+ *
+ * Batch lookups only resolve the keys missing from the cache, with a single batch lookup on the underlying
+ * {@link Lookup}. With the {@link TxLookupProvider}, this means one transaction per batch instead of one
+ * transaction per key.
+ *
+ * Cache hits and misses are reported as the {@link Constants.Metrics#LOOKUP_CACHE_HITS} and
+ * {@link Constants.Metrics#LOOKUP_CACHE_MISSES} stage metrics.
+ */
+public class CachingLookupProvider implements LookupProvider {
+
+  private final LookupProvider delegate;
+  private final long maxSize;
+  private final long ttlSeconds;
+  private final StageMetrics metrics;
+
+  public CachingLookupProvider(LookupProvider delegate, long maxSize, long ttlSeconds, StageMetrics metrics) {
+    this.delegate = delegate;
+    this.maxSize = maxSize;
+    this.ttlSeconds = ttlSeconds;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Wraps the given {@link LookupProvider} with a {@link CachingLookupProvider} if the lookup cache is enabled
+   * through the {@link Constants#LOOKUP_CACHE_SIZE} argument.
+   *
+   * @param lookupProvider the {@link LookupProvider} to wrap
+   * @param arguments the runtime arguments
+   * @param metrics the {@link StageMetrics} to report cache hits and misses to
+   * @return a {@link CachingLookupProvider} if the cache is enabled, or the given {@link LookupProvider} otherwise
+   */
+  public static LookupProvider wrap(LookupProvider lookupProvider, BasicArguments arguments, StageMetrics metrics) {
+    String size = arguments.get(Constants.LOOKUP_CACHE_SIZE);
+    long maxSize = size == null ? 0L : Long.parseLong(size);
+    if (maxSize <= 0) {
+      return lookupProvider;
+    }
+    String ttl = arguments.get(Constants.LOOKUP_CACHE_TTL_SECONDS);
+    return new CachingLookupProvider(lookupProvider, maxSize, ttl == null ? 0L : Long.parseLong(ttl), metrics);
+  }
+
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+    if (ttlSeconds > 0) {
+      builder.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS);
+    }
+    return new CachingLookup<>(delegate.provide(table, arguments), builder.build(), metrics);
+  }
+
+  /**
+   * A {@link Lookup} that serves keys from a cache and only goes to the underlying {@link Lookup} for the keys
+   * that are not cached.
+   *
+   * @param <T> the type of the values
+   */
+  private static final class CachingLookup<T> implements Lookup<T> {
+
+    private final Lookup<T> delegate;
+    private final Cache<String, Optional<T>> cache;
+    private final StageMetrics metrics;
+
+    private CachingLookup(Lookup<T> delegate, Cache<String, Optional<T>> cache, StageMetrics metrics) {
+      this.delegate = delegate;
+      this.cache = cache;
+      this.metrics = metrics;
+    }
+
+    @Override
+    public T lookup(String key) {
+      Optional<T> value = cache.getIfPresent(key);
+      if (value != null) {
+        metrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, 1);
+        return value.orElse(null);
+      }
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, 1);
+      T result = delegate.lookup(key);
+      cache.put(key, Optional.ofNullable(result));
+      return result;
+    }
+
+    @Override
+    public Map<String, T> lookup(String... keys) {
+      return lookup(new HashSet<>(Arrays.asList(keys)));
+    }
+
+    @Override
+    public Map<String, T> lookup(Set<String> keys) {
+      Map<String, T> results = new HashMap<>();
+      Set<String> missing = new HashSet<>();
+      for (String key : keys) {
+        Optional<T> value = cache.getIfPresent(key);
+        if (value == null) {
+          missing.add(key);
+        } else {
+          results.put(key, value.orElse(null));
+        }
+      }
+      if (!results.isEmpty()) {
+        metrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, results.size());
+      }
+      if (missing.isEmpty()) {
+        return results;
+      }
+
+      metrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, missing.size());
+      Map<String, T> resolved = delegate.lookup(missing);
+      for (String key : missing) {
+        T value = resolved.get(key);
+        cache.put(key, Optional.ofNullable(value));
+        results.put(key, value);
+      }
+      return results;
+    }
+  }
+}
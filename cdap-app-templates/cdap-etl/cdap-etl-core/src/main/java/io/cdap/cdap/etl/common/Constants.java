@@ -33,6 +33,30 @@ public final class Constants {
   public static final String SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG = "spark.cdap.pipeline.autocache.enable";
   public static final String SPARK_PIPELINE_CACHING_STORAGE_LEVEL = "spark.cdap.pipeline.caching.storage.level";
   public static final String DEFAULT_CACHING_STORAGE_LEVEL = "MEMORY_AND_DISK"; 
+  public static final String LOOKUP_CACHE_SIZE = "lookup.cache.size";
+  public static final String LOOKUP_CACHE_TTL_SECONDS = "lookup.cache.ttl.seconds";
+  public static final String AGGREGATOR_COMBINE_MAX_GROUPS = "aggregator.combine.max.groups";
+  public static final int DEFAULT_AGGREGATOR_COMBINE_MAX_GROUPS = 10000;
+  public static final String JOINER_BROADCAST_MAX_RECORDS = "joiner.broadcast.max.records";
+  public static final int DEFAULT_JOINER_BROADCAST_MAX_RECORDS = 100000;
+  public static final String JOINER_BROADCAST_ESTIMATE = "joiner.broadcast.estimate";
+  public static final String SKEW_SALT_COUNT = "skew.salt.count";
+  public static final String SKEW_SAMPLE_FRACTION = "skew.sample.fraction";
+  public static final double DEFAULT_SKEW_SAMPLE_FRACTION = 0.01d;
+  public static final String SKEW_HOT_KEY_FRACTION = "skew.hot.key.fraction";
+  public static final double DEFAULT_SKEW_HOT_KEY_FRACTION = 0.01d;
+  public static final String COLUMNAR_ENABLED = "pipeline.columnar.enabled";
+  public static final String COLUMNAR_BATCH_SIZE = "pipeline.columnar.batch.size";
+  public static final int DEFAULT_COLUMNAR_BATCH_SIZE = 1024;
+  public static final String SPARK_SQL_ENABLED = "pipeline.spark.sql.enabled";
+  public static final String MAPREDUCE_FUSION_ENABLED = "pipeline.mapreduce.fusion.enabled";
+  public static final String STREAMING_STATEFUL_AGGREGATION_ENABLED = "pipeline.streaming.aggregation.stateful";
+  public static final String STREAMING_AGGREGATION_STATE_TTL_SECONDS =
+    "pipeline.streaming.aggregation.state.ttl.seconds";
+  public static final long DEFAULT_STREAMING_AGGREGATION_STATE_TTL_SECONDS = 3600L;
+  public static final String STREAMING_RATE_MONITOR_ENABLED = "pipeline.streaming.rate.monitor.enabled";
+  public static final String STREAMING_MIN_RATE = "pipeline.streaming.rate.min";
+  public static final String STREAMING_MAX_RATE = "pipeline.streaming.rate.max";
 
   private Constants() {
     throw new AssertionError("Suppress default constructor for noninstantiability");
@@ -65,6 +89,14 @@ public final class Constants {
     public static final String RECORDS_ALERT = "records.alert";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
+    public static final String STREAMING_BATCH_RECORDS = "streaming.batch.records";
+    public static final String STREAMING_BATCH_PROCESSING_TIME = "streaming.batch.processing.time";
+    public static final String STREAMING_BATCH_SCHEDULING_DELAY = "streaming.batch.scheduling.delay";
+    public static final String STREAMING_BATCH_OVERLOADED = "streaming.batch.overloaded";
+    public static final String STREAMING_SUSTAINABLE_RATE = "streaming.rate.sustainable";
+    public static final String STREAMING_SUSTAINABLE_BATCH_SIZE = "streaming.batch.size.sustainable";
   }
 
   /**
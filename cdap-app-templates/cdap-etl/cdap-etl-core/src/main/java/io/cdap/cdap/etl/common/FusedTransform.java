@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.etl.api.Destroyable;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.Transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Transformation} that executes a linear chain of stages, where the only output of each stage is the next
+ * stage in the chain. A record is handed from one stage to the next by a direct call on an emitter that is created
+ * once per stage, instead of a {@link TrackedEmitter} created for every record and the pipe of the execution engine.
+ *
+ * The records in, out, in error and the alerts of each stage are counted in plain fields, and are added to the stage
+ * metrics every {@link #FLUSH_INTERVAL} input records, when {@link #flush()} is called and when the transform is
+ * destroyed. Records output by the last stage are sent to the emitter given to {@link #transform(Object, Emitter)}.
+ *
+ * @param <IN> type of input of the first stage
+ * @param <OUT> type of output of the last stage
+ */
+public class FusedTransform<IN, OUT> implements Transformation<IN, OUT>, Destroyable {
+  static final int FLUSH_INTERVAL = 1000;
+
+  private final List<FusedStage> stages;
+  private final FusedStage head;
+  private final FusedStage tail;
+  private int unflushed;
+  private String failedStage;
+
+  private FusedTransform(List<FusedStage> stages) {
+    this.stages = stages;
+    this.head = stages.get(0);
+    this.tail = stages.get(stages.size() - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void transform(IN input, Emitter<OUT> emitter) throws Exception {
+    tail.output = (Emitter<Object>) emitter;
+    try {
+      head.consume(input);
+    } catch (FusedStageException e) {
+      failedStage = e.stageName;
+      throw e.getCause();
+    }
+    if (++unflushed >= FLUSH_INTERVAL) {
+      flush();
+    }
+  }
+
+  /**
+   * Returns the name of the stage that failed the last call to {@link #transform(Object, Emitter)}, or {@code null}
+   * if the failure was thrown by the emitter of the last stage.
+   */
+  @Nullable
+  public String getFailedStage() {
+    return failedStage;
+  }
+
+  /**
+   * Adds the records counted since the last flush to the metrics of each stage.
+   */
+  public void flush() {
+    unflushed = 0;
+    for (FusedStage stage : stages) {
+      stage.flush();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    flush();
+    for (FusedStage stage : stages) {
+      if (stage.transform instanceof Destroyable) {
+        Destroyables.destroyQuietly((Destroyable) stage.transform);
+      }
+    }
+  }
+
+  /**
+   * @return a builder to create a {@link FusedTransform}
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder for a {@link FusedTransform}. Stages must be added in the order they are executed.
+   */
+  public static class Builder {
+    private final List<FusedStage> stages = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a stage at the end of the chain.
+     *
+     * @param stageName the name of the stage
+     * @param transform the initialized transformation of the stage
+     * @param stageMetrics the metrics of the stage
+     * @param collector the statistics collector of the stage
+     * @param errorEmitter the emitter for the errors and alerts of the stage
+     * @return this builder
+     */
+    @SuppressWarnings("unchecked")
+    public Builder addStage(String stageName, Transformation<?, ?> transform, StageMetrics stageMetrics,
+                            StageStatisticsCollector collector, Emitter<Object> errorEmitter) {
+      FusedStage stage = new FusedStage(stageName, (Transformation<Object, Object>) transform, stageMetrics,
+                                        collector, errorEmitter);
+      if (!stages.isEmpty()) {
+        stages.get(stages.size() - 1).next = stage;
+      }
+      stages.add(stage);
+      return this;
+    }
+
+    public <IN, OUT> FusedTransform<IN, OUT> build() {
+      if (stages.isEmpty()) {
+        throw new IllegalStateException("A fused transform must contain at least one stage.");
+      }
+      return new FusedTransform<>(new ArrayList<>(stages));
+    }
+  }
+
+  /**
+   * A stage in the chain, which is also the emitter given to its own transformation.
+   */
+  private static final class FusedStage implements Emitter<Object> {
+    private final String stageName;
+    private final Transformation<Object, Object> transform;
+    private final StageMetrics stageMetrics;
+    private final StageStatisticsCollector collector;
+    private final Emitter<Object> errorEmitter;
+    // the next stage, null for the last stage of the chain, which emits to the output instead
+    private FusedStage next;
+    private Emitter<Object> output;
+    private int recordsIn;
+    private int recordsOut;
+    private int recordsError;
+    private int recordsAlert;
+
+    private FusedStage(String stageName, Transformation<Object, Object> transform, StageMetrics stageMetrics,
+                       StageStatisticsCollector collector, Emitter<Object> errorEmitter) {
+      this.stageName = stageName;
+      this.transform = transform;
+      this.stageMetrics = stageMetrics;
+      this.collector = collector;
+      this.errorEmitter = errorEmitter;
+    }
+
+    void consume(Object input) {
+      recordsIn++;
+      collector.incrementInputRecordCount();
+      try {
+        transform.transform(input, this);
+      } catch (FusedStageException e) {
+        // a later stage or the output has already failed
+        throw e;
+      } catch (Exception e) {
+        throw new FusedStageException(stageName, e);
+      }
+    }
+
+    @Override
+    public void emit(Object value) {
+      recordsOut++;
+      collector.incrementOutputRecordCount();
+      if (next != null) {
+        next.consume(value);
+        return;
+      }
+      try {
+        output.emit(value);
+      } catch (RuntimeException e) {
+        throw new FusedStageException(null, e);
+      }
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Object> invalidEntry) {
+      recordsError++;
+      collector.incrementErrorRecordCount();
+      errorEmitter.emitError(invalidEntry);
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      recordsAlert++;
+      errorEmitter.emitAlert(payload);
+    }
+
+    void flush() {
+      flush(Constants.Metrics.RECORDS_IN, recordsIn);
+      flush(Constants.Metrics.RECORDS_OUT, recordsOut);
+      flush(Constants.Metrics.RECORDS_ERROR, recordsError);
+      flush(Constants.Metrics.RECORDS_ALERT, recordsAlert);
+      recordsIn = 0;
+      recordsOut = 0;
+      recordsError = 0;
+      recordsAlert = 0;
+    }
+
+    private void flush(String metricName, int count) {
+      if (count > 0) {
+        stageMetrics.count(metricName, count);
+      }
+    }
+  }
+
+  /**
+   * Carries a failure through the emitters of the chain, together with the stage that failed.
+   */
+  private static final class FusedStageException extends RuntimeException {
+    private final String stageName;
+
+    private FusedStageException(@Nullable String stageName, Exception cause) {
+      super(cause);
+      this.stageName = stageName;
+    }
+
+    @Override
+    public synchronized Exception getCause() {
+      return (Exception) super.getCause();
+    }
+  }
+}
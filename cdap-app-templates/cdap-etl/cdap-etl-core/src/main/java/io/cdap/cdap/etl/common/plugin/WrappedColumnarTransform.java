@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.common.plugin;
+
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.columnar.BatchErrorEmitter;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
+
+/**
+ * Wrapper around a {@link Transform} that is also a {@link ColumnarTransform}, that makes sure logging,
+ * classloading, and other pipeline capabilities are setup correctly.
+ *
+ * @param <IN> type of input
+ * @param <OUT> type of output
+ */
+public class WrappedColumnarTransform<IN, OUT> extends WrappedTransform<IN, OUT> implements ColumnarTransform {
+  private final ColumnarTransform transform;
+  private final Caller caller;
+  private final OperationTimer operationTimer;
+
+  public WrappedColumnarTransform(Transform<IN, OUT> transform, Caller caller, OperationTimer operationTimer) {
+    super(transform, caller, operationTimer);
+    this.transform = (ColumnarTransform) transform;
+    this.caller = caller;
+    this.operationTimer = operationTimer;
+  }
+
+  @Override
+  public RecordBatch transform(RecordBatch input, BatchErrorEmitter errorEmitter) throws Exception {
+    operationTimer.start();
+    try {
+      return caller.call(() -> transform.transform(input, errorEmitter));
+    } finally {
+      operationTimer.reset();
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.planner;
+
+import com.google.common.collect.Lists;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.AlertPublisher;
+import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.pushdown.FieldPredicate;
+import io.cdap.cdap.etl.api.pushdown.FilterPredicateProvider;
+import io.cdap.cdap.etl.api.pushdown.PushdownSource;
+import io.cdap.cdap.etl.api.pushdown.RequiredFieldsProvider;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Computes, at deployment time, the projection and filters that can be pushed down into the
+ * {@link PushdownSource PushdownSources} of a pipeline.
+ *
+ * The fields required from each stage are propagated from the sinks up to the sources. A stage only reads some of
+ * the fields of its input if it implements {@link RequiredFieldsProvider}, has a single input and doesn't emit
+ * errors. Every other stage, including joiners, reads all the fields of its input.
+ *
+ * Predicates are collected from the chain of {@link FilterPredicateProvider} transforms that directly follows a
+ * source. The chain stops at the first stage that is not such a transform, has more than one input, or emits errors
+ * or alerts, and at the first stage that has more than one output, since the predicates of one branch don't hold
+ * for the records of another.
+ *
+ * Stages that have a macro in their properties are treated as stages that don't implement any of the pushdown
+ * interfaces, since the fields and predicates they would return depend on values that are only known at runtime.
+ */
+public class PushdownPlanner {
+
+  /**
+   * Computes the pushdown of each source in the pipeline.
+   *
+   * @param stages the specs of all the stages in the pipeline, in topological order
+   * @param plugins the configured plugin of each stage
+   * @return the pushdown of each source that has something pushed down into it
+   */
+  public Map<String, SourcePushdown> plan(List<StageSpec> stages, Map<String, Object> plugins) {
+    Map<String, StageSpec> specs = new HashMap<>();
+    for (StageSpec stage : stages) {
+      specs.put(stage.getName(), stage);
+    }
+
+    // fields of the output of each stage that are read by later stages. A null value means all fields.
+    Map<String, Set<String>> requiredOutputFields = new HashMap<>();
+    for (StageSpec stage : Lists.reverse(stages)) {
+      requiredOutputFields.put(stage.getName(), getRequiredOutputFields(stage, specs, plugins, requiredOutputFields));
+    }
+
+    Map<String, SourcePushdown> pushdowns = new HashMap<>();
+    for (StageSpec stage : stages) {
+      Object plugin = plugins.get(stage.getName());
+      if (!(plugin instanceof PushdownSource) || hasMacro(stage)) {
+        continue;
+      }
+      PushdownSource source = (PushdownSource) plugin;
+      Set<String> requiredFields = source.supportsProjection() ? requiredOutputFields.get(stage.getName()) : null;
+      if (requiredFields != null && containsAllFields(requiredFields, stage.getOutputSchema())) {
+        requiredFields = null;
+      }
+      List<FieldPredicate> predicates = emitsErrorsOrAlerts(stage, specs) ?
+        Collections.emptyList() : getPushablePredicates(stage, source, specs, plugins);
+
+      SourcePushdown pushdown = new SourcePushdown(requiredFields, predicates);
+      if (!pushdown.isEmpty()) {
+        pushdowns.put(stage.getName(), pushdown);
+      }
+    }
+    return pushdowns;
+  }
+
+  /**
+   * Returns the fields of the output of a stage that are read by its outputs, or null if all fields are read.
+   */
+  @Nullable
+  private Set<String> getRequiredOutputFields(StageSpec stage, Map<String, StageSpec> specs,
+                                              Map<String, Object> plugins,
+                                              Map<String, Set<String>> requiredOutputFields) {
+    Set<String> required = new HashSet<>();
+    boolean hasRecordOutput = false;
+    for (String outputName : stage.getOutputPorts().keySet()) {
+      StageSpec output = specs.get(outputName);
+      String outputType = output.getPluginType();
+      // error transforms read the errors emitted by the stage and alert publishers read its alerts
+      if (ErrorTransform.PLUGIN_TYPE.equals(outputType) || AlertPublisher.PLUGIN_TYPE.equals(outputType)) {
+        continue;
+      }
+      hasRecordOutput = true;
+
+      Object plugin = plugins.get(outputName);
+      if (!(plugin instanceof RequiredFieldsProvider) || hasMacro(output) || output.getInputSchemas().size() != 1 ||
+        emitsErrors(output, specs)) {
+        return null;
+      }
+      Set<String> outputRequired = requiredOutputFields.get(outputName);
+      Set<String> inputFields = ((RequiredFieldsProvider) plugin).getRequiredInputFields(
+        outputRequired == null ? null : Collections.unmodifiableSet(outputRequired));
+      if (inputFields == null) {
+        return null;
+      }
+      required.addAll(inputFields);
+    }
+    return hasRecordOutput ? required : null;
+  }
+
+  /**
+   * Returns the predicates of the filters that directly follow a source and that the source supports.
+   */
+  private List<FieldPredicate> getPushablePredicates(StageSpec sourceStage, PushdownSource source,
+                                                     Map<String, StageSpec> specs, Map<String, Object> plugins) {
+    List<FieldPredicate> predicates = new ArrayList<>();
+    StageSpec current = sourceStage;
+    while (current.getOutputPorts().size() == 1) {
+      StageSpec next = specs.get(current.getOutputPorts().keySet().iterator().next());
+      Object plugin = plugins.get(next.getName());
+      if (!Transform.PLUGIN_TYPE.equals(next.getPluginType()) || !(plugin instanceof FilterPredicateProvider) ||
+        hasMacro(next) || next.getInputSchemas().size() != 1 || emitsErrorsOrAlerts(next, specs)) {
+        break;
+      }
+      for (FieldPredicate predicate : ((FilterPredicateProvider) plugin).getFilterPredicates()) {
+        if (source.supportsPredicate(predicate)) {
+          predicates.add(predicate);
+        }
+      }
+      current = next;
+    }
+    return predicates;
+  }
+
+  private boolean hasMacro(StageSpec stage) {
+    for (String value : stage.getPlugin().getProperties().values()) {
+      if (value != null && value.contains("${")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean containsAllFields(Set<String> fieldNames, @Nullable Schema schema) {
+    if (schema == null || schema.getFields() == null) {
+      return false;
+    }
+    for (Schema.Field field : schema.getFields()) {
+      if (!fieldNames.contains(field.getName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean emitsErrors(StageSpec stage, Map<String, StageSpec> specs) {
+    return hasOutputOfType(stage, specs, ErrorTransform.PLUGIN_TYPE);
+  }
+
+  private boolean emitsErrorsOrAlerts(StageSpec stage, Map<String, StageSpec> specs) {
+    return emitsErrors(stage, specs) || hasOutputOfType(stage, specs, AlertPublisher.PLUGIN_TYPE);
+  }
+
+  private boolean hasOutputOfType(StageSpec stage, Map<String, StageSpec> specs, String pluginType) {
+    for (String outputName : stage.getOutputPorts().keySet()) {
+      if (pluginType.equals(specs.get(outputName).getPluginType())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
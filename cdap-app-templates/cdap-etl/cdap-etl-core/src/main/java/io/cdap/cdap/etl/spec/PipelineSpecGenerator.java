@@ -41,6 +41,7 @@ import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.condition.Condition;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 import io.cdap.cdap.etl.api.validation.InvalidConfigPropertyException;
 import io.cdap.cdap.etl.api.validation.InvalidStageException;
 import io.cdap.cdap.etl.api.validation.ValidationException;
@@ -49,6 +50,7 @@ import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultPipelineConfigurer;
 import io.cdap.cdap.etl.common.DefaultStageConfigurer;
 import io.cdap.cdap.etl.planner.Dag;
+import io.cdap.cdap.etl.planner.PushdownPlanner;
 import io.cdap.cdap.etl.proto.ArtifactSelectorConfig;
 import io.cdap.cdap.etl.proto.Connection;
 import io.cdap.cdap.etl.proto.v2.ETLConfig;
@@ -149,6 +151,7 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
     // row = property name, column = property value, val = stage that set the property
     // this is used so that we can error with a nice message about which stages are setting conflicting properties
     Table<String, String, String> propertiesFromStages = HashBasedTable.create();
+    List<ConfiguredStage> configuredStages = new ArrayList<>(traversalOrder.size());
     // configure the stages in order and build up the stage specs
     for (ETLStage stage : traversalOrder) {
       String stageName = stage.getName();
@@ -157,12 +160,26 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
       ConfiguredStage configuredStage = configureStage(stage, validatedPipeline, pluginConfigurer);
       schemaPropagator.propagateSchema(configuredStage.stageSpec);
 
-      specBuilder.addStage(configuredStage.stageSpec);
+      configuredStages.add(configuredStage);
       for (Map.Entry<String, String> propertyEntry : configuredStage.pipelineProperties.entrySet()) {
         propertiesFromStages.put(propertyEntry.getKey(), propertyEntry.getValue(), stageName);
       }
     }
 
+    // now that all stages are configured, compute what can be pushed down into the sources
+    List<StageSpec> stageSpecs = new ArrayList<>(configuredStages.size());
+    Map<String, Object> plugins = new HashMap<>(configuredStages.size());
+    for (ConfiguredStage configuredStage : configuredStages) {
+      stageSpecs.add(configuredStage.stageSpec);
+      plugins.put(configuredStage.stageSpec.getName(), configuredStage.plugin);
+    }
+    Map<String, SourcePushdown> pushdowns = new PushdownPlanner().plan(stageSpecs, plugins);
+    for (ConfiguredStage configuredStage : configuredStages) {
+      SourcePushdown pushdown = pushdowns.get(configuredStage.stageSpec.getName());
+      specBuilder.addStage(pushdown == null ?
+                             configuredStage.stageSpec : configuredStage.specBuilder.setPushdown(pushdown).build());
+    }
+
     // check that multiple stages did not set conflicting properties
     for (String propertyName : propertiesFromStages.rowKeySet()) {
       // go through all values set for the property name. If there is more than one, we have a conflict.
@@ -206,7 +223,8 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
     String stageName = stage.getName();
     ETLPlugin stagePlugin = stage.getPlugin();
 
-    StageSpec.Builder specBuilder = configureStage(stageName, stagePlugin, pluginConfigurer);
+    ConfiguredPlugin configuredPlugin = configurePlugin(stageName, stagePlugin, pluginConfigurer);
+    StageSpec.Builder specBuilder = configuredPlugin.specBuilder;
     DefaultStageConfigurer stageConfigurer = pluginConfigurer.getStageConfigurer();
     String pluginType = stage.getPlugin().getType();
     if (pluginType.equals(SplitterTransform.PLUGIN_TYPE)) {
@@ -246,11 +264,10 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
       }
     }
 
-    StageSpec stageSpec = specBuilder
+    specBuilder
       .setProcessTimingEnabled(validatedPipeline.isProcessTimingEnabled())
-      .setStageLoggingEnabled(validatedPipeline.isStageLoggingEnabled())
-      .build();
-    return new ConfiguredStage(stageSpec, pluginConfigurer.getPipelineProperties());
+      .setStageLoggingEnabled(validatedPipeline.isStageLoggingEnabled());
+    return new ConfiguredStage(specBuilder, configuredPlugin.plugin, pluginConfigurer.getPipelineProperties());
   }
 
 
@@ -266,6 +283,14 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
    */
   public StageSpec.Builder configureStage(String stageName, ETLPlugin etlPlugin,
                                           DefaultPipelineConfigurer pipelineConfigurer) throws ValidationException {
+    return configurePlugin(stageName, etlPlugin, pipelineConfigurer).specBuilder;
+  }
+
+  /**
+   * Configures a plugin and returns the configured plugin together with the spec for it.
+   */
+  private ConfiguredPlugin configurePlugin(String stageName, ETLPlugin etlPlugin,
+                                           DefaultPipelineConfigurer pipelineConfigurer) throws ValidationException {
     TrackedPluginSelector pluginSelector = new TrackedPluginSelector(
       new ArtifactSelectorProvider().getPluginSelector(etlPlugin.getArtifactConfig()));
     String type = etlPlugin.getType();
@@ -330,7 +355,7 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
     } else {
       specBuilder.setOutputSchema(stageConfigurer.getOutputSchema());
     }
-    return specBuilder;
+    return new ConfiguredPlugin(plugin, specBuilder);
   }
 
   /**
@@ -552,18 +577,35 @@ public abstract class PipelineSpecGenerator<C extends ETLConfig, P extends Pipel
   }
 
   /**
-   * Just a container for StageSpec and pipeline properties set by the stage
+   * Just a container for StageSpec, the configured plugin and pipeline properties set by the stage
    */
   private static class ConfiguredStage {
+    private final StageSpec.Builder specBuilder;
     private final StageSpec stageSpec;
+    private final Object plugin;
     private final Map<String, String> pipelineProperties;
 
-    private ConfiguredStage(StageSpec stageSpec, Map<String, String> pipelineProperties) {
-      this.stageSpec = stageSpec;
+    private ConfiguredStage(StageSpec.Builder specBuilder, Object plugin, Map<String, String> pipelineProperties) {
+      this.specBuilder = specBuilder;
+      this.stageSpec = specBuilder.build();
+      this.plugin = plugin;
       this.pipelineProperties = pipelineProperties;
     }
   }
 
+  /**
+   * Just a container for a configured plugin and the spec builder for it
+   */
+  private static class ConfiguredPlugin {
+    private final Object plugin;
+    private final StageSpec.Builder specBuilder;
+
+    private ConfiguredPlugin(Object plugin, StageSpec.Builder specBuilder) {
+      this.plugin = plugin;
+      this.specBuilder = specBuilder;
+    }
+  }
+
   /**
    * Make sure that the stages on the condition branches do not have more than one incoming connections
    * @param conditionStages the set of condition stages in the pipeline
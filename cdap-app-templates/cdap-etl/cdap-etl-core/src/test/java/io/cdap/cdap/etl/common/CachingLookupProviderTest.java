@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link CachingLookupProvider}.
+ */
+public class CachingLookupProviderTest {
+
+  @Test
+  public void testSingleLookup() {
+    CountingLookupProvider lookupProvider = new CountingLookupProvider(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    MockMetrics metrics = new MockMetrics();
+    Lookup<String> lookup = new CachingLookupProvider(lookupProvider, 10, 0, new DefaultStageMetrics(metrics, "s"))
+      .provide("table", Collections.emptyMap());
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertNull(lookup.lookup("k3"));
+    Assert.assertNull(lookup.lookup("k3"));
+
+    // Both existing and missing keys are only looked up once
+    Assert.assertEquals(2, lookupProvider.requests.size());
+    Assert.assertEquals(2, metrics.getCount("s." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(2, metrics.getCount("s." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+
+  @Test
+  public void testBatchLookup() {
+    CountingLookupProvider lookupProvider = new CountingLookupProvider(ImmutableMap.of("k1", "v1", "k2", "v2",
+                                                                                       "k3", "v3"));
+    MockMetrics metrics = new MockMetrics();
+    Lookup<String> lookup = new CachingLookupProvider(lookupProvider, 10, 0, new DefaultStageMetrics(metrics, "s"))
+      .provide("table", Collections.emptyMap());
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Map<String, String> expected = new HashMap<>();
+    expected.put("k1", "v1");
+    expected.put("k2", "v2");
+    expected.put("k4", null);
+    Assert.assertEquals(expected, lookup.lookup("k1", "k2", "k4"));
+
+    // Only the keys that are not cached are resolved, with a single batch lookup
+    Assert.assertEquals(ImmutableSet.of("k1"), lookupProvider.requests.get(0));
+    Assert.assertEquals(ImmutableSet.of("k2", "k4"), lookupProvider.requests.get(1));
+
+    // No lookup on the delegate once everything is cached
+    Assert.assertEquals(expected, lookup.lookup(ImmutableSet.of("k1", "k2", "k4")));
+    Assert.assertEquals(2, lookupProvider.requests.size());
+    Assert.assertEquals(4, metrics.getCount("s." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(3, metrics.getCount("s." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+
+  @Test
+  public void testMaxSize() {
+    CountingLookupProvider lookupProvider = new CountingLookupProvider(Collections.emptyMap());
+    Lookup<String> lookup = new CachingLookupProvider(lookupProvider, 10, 0,
+                                                      new DefaultStageMetrics(new MockMetrics(), "s"))
+      .provide("table", Collections.emptyMap());
+
+    for (int i = 0; i < 100; i++) {
+      lookup.lookup("k" + i);
+    }
+    // The first keys must have been evicted
+    lookup.lookup("k0");
+    Assert.assertEquals(101, lookupProvider.requests.size());
+  }
+
+  @Test
+  public void testWrap() {
+    LookupProvider lookupProvider = new CountingLookupProvider(Collections.emptyMap());
+    DefaultStageMetrics metrics = new DefaultStageMetrics(new MockMetrics(), "s");
+
+    Assert.assertSame(lookupProvider,
+                      CachingLookupProvider.wrap(lookupProvider, new BasicArguments(Collections.emptyMap()), metrics));
+    BasicArguments arguments = new BasicArguments(ImmutableMap.of(Constants.LOOKUP_CACHE_SIZE, "100"));
+    Assert.assertTrue(CachingLookupProvider.wrap(lookupProvider, arguments, metrics) instanceof CachingLookupProvider);
+  }
+
+  /**
+   * A {@link LookupProvider} that serves values from a map and records the keys of each lookup request.
+   */
+  private static final class CountingLookupProvider implements LookupProvider {
+
+    private final Map<String, String> data;
+    private final List<Set<String>> requests = new ArrayList<>();
+
+    private CountingLookupProvider(Map<String, String> data) {
+      this.data = data;
+    }
+
+    @Override
+    public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+      //noinspection unchecked
+      return (Lookup<T>) new Lookup<String>() {
+        @Override
+        public String lookup(String key) {
+          requests.add(Collections.singleton(key));
+          return data.get(key);
+        }
+
+        @Override
+        public Map<String, String> lookup(String... keys) {
+          return lookup(ImmutableSet.copyOf(keys));
+        }
+
+        @Override
+        public Map<String, String> lookup(Set<String> keys) {
+          requests.add(keys);
+          Map<String, String> result = new HashMap<>();
+          for (String key : keys) {
+            result.put(key, data.get(key));
+          }
+          return result;
+        }
+      };
+    }
+  }
+}
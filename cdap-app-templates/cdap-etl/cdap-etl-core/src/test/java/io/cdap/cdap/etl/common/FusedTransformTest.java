@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.Transform;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link FusedTransform}.
+ */
+public class FusedTransformTest {
+
+  @Test
+  public void testChain() throws Exception {
+    MockMetrics mockMetrics = new MockMetrics();
+    DefaultEmitter<Object> filterErrors = new DefaultEmitter<>();
+    DefaultEmitter<Object> lastErrors = new DefaultEmitter<>();
+    FusedTransform<Integer, Object> transform = FusedTransform.builder()
+      .addStage("duplicate", new Duplicate(), new DefaultStageMetrics(mockMetrics, "duplicate"),
+                new NoopStageStatisticsCollector(), new DefaultEmitter<>())
+      .addStage("filter", new OddFilter(), new DefaultStageMetrics(mockMetrics, "filter"),
+                new NoopStageStatisticsCollector(), filterErrors)
+      .addStage("toString", new IntToString(), new DefaultStageMetrics(mockMetrics, "toString"),
+                new NoopStageStatisticsCollector(), lastErrors)
+      .build();
+
+    DefaultEmitter<Object> output = new DefaultEmitter<>();
+    for (int i = 0; i < 4; i++) {
+      transform.transform(i, output);
+    }
+    Assert.assertEquals(Arrays.asList("1", "1", "3", "3"), output.getEntries());
+    Assert.assertEquals(4, filterErrors.getErrors().size());
+    Assert.assertTrue(lastErrors.getErrors().isEmpty());
+
+    // metrics are only added when flushed
+    Assert.assertEquals(0, mockMetrics.getCount("duplicate.records.in"));
+    transform.flush();
+    Assert.assertEquals(4, mockMetrics.getCount("duplicate.records.in"));
+    Assert.assertEquals(8, mockMetrics.getCount("duplicate.records.out"));
+    Assert.assertEquals(8, mockMetrics.getCount("filter.records.in"));
+    Assert.assertEquals(4, mockMetrics.getCount("filter.records.out"));
+    Assert.assertEquals(4, mockMetrics.getCount("filter.records.error"));
+    Assert.assertEquals(4, mockMetrics.getCount("toString.records.in"));
+    Assert.assertEquals(4, mockMetrics.getCount("toString.records.out"));
+
+    // metrics are flushed periodically and on destroy
+    for (int i = 0; i < FusedTransform.FLUSH_INTERVAL; i++) {
+      transform.transform(i, output);
+    }
+    Assert.assertEquals(4 + FusedTransform.FLUSH_INTERVAL, mockMetrics.getCount("duplicate.records.in"));
+    transform.transform(1, output);
+    transform.destroy();
+    Assert.assertEquals(5 + FusedTransform.FLUSH_INTERVAL, mockMetrics.getCount("duplicate.records.in"));
+  }
+
+  @Test
+  public void testFailedStage() throws Exception {
+    FusedTransform<Integer, Object> transform = FusedTransform.builder()
+      .addStage("duplicate", new Duplicate(), new DefaultStageMetrics(new MockMetrics(), "duplicate"),
+                new NoopStageStatisticsCollector(), new DefaultEmitter<>())
+      .addStage("toString", new IntToString(), new DefaultStageMetrics(new MockMetrics(), "toString"),
+                new NoopStageStatisticsCollector(), new DefaultEmitter<>())
+      .build();
+
+    try {
+      transform.transform(null, new DefaultEmitter<>());
+      Assert.fail("Expected the duplicate stage to fail");
+    } catch (NullPointerException e) {
+      Assert.assertEquals("duplicate", transform.getFailedStage());
+    }
+
+    try {
+      transform.transform(-1, new DefaultEmitter<>());
+      Assert.fail("Expected the toString stage to fail");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals("toString", transform.getFailedStage());
+    }
+
+    // failures of the output are not attributed to any stage of the chain
+    try {
+      transform.transform(1, new FailingEmitter());
+      Assert.fail("Expected the output to fail");
+    } catch (IllegalStateException e) {
+      Assert.assertNull(transform.getFailedStage());
+    }
+  }
+
+  private static class Duplicate extends Transform<Integer, Integer> {
+
+    @Override
+    public void transform(Integer input, Emitter<Integer> emitter) {
+      int value = input;
+      emitter.emit(value);
+      emitter.emit(value);
+    }
+  }
+
+  private static class OddFilter extends Transform<Integer, Integer> {
+
+    @Override
+    public void transform(Integer input, Emitter<Integer> emitter) {
+      if (input % 2 == 1) {
+        emitter.emit(input);
+      } else {
+        emitter.emitError(new InvalidEntry<>(100, "even value", input));
+      }
+    }
+  }
+
+  private static class IntToString extends Transform<Integer, String> {
+
+    @Override
+    public void transform(Integer input, Emitter<String> emitter) throws Exception {
+      if (input < 0) {
+        throw new IllegalArgumentException("Negative value " + input);
+      }
+      emitter.emit(String.valueOf(input));
+    }
+  }
+
+  private static class FailingEmitter extends DefaultEmitter<Object> {
+
+    @Override
+    public void emit(Object value) {
+      throw new IllegalStateException("Output failure");
+    }
+  }
+}
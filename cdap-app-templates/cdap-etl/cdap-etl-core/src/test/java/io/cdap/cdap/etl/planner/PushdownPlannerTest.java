@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.planner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.batch.BatchJoiner;
+import io.cdap.cdap.etl.api.batch.BatchSink;
+import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.api.pushdown.FieldPredicate;
+import io.cdap.cdap.etl.api.pushdown.FilterPredicateProvider;
+import io.cdap.cdap.etl.api.pushdown.PushdownSource;
+import io.cdap.cdap.etl.api.pushdown.RequiredFieldsProvider;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
+import io.cdap.cdap.etl.proto.v2.spec.PluginSpec;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link PushdownPlanner}.
+ */
+public class PushdownPlannerTest {
+  private static final ArtifactId ARTIFACT = new ArtifactId("dummy", new ArtifactVersion("1.0.0"), ArtifactScope.USER);
+  private static final PluginSpec SOURCE = new PluginSpec(BatchSource.PLUGIN_TYPE, "src", ImmutableMap.of(), ARTIFACT);
+  private static final PluginSpec TRANSFORM = new PluginSpec(Transform.PLUGIN_TYPE, "t", ImmutableMap.of(), ARTIFACT);
+  private static final PluginSpec ERROR = new PluginSpec(ErrorTransform.PLUGIN_TYPE, "e", ImmutableMap.of(), ARTIFACT);
+  private static final PluginSpec JOINER = new PluginSpec(BatchJoiner.PLUGIN_TYPE, "j", ImmutableMap.of(), ARTIFACT);
+  private static final PluginSpec SINK = new PluginSpec(BatchSink.PLUGIN_TYPE, "sink", ImmutableMap.of(), ARTIFACT);
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("a", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("x", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("y", Schema.of(Schema.Type.INT)),
+    Schema.Field.of("z", Schema.of(Schema.Type.INT)));
+  private static final FieldPredicate X_GT_5 = new FieldPredicate("x", FieldPredicate.Operator.GREATER_THAN, "5");
+  private static final FieldPredicate Y_EQ_1 = new FieldPredicate("y", FieldPredicate.Operator.EQUAL, "1");
+
+  @Test
+  public void testProjectionAndFilters() {
+    /*
+        src --> filterX --> filterY --> keepA --> sink
+     */
+    List<StageSpec> stages = ImmutableList.of(
+      StageSpec.builder("src", SOURCE).addOutput(SCHEMA, "filterX").build(),
+      StageSpec.builder("filterX", TRANSFORM).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "filterY").build(),
+      StageSpec.builder("filterY", TRANSFORM).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "keepA").build(),
+      StageSpec.builder("keepA", TRANSFORM).addInputSchema("filterY", SCHEMA).addOutput(SCHEMA, "sink").build(),
+      StageSpec.builder("sink", SINK).addInputSchema("keepA", SCHEMA).build());
+    Map<String, Object> plugins = ImmutableMap.of(
+      "src", new MockPushdownSource(true, true),
+      "filterX", new MockFilter(X_GT_5),
+      "filterY", new MockFilter(Y_EQ_1),
+      "keepA", new MockProjection("a"),
+      "sink", new Object());
+
+    Map<String, SourcePushdown> pushdowns = new PushdownPlanner().plan(stages, plugins);
+    Assert.assertEquals(ImmutableMap.of("src", new SourcePushdown(ImmutableSet.of("a", "x", "y"),
+                                                                  ImmutableList.of(X_GT_5, Y_EQ_1))),
+                        pushdowns);
+
+    // the source only pushes what it supports
+    plugins = ImmutableMap.of(
+      "src", new MockPushdownSource(false, true, "y"),
+      "filterX", new MockFilter(X_GT_5),
+      "filterY", new MockFilter(Y_EQ_1),
+      "keepA", new MockProjection("a"),
+      "sink", new Object());
+    pushdowns = new PushdownPlanner().plan(stages, plugins);
+    Assert.assertEquals(ImmutableMap.of("src", new SourcePushdown(null, ImmutableList.of(Y_EQ_1))), pushdowns);
+
+    // a stage that reads all fields in the middle of the chain stops both projection and filters
+    plugins = ImmutableMap.of(
+      "src", new MockPushdownSource(true, true),
+      "filterX", new MockFilter(X_GT_5),
+      "filterY", new Object(),
+      "keepA", new MockProjection("a"),
+      "sink", new Object());
+    pushdowns = new PushdownPlanner().plan(stages, plugins);
+    Assert.assertEquals(ImmutableMap.of("src", new SourcePushdown(null, ImmutableList.of(X_GT_5))), pushdowns);
+  }
+
+  @Test
+  public void testBranches() {
+    /*
+                |--> filterX --> keepA --> sink1
+        src ----|
+                |--> keepZ --> sink2
+     */
+    List<StageSpec> stages = ImmutableList.of(
+      StageSpec.builder("src", SOURCE).addOutput(SCHEMA, "filterX", "keepZ").build(),
+      StageSpec.builder("filterX", TRANSFORM).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "keepA").build(),
+      StageSpec.builder("keepZ", TRANSFORM).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "sink2").build(),
+      StageSpec.builder("keepA", TRANSFORM).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "sink1").build(),
+      StageSpec.builder("sink1", SINK).addInputSchema("keepA", SCHEMA).build(),
+      StageSpec.builder("sink2", SINK).addInputSchema("keepZ", SCHEMA).build());
+    Map<String, Object> plugins = ImmutableMap.<String, Object>builder()
+      .put("src", new MockPushdownSource(true, true))
+      .put("filterX", new MockFilter(X_GT_5))
+      .put("keepZ", new MockProjection("z"))
+      .put("keepA", new MockProjection("a"))
+      .put("sink1", new Object())
+      .put("sink2", new Object())
+      .build();
+
+    // the filter only holds for one branch, so only the projection is pushed down
+    Map<String, SourcePushdown> pushdowns = new PushdownPlanner().plan(stages, plugins);
+    Assert.assertEquals(ImmutableMap.of("src", new SourcePushdown(ImmutableSet.of("a", "x", "z"),
+                                                                  Collections.emptyList())),
+                        pushdowns);
+  }
+
+  @Test
+  public void testErrorsAndJoins() {
+    /*
+        src1 --> filterX --> keepA --|
+                   |                 |--> joiner --> sink
+                   |--> errors       |
+        src2 ------------------------|
+     */
+    List<StageSpec> stages = ImmutableList.of(
+      StageSpec.builder("src1", SOURCE).addOutput(SCHEMA, "filterX").build(),
+      StageSpec.builder("src2", SOURCE).addOutput(SCHEMA, "joiner").build(),
+      StageSpec.builder("filterX", TRANSFORM).addInputSchema("src1", SCHEMA)
+        .addOutput(SCHEMA, "keepA", "errors").build(),
+      StageSpec.builder("errors", ERROR).addInputSchema("filterX", SCHEMA).build(),
+      StageSpec.builder("keepA", TRANSFORM).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "joiner").build(),
+      StageSpec.builder("joiner", JOINER).addInputSchema("keepA", SCHEMA).addInputSchema("src2", SCHEMA)
+        .addOutput(SCHEMA, "sink").build(),
+      StageSpec.builder("sink", SINK).addInputSchema("joiner", SCHEMA).build());
+    Map<String, Object> plugins = ImmutableMap.<String, Object>builder()
+      .put("src1", new MockPushdownSource(true, true))
+      .put("src2", new MockPushdownSource(true, true))
+      .put("filterX", new MockFilter(X_GT_5))
+      .put("errors", new Object())
+      .put("keepA", new MockProjection("a"))
+      .put("joiner", new MockProjection("a"))
+      .put("sink", new Object())
+      .build();
+
+    // the filter emits errors and the joiner has multiple inputs, so nothing can be pushed down
+    Assert.assertEquals(Collections.emptyMap(), new PushdownPlanner().plan(stages, plugins));
+  }
+
+  @Test
+  public void testMacros() {
+    /*
+        src --> filterX --> keepA --> sink
+     */
+    PluginSpec macroTransform = new PluginSpec(Transform.PLUGIN_TYPE, "t", ImmutableMap.of("field", "${field}"),
+                                               ARTIFACT);
+    Map<String, Object> plugins = ImmutableMap.of(
+      "src", new MockPushdownSource(true, true),
+      "filterX", new MockFilter(X_GT_5),
+      "keepA", new MockProjection("a"),
+      "sink", new Object());
+
+    // the filter field is a macro, so neither its predicate nor the projection after it can be pushed down
+    List<StageSpec> stages = ImmutableList.of(
+      StageSpec.builder("src", SOURCE).addOutput(SCHEMA, "filterX").build(),
+      StageSpec.builder("filterX", macroTransform).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "keepA").build(),
+      StageSpec.builder("keepA", TRANSFORM).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "sink").build(),
+      StageSpec.builder("sink", SINK).addInputSchema("keepA", SCHEMA).build());
+    Assert.assertEquals(Collections.emptyMap(), new PushdownPlanner().plan(stages, plugins));
+
+    // the projected field is a macro, so only the filter is pushed down
+    stages = ImmutableList.of(
+      StageSpec.builder("src", SOURCE).addOutput(SCHEMA, "filterX").build(),
+      StageSpec.builder("filterX", TRANSFORM).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "keepA").build(),
+      StageSpec.builder("keepA", macroTransform).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "sink").build(),
+      StageSpec.builder("sink", SINK).addInputSchema("keepA", SCHEMA).build());
+    Assert.assertEquals(ImmutableMap.of("src", new SourcePushdown(null, ImmutableList.of(X_GT_5))),
+                        new PushdownPlanner().plan(stages, plugins));
+
+    // the source has a macro, so nothing is pushed down into it
+    PluginSpec macroSource = new PluginSpec(BatchSource.PLUGIN_TYPE, "src", ImmutableMap.of("table", "${table}"),
+                                            ARTIFACT);
+    stages = ImmutableList.of(
+      StageSpec.builder("src", macroSource).addOutput(SCHEMA, "filterX").build(),
+      StageSpec.builder("filterX", TRANSFORM).addInputSchema("src", SCHEMA).addOutput(SCHEMA, "keepA").build(),
+      StageSpec.builder("keepA", TRANSFORM).addInputSchema("filterX", SCHEMA).addOutput(SCHEMA, "sink").build(),
+      StageSpec.builder("sink", SINK).addInputSchema("keepA", SCHEMA).build());
+    Assert.assertEquals(Collections.emptyMap(), new PushdownPlanner().plan(stages, plugins));
+  }
+
+  /**
+   * A source that supports projection and the given predicates.
+   */
+  private static class MockPushdownSource implements PushdownSource {
+    private final boolean projection;
+    private final boolean allPredicates;
+    private final Set<String> predicateFields;
+
+    private MockPushdownSource(boolean projection, boolean allPredicates, String... predicateFields) {
+      this.projection = projection;
+      this.allPredicates = allPredicates;
+      this.predicateFields = ImmutableSet.copyOf(predicateFields);
+    }
+
+    @Override
+    public boolean supportsProjection() {
+      return projection;
+    }
+
+    @Override
+    public boolean supportsPredicate(FieldPredicate predicate) {
+      return allPredicates && (predicateFields.isEmpty() || predicateFields.contains(predicate.getFieldName()));
+    }
+  }
+
+  /**
+   * A filter that keeps all fields of its input.
+   */
+  private static class MockFilter implements FilterPredicateProvider, RequiredFieldsProvider {
+    private final FieldPredicate predicate;
+
+    private MockFilter(FieldPredicate predicate) {
+      this.predicate = predicate;
+    }
+
+    @Override
+    public List<FieldPredicate> getFilterPredicates() {
+      return Collections.singletonList(predicate);
+    }
+
+    @Nullable
+    @Override
+    public Set<String> getRequiredInputFields(@Nullable Set<String> requiredOutputFields) {
+      if (requiredOutputFields == null) {
+        return null;
+      }
+      Set<String> fields = new HashSet<>(requiredOutputFields);
+      fields.add(predicate.getFieldName());
+      return fields;
+    }
+  }
+
+  /**
+   * A transform that only outputs one field of its input.
+   */
+  private static class MockProjection implements RequiredFieldsProvider {
+    private final String field;
+
+    private MockProjection(String field) {
+      this.field = field;
+    }
+
+    @Override
+    public Set<String> getRequiredInputFields(@Nullable Set<String> requiredOutputFields) {
+      return Collections.singleton(field);
+    }
+  }
+}
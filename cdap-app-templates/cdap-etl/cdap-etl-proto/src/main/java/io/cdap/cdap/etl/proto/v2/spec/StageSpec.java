@@ -19,6 +19,7 @@ package io.cdap.cdap.etl.proto.v2.spec;
 
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.SplitterTransform;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 import io.cdap.cdap.etl.proto.v2.ETLStage;
 
 import java.io.Serializable;
@@ -45,10 +46,11 @@ public class StageSpec implements Serializable {
   private final Schema errorSchema;
   private final boolean stageLoggingEnabled;
   private final boolean processTimingEnabled;
+  private final SourcePushdown pushdown;
 
   private StageSpec(String name, PluginSpec plugin, Map<String, Schema> inputSchemas, @Nullable Schema outputSchema,
                     Schema errorSchema, Map<String, Schema> portSchemas, Map<String, Port> outputPorts,
-                    boolean stageLoggingEnabled, boolean processTimingEnabled) {
+                    boolean stageLoggingEnabled, boolean processTimingEnabled, @Nullable SourcePushdown pushdown) {
     this.name = name;
     this.plugin = plugin;
     this.inputSchemas = Collections.unmodifiableMap(inputSchemas);
@@ -58,6 +60,7 @@ public class StageSpec implements Serializable {
     this.outputSchema = outputSchema;
     this.outputPorts = Collections.unmodifiableMap(outputPorts);
     this.portSchemas = Collections.unmodifiableMap(portSchemas);
+    this.pushdown = pushdown;
   }
 
   public String getName() {
@@ -98,6 +101,14 @@ public class StageSpec implements Serializable {
     return processTimingEnabled;
   }
 
+  /**
+   * @return the projection and filters pushed down into the stage if it is a source, or an empty pushdown
+   */
+  public SourcePushdown getPushdown() {
+    // can be null if the spec was serialized before pushdown was supported
+    return pushdown == null ? SourcePushdown.NONE : pushdown;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -116,13 +127,14 @@ public class StageSpec implements Serializable {
       Objects.equals(outputSchema, that.outputSchema) &&
       Objects.equals(errorSchema, that.errorSchema) &&
       stageLoggingEnabled == that.stageLoggingEnabled &&
-      processTimingEnabled == that.processTimingEnabled;
+      processTimingEnabled == that.processTimingEnabled &&
+      Objects.equals(getPushdown(), that.getPushdown());
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(name, plugin, inputSchemas, outputPorts,
-                        outputSchema, errorSchema, stageLoggingEnabled, processTimingEnabled);
+                        outputSchema, errorSchema, stageLoggingEnabled, processTimingEnabled, getPushdown());
   }
 
   @Override
@@ -136,6 +148,7 @@ public class StageSpec implements Serializable {
       ", errorSchema=" + errorSchema +
       ", stageLoggingEnabled=" + stageLoggingEnabled +
       ", processTimingEnabled=" + processTimingEnabled +
+      ", pushdown=" + pushdown +
       '}';
   }
 
@@ -157,6 +170,7 @@ public class StageSpec implements Serializable {
     private Schema errorSchema;
     private boolean stageLoggingEnabled;
     private boolean processTimingEnabled;
+    private SourcePushdown pushdown;
 
     public Builder(String name, PluginSpec plugin) {
       this.name = name;
@@ -223,9 +237,14 @@ public class StageSpec implements Serializable {
       return this;
     }
 
+    public Builder setPushdown(@Nullable SourcePushdown pushdown) {
+      this.pushdown = pushdown;
+      return this;
+    }
+
     public StageSpec build() {
       return new StageSpec(name, plugin, inputSchemas, outputSchema, errorSchema, portSchemas, outputs,
-                           stageLoggingEnabled, processTimingEnabled);
+                           stageLoggingEnabled, processTimingEnabled, pushdown);
     }
 
   }
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark;
+
+import io.cdap.cdap.etl.common.Constants;
+
+import java.util.Map;
+
+/**
+ * Settings for the handling of skewed keys in joins and aggregations, read from the runtime arguments.
+ * Skew handling is enabled when the salt count is greater than one. Joins then estimate the hot keys of their
+ * first input from a sample, a hot key being a key that has at least the hot key fraction of the sampled records.
+ * The records of a hot key are spread over salt count partitions, and the matching records of the other inputs are
+ * replicated to each of these partitions. Reducible aggregations are done in two phases, with the partial aggregates
+ * of a group computed by up to salt count tasks before they are merged.
+ */
+public final class SkewConfig {
+  private final int saltCount;
+  private final double sampleFraction;
+  private final double hotKeyFraction;
+
+  private SkewConfig(int saltCount, double sampleFraction, double hotKeyFraction) {
+    this.saltCount = saltCount;
+    this.sampleFraction = sampleFraction;
+    this.hotKeyFraction = hotKeyFraction;
+  }
+
+  public static SkewConfig fromArguments(Map<String, String> arguments) {
+    String saltCount = arguments.get(Constants.SKEW_SALT_COUNT);
+    String sampleFraction = arguments.get(Constants.SKEW_SAMPLE_FRACTION);
+    String hotKeyFraction = arguments.get(Constants.SKEW_HOT_KEY_FRACTION);
+    return new SkewConfig(saltCount == null ? 0 : Integer.parseInt(saltCount),
+                          sampleFraction == null ?
+                            Constants.DEFAULT_SKEW_SAMPLE_FRACTION : Double.parseDouble(sampleFraction),
+                          hotKeyFraction == null ?
+                            Constants.DEFAULT_SKEW_HOT_KEY_FRACTION : Double.parseDouble(hotKeyFraction));
+  }
+
+  public boolean isEnabled() {
+    return saltCount > 1;
+  }
+
+  public int getSaltCount() {
+    return saltCount;
+  }
+
+  public double getSampleFraction() {
+    return sampleFraction;
+  }
+
+  public double getHotKeyFraction() {
+    return hotKeyFraction;
+  }
+}
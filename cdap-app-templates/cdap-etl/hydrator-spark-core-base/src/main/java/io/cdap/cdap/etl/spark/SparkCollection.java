@@ -25,6 +25,7 @@ import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -49,11 +50,26 @@ public interface SparkCollection<T> {
 
   SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec, StageStatisticsCollector collector);
 
+  /**
+   * Transforms the collection with a chain of stages whose plugins are
+   * {@link io.cdap.cdap.etl.api.columnar.ColumnarTransform ColumnarTransforms}. The output is tagged as the output of
+   * the last stage of the chain.
+   *
+   * @param stageSpecs the stages of the chain, in order
+   * @param collectors the statistics collectors of the stages, in the same order
+   * @param batchSize the maximum number of records in a batch
+   */
+  SparkCollection<RecordInfo<Object>> columnarTransform(List<StageSpec> stageSpecs,
+                                                        List<StageStatisticsCollector> collectors, int batchSize);
+
   <U> SparkCollection<U> flatMap(StageSpec stageSpec, FlatMapFunction<T, U> function);
 
   SparkCollection<RecordInfo<Object>> aggregate(StageSpec stageSpec, @Nullable Integer partitions,
                                                 StageStatisticsCollector collector);
 
+  SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                      StageStatisticsCollector collector);
+
   <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function);
 
   <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception;
@@ -21,6 +21,10 @@ import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
 import scala.Tuple2;
 
+import java.util.Collection;
+import java.util.Set;
+import javax.annotation.Nullable;
+
 /**
  * Abstraction over different types of spark pair collections with common shared operations on those collections.
  * For example, both JavaPairRDD and JavaPairDStream support the flatMap operation, but don't share a higher interface.
@@ -51,4 +55,62 @@ public interface SparkPairCollection<K, V> {
 
   <T> SparkPairCollection<K, Tuple2<Optional<V>, Optional<T>>> fullOuterJoin(SparkPairCollection<K, T> other,
                                                                              int numPartitions);
+
+  SparkPairCollection<K, V> cache();
+
+  /**
+   * Removes this collection from the cache. Does nothing if the collection was not cached, or if the underlying
+   * engine releases cached records by itself.
+   */
+  void uncache();
+
+  /**
+   * Returns whether this collection has at most the given number of records. Only as many records as needed to
+   * answer are computed, but they are computed again when the collection is used unless it is cached.
+   */
+  boolean hasAtMost(int numRecords);
+
+  /**
+   * Inner joins with the other collection by broadcasting the other collection to all partitions of this
+   * collection, without shuffling. The other collection must be small enough to fit in memory. An action that
+   * destroys the broadcast is added to the given cleanups, to be run once the joined collection has been used.
+   * Engines that can't broadcast join with a shuffle into the given number of partitions instead.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other,
+                                                         @Nullable Integer numPartitions,
+                                                         Collection<Runnable> cleanups);
+
+  /**
+   * Left outer joins with the other collection by broadcasting the other collection to all partitions of this
+   * collection, without shuffling. The other collection must be small enough to fit in memory. An action that
+   * destroys the broadcast is added to the given cleanups, to be run once the joined collection has been used.
+   * Engines that can't broadcast join with a shuffle into the given number of partitions instead.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                            @Nullable Integer numPartitions,
+                                                                            Collection<Runnable> cleanups);
+
+  /**
+   * Returns the keys that have at least the given fraction of the records, estimated from a sample of this
+   * collection. The collection is computed to take the sample, so it should be cached if it is used afterwards.
+   */
+  Set<K> sampleHotKeys(double sampleFraction, double hotKeyFraction);
+
+  /**
+   * Inner joins with the other collection, spreading the records of the given hot keys in this collection over
+   * salt count partitions, and replicating the records of the hot keys in the other collection to each of them.
+   * An action that destroys the broadcast hot keys is added to the given cleanups.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, T>> saltedJoin(SparkPairCollection<K, T> other, Set<K> hotKeys, int saltCount,
+                                                      @Nullable Integer numPartitions, Collection<Runnable> cleanups);
+
+  /**
+   * Left outer joins with the other collection, spreading the records of the given hot keys in this collection over
+   * salt count partitions, and replicating the records of the hot keys in the other collection to each of them.
+   * An action that destroys the broadcast hot keys is added to the given cleanups.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> saltedLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                         Set<K> hotKeys, int saltCount,
+                                                                         @Nullable Integer numPartitions,
+                                                                         Collection<Runnable> cleanups);
 }
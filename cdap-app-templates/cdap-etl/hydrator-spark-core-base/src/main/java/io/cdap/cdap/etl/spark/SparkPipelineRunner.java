@@ -25,19 +25,27 @@ import io.cdap.cdap.etl.api.Alert;
 import io.cdap.cdap.etl.api.AlertPublisher;
 import io.cdap.cdap.etl.api.ErrorRecord;
 import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.JoinConfig;
 import io.cdap.cdap.etl.api.JoinElement;
 import io.cdap.cdap.etl.api.SplitterTransform;
 import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.BatchSink;
 import io.cdap.cdap.etl.api.batch.SparkCompute;
 import io.cdap.cdap.etl.api.batch.SparkSink;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.relational.AggregateDefinition;
+import io.cdap.cdap.etl.api.relational.DeclarativeAggregator;
+import io.cdap.cdap.etl.api.relational.DeclarativeJoiner;
+import io.cdap.cdap.etl.api.relational.JoinDefinition;
 import io.cdap.cdap.etl.api.streaming.Windower;
 import io.cdap.cdap.etl.common.BasicArguments;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
+import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelinePhase;
 import io.cdap.cdap.etl.common.RecordInfo;
@@ -58,6 +66,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -68,6 +77,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 
 /**
  * Base Spark program to run a Hydrator pipeline.
@@ -87,6 +97,29 @@ public abstract class SparkPipelineRunner {
     SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs,
     StageStatisticsCollector collector) throws Exception;
 
+  /**
+   * Joins the inputs of a {@link DeclarativeJoiner} stage with relational operations. Returns {@code null} if the
+   * engine can't run the join with relational operations, in which case it is run with the methods of the joiner.
+   */
+  @Nullable
+  protected SparkCollection<Object> relationalJoin(StageSpec stageSpec, JoinDefinition joinDefinition,
+                                                   JoinConfig joinConfig, Map<String, SparkCollection<Object>> inputs,
+                                                   StageStatisticsCollector collector) throws Exception {
+    return null;
+  }
+
+  /**
+   * Aggregates the input of a {@link DeclarativeAggregator} stage with relational operations. Returns {@code null}
+   * if the engine can't run the aggregation with relational operations, in which case it is run with the methods of
+   * the aggregator.
+   */
+  @Nullable
+  protected SparkCollection<Object> relationalAggregate(StageSpec stageSpec, AggregateDefinition aggregateDefinition,
+                                                        SparkCollection<Object> input,
+                                                        StageStatisticsCollector collector) throws Exception {
+    return null;
+  }
+
   public void runPipeline(PipelinePhase pipelinePhase, String sourcePluginType,
                           JavaSparkExecutionContext sec,
                           Map<String, Integer> stagePartitions,
@@ -104,7 +137,12 @@ public abstract class SparkPipelineRunner {
       throw new IllegalStateException("Pipeline phase has no connections.");
     }
 
+    int columnarBatchSize = getColumnarBatchSize(sec);
+    Map<String, ColumnarChain> columnarChains = new HashMap<>();
+
     Collection<Runnable> sinkRunnables = new ArrayList<>();
+    // releases the collections cached and broadcast by joiners, once the sinks have computed their outputs
+    Collection<Runnable> cleanups = new ArrayList<>();
     for (String stageName : pipelinePhase.getDag().getTopologicalOrder()) {
       StageSpec stageSpec = pipelinePhase.getStage(stageName);
       //noinspection ConstantConditions
@@ -195,7 +233,25 @@ public abstract class SparkPipelineRunner {
 
       } else if (Transform.PLUGIN_TYPE.equals(pluginType)) {
 
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.transform(stageSpec, collector);
+        SparkCollection<RecordInfo<Object>> combinedData;
+        if (columnarBatchSize > 0 && !hasErrorOutput && !hasAlertOutput &&
+          ColumnarTransform.class.isAssignableFrom(pluginContext.loadPluginClass(stageName))) {
+          // chain this stage with its input stage if that stage is columnar too and only outputs to this stage,
+          // so that the records output by the input stage are never created
+          ColumnarChain inputChain = null;
+          if (inputDataCollections.size() == 1) {
+            String inputStageName = inputDataCollections.keySet().iterator().next();
+            if (pipelinePhase.getStageOutputs(inputStageName).size() == 1) {
+              inputChain = columnarChains.get(inputStageName);
+            }
+          }
+          ColumnarChain chain = inputChain == null ?
+            new ColumnarChain(stageData, stageSpec, collector) : inputChain.append(stageSpec, collector);
+          columnarChains.put(stageName, chain);
+          combinedData = chain.input.columnarTransform(chain.stageSpecs, chain.collectors, columnarBatchSize);
+        } else {
+          combinedData = stageData.transform(stageSpec, collector);
+        }
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
@@ -241,7 +297,22 @@ public abstract class SparkPipelineRunner {
       } else if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
 
         Integer partitions = stagePartitions.get(stageName);
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.aggregate(stageSpec, partitions, collector);
+        Class<?> aggregatorClass = pluginContext.loadPluginClass(stageName);
+        // relational aggregations can't emit errors or alerts
+        SparkCollection<Object> aggregated = null;
+        if (DeclarativeAggregator.class.isAssignableFrom(aggregatorClass) && !hasErrorOutput && !hasAlertOutput) {
+          // plugins from the pipeline plugin context are wrapped, so the definition is taken from an unwrapped one
+          DeclarativeAggregator aggregator = sec.getPluginContext().newPluginInstance(stageName, macroEvaluator);
+          aggregated = relationalAggregate(stageSpec, aggregator.getAggregateDefinition(), stageData, collector);
+        }
+        if (aggregated != null) {
+          emittedRecords.put(stageName, emittedBuilder.setOutput(aggregated).build());
+          continue;
+        }
+        boolean reducible = BatchReducibleAggregator.class.isAssignableFrom(aggregatorClass);
+        SparkCollection<RecordInfo<Object>> combinedData = reducible && !isWindowed(pipelinePhase, sec, stageName) ?
+          stageData.reduceAggregate(stageSpec, partitions, collector) :
+          stageData.aggregate(stageSpec, partitions, collector);
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
@@ -251,6 +322,15 @@ public abstract class SparkPipelineRunner {
         BatchJoinerRuntimeContext joinerRuntimeContext = pluginFunctionContext.createBatchRuntimeContext();
         joiner.initialize(joinerRuntimeContext);
 
+        boolean isDeclarative = DeclarativeJoiner.class.isAssignableFrom(pluginContext.loadPluginClass(stageName));
+        SparkCollection<Object> joined = isDeclarative ?
+          relationalJoin(stageSpec, getJoinDefinition(sec, stageName, macroEvaluator, joinerRuntimeContext),
+                         joiner.getJoinConfig(), inputDataCollections, collector) : null;
+        if (joined != null) {
+          emittedRecords.put(stageName, emittedBuilder.setOutput(joined.cache()).build());
+          continue;
+        }
+
         Map<String, SparkPairCollection<Object, Object>> preJoinStreams = new HashMap<>();
         for (Map.Entry<String, SparkCollection<Object>> inputStreamEntry : inputDataCollections.entrySet()) {
           String inputStage = inputStreamEntry.getKey();
@@ -262,19 +342,59 @@ public abstract class SparkPipelineRunner {
         remainingInputs.addAll(inputDataCollections.keySet());
 
         Integer numPartitions = stagePartitions.get(stageName);
+        JoinConfig joinConfig = joiner.getJoinConfig();
+        int broadcastMaxRecords = getBroadcastMaxRecords(sec);
+        boolean estimateInputSize = Boolean.parseBoolean(
+          sec.getRuntimeArguments().get(Constants.JOINER_BROADCAST_ESTIMATE));
+
+        // join the small required inputs last, so that they can be broadcast to the partitions of the other inputs
+        List<String> requiredInputs = new ArrayList<>();
+        Set<String> broadcastInputs = new HashSet<>();
+        for (String inputStageName : joinConfig.getRequiredInputs()) {
+          if (isSmallInput(inputStageName, preJoinStreams, joinConfig, broadcastMaxRecords, estimateInputSize,
+                           cleanups)) {
+            broadcastInputs.add(inputStageName);
+          } else {
+            requiredInputs.add(inputStageName);
+          }
+        }
+        for (String inputStageName : joinConfig.getRequiredInputs()) {
+          if (broadcastInputs.contains(inputStageName)) {
+            requiredInputs.add(inputStageName);
+          }
+        }
+
+        // the hot keys are estimated from the first input, as the other inputs are joined into it.
+        // The input is cached so that the join doesn't compute it again after it is sampled
+        SkewConfig skewConfig = SkewConfig.fromArguments(sec.getRuntimeArguments());
+        Set<Object> hotKeys = Collections.emptySet();
+        if (skewConfig.isEnabled() && !requiredInputs.isEmpty()) {
+          SparkPairCollection<Object, Object> sampledInput = preJoinStreams.get(requiredInputs.get(0)).cache();
+          preJoinStreams.put(requiredInputs.get(0), sampledInput);
+          cleanups.add(sampledInput::uncache);
+          hotKeys = sampledInput.sampleHotKeys(skewConfig.getSampleFraction(), skewConfig.getHotKeyFraction());
+        }
 
         SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs = null;
         // inner join on required inputs
-        for (final String inputStageName : joiner.getJoinConfig().getRequiredInputs()) {
+        for (final String inputStageName : requiredInputs) {
           SparkPairCollection<Object, Object> preJoinCollection = preJoinStreams.get(inputStageName);
 
           if (joinedInputs == null) {
             joinedInputs = preJoinCollection.mapValues(new InitialJoinFunction<>(inputStageName));
           } else {
             JoinFlattenFunction<Object> joinFlattenFunction = new JoinFlattenFunction<>(inputStageName);
-            joinedInputs = numPartitions == null ?
-              joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
-              joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            if (broadcastInputs.contains(inputStageName)) {
+              joinedInputs = joinedInputs.broadcastJoin(preJoinCollection, numPartitions, cleanups)
+                .mapValues(joinFlattenFunction);
+            } else if (!hotKeys.isEmpty()) {
+              joinedInputs = joinedInputs.saltedJoin(preJoinCollection, hotKeys, skewConfig.getSaltCount(),
+                                                     numPartitions, cleanups).mapValues(joinFlattenFunction);
+            } else {
+              joinedInputs = numPartitions == null ?
+                joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
+                joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            }
           }
           remainingInputs.remove(inputStageName);
         }
@@ -296,9 +416,21 @@ public abstract class SparkPipelineRunner {
             } else {
               LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
 
-              joinedInputs = numPartitions == null ?
-                joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
-                joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+              boolean isSmall = isSmallInput(inputStageName, preJoinStreams, joinConfig, broadcastMaxRecords,
+                                             estimateInputSize, cleanups);
+              // the input is replaced by its cached version if its size was estimated
+              preJoinStream = preJoinStreams.get(inputStageName);
+              if (isSmall) {
+                joinedInputs = joinedInputs.broadcastLeftOuterJoin(preJoinStream, numPartitions, cleanups)
+                  .mapValues(flattenFunction);
+              } else if (!hotKeys.isEmpty()) {
+                joinedInputs = joinedInputs.saltedLeftOuterJoin(preJoinStream, hotKeys, skewConfig.getSaltCount(),
+                                                                numPartitions, cleanups).mapValues(flattenFunction);
+              } else {
+                joinedInputs = numPartitions == null ?
+                  joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
+                  joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+              }
             }
           }
         }
@@ -364,11 +496,86 @@ public abstract class SparkPipelineRunner {
       }
     }
     executorService.shutdownNow();
+    for (Runnable cleanup : cleanups) {
+      try {
+        cleanup.run();
+      } catch (Exception e) {
+        LOG.warn("Failed to release a cached or broadcast join input.", e);
+      }
+    }
     if (error != null) {
       Throwables.propagate(error);
     }
   }
 
+  // returns the number of records in the batches of columnar transforms, or 0 if columnar execution is not enabled
+  private int getColumnarBatchSize(JavaSparkExecutionContext sec) {
+    if (!Boolean.parseBoolean(sec.getRuntimeArguments().get(Constants.COLUMNAR_ENABLED))) {
+      return 0;
+    }
+    String batchSize = sec.getRuntimeArguments().get(Constants.COLUMNAR_BATCH_SIZE);
+    return batchSize == null ? Constants.DEFAULT_COLUMNAR_BATCH_SIZE : Integer.parseInt(batchSize);
+  }
+
+  // returns the definition of a declarative joiner. Plugins from the pipeline plugin context are wrapped, so the
+  // definition is taken from an unwrapped instance, which is initialized like the wrapped joiner
+  private JoinDefinition getJoinDefinition(JavaSparkExecutionContext sec, String stageName,
+                                           MacroEvaluator macroEvaluator,
+                                           BatchJoinerRuntimeContext joinerRuntimeContext) throws Exception {
+    BatchJoiner<Object, Object, Object> joiner = sec.getPluginContext().newPluginInstance(stageName, macroEvaluator);
+    joiner.initialize(joinerRuntimeContext);
+    try {
+      return ((DeclarativeJoiner) joiner).getJoinDefinition();
+    } finally {
+      Destroyables.destroyQuietly(joiner);
+    }
+  }
+
+  private int getBroadcastMaxRecords(JavaSparkExecutionContext sec) {
+    String maxRecords = sec.getRuntimeArguments().get(Constants.JOINER_BROADCAST_MAX_RECORDS);
+    return maxRecords == null ? Constants.DEFAULT_JOINER_BROADCAST_MAX_RECORDS : Integer.parseInt(maxRecords);
+  }
+
+  // return whether a join input is small enough to be broadcast, based on its size hint if the joiner gave one.
+  // Otherwise, if estimation is enabled, the keyed input is cached and checked to have at most the max number of
+  // records. The cached input replaces the input in the given map, so that the join doesn't compute the input again,
+  // which would also count its records in the join key metrics twice.
+  private boolean isSmallInput(String inputStageName, Map<String, SparkPairCollection<Object, Object>> inputs,
+                               JoinConfig joinConfig, int broadcastMaxRecords, boolean estimateInputSize,
+                               Collection<Runnable> cleanups) {
+    if (broadcastMaxRecords <= 0) {
+      return false;
+    }
+    Long sizeHint = joinConfig.getInputSizeHints().get(inputStageName);
+    if (sizeHint != null) {
+      return sizeHint <= broadcastMaxRecords;
+    }
+    if (!estimateInputSize) {
+      return false;
+    }
+    SparkPairCollection<Object, Object> input = inputs.get(inputStageName).cache();
+    inputs.put(inputStageName, input);
+    cleanups.add(input::uncache);
+    return input.hasAtMost(broadcastMaxRecords);
+  }
+
+  // return whether this stage reads the output of a windower, directly or through other stages.
+  // A windower emits all the records of its window in every micro batch, so a running aggregate downstream of it
+  // would count each record once per slide. Such an aggregator has to aggregate each micro batch on its own.
+  private boolean isWindowed(PipelinePhase pipelinePhase, JavaSparkExecutionContext sec, String stageName) {
+    //noinspection ConstantConditions
+    for (String parent : pipelinePhase.getDag().parentsOf(stageName)) {
+      if (Windower.PLUGIN_TYPE.equals(pipelinePhase.getStage(parent).getPluginType())) {
+        if (Boolean.parseBoolean(sec.getRuntimeArguments().get(Constants.STREAMING_STATEFUL_AGGREGATION_ENABLED))) {
+          LOG.warn("Stage '{}' reads the output of windower '{}'. It will aggregate each micro batch on its own "
+                     + "instead of keeping its aggregates across micro batches.", stageName, parent);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
   // return whether this stage should be cached to avoid recomputation
   private boolean shouldCache(PipelinePhase pipelinePhase, StageSpec stageSpec) {
 
@@ -440,6 +647,34 @@ public abstract class SparkPipelineRunner {
     return builder;
   }
 
+  /**
+   * A chain of consecutive columnar transform stages, together with the input of the first stage of the chain.
+   */
+  private static final class ColumnarChain {
+    private final SparkCollection<Object> input;
+    private final List<StageSpec> stageSpecs;
+    private final List<StageStatisticsCollector> collectors;
+
+    private ColumnarChain(SparkCollection<Object> input, StageSpec stageSpec, StageStatisticsCollector collector) {
+      this(input, Collections.singletonList(stageSpec), Collections.singletonList(collector));
+    }
+
+    private ColumnarChain(SparkCollection<Object> input, List<StageSpec> stageSpecs,
+                          List<StageStatisticsCollector> collectors) {
+      this.input = input;
+      this.stageSpecs = stageSpecs;
+      this.collectors = collectors;
+    }
+
+    private ColumnarChain append(StageSpec stageSpec, StageStatisticsCollector collector) {
+      List<StageSpec> chainStageSpecs = new ArrayList<>(stageSpecs);
+      chainStageSpecs.add(stageSpec);
+      List<StageStatisticsCollector> chainCollectors = new ArrayList<>(collectors);
+      chainCollectors.add(collector);
+      return new ColumnarChain(input, chainStageSpecs, chainCollectors);
+    }
+  }
+
   /**
    * Holds all records emitted by a stage.
    */
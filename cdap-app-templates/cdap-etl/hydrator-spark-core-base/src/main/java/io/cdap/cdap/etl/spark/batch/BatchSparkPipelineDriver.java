@@ -28,8 +28,11 @@ import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.JavaSparkMain;
 import io.cdap.cdap.api.workflow.WorkflowToken;
+import io.cdap.cdap.etl.api.JoinConfig;
 import io.cdap.cdap.etl.api.JoinElement;
 import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.api.relational.AggregateDefinition;
+import io.cdap.cdap.etl.api.relational.JoinDefinition;
 import io.cdap.cdap.etl.batch.BatchPhaseSpec;
 import io.cdap.cdap.etl.batch.PipelinePluginInstantiator;
 import io.cdap.cdap.etl.batch.connector.SingleConnectorFactory;
@@ -59,6 +62,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Batch Spark pipeline driver.
@@ -79,6 +83,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
   private transient DatasetContext datasetContext;
   private transient Map<String, Integer> stagePartitions;
   private transient int numOfRecordsPreview;
+  private transient boolean sqlEnabled;
 
   @Override
   protected SparkCollection<RecordInfo<Object>> getSource(StageSpec stageSpec, StageStatisticsCollector collector) {
@@ -107,6 +112,45 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
     return joinedInputs.flatMap(Compat.convert(new JoinMergeFunction<>(pluginFunctionContext)));
   }
 
+  @Nullable
+  @Override
+  protected SparkCollection<Object> relationalJoin(StageSpec stageSpec, JoinDefinition joinDefinition,
+                                                   JoinConfig joinConfig, Map<String, SparkCollection<Object>> inputs,
+                                                   StageStatisticsCollector collector) {
+    if (!sqlEnabled || !DatasetCollection.isSupported(stageSpec.getOutputSchema())) {
+      return null;
+    }
+    Map<String, DatasetCollection<Object>> datasets = new HashMap<>();
+    for (Map.Entry<String, SparkCollection<Object>> input : inputs.entrySet()) {
+      Schema inputSchema = stageSpec.getInputSchemas().get(input.getKey());
+      if (!DatasetCollection.isSupported(inputSchema)) {
+        return null;
+      }
+      datasets.put(input.getKey(), DatasetCollection.fromRecords(sec, jsc, datasetContext, sinkFactory,
+                                                                 input.getValue(), inputSchema, stageSpec.getName(),
+                                                                 collector));
+    }
+    return DatasetCollection.join(stageSpec.getName(), joinDefinition, joinConfig.getRequiredInputs(), datasets,
+                                  stageSpec.getOutputSchema(), collector);
+  }
+
+  @Nullable
+  @Override
+  protected SparkCollection<Object> relationalAggregate(StageSpec stageSpec, AggregateDefinition aggregateDefinition,
+                                                        SparkCollection<Object> input,
+                                                        StageStatisticsCollector collector) {
+    // aggregators have a single input
+    Schema inputSchema = stageSpec.getInputSchemas().isEmpty() ?
+      null : stageSpec.getInputSchemas().values().iterator().next();
+    if (!sqlEnabled || !DatasetCollection.isSupported(inputSchema) ||
+      !DatasetCollection.isSupported(stageSpec.getOutputSchema())) {
+      return null;
+    }
+    return DatasetCollection.fromRecords(sec, jsc, datasetContext, sinkFactory, input, inputSchema, stageSpec.getName(),
+                                         collector)
+      .aggregate(stageSpec.getName(), aggregateDefinition, stageSpec.getOutputSchema(), collector);
+  }
+
   @Override
   public void run(JavaSparkExecutionContext sec) throws Exception {
     this.jsc = new JavaSparkContext();
@@ -133,6 +177,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
     }
     datasetContext = context;
     numOfRecordsPreview = phaseSpec.getNumOfRecordsPreview();
+    sqlEnabled = Boolean.parseBoolean(sec.getRuntimeArguments().get(Constants.SPARK_SQL_ENABLED));
     PipelinePluginContext pluginContext = new PipelinePluginContext(sec.getPluginContext(), sec.getMetrics(),
                                                                     phaseSpec.isStageLoggingEnabled(),
                                                                     phaseSpec.isProcessTimingEnabled());
@@ -0,0 +1,451 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import io.cdap.cdap.api.data.DatasetContext;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import io.cdap.cdap.etl.api.batch.SparkCompute;
+import io.cdap.cdap.etl.api.batch.SparkSink;
+import io.cdap.cdap.etl.api.relational.AggregateDefinition;
+import io.cdap.cdap.etl.api.relational.AggregateFunction;
+import io.cdap.cdap.etl.api.relational.JoinDefinition;
+import io.cdap.cdap.etl.api.relational.JoinField;
+import io.cdap.cdap.etl.api.streaming.Windower;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.StageStatisticsCollector;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.SparkCollection;
+import io.cdap.cdap.etl.spark.SparkPairCollection;
+import io.cdap.cdap.etl.spark.function.CountingFunction;
+import io.cdap.cdap.etl.spark.function.RecordToRowFunction;
+import io.cdap.cdap.etl.spark.function.RowToRecordFunction;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.catalyst.encoders.RowEncoder;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Implementation of {@link SparkCollection} that is backed by a Spark SQL Dataset of rows, so that the relational
+ * operations of declarative joiners and aggregators are optimized by Spark SQL and run on its binary row format.
+ * Other operations run on the records of the Dataset, through an {@link RDDCollection}.
+ *
+ * Records are only converted to and from rows at the boundaries between relational and other operations. The input
+ * records of a relational stage are counted when they are converted to rows, and the output records when they are
+ * converted back to records. When a relational stage consumes the output of another one, the rows are counted as
+ * they are, without converting them to records. The same records are counted in the statistics of the stage.
+ *
+ * @param <T> type of object in the collection, which is a {@link io.cdap.cdap.api.data.format.StructuredRecord}
+ */
+public class DatasetCollection<T> implements SparkCollection<T> {
+  private final JavaSparkExecutionContext sec;
+  private final JavaSparkContext jsc;
+  private final DatasetContext datasetContext;
+  private final SparkBatchSinkFactory sinkFactory;
+  private final Dataset<Row> dataset;
+  private final Schema schema;
+  // stage that outputs the rows and its statistics collector, or null if they are the input of a stage
+  private final String stageName;
+  private final StageStatisticsCollector collector;
+  private RDDCollection<T> records;
+
+  private DatasetCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc, DatasetContext datasetContext,
+                            SparkBatchSinkFactory sinkFactory, Dataset<Row> dataset, Schema schema,
+                            @Nullable String stageName, @Nullable StageStatisticsCollector collector) {
+    this.sec = sec;
+    this.jsc = jsc;
+    this.datasetContext = datasetContext;
+    this.sinkFactory = sinkFactory;
+    this.dataset = dataset;
+    this.schema = schema;
+    this.stageName = stageName;
+    this.collector = collector;
+  }
+
+  /**
+   * Returns whether records of the given schema can be converted to Spark SQL rows.
+   */
+  static boolean isSupported(@Nullable Schema schema) {
+    if (schema == null || schema.getType() != Schema.Type.RECORD) {
+      return false;
+    }
+    try {
+      DataFrames.toDataType(schema);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the input records of a stage as a {@link DatasetCollection}, counting them as input of the stage. If the
+   * records are already in a {@link DatasetCollection} of the same schema, its rows are used without conversion.
+   *
+   * @param records the input records
+   * @param schema schema of the records, which must be supported
+   * @param stageName name of the stage the records are input of
+   * @param collector statistics collector of the stage the records are input of
+   * @return a collection of the input records
+   */
+  @SuppressWarnings("unchecked")
+  static DatasetCollection<Object> fromRecords(JavaSparkExecutionContext sec, JavaSparkContext jsc,
+                                               DatasetContext datasetContext, SparkBatchSinkFactory sinkFactory,
+                                               SparkCollection<Object> records, Schema schema, String stageName,
+                                               StageStatisticsCollector collector) {
+    if (records instanceof DatasetCollection && schema.equals(((DatasetCollection<Object>) records).schema)) {
+      DatasetCollection<Object> input = (DatasetCollection<Object>) records;
+      // the output rows of a relational stage are counted when they are converted to records. If no other stage
+      // converted them, they are counted here, unless they must be traced, which is only done for records
+      boolean countOutput = input.stageName != null && input.records == null;
+      if (!countOutput || !sec.getDataTracer(input.stageName).isEnabled()) {
+        Dataset<Row> rows = input.dataset;
+        if (countOutput) {
+          rows = count(sec, rows, input.stageName, Constants.Metrics.RECORDS_OUT, input.collector);
+        }
+        rows = count(sec, rows, stageName, Constants.Metrics.RECORDS_IN, collector);
+        return new DatasetCollection<>(sec, jsc, datasetContext, sinkFactory, rows, schema, null, null);
+      }
+    }
+    JavaRDD<Object> recordRDD = records.getUnderlying();
+    recordRDD = recordRDD.map(new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN, null,
+                                                     collector));
+    return new DatasetCollection<>(sec, jsc, datasetContext, sinkFactory, toDataset(jsc, recordRDD, schema), schema,
+                                   null, null);
+  }
+
+  private static Dataset<Row> count(JavaSparkExecutionContext sec, Dataset<Row> rows, String stageName,
+                                    String metricName, StageStatisticsCollector collector) {
+    return rows.map(new CountingFunction<Row>(stageName, sec.getMetrics(), metricName, null, collector),
+                    RowEncoder.apply(rows.schema()));
+  }
+
+  private static <T> Dataset<Row> toDataset(JavaSparkContext jsc, JavaRDD<T> records, Schema schema) {
+    StructType rowType = DataFrames.toDataType(schema);
+    JavaRDD<Row> rows = records.map(new RecordToRowFunction<>(rowType));
+    return SQLContext.getOrCreate(jsc.sc()).createDataFrame(rows, rowType).as(RowEncoder.apply(rowType));
+  }
+
+  /**
+   * Joins collections as described by the definition of a declarative joiner. The required inputs are inner joined
+   * first, then the other inputs are left outer joined. If there is no required input, all the inputs are full
+   * outer joined.
+   *
+   * @param stageName name of the joiner stage
+   * @param joinDefinition definition of the join
+   * @param requiredInputs names of the required input stages
+   * @param inputs the collection of each input stage
+   * @param outputSchema schema of the output of the joiner stage, which must be supported
+   * @param collector statistics collector of the joiner stage
+   * @return the joined collection
+   */
+  static DatasetCollection<Object> join(String stageName, JoinDefinition joinDefinition,
+                                        Iterable<String> requiredInputs, Map<String, DatasetCollection<Object>> inputs,
+                                        Schema outputSchema, StageStatisticsCollector collector) {
+    List<String> joinOrder = new ArrayList<>();
+    for (String requiredInput : requiredInputs) {
+      joinOrder.add(requiredInput);
+    }
+    int numRequired = joinOrder.size();
+    boolean isFullOuter = numRequired == 0;
+    for (String inputStage : inputs.keySet()) {
+      if (!joinOrder.contains(inputStage)) {
+        joinOrder.add(inputStage);
+      }
+    }
+
+    Map<String, String> columnPrefixes = new HashMap<>();
+    Dataset<Row> joined = null;
+    StructType joinedType = null;
+    List<Column> keyColumns = null;
+    for (int i = 0; i < joinOrder.size(); i++) {
+      String inputStage = joinOrder.get(i);
+      List<String> keyFields = joinDefinition.getKeys().get(inputStage);
+      if (keyFields == null || keyFields.isEmpty()) {
+        throw new IllegalArgumentException(String.format("Join stage '%s' has no key field for input stage '%s'.",
+                                                         stageName, inputStage));
+      }
+
+      // prefix the columns of each input, since inputs can have fields of the same name
+      String prefix = "_" + i + "_";
+      columnPrefixes.put(inputStage, prefix);
+      StructField[] inputFields = inputs.get(inputStage).dataset.schema().fields();
+      Column[] prefixedColumns = new Column[inputFields.length];
+      StructField[] prefixedFields = new StructField[inputFields.length];
+      for (int j = 0; j < inputFields.length; j++) {
+        StructField field = inputFields[j];
+        prefixedColumns[j] = functions.col(field.name()).as(prefix + field.name());
+        prefixedFields[j] = DataTypes.createStructField(prefix + field.name(), field.dataType(), field.nullable());
+      }
+      StructType prefixedType = DataTypes.createStructType(prefixedFields);
+      Dataset<Row> prefixed = inputs.get(inputStage).dataset.toDF().select(prefixedColumns)
+        .as(RowEncoder.apply(prefixedType));
+      List<Column> inputKeyColumns = new ArrayList<>();
+      for (String keyField : keyFields) {
+        inputKeyColumns.add(functions.col(prefix + keyField));
+      }
+
+      if (joined == null) {
+        joined = prefixed;
+        joinedType = prefixedType;
+        keyColumns = inputKeyColumns;
+        continue;
+      }
+
+      // null keys are equal, like they are in a join of records on their join key
+      Column condition = null;
+      for (int k = 0; k < keyColumns.size(); k++) {
+        Column equal = keyColumns.get(k).eqNullSafe(inputKeyColumns.get(k));
+        condition = condition == null ? equal : condition.and(equal);
+      }
+      String joinType = isFullOuter ? "outer" : i < numRequired ? "inner" : "left_outer";
+      joinedType = concat(joinedType, isFullOuter, prefixedType, isFullOuter || i >= numRequired);
+      joined = joined.toDF().join(prefixed.toDF(), condition, joinType).as(RowEncoder.apply(joinedType));
+      if (isFullOuter) {
+        // records of the joined inputs can be missing, so the key is the key of any input that has a record
+        List<Column> coalescedKeys = new ArrayList<>();
+        for (int k = 0; k < keyColumns.size(); k++) {
+          coalescedKeys.add(functions.coalesce(keyColumns.get(k), inputKeyColumns.get(k)));
+        }
+        keyColumns = coalescedKeys;
+      }
+    }
+
+    // should never happen, but removes warnings
+    if (joined == null) {
+      throw new IllegalStateException("There are no inputs into join stage " + stageName);
+    }
+
+    Map<String, JoinField> selectedFields = new HashMap<>();
+    for (JoinField selectedField : joinDefinition.getSelectedFields()) {
+      selectedFields.put(selectedField.getOutputName(), selectedField);
+    }
+    StructType outputType = DataFrames.toDataType(outputSchema);
+    StructField[] outputFields = outputType.fields();
+    Column[] outputColumns = new Column[outputFields.length];
+    for (int i = 0; i < outputFields.length; i++) {
+      StructField outputField = outputFields[i];
+      JoinField selectedField = selectedFields.get(outputField.name());
+      if (selectedField == null || !columnPrefixes.containsKey(selectedField.getStageName())) {
+        throw new IllegalArgumentException(String.format("Output field '%s' of join stage '%s' is not selected from " +
+                                                           "an input stage.", outputField.name(), stageName));
+      }
+      outputColumns[i] = functions.col(columnPrefixes.get(selectedField.getStageName()) + selectedField.getFieldName())
+        .cast(outputField.dataType()).as(outputField.name());
+    }
+
+    DatasetCollection<Object> input = inputs.get(joinOrder.get(0));
+    return new DatasetCollection<>(input.sec, input.jsc, input.datasetContext, input.sinkFactory,
+                                   joined.toDF().select(outputColumns).as(RowEncoder.apply(outputType)),
+                                   outputSchema, stageName, collector);
+  }
+
+  /**
+   * Aggregates this collection as described by the definition of a declarative aggregator.
+   *
+   * @param stageName name of the aggregator stage
+   * @param aggregateDefinition definition of the aggregation
+   * @param outputSchema schema of the output of the aggregator stage, which must be supported
+   * @param collector statistics collector of the aggregator stage
+   * @return the aggregated collection
+   */
+  DatasetCollection<Object> aggregate(String stageName, AggregateDefinition aggregateDefinition,
+                                      Schema outputSchema, StageStatisticsCollector collector) {
+    List<String> groupByFields = aggregateDefinition.getGroupByFields();
+    Column[] groupByColumns = new Column[groupByFields.size()];
+    for (int i = 0; i < groupByColumns.length; i++) {
+      groupByColumns[i] = functions.col(groupByFields.get(i));
+    }
+
+    StructType outputType = DataFrames.toDataType(outputSchema);
+    StructField[] outputFields = outputType.fields();
+    Column[] outputColumns = new Column[outputFields.length];
+    for (int i = 0; i < outputFields.length; i++) {
+      outputColumns[i] = functions.col(outputFields[i].name()).cast(outputFields[i].dataType())
+        .as(outputFields[i].name());
+    }
+
+    List<AggregateFunction> aggregateFunctions = aggregateDefinition.getFunctions();
+    Dataset<Row> aggregated;
+    if (aggregateFunctions.isEmpty()) {
+      aggregated = dataset.toDF().select(groupByColumns).distinct().select(outputColumns)
+        .as(RowEncoder.apply(outputType));
+    } else {
+      Column[] aggregateColumns = new Column[aggregateFunctions.size()];
+      for (int i = 0; i < aggregateColumns.length; i++) {
+        aggregateColumns[i] = toColumn(aggregateFunctions.get(i));
+      }
+      aggregated = dataset.toDF().groupBy(groupByColumns)
+        .agg(aggregateColumns[0], Arrays.copyOfRange(aggregateColumns, 1, aggregateColumns.length))
+        .select(outputColumns)
+        .as(RowEncoder.apply(outputType));
+    }
+    return new DatasetCollection<>(sec, jsc, datasetContext, sinkFactory, aggregated, outputSchema, stageName,
+                                   collector);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public JavaRDD<T> getUnderlying() {
+    return getRecords().getUnderlying();
+  }
+
+  @Override
+  public SparkCollection<T> cache() {
+    SparkConf sparkConf = jsc.getConf();
+    if (!sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
+      return this;
+    }
+    // only the records are cached, so that they are counted once if they are used by multiple stages.
+    // Relational stages that use the collection read its rows from the cached records
+    RDDCollection<T> cachedRecords = (RDDCollection<T>) getRecords().cache();
+    DatasetCollection<T> cached = new DatasetCollection<>(sec, jsc, datasetContext, sinkFactory,
+                                                          toDataset(jsc, cachedRecords.getUnderlying(), schema),
+                                                          schema, stageName, collector);
+    cached.records = cachedRecords;
+    return cached;
+  }
+
+  @Override
+  public SparkCollection<T> union(SparkCollection<T> other) {
+    return getRecords().union(other);
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> transform(StageSpec stageSpec, StageStatisticsCollector collector) {
+    return getRecords().transform(stageSpec, collector);
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec,
+                                                                  StageStatisticsCollector collector) {
+    return getRecords().multiOutputTransform(stageSpec, collector);
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> columnarTransform(List<StageSpec> stageSpecs,
+                                                               List<StageStatisticsCollector> collectors,
+                                                               int batchSize) {
+    return getRecords().columnarTransform(stageSpecs, collectors, batchSize);
+  }
+
+  @Override
+  public <U> SparkCollection<U> flatMap(StageSpec stageSpec, FlatMapFunction<T, U> function) {
+    return getRecords().flatMap(stageSpec, function);
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> aggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                       StageStatisticsCollector collector) {
+    return getRecords().aggregate(stageSpec, partitions, collector);
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    return getRecords().reduceAggregate(stageSpec, partitions, collector);
+  }
+
+  @Override
+  public <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function) {
+    return getRecords().flatMapToPair(function);
+  }
+
+  @Override
+  public <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
+    return getRecords().compute(stageSpec, compute);
+  }
+
+  @Override
+  public Runnable createStoreTask(StageSpec stageSpec, PairFlatMapFunction<T, Object, Object> sinkFunction) {
+    return getRecords().createStoreTask(stageSpec, sinkFunction);
+  }
+
+  @Override
+  public Runnable createStoreTask(StageSpec stageSpec, SparkSink<T> sink) throws Exception {
+    return getRecords().createStoreTask(stageSpec, sink);
+  }
+
+  @Override
+  public void publishAlerts(StageSpec stageSpec, StageStatisticsCollector collector) throws Exception {
+    getRecords().publishAlerts(stageSpec, collector);
+  }
+
+  @Override
+  public SparkCollection<T> window(StageSpec stageSpec, Windower windower) {
+    return getRecords().window(stageSpec, windower);
+  }
+
+  private RDDCollection<T> getRecords() {
+    if (records == null) {
+      JavaRDD<T> recordRDD = dataset.toDF().toJavaRDD().map(new RowToRecordFunction<T>(schema));
+      if (stageName != null) {
+        recordRDD = recordRDD.map(new CountingFunction<T>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_OUT,
+                                                          sec.getDataTracer(stageName), collector));
+      }
+      records = new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, recordRDD);
+    }
+    return records;
+  }
+
+  private static StructType concat(StructType left, boolean leftNullable, StructType right, boolean rightNullable) {
+    List<StructField> fields = new ArrayList<>();
+    for (StructField field : left.fields()) {
+      fields.add(DataTypes.createStructField(field.name(), field.dataType(), field.nullable() || leftNullable));
+    }
+    for (StructField field : right.fields()) {
+      fields.add(DataTypes.createStructField(field.name(), field.dataType(), field.nullable() || rightNullable));
+    }
+    return DataTypes.createStructType(fields);
+  }
+
+  private static Column toColumn(AggregateFunction aggregateFunction) {
+    Column column = functions.col(aggregateFunction.getFieldName());
+    switch (aggregateFunction.getType()) {
+      case COUNT:
+        return functions.count(column).as(aggregateFunction.getAlias());
+      case SUM:
+        return functions.sum(column).as(aggregateFunction.getAlias());
+      case MIN:
+        return functions.min(column).as(aggregateFunction.getAlias());
+      case MAX:
+        return functions.max(column).as(aggregateFunction.getAlias());
+      case AVG:
+        return functions.avg(column).as(aggregateFunction.getAlias());
+    }
+    // should never happen
+    throw new IllegalArgumentException("Unsupported aggregate function " + aggregateFunction.getType());
+  }
+}
@@ -19,15 +19,34 @@ package io.cdap.cdap.etl.spark.batch;
 import com.google.common.base.Optional;
 import io.cdap.cdap.api.data.DatasetContext;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
+import io.cdap.cdap.etl.spark.function.BroadcastJoinFunction;
+import io.cdap.cdap.etl.spark.function.BroadcastLeftJoinFunction;
+import io.cdap.cdap.etl.spark.function.ReplicateKeyFunction;
+import io.cdap.cdap.etl.spark.function.SaltKeyFunction;
+import io.cdap.cdap.etl.spark.function.SaltedKey;
+import io.cdap.cdap.etl.spark.function.UnsaltKeyFunction;
+import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
 import scala.Tuple2;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
 /**
  * Implementation of {@link SparkCollection} that is backed by a JavaPairRDD.
  *
@@ -104,6 +123,118 @@ public class PairRDDCollection<K, V> implements SparkPairCollection<K, V> {
     return wrap(Compat.fullOuterJoin(pairRDD, (JavaPairRDD<K, T>) other.getUnderlying(), numPartitions));
   }
 
+  @Override
+  public SparkPairCollection<K, V> cache() {
+    if (!pairRDD.getStorageLevel().equals(StorageLevel.NONE())) {
+      // already cached to estimate or sample the collection
+      return this;
+    }
+    SparkConf sparkConf = jsc.getConf();
+    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
+      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL,
+                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
+      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
+      return wrap(pairRDD.persist(cacheStorageLevel));
+    } else {
+      return wrap(pairRDD);
+    }
+  }
+
+  @Override
+  public void uncache() {
+    pairRDD.unpersist(false);
+  }
+
+  @Override
+  public boolean hasAtMost(int numRecords) {
+    return pairRDD.take(numRecords + 1).size() <= numRecords;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other,
+                                                                @Nullable Integer numPartitions,
+                                                                Collection<Runnable> cleanups) {
+    Broadcast<Map<K, List<T>>> broadcastInput = broadcast((JavaPairRDD<K, T>) other.getUnderlying(), cleanups);
+    return wrap(pairRDD.flatMapToPair(Compat.convert(new BroadcastJoinFunction<K, V, T>(broadcastInput))));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                                   @Nullable Integer numPartitions,
+                                                                                   Collection<Runnable> cleanups) {
+    Broadcast<Map<K, List<T>>> broadcastInput = broadcast((JavaPairRDD<K, T>) other.getUnderlying(), cleanups);
+    return wrap(pairRDD.flatMapToPair(Compat.convert(new BroadcastLeftJoinFunction<K, V, T>(broadcastInput))));
+  }
+
+  @Override
+  public Set<K> sampleHotKeys(double sampleFraction, double hotKeyFraction) {
+    // the sample is counted per key on the executors, so that only the hot keys are collected in the driver.
+    // The counts are cached, since they are used once to sum the sample size and once to find the hot keys
+    JavaPairRDD<K, Long> sampleCounts = pairRDD.keys().sample(false, sampleFraction)
+      .mapToPair(key -> new Tuple2<>(key, 1L))
+      .reduceByKey((count1, count2) -> count1 + count2)
+      .persist(StorageLevel.MEMORY_AND_DISK());
+    try {
+      long sampleSize = sampleCounts.values().fold(0L, (count1, count2) -> count1 + count2);
+      double minCount = hotKeyFraction * sampleSize;
+      return new HashSet<>(sampleCounts.filter(keyCount -> keyCount._2() >= minCount).keys().collect());
+    } finally {
+      sampleCounts.unpersist(false);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, T>> saltedJoin(SparkPairCollection<K, T> other, Set<K> hotKeys,
+                                                             int saltCount, @Nullable Integer numPartitions,
+                                                             Collection<Runnable> cleanups) {
+    Broadcast<Set<K>> broadcastKeys = broadcast(hotKeys, cleanups);
+    JavaPairRDD<SaltedKey<K>, V> salted = pairRDD.mapToPair(new SaltKeyFunction<K, V>(broadcastKeys, saltCount));
+    JavaPairRDD<SaltedKey<K>, T> replicated = replicate((JavaPairRDD<K, T>) other.getUnderlying(),
+                                                        broadcastKeys, saltCount);
+    JavaPairRDD<SaltedKey<K>, Tuple2<V, T>> joined = numPartitions == null ?
+      salted.join(replicated) : salted.join(replicated, numPartitions);
+    return wrap(joined.mapToPair(new UnsaltKeyFunction<K, Tuple2<V, T>>()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> saltedLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                                Set<K> hotKeys, int saltCount,
+                                                                                @Nullable Integer numPartitions,
+                                                                                Collection<Runnable> cleanups) {
+    Broadcast<Set<K>> broadcastKeys = broadcast(hotKeys, cleanups);
+    JavaPairRDD<SaltedKey<K>, V> salted = pairRDD.mapToPair(new SaltKeyFunction<K, V>(broadcastKeys, saltCount));
+    JavaPairRDD<SaltedKey<K>, T> replicated = replicate((JavaPairRDD<K, T>) other.getUnderlying(),
+                                                        broadcastKeys, saltCount);
+    JavaPairRDD<SaltedKey<K>, Tuple2<V, Optional<T>>> joined = numPartitions == null ?
+      Compat.leftOuterJoin(salted, replicated) : Compat.leftOuterJoin(salted, replicated, numPartitions);
+    return wrap(joined.mapToPair(new UnsaltKeyFunction<K, Tuple2<V, Optional<T>>>()));
+  }
+
+  private <T> JavaPairRDD<SaltedKey<K>, T> replicate(JavaPairRDD<K, T> input, Broadcast<Set<K>> hotKeys,
+                                                     int saltCount) {
+    return input.flatMapToPair(Compat.convert(new ReplicateKeyFunction<K, T>(hotKeys, saltCount)));
+  }
+
+  // collects the given input in the driver and broadcasts it as a map from key to all the values of that key.
+  // The broadcast is destroyed by the cleanups, since it is only needed until the join has been computed
+  private <T> Broadcast<Map<K, List<T>>> broadcast(JavaPairRDD<K, T> input, Collection<Runnable> cleanups) {
+    Map<K, List<T>> values = new HashMap<>();
+    for (Tuple2<K, T> record : input.collect()) {
+      values.computeIfAbsent(record._1(), k -> new ArrayList<>()).add(record._2());
+    }
+    return broadcast(values, cleanups);
+  }
+
+  private <T> Broadcast<T> broadcast(T value, Collection<Runnable> cleanups) {
+    Broadcast<T> broadcast = jsc.broadcast(value);
+    cleanups.add(broadcast::destroy);
+    return broadcast;
+  }
+
   private <X, Y> SparkPairCollection<X, Y> wrap(JavaPairRDD<X, Y> javaPairRDD) {
     return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, javaPairRDD);
   }
@@ -37,26 +37,39 @@ import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.TrackedIterator;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.Compat;
+import io.cdap.cdap.etl.spark.SkewConfig;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.SparkPipelineRuntime;
 import io.cdap.cdap.etl.spark.function.AggregatorAggregateFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorFinalizeFunction;
 import io.cdap.cdap.etl.spark.function.AggregatorGroupByFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorInitializeFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergeValueFunction;
+import io.cdap.cdap.etl.spark.function.ColumnarTransformFunction;
 import io.cdap.cdap.etl.spark.function.CountingFunction;
 import io.cdap.cdap.etl.spark.function.FlatMapFunc;
 import io.cdap.cdap.etl.spark.function.MultiOutputTransformFunction;
 import io.cdap.cdap.etl.spark.function.PairFlatMapFunc;
+import io.cdap.cdap.etl.spark.function.PartitionSaltKeyFunction;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.function.SaltedKey;
 import io.cdap.cdap.etl.spark.function.TransformFunction;
+import io.cdap.cdap.etl.spark.function.UnsaltKeyFunction;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.storage.StorageLevel;
 import scala.Tuple2;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 
 
@@ -113,6 +126,18 @@ public class RDDCollection<T> implements SparkCollection<T> {
     return wrap(rdd.flatMap(Compat.convert(new TransformFunction<T>(pluginFunctionContext))));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> columnarTransform(List<StageSpec> stageSpecs,
+                                                               List<StageStatisticsCollector> collectors,
+                                                               int batchSize) {
+    List<PluginFunctionContext> pluginFunctionContexts = new ArrayList<>(stageSpecs.size());
+    for (int i = 0; i < stageSpecs.size(); i++) {
+      pluginFunctionContexts.add(new PluginFunctionContext(stageSpecs.get(i), sec, collectors.get(i)));
+    }
+    return wrap(rdd.mapPartitions(Compat.convert(new ColumnarTransformFunction<T>(pluginFunctionContexts,
+                                                                                 batchSize))));
+  }
+
   @Override
   public SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec,
                                                                   StageStatisticsCollector collector) {
@@ -145,6 +170,50 @@ public class RDDCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.flatMap(sparkAggregateFunction));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
+    PairFlatMapFunc<T, Object, T> groupByFunction = new AggregatorGroupByFunction<>(pluginFunctionContext);
+    PairFlatMapFunction<T, Object, T> sparkGroupByFunction = Compat.convert(groupByFunction);
+
+    JavaPairRDD<Object, T> keyedCollection = rdd.flatMapToPair(sparkGroupByFunction);
+
+    // values are combined into aggregate values before the shuffle, so only one aggregate value per group
+    // and partition is shuffled
+    Function<T, Object> initializeFunction = new AggregatorInitializeFunction<>(pluginFunctionContext);
+    Function2<Object, T, Object> mergeValueFunction = new AggregatorMergeValueFunction<>(pluginFunctionContext);
+    Function2<Object, Object, Object> mergePartitionFunction =
+      new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+    JavaPairRDD<Object, Object> combinedCollection;
+    SkewConfig skewConfig = SkewConfig.fromArguments(sec.getRuntimeArguments());
+    if (skewConfig.isEnabled()) {
+      // aggregate in two phases, so that the partial aggregates of a hot group are computed by different tasks
+      // before they are merged, instead of all the partitions sending their aggregate value to the same task
+      JavaPairRDD<SaltedKey<Object>, T> saltedCollection =
+        keyedCollection.mapToPair(new PartitionSaltKeyFunction<Object, T>(skewConfig.getSaltCount()));
+      JavaPairRDD<SaltedKey<Object>, Object> partialCollection = partitions == null ?
+        saltedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+        saltedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+      JavaPairRDD<Object, Object> unsaltedCollection =
+        partialCollection.mapToPair(new UnsaltKeyFunction<Object, Object>());
+      combinedCollection = partitions == null ?
+        unsaltedCollection.reduceByKey(mergePartitionFunction) :
+        unsaltedCollection.reduceByKey(mergePartitionFunction, partitions);
+    } else {
+      combinedCollection = partitions == null ?
+        keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+        keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+    }
+
+    FlatMapFunc<Tuple2<Object, Object>, RecordInfo<Object>> finalizeFunction =
+      new AggregatorFinalizeFunction<>(pluginFunctionContext);
+    FlatMapFunction<Tuple2<Object, Object>, RecordInfo<Object>> sparkFinalizeFunction =
+      Compat.convert(finalizeFunction);
+
+    return wrap(combinedCollection.flatMap(sparkFinalizeFunction));
+  }
+
   @Override
   public <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function) {
     return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, rdd.flatMapToPair(function));
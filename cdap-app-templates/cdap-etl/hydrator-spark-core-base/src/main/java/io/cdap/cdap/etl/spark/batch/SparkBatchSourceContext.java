@@ -25,6 +25,7 @@ import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.api.spark.SparkClientContext;
 import io.cdap.cdap.etl.api.StageSubmitterContext;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 import io.cdap.cdap.etl.batch.AbstractBatchContext;
 import io.cdap.cdap.etl.common.ExternalDatasets;
 import io.cdap.cdap.etl.common.PipelineRuntime;
@@ -41,6 +42,7 @@ public class SparkBatchSourceContext extends AbstractBatchContext
   implements BatchSourceContext, StageSubmitterContext {
   private final SparkBatchSourceFactory sourceFactory;
   private final boolean isPreviewEnabled;
+  private final SourcePushdown pushdown;
   private final SparkClientContext sparkContext;
 
   public SparkBatchSourceContext(SparkBatchSourceFactory sourceFactory, SparkClientContext sparkContext,
@@ -49,6 +51,7 @@ public class SparkBatchSourceContext extends AbstractBatchContext
     this.sparkContext = sparkContext;
     this.sourceFactory = sourceFactory;
     this.isPreviewEnabled = sparkContext.getDataTracer(stageSpec.getName()).isEnabled();
+    this.pushdown = stageSpec.getPushdown();
   }
 
   @Override
@@ -62,6 +65,11 @@ public class SparkBatchSourceContext extends AbstractBatchContext
     return isPreviewEnabled;
   }
 
+  @Override
+  public SourcePushdown getPushdown() {
+    return pushdown;
+  }
+
   private Input suffixInput(Input input) {
     String suffixedAlias = String.format("%s-%s", input.getAlias(), UUID.randomUUID());
     return input.alias(suffixedAlias);
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.columnar.BatchErrorEmitter;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.DefaultEmitter;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import io.cdap.cdap.etl.common.StageStatisticsCollector;
+import io.cdap.cdap.etl.common.TrackedTransform;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Function that transforms the records of a partition with a chain of {@link ColumnarTransform} stages.
+ * Records are grouped in batches of records of the same schema, and each batch goes through all the stages of the
+ * chain before it is turned back into records, which are output by the last stage. Inputs that are not records go
+ * through the record level transform of each stage instead.
+ * The plugins are created for each partition, and destroyed when the Spark task completes.
+ *
+ * @param <T> type of input object
+ */
+public class ColumnarTransformFunction<T> implements FlatMapFunc<Iterator<T>, RecordInfo<Object>> {
+  private final List<PluginFunctionContext> pluginFunctionContexts;
+  private final int batchSize;
+
+  public ColumnarTransformFunction(List<PluginFunctionContext> pluginFunctionContexts, int batchSize) {
+    this.pluginFunctionContexts = pluginFunctionContexts;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public Iterable<RecordInfo<Object>> call(Iterator<T> input) throws Exception {
+    List<ColumnarStage> stages = new ArrayList<>(pluginFunctionContexts.size());
+    for (PluginFunctionContext pluginFunctionContext : pluginFunctionContexts) {
+      Transform<Object, Object> plugin = pluginFunctionContext.createPlugin();
+      plugin.initialize(pluginFunctionContext.createBatchRuntimeContext());
+      PluginFunctionContext.destroyOnTaskCompletion(plugin);
+      stages.add(new ColumnarStage(pluginFunctionContext, plugin));
+    }
+    PeekingIterator<T> records = Iterators.peekingIterator(input);
+    String outputStageName = pluginFunctionContexts.get(pluginFunctionContexts.size() - 1).getStageName();
+
+    return () -> new AbstractIterator<RecordInfo<Object>>() {
+      private Iterator<?> outputs = Collections.emptyIterator();
+
+      @Override
+      protected RecordInfo<Object> computeNext() {
+        while (!outputs.hasNext()) {
+          if (!records.hasNext()) {
+            return endOfData();
+          }
+          try {
+            outputs = records.peek() instanceof StructuredRecord ?
+              transform(stages, nextBatch(records)).toRecords().iterator() :
+              transform(stages, records.next()).iterator();
+          } catch (Exception e) {
+            throw Throwables.propagate(e);
+          }
+        }
+        return RecordInfo.builder(outputs.next(), outputStageName, RecordType.OUTPUT).build();
+      }
+    };
+  }
+
+  // returns a batch of up to batch size records of the same schema
+  private RecordBatch nextBatch(PeekingIterator<T> records) {
+    List<StructuredRecord> batch = new ArrayList<>();
+    Schema schema = ((StructuredRecord) records.peek()).getSchema();
+    while (records.hasNext() && batch.size() < batchSize && records.peek() instanceof StructuredRecord &&
+      schema.equals(((StructuredRecord) records.peek()).getSchema())) {
+      batch.add((StructuredRecord) records.next());
+    }
+    return RecordBatch.fromRecords(schema, batch);
+  }
+
+  private RecordBatch transform(List<ColumnarStage> stages, RecordBatch batch) throws Exception {
+    for (ColumnarStage stage : stages) {
+      batch = stage.transform(batch);
+    }
+    return batch;
+  }
+
+  private Collection<Object> transform(List<ColumnarStage> stages, Object input) throws Exception {
+    Collection<Object> outputs = Collections.singletonList(input);
+    for (ColumnarStage stage : stages) {
+      DefaultEmitter<Object> emitter = new DefaultEmitter<>();
+      for (Object output : outputs) {
+        stage.transform(output, emitter);
+      }
+      outputs = emitter.getEntries();
+    }
+    return outputs;
+  }
+
+  /**
+   * A stage of the chain, that tracks the metrics of the stage like a {@link TrackedTransform}.
+   */
+  private static final class ColumnarStage {
+    private final ColumnarTransform transform;
+    private final TrackedTransform<Object, Object> recordTransform;
+    private final StageMetrics stageMetrics;
+    private final DataTracer dataTracer;
+    private final StageStatisticsCollector collector;
+
+    private ColumnarStage(PluginFunctionContext pluginFunctionContext, Transform<Object, Object> transform) {
+      this.transform = (ColumnarTransform) transform;
+      this.stageMetrics = pluginFunctionContext.createStageMetrics();
+      this.dataTracer = pluginFunctionContext.getDataTracer();
+      this.collector = pluginFunctionContext.getStageStatisticsCollector();
+      this.recordTransform = new TrackedTransform<>(transform, stageMetrics, dataTracer, collector);
+    }
+
+    private RecordBatch transform(RecordBatch input) throws Exception {
+      stageMetrics.count(Constants.Metrics.RECORDS_IN, input.getNumRows());
+      for (int i = 0; i < input.getNumRows(); i++) {
+        collector.incrementInputRecordCount();
+      }
+      RecordBatch output = transform.transform(input, new BatchErrorEmitter() {
+        @Override
+        public void emitError(int row, int errorCode, String errorMsg) {
+          stageMetrics.count(Constants.Metrics.RECORDS_ERROR, 1);
+          collector.incrementErrorRecordCount();
+          if (dataTracer.isEnabled()) {
+            dataTracer.info(Constants.Metrics.RECORDS_ERROR, new InvalidEntry<>(errorCode, errorMsg,
+                                                                                input.getRecord(row)));
+          }
+        }
+      });
+      stageMetrics.count(Constants.Metrics.RECORDS_OUT, output.getNumRows());
+      for (int i = 0; i < output.getNumRows(); i++) {
+        collector.incrementOutputRecordCount();
+      }
+      if (dataTracer.isEnabled()) {
+        for (StructuredRecord record : output.toRecords()) {
+          dataTracer.info(Constants.Metrics.RECORDS_OUT, record);
+        }
+      }
+      return output;
+    }
+
+    private void transform(Object input, DefaultEmitter<Object> emitter) throws Exception {
+      // errors and alerts are not consumed by another stage, so they are only counted by the tracked transform
+      recordTransform.transform(input, emitter);
+    }
+  }
+}
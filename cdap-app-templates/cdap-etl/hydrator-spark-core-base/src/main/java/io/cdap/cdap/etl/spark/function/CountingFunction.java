@@ -19,29 +19,41 @@ package io.cdap.cdap.etl.spark.function;
 import io.cdap.cdap.api.metrics.Metrics;
 import io.cdap.cdap.api.preview.DataTracer;
 import io.cdap.cdap.etl.api.StageMetrics;
+import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.MapFunction;
 
 import javax.annotation.Nullable;
 
 /**
  * Function that doesn't transform anything, but just emits counts for the number of records from that stage.
+ * It can count the records of an RDD or the rows of a Spark SQL Dataset.
  *
  * @param <T> the type of input object
  */
-public class CountingFunction<T> implements Function<T, T> {
+public class CountingFunction<T> implements Function<T, T>, MapFunction<T, T> {
   private final String stageName;
   private final Metrics metrics;
   private final String metricName;
   private final DataTracer dataTracer;
+  private final StageStatisticsCollector collector;
   private transient StageMetrics stageMetrics;
 
   // DataTracer is null for records.in
   public CountingFunction(String stageName, Metrics metrics, String metricName, @Nullable DataTracer dataTracer) {
+    this(stageName, metrics, metricName, dataTracer, null);
+  }
+
+  // the collector, if given, also counts records.in and records.out in the statistics of the stage
+  public CountingFunction(String stageName, Metrics metrics, String metricName, @Nullable DataTracer dataTracer,
+                          @Nullable StageStatisticsCollector collector) {
     this.stageName = stageName;
     this.metrics = metrics;
     this.metricName = metricName;
     this.dataTracer = dataTracer;
+    this.collector = collector;
   }
 
   @Override
@@ -54,6 +66,13 @@ public class CountingFunction<T> implements Function<T, T> {
       dataTracer.info(metricName, in);
     }
     stageMetrics.count(metricName, 1);
+    if (collector != null) {
+      if (Constants.Metrics.RECORDS_IN.equals(metricName)) {
+        collector.incrementInputRecordCount();
+      } else if (Constants.Metrics.RECORDS_OUT.equals(metricName)) {
+        collector.incrementOutputRecordCount();
+      }
+    }
     return in;
   }
 }
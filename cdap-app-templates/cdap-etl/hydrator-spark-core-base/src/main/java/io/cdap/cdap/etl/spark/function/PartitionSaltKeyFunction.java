@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.PairFunction;
+import scala.Tuple2;
+
+/**
+ * Salts all the keys of a collection with the partition the record is in. Since all the records of a partition
+ * get the same salt, values can still be combined within a partition before they are shuffled.
+ *
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+public class PartitionSaltKeyFunction<K, V> implements PairFunction<Tuple2<K, V>, SaltedKey<K>, V> {
+  private final int saltCount;
+
+  public PartitionSaltKeyFunction(int saltCount) {
+    this.saltCount = saltCount;
+  }
+
+  @Override
+  public Tuple2<SaltedKey<K>, V> call(Tuple2<K, V> in) throws Exception {
+    return new Tuple2<>(new SaltedKey<>(in._1(), TaskContext.get().partitionId() % saltCount), in._2());
+  }
+}
@@ -23,6 +23,7 @@ import io.cdap.cdap.api.plugin.PluginContext;
 import io.cdap.cdap.api.preview.DataTracer;
 import io.cdap.cdap.api.security.store.SecureStore;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.api.Destroyable;
 import io.cdap.cdap.etl.api.StageMetrics;
 import io.cdap.cdap.etl.batch.connector.SingleConnectorSink;
 import io.cdap.cdap.etl.batch.connector.SingleConnectorSource;
@@ -30,12 +31,15 @@ import io.cdap.cdap.etl.common.BasicArguments;
 import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.DefaultMacroEvaluator;
 import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.Destroyables;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.plugin.PipelinePluginContext;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.batch.SparkBatchRuntimeContext;
 import io.cdap.cdap.etl.spark.plugin.SparkPipelinePluginContext;
+import org.apache.spark.TaskContext;
+import org.apache.spark.util.TaskCompletionListener;
 
 import java.io.Serializable;
 import java.util.Map;
@@ -94,6 +98,24 @@ public class PluginFunctionContext implements Serializable {
     return getPluginContext().newPluginInstance(stageSpec.getName(), macroEvaluator);
   }
 
+  /**
+   * Destroys the given plugin when the current Spark task completes. Spark functions have no method that is called
+   * when they are done, and the plugins they create lazily are used until the end of the task that deserialized them.
+   * Does nothing if not called from a Spark task.
+   */
+  public static void destroyOnTaskCompletion(final Destroyable plugin) {
+    TaskContext taskContext = TaskContext.get();
+    if (taskContext == null) {
+      return;
+    }
+    taskContext.addTaskCompletionListener(new TaskCompletionListener() {
+      @Override
+      public void onTaskCompletion(TaskContext context) {
+        Destroyables.destroyQuietly(plugin);
+      }
+    });
+  }
+
   public String getStageName() {
     return stageSpec.getName();
   }
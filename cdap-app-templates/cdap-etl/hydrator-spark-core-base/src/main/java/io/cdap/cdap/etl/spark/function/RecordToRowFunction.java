@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Converts a {@link StructuredRecord} into a Spark SQL {@link Row} of the given type.
+ *
+ * @param <T> type of object, which must be a {@link StructuredRecord}
+ */
+public class RecordToRowFunction<T> implements Function<T, Row> {
+  private final StructType rowType;
+
+  public RecordToRowFunction(StructType rowType) {
+    this.rowType = rowType;
+  }
+
+  @Override
+  public Row call(T record) throws Exception {
+    return DataFrames.toRow((StructuredRecord) record, rowType);
+  }
+}
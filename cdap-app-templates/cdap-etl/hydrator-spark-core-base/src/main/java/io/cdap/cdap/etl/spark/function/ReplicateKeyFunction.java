@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import org.apache.spark.broadcast.Broadcast;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replicates the records of hot keys once for each salt, so that they can be joined with the records of a
+ * collection salted by a {@link SaltKeyFunction}. The records of other keys are emitted once with the same salt.
+ *
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+public class ReplicateKeyFunction<K, V> implements PairFlatMapFunc<Tuple2<K, V>, SaltedKey<K>, V> {
+  private final Broadcast<Set<K>> hotKeys;
+  private final int saltCount;
+
+  public ReplicateKeyFunction(Broadcast<Set<K>> hotKeys, int saltCount) {
+    this.hotKeys = hotKeys;
+    this.saltCount = saltCount;
+  }
+
+  @Override
+  public Iterable<Tuple2<SaltedKey<K>, V>> call(Tuple2<K, V> in) throws Exception {
+    if (!hotKeys.value().contains(in._1())) {
+      return Collections.singletonList(new Tuple2<>(new SaltedKey<>(in._1(), 0), in._2()));
+    }
+    List<Tuple2<SaltedKey<K>, V>> output = new ArrayList<>(saltCount);
+    for (int salt = 0; salt < saltCount; salt++) {
+      output.add(new Tuple2<>(new SaltedKey<>(in._1(), salt), in._2()));
+    }
+    return output;
+  }
+}
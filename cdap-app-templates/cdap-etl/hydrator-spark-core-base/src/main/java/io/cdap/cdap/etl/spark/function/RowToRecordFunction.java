@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.sql.Row;
+
+/**
+ * Converts a Spark SQL {@link Row} into a {@link StructuredRecord} of the given schema.
+ *
+ * @param <T> type of object, which must be a {@link StructuredRecord}
+ */
+public class RowToRecordFunction<T> implements Function<Row, T> {
+  private final Schema schema;
+
+  public RowToRecordFunction(Schema schema) {
+    this.schema = schema;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T call(Row row) throws Exception {
+    return (T) DataFrames.fromRow(row, schema);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.broadcast.Broadcast;
+import scala.Tuple2;
+
+import java.util.Set;
+
+/**
+ * Salts the keys of a collection. The records of a hot key are spread round robin over the salts, while all
+ * other keys get the same salt.
+ *
+ * @param <K> type of key
+ * @param <V> type of value
+ */
+public class SaltKeyFunction<K, V> implements PairFunction<Tuple2<K, V>, SaltedKey<K>, V> {
+  private final Broadcast<Set<K>> hotKeys;
+  private final int saltCount;
+  private transient int nextSalt;
+
+  public SaltKeyFunction(Broadcast<Set<K>> hotKeys, int saltCount) {
+    this.hotKeys = hotKeys;
+    this.saltCount = saltCount;
+  }
+
+  @Override
+  public Tuple2<SaltedKey<K>, V> call(Tuple2<K, V> in) throws Exception {
+    int salt = 0;
+    if (hotKeys.value().contains(in._1())) {
+      salt = nextSalt;
+      nextSalt = (nextSalt + 1) % saltCount;
+    }
+    return new Tuple2<>(new SaltedKey<>(in._1(), salt), in._2());
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.function;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A key together with a salt, used to spread the records of a key over multiple partitions.
+ *
+ * @param <K> type of key
+ */
+public final class SaltedKey<K> implements Serializable {
+  private static final long serialVersionUID = -4375043254578372081L;
+  private final K key;
+  private final int salt;
+
+  public SaltedKey(K key, int salt) {
+    this.key = key;
+    this.salt = salt;
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public int getSalt() {
+    return salt;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SaltedKey<?> that = (SaltedKey<?>) o;
+    return salt == that.salt && Objects.equals(key, that.key);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, salt);
+  }
+}
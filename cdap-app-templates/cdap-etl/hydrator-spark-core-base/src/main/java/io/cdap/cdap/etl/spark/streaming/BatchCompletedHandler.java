@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.streaming;
+
+/**
+ * Handles the micro batches completed by a streaming pipeline, as reported by a {@link BatchCompletedListener}.
+ */
+public interface BatchCompletedHandler {
+
+  /**
+   * Called when a micro batch completed.
+   *
+   * @param numRecords the number of records read by the micro batch
+   * @param processingMillis the processing time of the micro batch, or a negative value if it is unknown
+   * @param schedulingDelayMillis the time the micro batch waited for the previous ones to be processed,
+   *                              or a negative value if it is unknown
+   */
+  void batchCompleted(long numRecords, long processingMillis, long schedulingDelayMillis);
+}
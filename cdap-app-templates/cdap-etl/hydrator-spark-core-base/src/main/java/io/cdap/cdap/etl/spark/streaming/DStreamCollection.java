@@ -35,13 +35,19 @@ import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.SparkPipelineRuntime;
+import io.cdap.cdap.etl.spark.StreamingCompat;
 import io.cdap.cdap.etl.spark.batch.BasicSparkExecutionPluginContext;
+import io.cdap.cdap.etl.spark.function.OutputPassFilter;
+import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.streaming.function.AggregatorUpdateStateFunction;
 import io.cdap.cdap.etl.spark.streaming.function.ComputeTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.CountingTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorAggregate;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorCombine;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorGroupBy;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicSparkCompute;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicTransform;
+import io.cdap.cdap.etl.spark.streaming.function.FlattenFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingAlertPublishFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingBatchSinkFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingSparkSinkFunction;
@@ -53,7 +59,11 @@ import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.Durations;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
@@ -62,6 +72,7 @@ import javax.annotation.Nullable;
  * @param <T> type of objects in the collection
  */
 public class DStreamCollection<T> implements SparkCollection<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(DStreamCollection.class);
 
   private final JavaSparkExecutionContext sec;
   private final JavaDStream<T> stream;
@@ -101,6 +112,20 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     return wrap(stream.transform(new DynamicTransform<T>(new DynamicDriverContext(stageSpec, sec, collector), false)));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> columnarTransform(List<StageSpec> stageSpecs,
+                                                               List<StageStatisticsCollector> collectors,
+                                                               int batchSize) {
+    // stages are dynamically instantiated for each micro batch, so they are executed one by one, record by record
+    SparkCollection<RecordInfo<Object>> output = transform(stageSpecs.get(0), collectors.get(0));
+    for (int i = 1; i < stageSpecs.size(); i++) {
+      SparkCollection<Object> records =
+        output.flatMap(stageSpecs.get(i - 1), Compat.convert(new OutputPassFilter<>()));
+      output = records.transform(stageSpecs.get(i), collectors.get(i));
+    }
+    return output;
+  }
+
   @Override
   public SparkCollection<RecordInfo<Object>> multiOutputTransform(StageSpec stageSpec,
                                                                   StageStatisticsCollector collector) {
@@ -130,6 +155,47 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.transform(new DynamicAggregatorAggregate<Object, T, Object>(dynamicDriverContext)));
   }
 
+  /**
+   * Aggregates each micro batch on its own, like {@link #aggregate(StageSpec, Integer, StageStatisticsCollector)},
+   * unless stateful aggregation is enabled and the pipeline is checkpointed. In that case the aggregate value of each
+   * group is kept in Spark state across micro batches. The values of a group in a micro batch are combined into an
+   * aggregate value, which is merged into the state of the group, and the output of the group is emitted for the
+   * updated aggregate value. Groups that did not get any value within the state TTL are removed from the state.
+   * Only the aggregate values are checkpointed, instead of all the records of a window. The pipeline runner doesn't
+   * call this method for a stage that reads the output of a windower, since the windower emits the same records in
+   * several micro batches.
+   */
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    Map<String, String> arguments = sec.getRuntimeArguments();
+    if (!Boolean.parseBoolean(arguments.get(Constants.STREAMING_STATEFUL_AGGREGATION_ENABLED))) {
+      // BatchReducibleAggregator implements aggregate with its reduce methods.
+      return aggregate(stageSpec, partitions, collector);
+    }
+    if (!stream.context().sparkContext().getCheckpointDir().isDefined()) {
+      LOG.warn("Stateful aggregation requires checkpoints. Stage '{}' will aggregate each micro batch on its own.",
+               stageSpec.getName());
+      return aggregate(stageSpec, partitions, collector);
+    }
+
+    String ttl = arguments.get(Constants.STREAMING_AGGREGATION_STATE_TTL_SECONDS);
+    long ttlSeconds = ttl == null ? Constants.DEFAULT_STREAMING_AGGREGATION_STATE_TTL_SECONDS : Long.parseLong(ttl);
+
+    // the functions of a streaming pipeline must be recoverable from a checkpoint, so they dynamically
+    // instantiate the aggregator, except for the state function, which is called in executors
+    DynamicDriverContext dynamicDriverContext = new DynamicDriverContext(stageSpec, sec, collector);
+    JavaPairDStream<Object, Object> combinedCollection = stream
+      .transformToPair(new DynamicAggregatorGroupBy<Object, T>(dynamicDriverContext))
+      .transformToPair(new DynamicAggregatorCombine<Object, T, Object>(dynamicDriverContext, partitions));
+    AggregatorUpdateStateFunction<Object, Object> stateFunction =
+      new AggregatorUpdateStateFunction<>(new PluginFunctionContext(stageSpec, sec, collector));
+    JavaDStream<Iterable<RecordInfo<Object>>> outputs =
+      StreamingCompat.mapWithState(combinedCollection, stateFunction,
+                                   ttlSeconds > 0 ? Durations.seconds(ttlSeconds) : null, partitions);
+    return wrap(outputs.flatMap(Compat.convert(new FlattenFunction<RecordInfo<Object>>())));
+  }
+
   @Override
   public <U> SparkCollection<U> compute(final StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
     final SparkCompute<T, U> wrappedCompute =
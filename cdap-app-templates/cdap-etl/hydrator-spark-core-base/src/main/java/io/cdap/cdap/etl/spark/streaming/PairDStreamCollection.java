@@ -18,14 +18,22 @@ package io.cdap.cdap.etl.spark.streaming;
 
 import com.google.common.base.Optional;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.StreamingCompat;
+import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import scala.Tuple2;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.Nullable;
+
 /**
  * JavaPairDStream backed {@link SparkPairCollection}
  *
@@ -97,6 +105,66 @@ public class PairDStreamCollection<K, V> implements SparkPairCollection<K, V> {
       StreamingCompat.fullOuterJoin(pairStream, (JavaPairDStream<K, T>) other.getUnderlying(), numPartitions));
   }
 
+  @Override
+  public SparkPairCollection<K, V> cache() {
+    SparkConf sparkConf = pairStream.context().sparkContext().getConf();
+    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
+      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL,
+                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
+      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
+      return wrap(pairStream.persist(cacheStorageLevel));
+    } else {
+      return wrap(pairStream);
+    }
+  }
+
+  @Override
+  public void uncache() {
+    // spark streaming unpersists the RDDs of each micro batch once the batch is processed
+  }
+
+  @Override
+  public boolean hasAtMost(int numRecords) {
+    // the size of a stream is unbounded
+    return false;
+  }
+
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other,
+                                                                @Nullable Integer numPartitions,
+                                                                Collection<Runnable> cleanups) {
+    // each micro batch would need its own broadcast, so join with a shuffle
+    return numPartitions == null ? join(other) : join(other, numPartitions);
+  }
+
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                                   @Nullable Integer numPartitions,
+                                                                                   Collection<Runnable> cleanups) {
+    return numPartitions == null ? leftOuterJoin(other) : leftOuterJoin(other, numPartitions);
+  }
+
+  @Override
+  public Set<K> sampleHotKeys(double sampleFraction, double hotKeyFraction) {
+    // a stream can't be sampled before it is processed
+    return Collections.emptySet();
+  }
+
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, T>> saltedJoin(SparkPairCollection<K, T> other, Set<K> hotKeys,
+                                                             int saltCount, @Nullable Integer numPartitions,
+                                                             Collection<Runnable> cleanups) {
+    return numPartitions == null ? join(other) : join(other, numPartitions);
+  }
+
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> saltedLeftOuterJoin(SparkPairCollection<K, T> other,
+                                                                                Set<K> hotKeys, int saltCount,
+                                                                                @Nullable Integer numPartitions,
+                                                                                Collection<Runnable> cleanups) {
+    return numPartitions == null ? leftOuterJoin(other) : leftOuterJoin(other, numPartitions);
+  }
+
   private <T, U> PairDStreamCollection<T, U> wrap(JavaPairDStream<T, U> pairStream) {
     return new PairDStreamCollection<>(sec, pairStream);
   }
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.spark.function.AggregatorFinalizeFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import io.cdap.cdap.etl.spark.function.FlatMapFunc;
+import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.Function3;
+import org.apache.spark.streaming.State;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Function that merges the aggregate value of a group computed on a micro batch into the aggregate value kept in the
+ * state of the group, using a BatchReducibleAggregator, and returns the output of the group for the updated aggregate
+ * value. Nothing is output for a group whose state is timing out. Non-serializable fields are lazily created since
+ * this is used in a Spark closure.
+ *
+ * Unlike the dynamic functions, this function is called in executors, so it cannot use the driver context. Since it
+ * is part of the state specification saved in the checkpoint, a pipeline restored from a checkpoint evaluates the
+ * macros of the aggregator with the arguments of the run that created the checkpoint.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <AGG_VAL> type of aggregate value
+ */
+public class AggregatorUpdateStateFunction<GROUP_KEY, AGG_VAL>
+  implements Function3<GROUP_KEY, AGG_VAL, State<AGG_VAL>, Iterable<RecordInfo<Object>>> {
+  private final PluginFunctionContext pluginFunctionContext;
+  private transient Function2<AGG_VAL, AGG_VAL, AGG_VAL> mergePartitionFunction;
+  private transient FlatMapFunc<Tuple2<GROUP_KEY, AGG_VAL>, RecordInfo<Object>> finalizeFunction;
+
+  public AggregatorUpdateStateFunction(PluginFunctionContext pluginFunctionContext) {
+    this.pluginFunctionContext = pluginFunctionContext;
+  }
+
+  @Override
+  public Iterable<RecordInfo<Object>> call(GROUP_KEY groupKey, @Nullable AGG_VAL aggValue,
+                                           State<AGG_VAL> state) throws Exception {
+    if (aggValue == null || state.isTimingOut()) {
+      return Collections.emptyList();
+    }
+    if (mergePartitionFunction == null) {
+      mergePartitionFunction = new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+      finalizeFunction = new AggregatorFinalizeFunction<>(pluginFunctionContext);
+    }
+    AGG_VAL updated = state.exists() ? mergePartitionFunction.call(state.get(), aggValue) : aggValue;
+    state.update(updated);
+
+    // the finalize function reuses the list it returns, so copy the output since it is kept by the state stream
+    List<RecordInfo<Object>> output = new ArrayList<>();
+    for (RecordInfo<Object> record : finalizeFunction.call(new Tuple2<>(groupKey, updated))) {
+      output.add(record);
+    }
+    return output;
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import io.cdap.cdap.etl.spark.function.FlatMapFunc;
+
+/**
+ * Function that outputs all the objects of each input collection.
+ *
+ * @param <T> type of object in the collections
+ */
+public class FlattenFunction<T> implements FlatMapFunc<Iterable<T>, T> {
+
+  @Override
+  public Iterable<T> call(Iterable<T> input) {
+    return input;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.spark.streaming
+
+import org.apache.spark.streaming.scheduler.{StreamingListener, StreamingListenerBatchCompleted}
+
+/**
+ * A [[org.apache.spark.streaming.scheduler.StreamingListener]] that reports the completed micro batches to a
+ * [[io.cdap.cdap.etl.spark.streaming.BatchCompletedHandler]].
+ *
+ * It is written in Scala and compiled against the Spark version of each hydrator-spark-core module, so that it
+ * inherits the trait implementations of the other listener methods instead of implementing them for one Spark version.
+ */
+class BatchCompletedListener(handler: BatchCompletedHandler) extends StreamingListener {
+
+  override def onBatchCompleted(batchCompleted: StreamingListenerBatchCompleted): Unit = {
+    val batchInfo = batchCompleted.batchInfo
+    handler.batchCompleted(batchInfo.numRecords, batchInfo.processingDelay.getOrElse(-1L),
+                           batchInfo.schedulingDelay.getOrElse(-1L))
+  }
+}
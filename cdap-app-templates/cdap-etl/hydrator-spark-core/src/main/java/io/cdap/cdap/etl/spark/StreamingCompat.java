@@ -21,12 +21,18 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function0;
 import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.Function3;
+import org.apache.spark.streaming.Duration;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.StateSpec;
 import org.apache.spark.streaming.Time;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
 import scala.Tuple2;
 
+import javax.annotation.Nullable;
+
 /**
  * Utility class to handle incompatibilities between Spark1 and Spark2 streaming.
  * All hydrator-spark-core modules must have this class with the exact same method signatures.
@@ -38,6 +44,9 @@ import scala.Tuple2;
  * Outer join methods in Spark1 use guava's Optional whereas Spark2 uses its own Optional.
  *
  * JavaStreamingContext.getOrCreate() does not use a JavaStreamingContextFactory in Spark2, but requires it in Spark1.2.
+ *
+ * The state functions of mapWithState receive the value of a key as a guava Optional in Spark1 and as a Spark Optional
+ * in Spark2.
  */
 public final class StreamingCompat {
 
@@ -75,4 +84,37 @@ public final class StreamingCompat {
     return left.fullOuterJoin(right, numPartitions);
   }
 
+  /**
+   * Maps each key of the stream with its state, using a function that is called with a null value when the state of
+   * the key is timing out.
+   */
+  public static <K, V, S, T> JavaDStream<T> mapWithState(JavaPairDStream<K, V> stream,
+                                                         Function3<K, V, State<S>, T> function,
+                                                         @Nullable Duration timeout,
+                                                         @Nullable Integer numPartitions) {
+    StateSpec<K, V, S, T> stateSpec = StateSpec.function(new StateFunction<>(function));
+    if (timeout != null) {
+      stateSpec = stateSpec.timeout(timeout);
+    }
+    if (numPartitions != null) {
+      stateSpec = stateSpec.numPartitions(numPartitions);
+    }
+    return stream.mapWithState(stateSpec);
+  }
+
+  /**
+   * State function that unwraps the optional value of a key before calling a function.
+   */
+  private static final class StateFunction<K, V, S, T> implements Function3<K, Optional<V>, State<S>, T> {
+    private final Function3<K, V, State<S>, T> function;
+
+    private StateFunction(Function3<K, V, State<S>, T> function) {
+      this.function = function;
+    }
+
+    @Override
+    public T call(K key, Optional<V> value, State<S> state) throws Exception {
+      return function.call(key, value.orNull(), state);
+    }
+  }
 }
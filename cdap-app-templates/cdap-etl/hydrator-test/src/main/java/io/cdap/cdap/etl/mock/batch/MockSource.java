@@ -43,6 +43,9 @@ import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
 import io.cdap.cdap.etl.api.batch.BatchSource;
 import io.cdap.cdap.etl.api.batch.BatchSourceContext;
+import io.cdap.cdap.etl.api.pushdown.FieldPredicate;
+import io.cdap.cdap.etl.api.pushdown.PushdownSource;
+import io.cdap.cdap.etl.api.pushdown.SourcePushdown;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 import io.cdap.cdap.format.StructuredRecordStringConverter;
 import io.cdap.cdap.test.DataSetManager;
@@ -51,7 +54,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -59,10 +64,11 @@ import javax.annotation.Nullable;
 
 /**
  * Mock source that can be used to write a list of records in a Table and reads them out in a pipeline run.
+ * If pushdown is enabled, it only emits the fields and records that are required by the pipeline.
  */
 @Plugin(type = BatchSource.PLUGIN_TYPE)
 @Name(MockSource.NAME)
-public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
+public class MockSource extends BatchSource<byte[], Row, StructuredRecord> implements PushdownSource {
   public static final String NAME = "Mock";
 
   private static final Logger LOG = LoggerFactory.getLogger(MockSource.class);
@@ -74,7 +80,9 @@ public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
   private static final byte[] SCHEMA_COL = Bytes.toBytes("s");
   private static final byte[] RECORD_COL = Bytes.toBytes("r");
+  private static final String PUSHDOWN_ARG_PREFIX = "mock.source.pushdown.";
   private final Config config;
+  private SourcePushdown pushdown;
 
   public MockSource(Config config) {
     this.config = config;
@@ -91,6 +99,9 @@ public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
 
     @Nullable
     private String metadataOperations;
+
+    @Nullable
+    private Boolean pushdown;
   }
 
   @Override
@@ -116,18 +127,38 @@ public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
         throw new IllegalStateException("Output schema does not match what was set at configure time.");
       }
     }
+    String pushdownStr = context.getArguments().get(PUSHDOWN_ARG_PREFIX + context.getStageName());
+    pushdown = pushdownStr == null ? SourcePushdown.NONE : GSON.fromJson(pushdownStr, SourcePushdown.class);
   }
 
   @Override
   public void transform(KeyValue<byte[], Row> input, Emitter<StructuredRecord> emitter) throws Exception {
     Schema schema = Schema.parseJson(input.getValue().getString(SCHEMA_COL));
     String recordStr = input.getValue().getString(RECORD_COL);
-    emitter.emit(StructuredRecordStringConverter.fromJsonString(recordStr, schema));
+    StructuredRecord record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
+    if (!pushdown.test(record)) {
+      return;
+    }
+    emitter.emit(pushdown.getRequiredFields() == null ? record : project(record, pushdown.getRequiredFields()));
+  }
+
+  @Override
+  public boolean supportsProjection() {
+    return Boolean.TRUE.equals(config.pushdown);
+  }
+
+  @Override
+  public boolean supportsPredicate(FieldPredicate predicate) {
+    return Boolean.TRUE.equals(config.pushdown);
   }
 
   @Override
   public void prepareRun(BatchSourceContext context) throws Exception {
     context.setInput(Input.ofDataset(config.tableName));
+    if (!context.getPushdown().isEmpty()) {
+      // a real source would configure its input format instead, the mock has to pass it to the runtime instances
+      context.getArguments().set(PUSHDOWN_ARG_PREFIX + context.getStageName(), GSON.toJson(context.getPushdown()));
+    }
     if (config.metadataOperations != null) {
       // if there are metadata operations to be performed then apply them
       processsMetadata(context);
@@ -177,6 +208,22 @@ public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
     return new ETLPlugin("Mock", BatchSource.PLUGIN_TYPE, properties, null);
   }
 
+  /**
+   * Get the plugin config to be used in a pipeline config. The source must only output records with the given schema.
+   *
+   * @param tableName the table backing the mock source
+   * @param schema the schema of records output by this source
+   * @param pushdown whether the source only emits the fields and records required by the pipeline
+   * @return the plugin config to be used in a pipeline config
+   */
+  public static ETLPlugin getPlugin(String tableName, Schema schema, boolean pushdown) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("tableName", tableName);
+    properties.put("schema", schema.toString());
+    properties.put("pushdown", String.valueOf(pushdown));
+    return new ETLPlugin("Mock", BatchSource.PLUGIN_TYPE, properties, null);
+  }
+
   /**
    * Used to write the input records for the pipeline run. Should be called after the pipeline has been created.
    *
@@ -220,9 +267,25 @@ public class MockSource extends BatchSource<byte[], Row, StructuredRecord> {
     properties.put("tableName", new PluginPropertyField("tableName", "", "string", true, false));
     properties.put("schema", new PluginPropertyField("schema", "", "string", false, false));
     properties.put("metadataOperations", new PluginPropertyField("metadataOperations", "", "string", false, false));
+    properties.put("pushdown", new PluginPropertyField("pushdown", "", "boolean", false, false));
     return new PluginClass(BatchSource.PLUGIN_TYPE, "Mock", "", MockSource.class.getName(), "config", properties);
   }
 
+  private static StructuredRecord project(StructuredRecord record, Set<String> fieldNames) {
+    List<Schema.Field> fields = new ArrayList<>();
+    for (Schema.Field field : record.getSchema().getFields()) {
+      if (fieldNames.contains(field.getName())) {
+        fields.add(field);
+      }
+    }
+    Schema schema = Schema.recordOf(record.getSchema().getRecordName(), fields);
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    for (Schema.Field field : fields) {
+      builder.set(field.getName(), record.get(field.getName()));
+    }
+    return builder.build();
+  }
+
   /**
    * Processes metadata operations
    */
@@ -17,6 +17,7 @@
 package io.cdap.cdap.etl.mock.batch.aggregator;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
@@ -31,9 +32,12 @@ import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
+import io.cdap.cdap.etl.api.relational.AggregateDefinition;
+import io.cdap.cdap.etl.api.relational.DeclarativeAggregator;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -46,7 +50,8 @@ import java.util.Map;
 @Name("Distinct")
 @Description("Deduplicates input records so that only provided fields are used to apply distinction on while other " +
   "fields are projected out.")
-public class DistinctAggregator extends BatchAggregator<StructuredRecord, StructuredRecord, StructuredRecord> {
+public class DistinctAggregator extends BatchAggregator<StructuredRecord, StructuredRecord, StructuredRecord>
+  implements DeclarativeAggregator {
   public static final String NAME = "Distinct";
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
   private final Conf conf;
@@ -87,6 +92,11 @@ public class DistinctAggregator extends BatchAggregator<StructuredRecord, Struct
     emitter.emit(groupKey);
   }
 
+  @Override
+  public AggregateDefinition getAggregateDefinition() {
+    return new AggregateDefinition(Lists.newArrayList(conf.getFields()), Collections.emptyList());
+  }
+
   private static Schema getOutputSchema(FailureCollector collector, Schema inputSchema, Iterable<String> fields) {
     List<Schema.Field> outputFields = new ArrayList<>();
     for (String fieldName : fields) {
@@ -123,8 +133,8 @@ public class DistinctAggregator extends BatchAggregator<StructuredRecord, Struct
 
   private static PluginClass getPluginClass() {
     Map<String, PluginPropertyField> properties = new HashMap<>();
-    properties.put("field", new PluginPropertyField("field", "", "string", true, false));
-    return new PluginClass(BatchAggregator.PLUGIN_TYPE, "DistinctAggregator", "", GroupFilterAggregator.class.getName(),
+    properties.put("fields", new PluginPropertyField("fields", "", "string", true, false));
+    return new PluginClass(BatchAggregator.PLUGIN_TYPE, NAME, "", DistinctAggregator.class.getName(),
                            "config", properties);
   }
 }
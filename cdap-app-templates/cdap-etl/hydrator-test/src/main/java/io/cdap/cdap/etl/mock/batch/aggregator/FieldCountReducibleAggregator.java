@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.etl.mock.batch.aggregator;
+
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.plugin.PluginClass;
+import io.cdap.cdap.api.plugin.PluginConfig;
+import io.cdap.cdap.api.plugin.PluginPropertyField;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.PipelineConfigurer;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
+import io.cdap.cdap.etl.proto.v2.ETLPlugin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups on a string field and counts the records of each group, using a count as the aggregate value.
+ * Used to test that reducible aggregators are combined correctly before the shuffle.
+ */
+@Plugin(type = BatchAggregator.PLUGIN_TYPE)
+@Name("FieldCountReducible")
+public class FieldCountReducibleAggregator
+  extends BatchReducibleAggregator<String, StructuredRecord, Long, StructuredRecord> {
+  public static final PluginClass PLUGIN_CLASS = getPluginClass();
+  private final Config config;
+
+  public FieldCountReducibleAggregator(Config config) {
+    this.config = config;
+  }
+
+  @Override
+  public void configurePipeline(PipelineConfigurer pipelineConfigurer) {
+    pipelineConfigurer.getStageConfigurer().setOutputSchema(config.getSchema());
+  }
+
+  @Override
+  public void groupBy(StructuredRecord input, Emitter<String> emitter) throws Exception {
+    emitter.emit(input.get(config.fieldName).toString());
+    emitter.emit("all");
+  }
+
+  @Override
+  public Long initializeAggregateValue(StructuredRecord groupValue) {
+    return 1L;
+  }
+
+  @Override
+  public Long mergeValues(Long count, StructuredRecord groupValue) {
+    return count + 1;
+  }
+
+  @Override
+  public Long mergePartitions(Long count1, Long count2) {
+    return count1 + count2;
+  }
+
+  @Override
+  public void finalize(String groupKey, Long count, Emitter<StructuredRecord> emitter) {
+    emitter.emit(StructuredRecord.builder(config.getSchema())
+                   .set(config.fieldName, groupKey)
+                   .set("ct", count)
+                   .build());
+  }
+
+  /**
+   * Conf for the aggregator.
+   */
+  public static class Config extends PluginConfig {
+    private final String fieldName;
+
+    public Config() {
+      this.fieldName = "field";
+    }
+
+    private Schema getSchema() {
+      return Schema.recordOf(fieldName + ".count",
+                             Schema.Field.of(fieldName, Schema.of(Schema.Type.STRING)),
+                             Schema.Field.of("ct", Schema.of(Schema.Type.LONG)));
+    }
+  }
+
+  public static ETLPlugin getPlugin(String fieldName) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("fieldName", fieldName);
+    return new ETLPlugin("FieldCountReducible", BatchAggregator.PLUGIN_TYPE, properties, null);
+  }
+
+  private static PluginClass getPluginClass() {
+    Map<String, PluginPropertyField> properties = new HashMap<>();
+    properties.put("fieldName", new PluginPropertyField("fieldName", "", "string", true, false));
+    return new PluginClass(BatchAggregator.PLUGIN_TYPE, "FieldCountReducible", "",
+                           FieldCountReducibleAggregator.class.getName(), "config", properties);
+  }
+}
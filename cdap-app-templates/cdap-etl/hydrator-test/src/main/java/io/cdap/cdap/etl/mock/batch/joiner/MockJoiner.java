@@ -33,6 +33,9 @@ import io.cdap.cdap.etl.api.MultiInputPipelineConfigurer;
 import io.cdap.cdap.etl.api.MultiInputStageConfigurer;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
+import io.cdap.cdap.etl.api.relational.DeclarativeJoiner;
+import io.cdap.cdap.etl.api.relational.JoinDefinition;
+import io.cdap.cdap.etl.api.relational.JoinField;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
 import java.util.ArrayList;
@@ -48,7 +51,8 @@ import javax.annotation.Nullable;
  */
 @Plugin(type = BatchJoiner.PLUGIN_TYPE)
 @Name("MockJoiner")
-public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord, StructuredRecord> {
+public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord, StructuredRecord>
+  implements DeclarativeJoiner {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
   private final Config config;
   private Map<String, Schema> inputSchemas;
@@ -114,6 +118,18 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     return outRecordBuilder.build();
   }
 
+  @Override
+  public JoinDefinition getJoinDefinition() {
+    // all the fields of the inputs are in the output, with the same order as in the output schema
+    List<JoinField> selectedFields = new ArrayList<>();
+    for (Map.Entry<String, Schema> entry : new TreeMap<>(inputSchemas).entrySet()) {
+      for (Schema.Field field : entry.getValue().getFields()) {
+        selectedFields.add(new JoinField(entry.getKey(), field.getName()));
+      }
+    }
+    return new JoinDefinition(config.getJoinKeys(), selectedFields);
+  }
+
   private Schema getOutputSchema(Map<String, Schema> inputSchemas) {
     // sort the input schemas by input names to get the deterministic order of fields for output schema
     Map<String, Schema> sortedMap = new TreeMap<>(inputSchemas);
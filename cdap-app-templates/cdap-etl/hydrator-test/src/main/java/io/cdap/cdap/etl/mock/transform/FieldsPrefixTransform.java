@@ -27,6 +27,10 @@ import io.cdap.cdap.etl.api.Emitter;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.columnar.BatchErrorEmitter;
+import io.cdap.cdap.etl.api.columnar.ColumnVector;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
 import java.util.ArrayList;
@@ -39,7 +43,8 @@ import java.util.Map;
  */
 @Plugin(type = Transform.PLUGIN_TYPE)
 @Name("FieldsPrefixTransform")
-public class FieldsPrefixTransform extends Transform<StructuredRecord, StructuredRecord> {
+public class FieldsPrefixTransform extends Transform<StructuredRecord, StructuredRecord>
+  implements ColumnarTransform {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
 
   private final Config config;
@@ -70,6 +75,17 @@ public class FieldsPrefixTransform extends Transform<StructuredRecord, Structure
     emitter.emit(outputBuilder.build());
   }
 
+  @Override
+  public RecordBatch transform(RecordBatch input, BatchErrorEmitter errorEmitter) {
+    // the prefixed fields have the same values, so the column vectors are shared with the input batch
+    List<Schema.Field> inFields = input.getSchema().getFields();
+    ColumnVector[] columns = new ColumnVector[inFields.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = input.getColumn(inFields.get(i).getName());
+    }
+    return input.withColumns(config.getOutputSchema(input.getSchema()), columns);
+  }
+
   /**
    * Config for join plugin
    */
@@ -28,6 +28,9 @@ import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.StageSubmitterContext;
 import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.TransformContext;
+import io.cdap.cdap.etl.api.columnar.BatchErrorEmitter;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
 import java.util.HashMap;
@@ -38,7 +41,8 @@ import java.util.Map;
  */
 @Plugin(type = Transform.PLUGIN_TYPE)
 @Name("Identity")
-public class IdentityTransform extends Transform<StructuredRecord, StructuredRecord> {
+public class IdentityTransform extends Transform<StructuredRecord, StructuredRecord>
+  implements ColumnarTransform {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
 
   @Override
@@ -66,6 +70,11 @@ public class IdentityTransform extends Transform<StructuredRecord, StructuredRec
     emitter.emit(input);
   }
 
+  @Override
+  public RecordBatch transform(RecordBatch input, BatchErrorEmitter errorEmitter) {
+    return input;
+  }
+
   public static ETLPlugin getPlugin() {
     Map<String, String> properties = new HashMap<>();
     return new ETLPlugin("Identity", Transform.PLUGIN_TYPE, properties, null);
@@ -27,18 +27,32 @@ import io.cdap.cdap.etl.api.InvalidEntry;
 import io.cdap.cdap.etl.api.PipelineConfigurer;
 import io.cdap.cdap.etl.api.StageConfigurer;
 import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.columnar.BatchErrorEmitter;
+import io.cdap.cdap.etl.api.columnar.ColumnVector;
+import io.cdap.cdap.etl.api.columnar.ColumnarTransform;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
+import io.cdap.cdap.etl.api.pushdown.FieldPredicate;
+import io.cdap.cdap.etl.api.pushdown.FilterPredicateProvider;
+import io.cdap.cdap.etl.api.pushdown.RequiredFieldsProvider;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
- * Transform that filters out records whose configured field is a configured value.
+ * Transform that filters out records whose configured field is a configured value, emitting them as errors.
  * For example, can filter all records whose 'x' field is equal to 5. Assumes the field is of type int.
+ * Records whose field is null are kept.
  */
 @Plugin(type = Transform.PLUGIN_TYPE)
 @Name("IntValueFilter")
-public class IntValueFilterTransform extends Transform<StructuredRecord, StructuredRecord> {
+public class IntValueFilterTransform extends Transform<StructuredRecord, StructuredRecord>
+  implements ColumnarTransform, FilterPredicateProvider, RequiredFieldsProvider {
   public static final PluginClass PLUGIN_CLASS = getPluginClass();
   private final Config config;
 
@@ -55,13 +69,46 @@ public class IntValueFilterTransform extends Transform<StructuredRecord, Structu
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
     Integer value = input.get(config.field);
-    if (value != config.value) {
+    if (value == null || value != config.value) {
       emitter.emit(input);
     } else {
       emitter.emitError(new InvalidEntry<>(2, "bad int value", input));
     }
   }
 
+  @Override
+  public RecordBatch transform(RecordBatch input, BatchErrorEmitter errorEmitter) {
+    ColumnVector column = input.getColumn(config.field);
+    int[] selected = new int[input.getNumRows()];
+    int numSelected = 0;
+    for (int row = 0; row < input.getNumRows(); row++) {
+      int index = input.getRowIndex(row);
+      if (column.isNull(index) || column.getInt(index) != config.value) {
+        selected[numSelected++] = index;
+      } else {
+        errorEmitter.emitError(row, 2, "bad int value");
+      }
+    }
+    return input.select(selected, numSelected);
+  }
+
+  @Override
+  public List<FieldPredicate> getFilterPredicates() {
+    return Collections.singletonList(new FieldPredicate(config.field, FieldPredicate.Operator.NOT_EQUAL,
+                                                        String.valueOf(config.value)));
+  }
+
+  @Nullable
+  @Override
+  public Set<String> getRequiredInputFields(@Nullable Set<String> requiredOutputFields) {
+    if (requiredOutputFields == null) {
+      return null;
+    }
+    Set<String> fields = new HashSet<>(requiredOutputFields);
+    fields.add(config.field);
+    return fields;
+  }
+
   /**
    * Config for the transform.
    */
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import io.cdap.cdap.api.app.ApplicationSpecification;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.plugin.Plugin;
+import io.cdap.cdap.api.plugin.PluginClass;
+import io.cdap.cdap.api.plugin.PluginProperties;
+import io.cdap.cdap.api.plugin.PluginPropertyField;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.internal.app.store.ApplicationMeta;
+import io.cdap.cdap.internal.app.store.DefaultStore;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.TransactionSystemClient;
+import org.apache.tephra.inmemory.InMemoryTxSystemClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading the specification of a pipeline application from the store, as done for every program
+ * start, with and without the cache of decoded applications. The application has one plugin per pipeline stage,
+ * each with a set of properties, and the pipeline config, which is what makes pipeline specifications large.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApplicationSpecCacheBenchmark {
+
+  private static final int NUM_PROPERTIES = 20;
+  private static final ArtifactId ARTIFACT_ID =
+    new ArtifactId("cdap-data-pipeline", new ArtifactVersion("6.1.0"), ArtifactScope.SYSTEM);
+
+  @Param({"10", "200"})
+  private int numStages;
+
+  private File dataDir;
+  private TransactionManager txManager;
+  private LevelDBTableService levelDBTableService;
+  private TransactionRunner transactionRunner;
+  private DefaultStore store;
+  private ApplicationId appId;
+
+  @Setup
+  public void setup() throws Exception {
+    dataDir = Files.createTempDirectory("appspec").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    cConf.set(Constants.Dataset.DATA_STORAGE_IMPLEMENTATION, Constants.Dataset.DATA_STORAGE_NOSQL);
+    txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new SystemDatasetRuntimeModule().getStandaloneModules(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(TransactionSystemClient.class).toInstance(new InMemoryTxSystemClient(txManager));
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class).in(Scopes.SINGLETON);
+        }
+      }
+    );
+    levelDBTableService = injector.getInstance(LevelDBTableService.class);
+    injector.getInstance(StructuredTableRegistry.class).initialize();
+    StoreDefinition.AppMetadataStore.createTables(injector.getInstance(StructuredTableAdmin.class), false);
+    transactionRunner = injector.getInstance(TransactionRunner.class);
+    store = injector.getInstance(DefaultStore.class);
+
+    appId = NamespaceId.DEFAULT.app("pipeline");
+    ApplicationSpecification spec = createPipelineSpec();
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore.create(context).writeApplication(appId.getNamespace(), appId.getApplication(),
+                                                         appId.getVersion(), spec);
+    });
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    levelDBTableService.close();
+    txManager.stopAndWait();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public ApplicationSpecification cached() {
+    return store.getApplication(appId);
+  }
+
+  @Benchmark
+  public ApplicationSpecification uncached() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      ApplicationMeta meta = AppMetadataStore.create(context).getApplication(appId);
+      return meta == null ? null : meta.getSpec();
+    });
+  }
+
+  private ApplicationSpecification createPipelineSpec() {
+    Map<String, Plugin> plugins = new HashMap<>();
+    StringBuilder config = new StringBuilder("{\"stages\":[");
+    for (int stage = 0; stage < numStages; stage++) {
+      Map<String, PluginPropertyField> fields = new HashMap<>();
+      Map<String, String> properties = new HashMap<>();
+      for (int i = 0; i < NUM_PROPERTIES; i++) {
+        String name = "property" + i;
+        fields.put(name, new PluginPropertyField(name, "Description of " + name, "string", false, true));
+        properties.put(name, "value of " + name + " for stage " + stage);
+      }
+      PluginClass pluginClass = new PluginClass("transform", "Plugin" + stage, "A transform",
+                                                "io.cdap.plugin.Plugin" + stage, "config", fields);
+      plugins.put("stage" + stage, new Plugin(Collections.emptyList(), ARTIFACT_ID, pluginClass,
+                                              PluginProperties.builder().addAll(properties).build()));
+      config.append(stage == 0 ? "" : ",").append("{\"name\":\"stage").append(stage)
+        .append("\",\"plugin\":{\"name\":\"Plugin").append(stage).append("\",\"properties\":{}}}");
+    }
+    config.append("]}");
+    return new DefaultApplicationSpecification(appId.getApplication(), "A pipeline", config.toString(),
+                                               ARTIFACT_ID, ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(),
+                                               ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(),
+                                               ImmutableMap.of(), ImmutableMap.of(), plugins);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Realistic payloads shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+  private BenchmarkData() {
+    // prevent instantiation
+  }
+
+  /**
+   * Creates a flat record schema with the given number of fields, similar to the ones produced by pipelines
+   * reading from databases or delimited files. Field types cycle through nullable strings, ints, nullable longs,
+   * doubles, booleans and nullable strings that are always null.
+   */
+  static Schema createWideSchema(int numFields) {
+    List<Schema.Field> fields = new ArrayList<>(numFields);
+    for (int i = 0; i < numFields; i++) {
+      String name = "field_" + i;
+      switch (i % 6) {
+        case 0:
+        case 5:
+          fields.add(Schema.Field.of(name, Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+          break;
+        case 1:
+          fields.add(Schema.Field.of(name, Schema.of(Schema.Type.INT)));
+          break;
+        case 2:
+          fields.add(Schema.Field.of(name, Schema.nullableOf(Schema.of(Schema.Type.LONG))));
+          break;
+        case 3:
+          fields.add(Schema.Field.of(name, Schema.of(Schema.Type.DOUBLE)));
+          break;
+        default:
+          fields.add(Schema.Field.of(name, Schema.of(Schema.Type.BOOLEAN)));
+      }
+    }
+    return Schema.recordOf("record" + numFields, fields);
+  }
+
+  /**
+   * Creates a record of a schema created by {@link #createWideSchema(int)} with random values.
+   */
+  static StructuredRecord createRecord(Schema schema, Random random) {
+    StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+    List<Schema.Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      String name = fields.get(i).getName();
+      switch (i % 6) {
+        case 0:
+          builder.set(name, "value-" + random.nextInt(1000000) + "-" + Long.toHexString(random.nextLong()));
+          break;
+        case 1:
+          builder.set(name, random.nextInt());
+          break;
+        case 2:
+          builder.set(name, random.nextLong());
+          break;
+        case 3:
+          builder.set(name, random.nextDouble());
+          break;
+        case 4:
+          builder.set(name, random.nextBoolean());
+          break;
+        default:
+          // leave nullable field unset
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates the metric tags of a program run, as emitted by a Spark program in a pipeline.
+   */
+  static Map<String, String> createProgramRunTags(int program) {
+    return ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, "ns" + (program % 5),
+                           Constants.Metrics.Tag.APP, "pipeline" + program,
+                           Constants.Metrics.Tag.SPARK, "phase-1",
+                           Constants.Metrics.Tag.RUN_ID, RunIds.generate().getId());
+  }
+}
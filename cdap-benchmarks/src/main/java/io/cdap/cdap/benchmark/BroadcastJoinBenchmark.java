@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the inner join of a large input with a small input, executed as a shuffle join, where both inputs
+ * are partitioned by join key before each partition is joined, and as a broadcast join, where the small input is
+ * turned into a map from join key to records that is probed with each record of the large input.
+ *
+ * The shuffle is simulated in memory, so the benchmark measures the cost of moving and grouping the records of both
+ * inputs, but not the serialization and network cost that a real shuffle adds on top.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BroadcastJoinBenchmark {
+
+  private static final int NUM_PARTITIONS = 8;
+
+  @Param({"1000000"})
+  private int numLargeRecords;
+
+  @Param({"100", "10000"})
+  private int numSmallRecords;
+
+  private List<Record> largeInput;
+  private List<Record> smallInput;
+
+  @Setup
+  public void setup() {
+    String[] keys = new String[numSmallRecords];
+    smallInput = new ArrayList<>(numSmallRecords);
+    for (int i = 0; i < numSmallRecords; i++) {
+      keys[i] = "key" + i;
+      smallInput.add(new Record(keys[i], i));
+    }
+    // one in four records of the large input doesn't have a match in the small input
+    largeInput = new ArrayList<>(numLargeRecords);
+    for (int i = 0; i < numLargeRecords; i++) {
+      largeInput.add(new Record(i % 4 == 0 ? "nokey" + i : keys[i % numSmallRecords], i));
+    }
+  }
+
+  @Benchmark
+  public long shuffleJoin() {
+    List<List<Record>> largePartitions = partition(largeInput);
+    List<List<Record>> smallPartitions = partition(smallInput);
+
+    long joined = 0;
+    for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+      Map<String, List<Record>> largeGroups = group(largePartitions.get(partition));
+      Map<String, List<Record>> smallGroups = group(smallPartitions.get(partition));
+      for (Map.Entry<String, List<Record>> largeGroup : largeGroups.entrySet()) {
+        List<Record> matches = smallGroups.getOrDefault(largeGroup.getKey(), Collections.emptyList());
+        for (Record record : largeGroup.getValue()) {
+          for (Record match : matches) {
+            joined += record.value + match.value;
+          }
+        }
+      }
+    }
+    return joined;
+  }
+
+  @Benchmark
+  public long broadcastJoin() {
+    Map<String, List<Record>> broadcastInput = group(smallInput);
+
+    long joined = 0;
+    for (Record record : largeInput) {
+      List<Record> matches = broadcastInput.get(record.key);
+      if (matches == null) {
+        continue;
+      }
+      for (Record match : matches) {
+        joined += record.value + match.value;
+      }
+    }
+    return joined;
+  }
+
+  private static List<List<Record>> partition(List<Record> records) {
+    List<List<Record>> partitions = new ArrayList<>(NUM_PARTITIONS);
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      partitions.add(new ArrayList<>());
+    }
+    for (Record record : records) {
+      partitions.get((record.key.hashCode() & Integer.MAX_VALUE) % NUM_PARTITIONS).add(record);
+    }
+    return partitions;
+  }
+
+  private static Map<String, List<Record>> group(List<Record> records) {
+    Map<String, List<Record>> groups = new HashMap<>();
+    for (Record record : records) {
+      groups.computeIfAbsent(record.key, k -> new ArrayList<>()).add(record);
+    }
+    return groups;
+  }
+
+  /**
+   * A join input record.
+   */
+  private static final class Record {
+    private final String key;
+    private final long value;
+
+    private Record(String key, long value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
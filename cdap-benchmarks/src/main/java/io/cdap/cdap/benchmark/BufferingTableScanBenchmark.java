@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.dataset.DatasetContext;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Get;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.apache.tephra.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reads through {@link BufferingTable} in a transaction that has rewritten 10% of the rows of a
+ * 100k rows table, as done by programs doing read-modify-write of large batches in one transaction. The writes are
+ * buffered before each invocation, hence only the reads are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BufferingTableScanBenchmark {
+
+  private static final int NUM_ROWS = 100000;
+  private static final int DIRTY_ROW_INTERVAL = 10;
+  private static final int ROWS_PER_TX = 1000;
+  private static final String TABLE_NAME = "benchmark";
+
+  @Param({"inmemory", "leveldb"})
+  private String backend;
+
+  private File dataDir;
+  private LevelDBTableService levelDBTableService;
+  private BufferingTable table;
+  private byte[][] columns;
+  private List<Get> gets;
+  private long txId;
+
+  @Setup
+  public void setup() throws Exception {
+    if ("leveldb".equals(backend)) {
+      dataDir = Files.createTempDirectory("leveldb").toFile();
+      CConfiguration cConf = CConfiguration.create();
+      cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+      levelDBTableService = new LevelDBTableService();
+      levelDBTableService.setConfiguration(cConf);
+      table = new LevelDBTable(DatasetContext.from("default"), TABLE_NAME, levelDBTableService, cConf,
+                               DatasetSpecification.builder(TABLE_NAME, "table").build());
+      levelDBTableService.ensureTableExists(table.getTableName());
+    } else {
+      InMemoryTableService.create(TABLE_NAME);
+      table = new InMemoryTable(TABLE_NAME);
+    }
+
+    columns = new byte[LevelDBTableCoreBenchmark.NUM_COLUMNS][];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = LevelDBTableCoreBenchmark.getColumnKey(i);
+    }
+    for (int start = 0; start < NUM_ROWS; start += ROWS_PER_TX) {
+      startTx();
+      for (int i = start; i < start + ROWS_PER_TX; i++) {
+        table.put(LevelDBTableCoreBenchmark.getRowKey(i), columns, createValues());
+      }
+      commitTx();
+    }
+
+    gets = new ArrayList<>();
+    for (int i = 0; i < ROWS_PER_TX; i++) {
+      gets.add(new Get(LevelDBTableCoreBenchmark.getRowKey(i), columns));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    table.close();
+    if (levelDBTableService != null) {
+      levelDBTableService.close();
+      DirUtils.deleteDirectoryContents(dataDir);
+    } else {
+      InMemoryTableService.drop(TABLE_NAME);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void writeDirtyRows() {
+    startTx();
+    for (int i = 0; i < NUM_ROWS; i += DIRTY_ROW_INTERVAL) {
+      table.put(LevelDBTableCoreBenchmark.getRowKey(i), columns, createValues());
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void rollbackDirtyRows() throws Exception {
+    table.rollbackTx();
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    try (Scanner scanner = table.scan(null, null)) {
+      Row row = scanner.next();
+      while (row != null) {
+        blackhole.consume(row);
+        row = scanner.next();
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Row> multiGet() {
+    return table.get(gets);
+  }
+
+  private byte[][] createValues() {
+    byte[][] values = new byte[columns.length][];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = new byte[LevelDBTableCoreBenchmark.VALUE_SIZE];
+      ThreadLocalRandom.current().nextBytes(values[i]);
+    }
+    return values;
+  }
+
+  private void startTx() {
+    // Transactions are sequential, hence every committed transaction is visible to the next one
+    txId++;
+    table.startTx(new Transaction(txId - 1, txId, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS));
+  }
+
+  private void commitTx() throws Exception {
+    table.commitTx();
+    table.postTxCommit();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link Bytes} conversions and comparisons used for all row keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BytesBenchmark {
+
+  @Param({"16", "64", "256"})
+  private int keySize;
+
+  private String string;
+  private byte[] key;
+  private byte[] sameKey;
+  private byte[] otherKey;
+  private long value;
+  private byte[] longBytes;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    char[] chars = new char[keySize];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    string = new String(chars);
+    key = Bytes.toBytes(string);
+    sameKey = Arrays.copyOf(key, key.length);
+    // keys sharing all but the last byte, as consecutive row keys usually do
+    otherKey = Arrays.copyOf(key, key.length);
+    otherKey[otherKey.length - 1]++;
+    value = random.nextLong();
+    longBytes = Bytes.toBytes(value);
+  }
+
+  @Benchmark
+  public byte[] stringToBytes() {
+    return Bytes.toBytes(string);
+  }
+
+  @Benchmark
+  public String bytesToString() {
+    return Bytes.toString(key);
+  }
+
+  @Benchmark
+  public int compareEqual() {
+    return Bytes.compareTo(key, sameKey);
+  }
+
+  @Benchmark
+  public int compareCommonPrefix() {
+    return Bytes.compareTo(key, otherKey);
+  }
+
+  @Benchmark
+  public int hashCodeOfKey() {
+    return Bytes.hashCode(key);
+  }
+
+  @Benchmark
+  public byte[] longToBytes() {
+    return Bytes.toBytes(value);
+  }
+
+  @Benchmark
+  public long bytesToLong() {
+    return Bytes.toLong(longBytes);
+  }
+}
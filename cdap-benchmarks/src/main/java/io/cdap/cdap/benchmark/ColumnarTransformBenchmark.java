@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.columnar.ColumnVector;
+import io.cdap.cdap.etl.api.columnar.RecordBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for a filter, projection and cast pipeline, executed record by record with a {@link StructuredRecord}
+ * created by each stage, and executed over {@link RecordBatch} with the stages chained on the column vectors.
+ * Both runs start from and end with records, like the Spark engine does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ColumnarTransformBenchmark {
+
+  private static final Schema INPUT_SCHEMA = Schema.recordOf(
+    "input",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+    Schema.Field.of("score", Schema.of(Schema.Type.DOUBLE)),
+    Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+  private static final Schema PROJECTED_SCHEMA = Schema.recordOf(
+    "projected",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+  private static final Schema OUTPUT_SCHEMA = Schema.recordOf(
+    "output",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("x", Schema.of(Schema.Type.LONG)));
+
+  @Param({"1000000"})
+  private int numRecords;
+
+  @Param({"1024"})
+  private int batchSize;
+
+  private List<StructuredRecord> records;
+
+  @Setup
+  public void setup() {
+    records = new ArrayList<>(numRecords);
+    for (int i = 0; i < numRecords; i++) {
+      records.add(StructuredRecord.builder(INPUT_SCHEMA)
+                    .set("id", (long) i)
+                    .set("name", "name" + i)
+                    .set("score", i / 10d)
+                    .set("x", i % 100)
+                    .build());
+    }
+  }
+
+  @Benchmark
+  public long rowTransforms() {
+    long sum = 0;
+    for (StructuredRecord record : records) {
+      // filter
+      int x = record.get("x");
+      if (x % 10 == 0) {
+        continue;
+      }
+      // projection
+      StructuredRecord projected = StructuredRecord.builder(PROJECTED_SCHEMA)
+        .set("id", record.get("id"))
+        .set("x", record.get("x"))
+        .build();
+      // cast
+      int projectedX = projected.get("x");
+      StructuredRecord output = StructuredRecord.builder(OUTPUT_SCHEMA)
+        .set("id", projected.get("id"))
+        .set("x", (long) projectedX)
+        .build();
+      long outputX = output.get("x");
+      sum += outputX;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long columnarTransforms() {
+    long sum = 0;
+    for (int start = 0; start < numRecords; start += batchSize) {
+      RecordBatch batch = RecordBatch.fromRecords(INPUT_SCHEMA,
+                                                  records.subList(start, Math.min(numRecords, start + batchSize)));
+      // filter
+      ColumnVector xColumn = batch.getColumn("x");
+      int[] selected = new int[batch.getNumRows()];
+      int numSelected = 0;
+      for (int row = 0; row < batch.getNumRows(); row++) {
+        if (xColumn.getInt(row) % 10 != 0) {
+          selected[numSelected++] = row;
+        }
+      }
+      batch = batch.select(selected, numSelected);
+      // projection
+      batch = batch.withColumns(PROJECTED_SCHEMA, new ColumnVector[] { batch.getColumn("id"), xColumn });
+      // cast
+      ColumnVector castColumn = new ColumnVector(Schema.of(Schema.Type.LONG), xColumn.getCapacity());
+      for (int row = 0; row < batch.getNumRows(); row++) {
+        int index = batch.getRowIndex(row);
+        castColumn.setLong(index, xColumn.getInt(index));
+      }
+      batch = batch.withColumns(OUTPUT_SCHEMA, new ColumnVector[] { batch.getColumn("id"), castColumn });
+
+      for (StructuredRecord output : batch.toRecords()) {
+        long outputX = output.get("x");
+        sum += outputX;
+      }
+    }
+    return sum;
+  }
+}
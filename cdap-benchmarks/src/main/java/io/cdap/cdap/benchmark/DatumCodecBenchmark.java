@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.DatumWriter;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
+import io.cdap.cdap.internal.io.ASMDatumWriterFactory;
+import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
+import io.cdap.cdap.internal.io.ReflectionDatumReader;
+import io.cdap.cdap.internal.io.ReflectionDatumWriter;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding Java objects with the writers and readers generated by
+ * {@link ASMDatumWriterFactory} and {@link ASMDatumReaderFactory}, compared to the reflection based
+ * {@link ReflectionDatumWriter} and {@link ReflectionDatumReader}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatumCodecBenchmark {
+
+  private static final TypeToken<Event> EVENT_TYPE = TypeToken.of(Event.class);
+
+  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+  private Schema schema;
+  private Event event;
+  private DatumWriter<Event> asmWriter;
+  private DatumWriter<Event> reflectionWriter;
+  private DatumReader<Event> asmReader;
+  private ReflectionDatumReader<Event> reader;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws UnsupportedTypeException, IOException {
+    schema = new ReflectionSchemaGenerator().generate(Event.class);
+    event = new Event("program.completed", System.currentTimeMillis(), 42, 0.75d,
+                      BenchmarkData.createProgramRunTags(0),
+                      ImmutableList.of("stage1", "stage2", "stage3", "stage4"));
+    asmWriter = new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(EVENT_TYPE, schema);
+    reflectionWriter = new ReflectionDatumWriter<>(schema);
+    asmReader = new ASMDatumReaderFactory(new ASMFieldAccessorFactory()).create(EVENT_TYPE, schema);
+    reader = new ReflectionDatumReader<>(schema, EVENT_TYPE);
+    encoded = asmEncode();
+  }
+
+  @Benchmark
+  public byte[] asmEncode() throws IOException {
+    os.reset();
+    asmWriter.encode(event, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] reflectionEncode() throws IOException {
+    os.reset();
+    reflectionWriter.encode(event, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+
+  @Benchmark
+  public Event asmDecode() throws IOException {
+    return asmReader.read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema);
+  }
+
+  @Benchmark
+  public Event reflectionDecode() throws IOException {
+    return reader.read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema);
+  }
+
+  /**
+   * A typical event object.
+   */
+  public static final class Event {
+    private final String name;
+    private final long timestamp;
+    private final int count;
+    private final double value;
+    private final Map<String, String> tags;
+    private final List<String> values;
+
+    public Event(String name, long timestamp, int count, double value,
+                 Map<String, String> tags, List<String> values) {
+      this.name = name;
+      this.timestamp = timestamp;
+      this.count = count;
+      this.value = value;
+      this.tags = ImmutableMap.copyOf(tags);
+      this.values = values;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
+import io.cdap.cdap.internal.io.ASMDatumWriterFactory;
+import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
+import io.cdap.cdap.internal.io.DatumWriterFactory;
+import io.cdap.cdap.internal.io.ReflectionDatumReaderFactory;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
+import io.cdap.cdap.security.auth.AccessToken;
+import io.cdap.cdap.security.auth.AccessTokenCodec;
+import io.cdap.cdap.security.auth.AccessTokenIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for decoding the {@link MetricValues} published by the metrics collection service and the
+ * {@link AccessToken} of every authenticated request, with the readers generated by {@link ASMDatumReaderFactory}
+ * compared to the ones created by {@link ReflectionDatumReaderFactory}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatumReaderBenchmark {
+
+  private static final TypeToken<MetricValues> METRIC_VALUES_TYPE = TypeToken.of(MetricValues.class);
+
+  private Schema metricValuesSchema;
+  private DatumReader<MetricValues> asmMetricValuesReader;
+  private DatumReader<MetricValues> reflectionMetricValuesReader;
+  private byte[] encodedMetricValues;
+
+  private AccessTokenCodec asmTokenCodec;
+  private AccessTokenCodec reflectionTokenCodec;
+  private byte[] encodedToken;
+
+  @Setup
+  public void setup() throws UnsupportedTypeException, IOException {
+    DatumWriterFactory writerFactory = new ASMDatumWriterFactory(new ASMFieldAccessorFactory());
+    ASMDatumReaderFactory asmReaderFactory = new ASMDatumReaderFactory(new ASMFieldAccessorFactory());
+    ReflectionDatumReaderFactory reflectionReaderFactory = new ReflectionDatumReaderFactory();
+
+    // Same as how the metrics processor decodes the metrics published by programs
+    metricValuesSchema = new ReflectionSchemaGenerator().generate(MetricValues.class);
+    asmMetricValuesReader = asmReaderFactory.create(METRIC_VALUES_TYPE, metricValuesSchema);
+    reflectionMetricValuesReader = reflectionReaderFactory.create(METRIC_VALUES_TYPE, metricValuesSchema);
+
+    List<MetricValue> metrics = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      metrics.add(new MetricValue("user.metric" + i, i % 2 == 0 ? MetricType.COUNTER : MetricType.GAUGE, i));
+    }
+    MetricValues metricValues = new MetricValues(BenchmarkData.createProgramRunTags(0),
+                                                 System.currentTimeMillis() / 1000, metrics);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writerFactory.create(METRIC_VALUES_TYPE, metricValuesSchema).encode(metricValues, new BinaryEncoder(os));
+    encodedMetricValues = os.toByteArray();
+
+    asmTokenCodec = new AccessTokenCodec(asmReaderFactory, writerFactory);
+    reflectionTokenCodec = new AccessTokenCodec(reflectionReaderFactory, writerFactory);
+    long now = System.currentTimeMillis();
+    AccessTokenIdentifier identifier = new AccessTokenIdentifier("user", ImmutableList.of("group1", "group2"),
+                                                                 now, now + TimeUnit.HOURS.toMillis(1));
+    encodedToken = asmTokenCodec.encode(new AccessToken(identifier, 12345, new byte[32]));
+  }
+
+  @Benchmark
+  public MetricValues asmMetricValues() throws IOException {
+    return asmMetricValuesReader.read(new BinaryDecoder(new ByteArrayInputStream(encodedMetricValues)),
+                                      metricValuesSchema);
+  }
+
+  @Benchmark
+  public MetricValues reflectionMetricValues() throws IOException {
+    return reflectionMetricValuesReader.read(new BinaryDecoder(new ByteArrayInputStream(encodedMetricValues)),
+                                             metricValuesSchema);
+  }
+
+  @Benchmark
+  public AccessToken asmAccessToken() throws IOException {
+    return asmTokenCodec.decode(encodedToken);
+  }
+
+  @Benchmark
+  public AccessToken reflectionAccessToken() throws IOException {
+    return reflectionTokenCodec.decode(encodedToken);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.WriteCombiningMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.Fact;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for writing hot counters to a 1 second resolution {@link FactTable}, with and without a
+ * {@link WriteCombiningMetricsTable}. Each invocation simulates one second of the metrics processor, which persists
+ * the same set of counters many times before they are flushed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FactTableWriteCombiningBenchmark {
+
+  private static final int NUM_CONTEXTS = 10;
+  private static final int NUM_METRICS = 100;
+  private static final int ROUNDS_PER_FLUSH = 20;
+  private static final String TABLE_NAME = "metrics.ts.1";
+  private static final String ENTITY_TABLE_NAME = "metrics.entity";
+
+  @Param({"inmemory", "leveldb"})
+  private String backend;
+
+  @Param({"false", "true"})
+  private boolean writeCombining;
+
+  private File dataDir;
+  private LevelDBTableService levelDBTableService;
+  private FactTable factTable;
+  private long timestamp;
+
+  @Setup
+  public void setup() throws Exception {
+    MetricsTable timeSeriesTable;
+    MetricsTable entityTable;
+    if ("leveldb".equals(backend)) {
+      dataDir = Files.createTempDirectory("leveldb").toFile();
+      CConfiguration cConf = CConfiguration.create();
+      cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+      levelDBTableService = new LevelDBTableService();
+      levelDBTableService.setConfiguration(cConf);
+      String namespace = NamespaceId.SYSTEM.getNamespace();
+      for (String name : Arrays.asList(TABLE_NAME, ENTITY_TABLE_NAME)) {
+        levelDBTableService.ensureTableExists(PrefixedNamespaces.namespace(cConf, namespace, name));
+      }
+      timeSeriesTable = new LevelDBMetricsTable(namespace, TABLE_NAME, levelDBTableService, cConf);
+      entityTable = new LevelDBMetricsTable(namespace, ENTITY_TABLE_NAME, levelDBTableService, cConf);
+    } else {
+      InMemoryTableService.create(TABLE_NAME);
+      InMemoryTableService.create(ENTITY_TABLE_NAME);
+      timeSeriesTable = new InMemoryMetricsTable(TABLE_NAME);
+      entityTable = new InMemoryMetricsTable(ENTITY_TABLE_NAME);
+    }
+    if (writeCombining) {
+      timeSeriesTable = new WriteCombiningMetricsTable(timeSeriesTable, 16 * 1024 * 1024);
+    }
+    factTable = new FactTable(timeSeriesTable, new EntityTable(entityTable), 1, 3600);
+    timestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    factTable.close();
+    if (levelDBTableService != null) {
+      levelDBTableService.close();
+      DirUtils.deleteDirectoryContents(dataDir);
+    } else {
+      InMemoryTableService.drop(TABLE_NAME);
+      InMemoryTableService.drop(ENTITY_TABLE_NAME);
+    }
+  }
+
+  @Benchmark
+  public void add() throws IOException {
+    // Each invocation writes to the next second, as the processor does over time
+    List<Fact> facts = createFacts(timestamp++);
+    for (int i = 0; i < ROUNDS_PER_FLUSH; i++) {
+      factTable.add(facts);
+    }
+    factTable.flush();
+  }
+
+  private static List<Fact> createFacts(long timestamp) {
+    List<Fact> facts = new ArrayList<>(NUM_CONTEXTS);
+    for (int i = 0; i < NUM_CONTEXTS; i++) {
+      List<DimensionValue> dimensions = Arrays.asList(new DimensionValue("namespace", "ns" + i),
+                                                      new DimensionValue("app", "app" + i));
+      List<io.cdap.cdap.api.dataset.lib.cube.Measurement> measurements = new ArrayList<>(NUM_METRICS);
+      for (int j = 0; j < NUM_METRICS; j++) {
+        measurements.add(new io.cdap.cdap.api.dataset.lib.cube.Measurement("metric" + j, MeasureType.COUNTER, 1L));
+      }
+      facts.add(new Fact(timestamp, dimensions, measurements));
+    }
+    return facts;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.Update;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for 32 threads writing to and reading from 100 tables of the {@link InMemoryTableService}, as done by
+ * preview runs and unit tests that use many datasets concurrently. Writes use a small set of versions, so that the
+ * number of versions per column stays bounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class InMemoryTableServiceBenchmark {
+
+  private static final int NUM_TABLES = 100;
+  private static final int NUM_ROWS = 1000;
+  private static final int NUM_VERSIONS = 10;
+  private static final int ROWS_PER_SCAN = 10;
+
+  private String[] tableNames;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    tableNames = new String[NUM_TABLES];
+    for (int i = 0; i < NUM_TABLES; i++) {
+      tableNames[i] = "benchmark" + i;
+      InMemoryTableService.create(tableNames[i]);
+      for (int row = 0; row < NUM_ROWS; row++) {
+        InMemoryTableService.merge(tableNames[i], createChanges(row), 0L);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (String tableName : tableNames) {
+      InMemoryTableService.drop(tableName);
+    }
+  }
+
+  @Benchmark
+  public void merge() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    InMemoryTableService.merge(tableNames[random.nextInt(NUM_TABLES)], createChanges(random.nextInt(NUM_ROWS)),
+                               random.nextInt(NUM_VERSIONS));
+  }
+
+  @Benchmark
+  public NavigableMap<byte[], NavigableMap<Long, byte[]>> get() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return InMemoryTableService.get(tableNames[random.nextInt(NUM_TABLES)],
+                                    LevelDBTableCoreBenchmark.getRowKey(random.nextInt(NUM_ROWS)), null);
+  }
+
+  @Benchmark
+  public NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> scan() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int start = random.nextInt(NUM_ROWS - ROWS_PER_SCAN);
+    return InMemoryTableService.getRowRange(tableNames[random.nextInt(NUM_TABLES)],
+                                            LevelDBTableCoreBenchmark.getRowKey(start),
+                                            LevelDBTableCoreBenchmark.getRowKey(start + ROWS_PER_SCAN), null);
+  }
+
+  private static SortedMap<byte[], SortedMap<byte[], Update>> createChanges(int row) {
+    SortedMap<byte[], Update> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = 0; i < 4; i++) {
+      columns.put(LevelDBTableCoreBenchmark.getColumnKey(i), new PutValue(Bytes.toBytes((long) row)));
+    }
+    SortedMap<byte[], SortedMap<byte[], Update>> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    changes.put(LevelDBTableCoreBenchmark.getRowKey(row), columns);
+    return changes;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.DatasetContext;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.lib.IndexedTable;
+import io.cdap.cdap.api.dataset.table.Put;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.apache.tephra.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading the rows of an {@link IndexedTable} on LevelDB by a popular index value, with different
+ * batch sizes for fetching the data rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexedTableBenchmark {
+
+  private static final int NUM_MATCHING_ROWS = 10000;
+  private static final byte[] INDEX_COLUMN = Bytes.toBytes("idx");
+  private static final byte[] VALUE_COLUMN = Bytes.toBytes("val");
+  private static final byte[] HOT_VALUE = Bytes.toBytes("hot");
+  private static final byte[] COLD_VALUE = Bytes.toBytes("cold");
+
+  @Param({"1", "100"})
+  private int batchSize;
+
+  private File dataDir;
+  private LevelDBTableService levelDBTableService;
+  private IndexedTable table;
+  private long txId;
+
+  @Setup
+  public void setup() throws Exception {
+    dataDir = Files.createTempDirectory("leveldb").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    levelDBTableService = new LevelDBTableService();
+    levelDBTableService.setConfiguration(cConf);
+
+    LevelDBTable dataTable = createTable(cConf, "data");
+    LevelDBTable indexTable = createTable(cConf, "index");
+    TreeSet<byte[]> columnsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    columnsToIndex.add(INDEX_COLUMN);
+    table = new IndexedTable("indexed", dataTable, indexTable, columnsToIndex, Bytes.EMPTY_BYTE_ARRAY, batchSize);
+
+    // Interleave rows that don't match, so that the matching data rows are not adjacent
+    startTx();
+    for (int i = 0; i < NUM_MATCHING_ROWS * 2; i++) {
+      byte[] value = new byte[LevelDBTableCoreBenchmark.VALUE_SIZE];
+      table.put(new Put(LevelDBTableCoreBenchmark.getRowKey(i))
+                  .add(INDEX_COLUMN, i % 2 == 0 ? HOT_VALUE : COLD_VALUE)
+                  .add(VALUE_COLUMN, value));
+    }
+    commitTx();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    table.close();
+    levelDBTableService.close();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public void readByIndex(Blackhole blackhole) throws Exception {
+    startTx();
+    try (Scanner scanner = table.readByIndex(INDEX_COLUMN, HOT_VALUE)) {
+      for (Row row = scanner.next(); row != null; row = scanner.next()) {
+        blackhole.consume(row);
+      }
+    }
+    commitTx();
+  }
+
+  private LevelDBTable createTable(CConfiguration cConf, String name) throws IOException {
+    LevelDBTable table = new LevelDBTable(DatasetContext.from("default"), name, levelDBTableService, cConf,
+                                          DatasetSpecification.builder(name, "table").build());
+    levelDBTableService.ensureTableExists(table.getTableName());
+    return table;
+  }
+
+  private void startTx() {
+    // Transactions are sequential, hence every committed transaction is visible to the next one
+    txId++;
+    table.startTx(new Transaction(txId - 1, txId, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS));
+  }
+
+  private void commitTx() throws Exception {
+    table.commitTx();
+    table.postTxCommit();
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.DatasetContext;
+import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.lib.FileSetProperties;
+import io.cdap.cdap.api.dataset.lib.IndexedTable;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.PartitionedFileSetProperties;
+import io.cdap.cdap.api.dataset.lib.Partitioning;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.namespace.NoLookupNamespacePathLocator;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.file.FileSetDataset;
+import io.cdap.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.apache.tephra.Transaction;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.LocationFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Creates {@link PartitionedFileSetDataset} instances backed by LevelDB tables and the local file system, without
+ * a dataset framework, and runs sequential transactions on them.
+ */
+final class LevelDBPartitionedFileSet implements Closeable {
+
+  static final Partitioning PARTITIONING = Partitioning.builder()
+    .addStringField("s")
+    .addLongField("l")
+    .build();
+
+  private final File dataDir;
+  private final CConfiguration cConf;
+  private final LevelDBTableService levelDBTableService;
+  private final LocationFactory locationFactory;
+  private final DatasetSpecification fileSetSpec;
+  private final DatasetSpecification spec;
+  private long txId;
+
+  LevelDBPartitionedFileSet() throws IOException {
+    dataDir = Files.createTempDirectory("pfs").toFile();
+    cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, new File(dataDir, "leveldb").getAbsolutePath());
+    levelDBTableService = new LevelDBTableService();
+    levelDBTableService.setConfiguration(cConf);
+    locationFactory = new LocalLocationFactory(dataDir);
+    fileSetSpec = DatasetSpecification.builder("files", "fileSet")
+      .properties(FileSetProperties.builder().setBasePath(new File(dataDir, "files").getAbsolutePath())
+                    .build().getProperties())
+      .build();
+    spec = DatasetSpecification.builder("pfs", "partitionedFileSet")
+      .properties(PartitionedFileSetProperties.builder().setPartitioning(PARTITIONING).build().getProperties())
+      .build();
+  }
+
+  /**
+   * Adds the given number of partitions, in transactions of 1000 partitions.
+   */
+  void addPartitions(int numPartitions) throws Exception {
+    PartitionedFileSetDataset dataset = createDataset(Collections.emptyMap());
+    for (int batch = 0; batch < numPartitions; batch += 1000) {
+      startTx(dataset);
+      for (int i = batch; i < Math.min(numPartitions, batch + 1000); i++) {
+        PartitionKey key = PartitionKey.builder().addStringField("s", "p" + (i % 100)).addLongField("l", i).build();
+        dataset.addPartition(key, PartitionedFileSetDataset.getOutputPath(key, PARTITIONING));
+      }
+      commitTx(dataset);
+    }
+  }
+
+  PartitionedFileSetDataset createDataset(Map<String, String> arguments) throws IOException {
+    DatasetContext datasetContext = DatasetContext.from("default");
+    FileSetDataset fileSet = new FileSetDataset(datasetContext, cConf, fileSetSpec, locationFactory,
+                                                new NoLookupNamespacePathLocator(cConf, locationFactory), arguments);
+    // the same columns as indexed by PartitionedFileSetDefinition
+    TreeSet<byte[]> columnsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    columnsToIndex.add(new byte[] { 'w' });
+    columnsToIndex.add(new byte[] { 'c' });
+    IndexedTable table = new IndexedTable("pfs.partitions", createTable("partitions.d"), createTable("partitions.i"),
+                                          columnsToIndex);
+    return new PartitionedFileSetDataset(datasetContext, "pfs", PARTITIONING, fileSet, table, spec, arguments,
+                                         () -> null);
+  }
+
+  /**
+   * Starts a transaction on the given dataset. Transactions are sequential, hence every committed transaction is
+   * visible to the next one.
+   */
+  void startTx(PartitionedFileSetDataset dataset) {
+    txId++;
+    dataset.startTx(new Transaction(txId - 1, txId, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS));
+  }
+
+  void commitTx(PartitionedFileSetDataset dataset) throws Exception {
+    dataset.commitTx();
+    dataset.postTxCommit();
+  }
+
+  @Override
+  public void close() throws IOException {
+    levelDBTableService.close();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  private LevelDBTable createTable(String name) throws IOException {
+    LevelDBTable table = new LevelDBTable(DatasetContext.from("default"), name, levelDBTableService, cConf,
+                                          DatasetSpecification.builder(name, "table").build());
+    levelDBTableService.ensureTableExists(table.getTableName());
+    return table;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableCore;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.apache.tephra.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for full scans of a LevelDB table with one million cells through {@link LevelDBTableCore}, as done
+ * when querying the metrics and metadata tables in the sandbox. The table is written with a number of versions per
+ * cell, of which the scans only see the latest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LevelDBScanBenchmark {
+
+  private static final int NUM_ROWS = 100000;
+  private static final int NUM_COLUMNS = 10;
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"1", "3"})
+  private int versions;
+
+  private File dataDir;
+  private LevelDBTableService service;
+  private LevelDBTableCore core;
+  private Transaction tx;
+  private FuzzyRowFilter filter;
+  private byte[][] columns;
+
+  @Setup
+  public void setup() throws IOException {
+    dataDir = Files.createTempDirectory("leveldb").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+    service.ensureTableExists("scan");
+    core = new LevelDBTableCore("scan", service);
+
+    long version = 0;
+    for (int i = 0; i < versions; i++) {
+      for (int start = 0; start < NUM_ROWS; start += BATCH_SIZE) {
+        core.persist(createRows(start), ++version);
+      }
+    }
+    tx = new Transaction(version, version + 1, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS);
+
+    // matches the rows ending with '7', which is one row out of ten
+    byte[] fuzzyKey = LevelDBTableCoreBenchmark.getRowKey(7);
+    byte[] fuzzyMask = new byte[fuzzyKey.length];
+    for (int i = 3; i < fuzzyMask.length - 1; i++) {
+      fuzzyMask[i] = 1;
+    }
+    filter = new FuzzyRowFilter(ImmutableList.of(ImmutablePair.of(fuzzyKey, fuzzyMask)));
+    columns = new byte[][] { LevelDBTableCoreBenchmark.getColumnKey(1), LevelDBTableCoreBenchmark.getColumnKey(5) };
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    service.close();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public void scanAll(Blackhole blackhole) throws IOException {
+    scan(blackhole, null, null);
+  }
+
+  @Benchmark
+  public void scanColumns(Blackhole blackhole) throws IOException {
+    scan(blackhole, null, columns);
+  }
+
+  @Benchmark
+  public void scanFiltered(Blackhole blackhole) throws IOException {
+    scan(blackhole, filter, null);
+  }
+
+  private void scan(Blackhole blackhole, FuzzyRowFilter filter, byte[][] columns) throws IOException {
+    try (Scanner scanner = core.scan(null, null, filter, columns, tx)) {
+      for (Row row = scanner.next(); row != null; row = scanner.next()) {
+        blackhole.consume(row);
+      }
+    }
+  }
+
+  private static NavigableMap<byte[], NavigableMap<byte[], byte[]>> createRows(int start) {
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = start; i < start + BATCH_SIZE; i++) {
+      NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (int j = 0; j < NUM_COLUMNS; j++) {
+        byte[] value = new byte[LevelDBTableCoreBenchmark.VALUE_SIZE];
+        ThreadLocalRandom.current().nextBytes(value);
+        columns.put(LevelDBTableCoreBenchmark.getColumnKey(j), value);
+      }
+      rows.put(LevelDBTableCoreBenchmark.getRowKey(i), columns);
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableCore;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading a whole LevelDB table split by {@link LevelDBTableCore#getSplitRows(int, byte[], byte[])},
+ * with one thread per split as done by the tasks of a Spark program in the sandbox. The size of the table defaults
+ * to 256MB, use {@code -p tableSizeMB=10240} to read a 10GB table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LevelDBSplitScanBenchmark {
+
+  private static final int VALUE_SIZE = 1000;
+  private static final int BATCH_SIZE = 100;
+  private static final int SPLITS_PER_THREAD = 4;
+
+  @Param({"256"})
+  private int tableSizeMB;
+
+  @Param({"1", "4"})
+  private int threads;
+
+  private File dataDir;
+  private LevelDBTableService service;
+  private LevelDBTableCore core;
+  private ExecutorService executor;
+
+  @Setup
+  public void setup() throws IOException {
+    dataDir = Files.createTempDirectory("leveldb").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    cConf.setBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, false);
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+    service.ensureTableExists("splits");
+    core = new LevelDBTableCore("splits", service);
+
+    long rowSize = (long) LevelDBTableCoreBenchmark.NUM_COLUMNS * VALUE_SIZE;
+    int numRows = (int) (tableSizeMB * 1024L * 1024L / rowSize);
+    for (int start = 0; start < numRows; start += BATCH_SIZE) {
+      core.persist(createRows(start, Math.min(numRows, start + BATCH_SIZE)), 1L);
+    }
+    // reopen the table, which writes the in-memory data of LevelDB to files
+    service.clearTables();
+    executor = Executors.newFixedThreadPool(threads);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    service.close();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public List<byte[]> planSplits() throws IOException {
+    return core.getSplitRows(threads * SPLITS_PER_THREAD, null, null);
+  }
+
+  @Benchmark
+  public long scanSplits() throws Exception {
+    List<byte[]> splitRows = core.getSplitRows(threads * SPLITS_PER_THREAD, null, null);
+    List<Future<Long>> futures = new ArrayList<>();
+    byte[] start = null;
+    for (int i = 0; i <= splitRows.size(); i++) {
+      byte[] splitStart = start;
+      byte[] splitStop = i < splitRows.size() ? splitRows.get(i) : null;
+      futures.add(executor.submit(() -> scan(splitStart, splitStop)));
+      start = splitStop;
+    }
+    long count = 0;
+    for (Future<Long> future : futures) {
+      count += future.get();
+    }
+    return count;
+  }
+
+  private long scan(byte[] start, byte[] stop) throws IOException {
+    long count = 0;
+    try (Scanner scanner = core.scan(start, stop, null, null, null)) {
+      while (scanner.next() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static NavigableMap<byte[], NavigableMap<byte[], byte[]>> createRows(int start, int end) {
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = start; i < end; i++) {
+      NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (int j = 0; j < LevelDBTableCoreBenchmark.NUM_COLUMNS; j++) {
+        byte[] value = new byte[VALUE_SIZE];
+        ThreadLocalRandom.current().nextBytes(value);
+        columns.put(LevelDBTableCoreBenchmark.getColumnKey(j), value);
+      }
+      rows.put(LevelDBTableCoreBenchmark.getRowKey(i), columns);
+    }
+    return rows;
+  }
+}
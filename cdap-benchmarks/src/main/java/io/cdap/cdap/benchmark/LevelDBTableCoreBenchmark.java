@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableCore;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks for reading and writing a LevelDB table through {@link LevelDBTableCore}, which backs all tables
+ * in the sandbox, with both the pure Java and the native LevelDB implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelDBTableCoreBenchmark {
+
+  static final int NUM_ROWS = 10000;
+  static final int NUM_COLUMNS = 10;
+  static final int VALUE_SIZE = 64;
+  private static final int BATCH_SIZE = 100;
+  private static final int SCAN_SIZE = 100;
+
+  @Param({"org.iq80.leveldb.impl.Iq80DBFactory", "org.fusesource.leveldbjni.JniDBFactory"})
+  private String factory;
+
+  private final AtomicLong version = new AtomicLong(1L);
+
+  private File dataDir;
+  private LevelDBTableService service;
+  private LevelDBTableCore core;
+
+  @Setup
+  public void setup() throws IOException {
+    dataDir = Files.createTempDirectory("leveldb").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    cConf.set(Constants.CFG_DATA_LEVELDB_FACTORY, factory);
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+    service.ensureTableExists("benchmark");
+    core = new LevelDBTableCore("benchmark", service);
+
+    for (int start = 0; start < NUM_ROWS; start += BATCH_SIZE) {
+      core.persist(createRows(start, BATCH_SIZE), version.getAndIncrement());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    service.close();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public NavigableMap<byte[], byte[]> getRow() throws IOException {
+    return core.getRow(getRowKey(ThreadLocalRandom.current().nextInt(NUM_ROWS)), null, null, null, -1, null);
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) throws IOException {
+    int start = ThreadLocalRandom.current().nextInt(NUM_ROWS - SCAN_SIZE);
+    try (Scanner scanner = core.scan(getRowKey(start), getRowKey(start + SCAN_SIZE), null, null, null)) {
+      Row row = scanner.next();
+      while (row != null) {
+        blackhole.consume(row);
+        row = scanner.next();
+      }
+    }
+  }
+
+  @Benchmark
+  public void persist() throws IOException {
+    core.persist(createRows(ThreadLocalRandom.current().nextInt(NUM_ROWS - BATCH_SIZE), BATCH_SIZE),
+                 version.getAndIncrement());
+  }
+
+  /**
+   * Returns the key of the given row. Keys are fixed length so that they sort in the row order.
+   */
+  static byte[] getRowKey(int row) {
+    return Bytes.toBytes(String.format("row%08d", row));
+  }
+
+  static byte[] getColumnKey(int column) {
+    return Bytes.toBytes("column" + column);
+  }
+
+  private static NavigableMap<byte[], NavigableMap<byte[], byte[]>> createRows(int start, int count) {
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = start; i < start + count; i++) {
+      NavigableMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (int j = 0; j < NUM_COLUMNS; j++) {
+        byte[] value = new byte[VALUE_SIZE];
+        ThreadLocalRandom.current().nextBytes(value);
+        columns.put(getColumnKey(j), value);
+      }
+      rows.put(getRowKey(i), columns);
+    }
+    return rows;
+  }
+}
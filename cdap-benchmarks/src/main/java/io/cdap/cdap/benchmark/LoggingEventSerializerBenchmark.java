@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link LoggingEventSerializer}, which encodes every log event collected from programs and
+ * decodes them again in the log saver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingEventSerializerBenchmark {
+
+  private LoggingEventSerializer serializer;
+  private ILoggingEvent event;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() {
+    serializer = new LoggingEventSerializer();
+    Logger logger = (Logger) LoggerFactory.getLogger(LoggingEventSerializerBenchmark.class);
+    LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+                                          "Processed {} records in stage {} of pipeline {}", null,
+                                          new Object[] { 12345, "parse", "pipeline" });
+    event.setMDCPropertyMap(ImmutableMap.of(".namespaceId", "default",
+                                            ".applicationId", "pipeline",
+                                            ".programType", "SPARK",
+                                            ".programId", "phase-1",
+                                            ".runId", "5f7e4a1c-7bf6-11e9-8f9e-2a86e4085a59"));
+    // Compute the caller data, as it is encoded with the event
+    event.getCallerData();
+    this.event = event;
+    this.encoded = serializer.toBytes(event);
+  }
+
+  @Benchmark
+  public byte[] toBytes() {
+    return serializer.toBytes(event);
+  }
+
+  @Benchmark
+  public String fromBytes() throws IOException {
+    return serializer.fromBytes(ByteBuffer.wrap(encoded)).getFormattedMessage();
+  }
+
+  @Benchmark
+  public long decodeEventTimestamp() throws IOException {
+    return serializer.decodeEventTimestamp(ByteBuffer.wrap(encoded));
+  }
+}
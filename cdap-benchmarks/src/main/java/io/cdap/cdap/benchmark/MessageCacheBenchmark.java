@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageFilter;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Benchmarks for the {@link MessageCache} used by the messaging service to serve the fetches of recently published
+ * messages from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCacheBenchmark {
+
+  private static final TopicId TOPIC_ID = NamespaceId.SYSTEM.topic("programstatusevent");
+  private static final int PAYLOAD_SIZE = 256;
+  private static final int BATCH_SIZE = 100;
+  private static final int INITIAL_ENTRIES = 100000;
+  // Limits similar to the default cache size of a system topic
+  private static final MessageCache.Limits LIMITS = new MessageCache.Limits(16L << 20, 22L << 20, 32L << 20);
+
+  private MessageCache<MessageTable.Entry> cache;
+  private long publishTimestamp;
+  private MessageFilter<MessageTable.Entry> filter;
+
+  @Setup
+  public void setup() {
+    Comparator<MessageTable.Entry> comparator = Comparator
+      .comparingLong(MessageTable.Entry::getPublishTimestamp)
+      .thenComparingInt(entry -> entry.getSequenceId() & 0xFFFF);
+    cache = new MessageCache<>(comparator, entry -> entry.getPayload() == null ? 0 : entry.getPayload().length,
+                               LIMITS, new NoopMetricsContext());
+    filter = MessageFilter.alwaysAccept();
+    for (int i = 0; i < INITIAL_ENTRIES; i += BATCH_SIZE) {
+      addAll();
+    }
+  }
+
+  @Benchmark
+  public void addAll() {
+    List<MessageTable.Entry> entries = new ArrayList<>(BATCH_SIZE);
+    publishTimestamp++;
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      byte[] payload = new byte[PAYLOAD_SIZE];
+      ThreadLocalRandom.current().nextBytes(payload);
+      entries.add(new Entry(publishTimestamp, (short) i, payload));
+    }
+    cache.addAll(entries.iterator());
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    // Fetch from one of the recent batches, as subscribers following the topic do
+    long timestamp = publishTimestamp - ThreadLocalRandom.current().nextInt(100);
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(new Entry(timestamp, (short) 0, null),
+                                                                       true, BATCH_SIZE, filter)) {
+      while (scanner.hasNext()) {
+        blackhole.consume(scanner.next());
+      }
+    }
+  }
+
+  /**
+   * A non-transactional {@link MessageTable.Entry} with the message payload.
+   */
+  private static final class Entry implements MessageTable.Entry {
+    private final long publishTimestamp;
+    private final short sequenceId;
+    private final byte[] payload;
+
+    Entry(long publishTimestamp, short sequenceId, @Nullable byte[] payload) {
+      this.publishTimestamp = publishTimestamp;
+      this.sequenceId = sequenceId;
+      this.payload = payload;
+    }
+
+    @Override
+    public TopicId getTopicId() {
+      return TOPIC_ID;
+    }
+
+    @Override
+    public int getGeneration() {
+      return 1;
+    }
+
+    @Override
+    public boolean isPayloadReference() {
+      return false;
+    }
+
+    @Override
+    public boolean isTransactional() {
+      return false;
+    }
+
+    @Override
+    public long getTransactionWritePointer() {
+      return -1L;
+    }
+
+    @Nullable
+    @Override
+    public byte[] getPayload() {
+      return payload;
+    }
+
+    @Override
+    public long getPublishTimestamp() {
+      return publishTimestamp;
+    }
+
+    @Override
+    public short getSequenceId() {
+      return sequenceId;
+    }
+  }
+}
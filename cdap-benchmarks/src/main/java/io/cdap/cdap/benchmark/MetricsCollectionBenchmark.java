@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.metrics.collect.AggregatedMetricsCollectionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for emitting metrics through the {@link AggregatedMetricsCollectionService}, which sits on the hot path
+ * of every program that reports metrics, for example once per record in pipeline stages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class MetricsCollectionBenchmark {
+
+  private static final int NUM_PROGRAMS = 16;
+
+  private AggregatedMetricsCollectionService metricsCollectionService;
+  private List<Map<String, String>> programTags;
+  private MetricsContext stageContext;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    metricsCollectionService = new AggregatedMetricsCollectionService(1000L) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        // Drain the aggregated values so that the aggregation cost is included
+        while (metrics.hasNext()) {
+          metrics.next();
+        }
+      }
+    };
+    metricsCollectionService.startAndWait();
+
+    programTags = new ArrayList<>();
+    for (int i = 0; i < NUM_PROGRAMS; i++) {
+      programTags.add(BenchmarkData.createProgramRunTags(i));
+    }
+    stageContext = metricsCollectionService.getContext(programTags.get(0))
+      .childContext(Constants.Metrics.Tag.DATASET, "stage");
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    metricsCollectionService.stopAndWait();
+  }
+
+  @Benchmark
+  public void increment() {
+    stageContext.increment("records.out", 1L);
+  }
+
+  @Benchmark
+  public void gauge() {
+    stageContext.gauge("process.time.max", ThreadLocalRandom.current().nextLong(1000L));
+  }
+
+  @Benchmark
+  public void getContextIncrement() {
+    Map<String, String> tags = programTags.get(ThreadLocalRandom.current().nextInt(NUM_PROGRAMS));
+    metricsCollectionService.getContext(tags).increment("records.in", 1L);
+  }
+
+  @Benchmark
+  public MetricsContext childContext() {
+    return stageContext.childContext(Constants.Metrics.Tag.HANDLER, "handler");
+  }
+}
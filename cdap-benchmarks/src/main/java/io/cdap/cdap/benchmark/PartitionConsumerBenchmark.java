@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.dataset.lib.PartitionDetail;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConcurrentPartitionConsumer;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConsumablePartition;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConsumerConfiguration;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConsumerWorkingSet;
+import io.cdap.cdap.api.dataset.lib.partitioned.StatePersistor;
+import io.cdap.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Benchmarks for a {@link ConcurrentPartitionConsumer} consuming a {@link PartitionedFileSetDataset} with 500k
+ * partitions. Each operation is one transaction that consumes 100 partitions and marks them as processed, with the
+ * working set persisted in memory. The {@code workingSetRoundTrip} benchmark serializes and deserializes a full
+ * working set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PartitionConsumerBenchmark {
+
+  private static final int NUM_PARTITIONS = 500000;
+  private static final int BATCH_SIZE = 100;
+
+  @Param({"1000", "10000"})
+  private int workingSetSize;
+
+  private LevelDBPartitionedFileSet pfs;
+  private ConsumerConfiguration configuration;
+  private InMemoryStatePersistor statePersistor;
+  private ConsumerWorkingSet workingSet;
+
+  @Setup
+  public void setup() throws Exception {
+    pfs = new LevelDBPartitionedFileSet();
+    pfs.addPartitions(NUM_PARTITIONS);
+    configuration = ConsumerConfiguration.builder().setMaxWorkingSetSize(workingSetSize).build();
+    statePersistor = new InMemoryStatePersistor();
+
+    // A working set with all of its partitions in progress
+    PartitionedFileSetDataset dataset = pfs.createDataset(Collections.emptyMap());
+    pfs.startTx(dataset);
+    workingSet = new ConsumerWorkingSet();
+    workingSet.populate(dataset, configuration);
+    workingSet.getPartitions().forEach(ConsumablePartition::take);
+    pfs.commitTx(dataset);
+  }
+
+  @Setup(Level.Iteration)
+  public void resetState() {
+    // Start consuming from the beginning in every iteration, so that there are always partitions to consume
+    statePersistor.state = null;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    pfs.close();
+  }
+
+  @Benchmark
+  public List<PartitionDetail> consumeAndCommit() throws Exception {
+    PartitionedFileSetDataset dataset = pfs.createDataset(Collections.emptyMap());
+    pfs.startTx(dataset);
+    ConcurrentPartitionConsumer consumer = new ConcurrentPartitionConsumer(dataset, statePersistor, configuration);
+    List<PartitionDetail> partitions = consumer.consumePartitions(BATCH_SIZE).getPartitions();
+    consumer.onFinish(partitions, true);
+    pfs.commitTx(dataset);
+    return partitions;
+  }
+
+  @Benchmark
+  public ConsumerWorkingSet workingSetRoundTrip() {
+    return ConsumerWorkingSet.fromBytes(workingSet.toBytes());
+  }
+
+  /**
+   * A {@link StatePersistor} that keeps the state in memory.
+   */
+  private static final class InMemoryStatePersistor implements StatePersistor {
+
+    private byte[] state;
+
+    @Nullable
+    @Override
+    public byte[] readState() {
+      return state;
+    }
+
+    @Override
+    public void persistState(byte[] state) {
+      this.state = state;
+    }
+  }
+}
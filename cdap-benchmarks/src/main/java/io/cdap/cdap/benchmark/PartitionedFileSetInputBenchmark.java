@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cdap.cdap.api.dataset.lib.PartitionDetail;
+import io.cdap.cdap.api.dataset.lib.PartitionFilter;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.PartitionedFileSetArguments;
+import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import io.cdap.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
+import org.apache.twill.filesystem.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the job setup of a MapReduce reading 50k partitions of a {@link PartitionedFileSetDataset}, that is
+ * computing the input format configuration, with the partitions given either by a filter or by their keys.
+ * The {@code perPartitionLookup} benchmark does the same as before the partitions were looked up in batches, with
+ * one get per partition and a JSON mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PartitionedFileSetInputBenchmark {
+
+  private static final int NUM_PARTITIONS = 50000;
+  private static final Gson GSON =
+    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+
+  @Param({"filter", "keys"})
+  private String input;
+
+  private LevelDBPartitionedFileSet pfs;
+  private Map<String, String> arguments;
+
+  @Setup
+  public void setup() throws Exception {
+    pfs = new LevelDBPartitionedFileSet();
+    pfs.addPartitions(NUM_PARTITIONS);
+
+    arguments = new HashMap<>();
+    if ("filter".equals(input)) {
+      PartitionedFileSetArguments.setInputPartitionFilter(arguments, PartitionFilter.builder()
+        .addRangeCondition("l", 0L, (long) NUM_PARTITIONS).build());
+    } else {
+      PartitionedFileSetDataset dataset = pfs.createDataset(Collections.emptyMap());
+      pfs.startTx(dataset);
+      List<PartitionDetail> partitions = new ArrayList<>(dataset.getPartitions(PartitionFilter.ALWAYS_MATCH));
+      pfs.commitTx(dataset);
+      PartitionedFileSetArguments.addInputPartitions(arguments, partitions);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    pfs.close();
+  }
+
+  @Benchmark
+  public Map<String, String> inputFormatConfiguration() throws Exception {
+    PartitionedFileSetDataset dataset = pfs.createDataset(arguments);
+    pfs.startTx(dataset);
+    Map<String, String> config = dataset.getInputFormatConfiguration();
+    pfs.commitTx(dataset);
+    return config;
+  }
+
+  @Benchmark
+  public Map<String, String> perPartitionLookup() throws Exception {
+    PartitionedFileSetDataset dataset = pfs.createDataset(arguments);
+    pfs.startTx(dataset);
+    Collection<PartitionKey> inputKeys;
+    PartitionFilter filter = PartitionedFileSetArguments.getInputPartitionFilter(arguments);
+    if (filter != null) {
+      inputKeys = new ArrayList<>();
+      for (PartitionDetail partition : dataset.getPartitions(filter)) {
+        inputKeys.add(partition.getPartitionKey());
+      }
+    } else {
+      inputKeys = PartitionedFileSetArguments.getInputPartitionKeys(arguments);
+    }
+    List<Location> inputLocations = new ArrayList<>(inputKeys.size());
+    Map<String, PartitionKey> pathToKey = new HashMap<>(inputKeys.size());
+    for (PartitionKey key : inputKeys) {
+      Location location = dataset.getEmbeddedFileSet().getLocation(dataset.getPartition(key).getRelativePath());
+      inputLocations.add(location);
+      pathToKey.put(location.toURI().toString(), key);
+    }
+    Map<String, String> config = dataset.getEmbeddedFileSet().getInputFormatConfiguration(inputLocations);
+    config.put(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING, GSON.toJson(pathToKey));
+    pfs.commitTx(dataset);
+    return config;
+  }
+}
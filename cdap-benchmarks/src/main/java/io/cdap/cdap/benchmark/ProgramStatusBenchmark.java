@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import io.cdap.cdap.internal.app.runtime.SystemArguments;
+import io.cdap.cdap.internal.app.services.ProgramRunStatusView;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.proto.ProgramStatus;
+import io.cdap.cdap.proto.id.ApplicationId;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.TransactionSystemClient;
+import org.apache.tephra.inmemory.InMemoryTxSystemClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks for answering the status of every program of a namespace, as done by the batch program status endpoint,
+ * on the NoSQL (LevelDB) storage. It compares reading the active runs of each program from the run records, reading
+ * them once per application, which is what the endpoint does while the {@link ProgramRunStatusView} is not loaded,
+ * and looking up the view. The active runs are spread evenly across the programs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ProgramStatusBenchmark {
+
+  private static final int NUM_APPS = 100;
+  private static final int PROGRAMS_PER_APP = 10;
+  private static final int WRITE_BATCH_SIZE = 1000;
+  private static final byte[] SOURCE_ID = new byte[] { 0 };
+
+  @Param({"1000", "10000"})
+  private int numActiveRuns;
+
+  private File dataDir;
+  private TransactionManager txManager;
+  private LevelDBTableService levelDBTableService;
+  private TransactionRunner transactionRunner;
+  private List<ApplicationId> apps;
+  private List<ProgramId> programs;
+  private ProgramRunStatusView programRunStatusView;
+
+  @Setup
+  public void setup() throws Exception {
+    dataDir = Files.createTempDirectory("programstatus").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new SystemDatasetRuntimeModule().getStandaloneModules(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(TransactionSystemClient.class).toInstance(new InMemoryTxSystemClient(txManager));
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class).in(Scopes.SINGLETON);
+        }
+      }
+    );
+    levelDBTableService = injector.getInstance(LevelDBTableService.class);
+    injector.getInstance(StructuredTableRegistry.class).initialize();
+    StoreDefinition.AppMetadataStore.createTables(injector.getInstance(StructuredTableAdmin.class), false);
+    transactionRunner = injector.getInstance(TransactionRunner.class);
+
+    apps = new ArrayList<>();
+    programs = new ArrayList<>();
+    for (int i = 0; i < NUM_APPS; i++) {
+      ApplicationId app = NamespaceId.DEFAULT.app("app" + i);
+      apps.add(app);
+      for (int j = 0; j < PROGRAMS_PER_APP; j++) {
+        programs.add(app.workflow("workflow" + j));
+      }
+    }
+    for (int batchStart = 0; batchStart < numActiveRuns; batchStart += WRITE_BATCH_SIZE) {
+      writeRuns(batchStart, Math.min(numActiveRuns, batchStart + WRITE_BATCH_SIZE));
+    }
+
+    programRunStatusView = new ProgramRunStatusView();
+    programRunStatusView.load(TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getActiveRuns(meta -> true);
+    }));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    levelDBTableService.close();
+    txManager.stopAndWait();
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public int activeRunsPerProgram() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      int starting = 0;
+      for (ProgramId program : programs) {
+        if (getProgramStatus(store.getActiveRuns(program).values()) == ProgramStatus.STARTING) {
+          starting++;
+        }
+      }
+      return starting;
+    });
+  }
+
+  @Benchmark
+  public int activeRunsPerApplication() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      int starting = 0;
+      for (ApplicationId app : apps) {
+        Map<ProgramId, List<RunRecordMeta>> activeRuns = store.getActiveRuns(app).values().stream()
+          .collect(Collectors.groupingBy(meta -> meta.getProgramRunId().getParent()));
+        for (int j = 0; j < PROGRAMS_PER_APP; j++) {
+          List<RunRecordMeta> runs = activeRuns.getOrDefault(app.workflow("workflow" + j), Collections.emptyList());
+          if (getProgramStatus(runs) == ProgramStatus.STARTING) {
+            starting++;
+          }
+        }
+      }
+      return starting;
+    });
+  }
+
+  @Benchmark
+  public int statusView() {
+    int starting = 0;
+    for (ProgramId program : programs) {
+      if (programRunStatusView.getProgramStatus(program) == ProgramStatus.STARTING) {
+        starting++;
+      }
+    }
+    return starting;
+  }
+
+  private ProgramStatus getProgramStatus(Iterable<RunRecordMeta> runs) {
+    // All runs are pending, so a program with any active run is starting
+    return runs.iterator().hasNext() ? ProgramStatus.STARTING : ProgramStatus.STOPPED;
+  }
+
+  /**
+   * Writes the pending runs with the given indices in one transaction.
+   */
+  private void writeRuns(int batchStart, int batchEnd) {
+    Map<String, String> systemArgs = Collections.singletonMap(SystemArguments.PROFILE_NAME,
+                                                              ProfileId.NATIVE.getScopedName());
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      for (int i = batchStart; i < batchEnd; i++) {
+        ProgramId program = programs.get(i % programs.size());
+        store.recordProgramProvisioning(program.run(RunIds.generate()), Collections.emptyMap(), systemArgs,
+                                        SOURCE_ID, null);
+      }
+    });
+  }
+}
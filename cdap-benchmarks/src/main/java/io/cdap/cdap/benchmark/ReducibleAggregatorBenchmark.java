@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.etl.api.Alert;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for a count/sum group-by with low key cardinality, executed the way a {@link BatchAggregator} is
+ * executed, with all values of a group collected before they are aggregated, and the way a
+ * {@link BatchReducibleAggregator} is executed, with values combined in each partition before the partial
+ * aggregates are merged.
+ *
+ * The grouping run keeps every value in memory, like a shuffle does. To run it with 100M records, give the forked
+ * JVM enough heap, e.g. {@code -p numRecords=100000000 -jvmArgs -Xmx8g}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ReducibleAggregatorBenchmark {
+
+  private static final int NUM_PARTITIONS = 4;
+
+  @Param({"10000000"})
+  private long numRecords;
+
+  @Param({"10", "1000"})
+  private int numGroups;
+
+  private String[] groupKeys;
+  private CountSumAggregator aggregator;
+  private CountSumReducibleAggregator reducibleAggregator;
+
+  @Setup
+  public void setup() {
+    groupKeys = new String[numGroups];
+    for (int i = 0; i < numGroups; i++) {
+      groupKeys[i] = "group" + i;
+    }
+    aggregator = new CountSumAggregator(groupKeys);
+    reducibleAggregator = new CountSumReducibleAggregator(groupKeys);
+  }
+
+  @Benchmark
+  public long groupThenAggregate() throws Exception {
+    KeyEmitter<String> keyEmitter = new KeyEmitter<>();
+    Map<String, List<Long>> groups = new HashMap<>();
+    for (long value = 0; value < numRecords; value++) {
+      keyEmitter.reset();
+      aggregator.groupBy(value, keyEmitter);
+      for (String groupKey : keyEmitter.keys) {
+        groups.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(value);
+      }
+    }
+
+    KeyEmitter<long[]> outputEmitter = new KeyEmitter<>();
+    for (Map.Entry<String, List<Long>> group : groups.entrySet()) {
+      aggregator.aggregate(group.getKey(), group.getValue().iterator(), outputEmitter);
+    }
+    return count(outputEmitter.keys);
+  }
+
+  @Benchmark
+  public long combineThenFinalize() throws Exception {
+    KeyEmitter<String> keyEmitter = new KeyEmitter<>();
+    long partitionSize = numRecords / NUM_PARTITIONS;
+
+    // combine the values of each partition, then merge the partial aggregates like the reduce side does
+    Map<String, long[]> merged = new HashMap<>();
+    for (int partition = 0; partition < NUM_PARTITIONS; partition++) {
+      long start = partition * partitionSize;
+      long end = partition == NUM_PARTITIONS - 1 ? numRecords : start + partitionSize;
+      Map<String, long[]> combined = new HashMap<>();
+      for (long value = start; value < end; value++) {
+        keyEmitter.reset();
+        reducibleAggregator.groupBy(value, keyEmitter);
+        for (String groupKey : keyEmitter.keys) {
+          long[] aggValue = combined.get(groupKey);
+          combined.put(groupKey, aggValue == null ?
+            reducibleAggregator.initializeAggregateValue(value) : reducibleAggregator.mergeValues(aggValue, value));
+        }
+      }
+      for (Map.Entry<String, long[]> entry : combined.entrySet()) {
+        long[] aggValue = merged.get(entry.getKey());
+        merged.put(entry.getKey(), aggValue == null ?
+          entry.getValue() : reducibleAggregator.mergePartitions(aggValue, entry.getValue()));
+      }
+    }
+
+    KeyEmitter<long[]> outputEmitter = new KeyEmitter<>();
+    for (Map.Entry<String, long[]> group : merged.entrySet()) {
+      reducibleAggregator.finalize(group.getKey(), group.getValue(), outputEmitter);
+    }
+    return count(outputEmitter.keys);
+  }
+
+  private static long count(List<long[]> outputs) {
+    long count = 0;
+    for (long[] output : outputs) {
+      count += output[0];
+    }
+    return count;
+  }
+
+  /**
+   * Computes the count and the sum of the values of each group, with all the values of a group at once.
+   */
+  private static final class CountSumAggregator extends BatchAggregator<String, Long, long[]> {
+
+    private final String[] groupKeys;
+
+    private CountSumAggregator(String[] groupKeys) {
+      this.groupKeys = groupKeys;
+    }
+
+    @Override
+    public void groupBy(Long value, Emitter<String> emitter) {
+      emitter.emit(groupKeys[(int) (value % groupKeys.length)]);
+    }
+
+    @Override
+    public void aggregate(String groupKey, Iterator<Long> values, Emitter<long[]> emitter) {
+      long count = 0;
+      long sum = 0;
+      while (values.hasNext()) {
+        count++;
+        sum += values.next();
+      }
+      emitter.emit(new long[] { count, sum });
+    }
+  }
+
+  /**
+   * Computes the count and the sum of the values of each group, with a {count, sum} array as aggregate value.
+   */
+  private static final class CountSumReducibleAggregator
+    extends BatchReducibleAggregator<String, Long, long[], long[]> {
+
+    private final String[] groupKeys;
+
+    private CountSumReducibleAggregator(String[] groupKeys) {
+      this.groupKeys = groupKeys;
+    }
+
+    @Override
+    public void groupBy(Long value, Emitter<String> emitter) {
+      emitter.emit(groupKeys[(int) (value % groupKeys.length)]);
+    }
+
+    @Override
+    public long[] initializeAggregateValue(Long value) {
+      return new long[] { 1, value };
+    }
+
+    @Override
+    public long[] mergeValues(long[] aggValue, Long value) {
+      aggValue[0]++;
+      aggValue[1] += value;
+      return aggValue;
+    }
+
+    @Override
+    public long[] mergePartitions(long[] aggValue1, long[] aggValue2) {
+      aggValue1[0] += aggValue2[0];
+      aggValue1[1] += aggValue2[1];
+      return aggValue1;
+    }
+
+    @Override
+    public void finalize(String groupKey, long[] aggValue, Emitter<long[]> emitter) {
+      emitter.emit(aggValue);
+    }
+  }
+
+  /**
+   * An {@link Emitter} that collects what is emitted.
+   */
+  private static final class KeyEmitter<T> implements Emitter<T> {
+
+    private final List<T> keys = new ArrayList<>();
+
+    void reset() {
+      keys.clear();
+    }
+
+    @Override
+    public void emit(T value) {
+      keys.add(value);
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void emitError(InvalidEntry<T> invalidEntry) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.internal.app.store.RunRecordMetaCodec;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding a completed workflow run record with the JSON format used by earlier
+ * versions and with the binary format of {@link RunRecordMetaCodec}. Decoding JSON goes through the codec, the
+ * same as reading a run record that has not been migrated yet. The binary decode benchmarks are split by whether
+ * the system arguments are read, since they are decoded lazily.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunRecordMetaCodecBenchmark {
+
+  private static final Gson GSON = new Gson();
+  private static final ProgramId PROGRAM_ID = NamespaceId.DEFAULT.app("pipeline").workflow("DataPipelineWorkflow");
+
+  private RunRecordMeta meta;
+  private String json;
+  private String binary;
+
+  @Setup
+  public void setup() {
+    // A workflow run has one property per node and the system arguments resolved from the profile
+    Map<String, String> properties = new HashMap<>();
+    for (int i = 0; i < 10; i++) {
+      properties.put("phase-" + i, RunIds.generate().getId());
+    }
+    Map<String, String> systemArgs = new HashMap<>();
+    for (int i = 0; i < 30; i++) {
+      systemArgs.put("system.profile.properties.property" + i, "value-" + i);
+    }
+    meta = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(1000L)
+      .setRunTime(1010L)
+      .setStopTime(2000L)
+      .setStatus(ProgramRunStatus.COMPLETED)
+      .setProperties(properties)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, 2010L, 3))
+      .setProfileId(NamespaceId.DEFAULT.profile("dataproc"))
+      .setTwillRunId(RunIds.generate().getId())
+      .setSystemArgs(systemArgs)
+      .setSourceId(new byte[20])
+      .setArtifactId(new ArtifactId("cdap-data-pipeline", new ArtifactVersion("6.1.0"), ArtifactScope.SYSTEM))
+      .setPrincipal("user")
+      .build();
+    json = GSON.toJson(meta);
+    binary = RunRecordMetaCodec.encode(meta);
+  }
+
+  @Benchmark
+  public String encodeJson() {
+    return GSON.toJson(meta);
+  }
+
+  @Benchmark
+  public String encodeBinary() {
+    return RunRecordMetaCodec.encode(meta);
+  }
+
+  @Benchmark
+  public RunRecordMeta decodeJson() {
+    return RunRecordMetaCodec.decode(PROGRAM_ID, json);
+  }
+
+  @Benchmark
+  public RunRecordMeta decodeBinary() {
+    return RunRecordMetaCodec.decode(PROGRAM_ID, binary);
+  }
+
+  @Benchmark
+  public int decodeBinaryWithSystemArgs() {
+    return RunRecordMetaCodec.decode(PROGRAM_ID, binary).getSystemArgs().size();
+  }
+}
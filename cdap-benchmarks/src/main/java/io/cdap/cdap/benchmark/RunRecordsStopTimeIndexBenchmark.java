@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
+import com.opentable.db.postgres.embedded.EmbeddedPostgres;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.data.runtime.StorageModule;
+import io.cdap.cdap.data.runtime.SystemDatasetRuntimeModule;
+import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import io.cdap.cdap.internal.app.store.AppMetadataStore;
+import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.StructuredTableAdmin;
+import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
+import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.tephra.TransactionManager;
+import org.apache.tephra.TransactionSystemClient;
+import org.apache.tephra.inmemory.InMemoryTxSystemClient;
+import org.apache.twill.api.RunId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for finding the completed runs in the last day from the {@link AppMetadataStore}, with and without the
+ * run records stop time index, on the NoSQL (LevelDB) and SQL (embedded PostgreSQL) storage. The runs are spread
+ * evenly over a year, across several namespaces and programs. Without the index, the store has to go through all
+ * completed run records, which is the case after an upgrade until the index backfill is done.
+ *
+ * Writing the run records takes a while; use {@code -p numRuns=...} for a quicker run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RunRecordsStopTimeIndexBenchmark {
+
+  private static final int NUM_NAMESPACES = 10;
+  private static final int NUM_PROGRAMS = 100;
+  private static final int WRITE_BATCH_SIZE = 1000;
+  private static final long TIME_SPAN_SECS = TimeUnit.DAYS.toSeconds(365);
+  private static final long WINDOW_SECS = TimeUnit.DAYS.toSeconds(1);
+  private static final byte[] SOURCE_ID = new byte[] { 0 };
+
+  @Param({"nosql", "postgresql"})
+  private String storage;
+
+  @Param({"5000000"})
+  private int numRuns;
+
+  @Param({"true", "false"})
+  private boolean indexed;
+
+  private File dataDir;
+  private TransactionManager txManager;
+  private LevelDBTableService levelDBTableService;
+  private EmbeddedPostgres postgres;
+  private TransactionRunner transactionRunner;
+  private Set<NamespaceId> namespaces;
+  private long windowStart;
+  private long windowEnd;
+
+  @Setup
+  public void setup() throws Exception {
+    dataDir = Files.createTempDirectory("runrecords").toFile();
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dataDir.getAbsolutePath());
+    cConf.set(Constants.Dataset.DATA_STORAGE_IMPLEMENTATION, storage);
+    if (Constants.Dataset.DATA_STORAGE_SQL.equals(storage)) {
+      postgres = EmbeddedPostgres.builder()
+        .setDataDirectory(new File(dataDir, "data"))
+        .setOverrideWorkingDirectory(new File(dataDir, "pg"))
+        .start();
+      cConf.setBoolean(Constants.Dataset.DATA_STORAGE_SQL_DRIVER_EXTERNAL, false);
+      cConf.set(Constants.Dataset.DATA_STORAGE_SQL_JDBC_CONNECTION_URL, postgres.getJdbcUrl("postgres", "postgres"));
+    }
+    txManager = new TransactionManager(new Configuration());
+    txManager.startAndWait();
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new SystemDatasetRuntimeModule().getStandaloneModules(),
+      new StorageModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(TransactionSystemClient.class).toInstance(new InMemoryTxSystemClient(txManager));
+          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class).in(Scopes.SINGLETON);
+        }
+      }
+    );
+    levelDBTableService = injector.getInstance(LevelDBTableService.class);
+    injector.getInstance(StructuredTableRegistry.class).initialize();
+    StoreDefinition.AppMetadataStore.createTables(injector.getInstance(StructuredTableAdmin.class), false);
+    transactionRunner = injector.getInstance(TransactionRunner.class);
+
+    if (indexed) {
+      // A new store has nothing to backfill, hence all runs written afterwards are found through the index
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore.create(context).backfillStopTimeIndex(WRITE_BATCH_SIZE);
+      });
+    }
+
+    namespaces = new HashSet<>();
+    for (int i = 0; i < NUM_NAMESPACES; i++) {
+      namespaces.add(new NamespaceId("ns" + i));
+    }
+    long start = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - TIME_SPAN_SECS;
+    for (int batchStart = 0; batchStart < numRuns; batchStart += WRITE_BATCH_SIZE) {
+      int batchEnd = Math.min(numRuns, batchStart + WRITE_BATCH_SIZE);
+      writeRuns(start, batchStart, batchEnd);
+    }
+    windowEnd = start + TIME_SPAN_SECS;
+    windowStart = windowEnd - WINDOW_SECS;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    levelDBTableService.close();
+    txManager.stopAndWait();
+    if (postgres != null) {
+      postgres.close();
+    }
+    DirUtils.deleteDirectoryContents(dataDir);
+  }
+
+  @Benchmark
+  public Map<ProgramRunId, RunRecordMeta> getHistoricalRuns() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getHistoricalRuns(namespaces, windowStart, windowEnd,
+                                                                Integer.MAX_VALUE);
+    });
+  }
+
+  @Benchmark
+  public Set<RunId> getRunningInRangeCompleted() {
+    return TransactionRunners.run(transactionRunner, context -> {
+      return AppMetadataStore.create(context).getRunningInRangeCompleted(windowStart, windowEnd);
+    });
+  }
+
+  /**
+   * Writes the runs with the given indices in one transaction. Rejected runs are used since they are completed with a
+   * single write.
+   */
+  private void writeRuns(long start, int batchStart, int batchEnd) {
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore store = AppMetadataStore.create(context);
+      for (int i = batchStart; i < batchEnd; i++) {
+        ProgramId program = new NamespaceId("ns" + (i % NUM_NAMESPACES))
+          .app("app" + (i % NUM_PROGRAMS)).workflow("workflow");
+        long startTime = start + TIME_SPAN_SECS * i / numRuns;
+        RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(startTime));
+        store.recordProgramRejected(program.run(runId), Collections.emptyMap(), Collections.emptyMap(),
+                                    SOURCE_ID, null);
+      }
+    });
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.data.schema.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Schema} operations that pipelines perform for every stage, such as parsing the schema
+ * from the stage configuration, serializing it, looking up fields and comparing schemas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int numFields;
+
+  private Schema schema;
+  private String schemaJson;
+  private String lastFieldName;
+
+  @Setup
+  public void setup() {
+    schema = BenchmarkData.createWideSchema(numFields);
+    schemaJson = schema.toString();
+    lastFieldName = schema.getFields().get(numFields - 1).getName();
+  }
+
+  @Benchmark
+  public Schema parseJson() throws IOException {
+    return Schema.parseJson(schemaJson);
+  }
+
+  @Benchmark
+  public String toJson() {
+    // Use a new instance, since the json of a schema is computed only once
+    return Schema.recordOf(schema.getRecordName(), schema.getFields()).toString();
+  }
+
+  @Benchmark
+  public Schema.Field getField() {
+    return schema.getField(lastFieldName);
+  }
+
+  @Benchmark
+  public boolean equalsNew() {
+    // Use a new instance, since the hash used for comparison is computed only once
+    return schema.equals(Schema.recordOf(schema.getRecordName(), schema.getFields()));
+  }
+
+  @Benchmark
+  public boolean isCompatible() {
+    return schema.isCompatible(schema);
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the tasks of a shuffle join of a skewed input, where a hot key has a large fraction of the records,
+ * with and without salting the hot key.
+ *
+ * Each task joins the records of one shuffle partition. The {@code slowestTask} benchmark measures the task with the
+ * most records, which bounds the duration of the join stage, while the {@code allTasks} benchmark measures all the
+ * tasks one after the other, which is the total work of the join stage. Without skew handling the hot key goes to a
+ * single task. With skew handling the records of the hot key are spread over {@code saltCount} salts, at the cost of
+ * replicating the matching records of the other input for each salt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SkewedJoinBenchmark {
+
+  private static final int NUM_PARTITIONS = 16;
+  private static final String HOT_KEY = "unknown";
+
+  @Param({"1000000"})
+  private int numRecords;
+
+  @Param({"0.5"})
+  private double hotKeyFraction;
+
+  @Param({"false", "true"})
+  private boolean skewHandling;
+
+  private int saltCount;
+  private List<List<Record>> leftPartitions;
+  private List<List<Record>> rightPartitions;
+  private int slowestPartition;
+
+  @Setup
+  public void setup() {
+    saltCount = skewHandling ? NUM_PARTITIONS : 1;
+    leftPartitions = createPartitions();
+    rightPartitions = createPartitions();
+
+    // the left input has the hot key, the right input has one record per key
+    int numKeys = 10000;
+    int saltIndex = 0;
+    for (int i = 0; i < numRecords; i++) {
+      boolean hot = i < numRecords * hotKeyFraction;
+      String key = hot ? HOT_KEY : "key" + (i % numKeys);
+      int salt = hot ? saltIndex++ % saltCount : 0;
+      add(leftPartitions, new Record(key, salt, i));
+    }
+    for (int i = 0; i < numKeys; i++) {
+      add(rightPartitions, new Record("key" + i, 0, i));
+    }
+    for (int salt = 0; salt < saltCount; salt++) {
+      add(rightPartitions, new Record(HOT_KEY, salt, -1));
+    }
+
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      if (leftPartitions.get(i).size() > leftPartitions.get(slowestPartition).size()) {
+        slowestPartition = i;
+      }
+    }
+  }
+
+  @Benchmark
+  public long slowestTask() {
+    return joinPartition(slowestPartition);
+  }
+
+  @Benchmark
+  public long allTasks() {
+    long joined = 0;
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      joined += joinPartition(i);
+    }
+    return joined;
+  }
+
+  // joins the records of a partition the way a shuffle join does, by grouping the records of both inputs by key
+  private long joinPartition(int partition) {
+    Map<Record, List<Record>> leftGroups = group(leftPartitions.get(partition));
+    Map<Record, List<Record>> rightGroups = group(rightPartitions.get(partition));
+    long joined = 0;
+    for (Map.Entry<Record, List<Record>> leftGroup : leftGroups.entrySet()) {
+      for (Record match : rightGroups.getOrDefault(leftGroup.getKey(), Collections.emptyList())) {
+        for (Record record : leftGroup.getValue()) {
+          joined += record.value + match.value;
+        }
+      }
+    }
+    return joined;
+  }
+
+  private static Map<Record, List<Record>> group(List<Record> records) {
+    Map<Record, List<Record>> groups = new HashMap<>();
+    for (Record record : records) {
+      groups.computeIfAbsent(record, k -> new ArrayList<>()).add(record);
+    }
+    return groups;
+  }
+
+  private static List<List<Record>> createPartitions() {
+    List<List<Record>> partitions = new ArrayList<>(NUM_PARTITIONS);
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      partitions.add(new ArrayList<>());
+    }
+    return partitions;
+  }
+
+  private static void add(List<List<Record>> partitions, Record record) {
+    partitions.get((record.hashCode() & Integer.MAX_VALUE) % NUM_PARTITIONS).add(record);
+  }
+
+  /**
+   * A join input record. Records are equal if they have the same salted key.
+   */
+  private static final class Record {
+    private final String key;
+    private final int salt;
+    private final long value;
+
+    private Record(String key, int salt, long value) {
+      this.key = key;
+      this.salt = salt;
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Record that = (Record) o;
+      return salt == that.salt && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, salt);
+    }
+  }
+}
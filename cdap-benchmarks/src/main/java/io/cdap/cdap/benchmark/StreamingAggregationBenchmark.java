@@ -0,0 +1,601 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.base.Optional;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.Function3;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.api.java.function.VoidFunction2;
+import org.apache.spark.rdd.RDD;
+import org.apache.spark.streaming.Durations;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.StateSpec;
+import org.apache.spark.streaming.StreamingContext;
+import org.apache.spark.streaming.Time;
+import org.apache.spark.streaming.api.java.JavaDStream;
+import org.apache.spark.streaming.api.java.JavaPairDStream;
+import org.apache.spark.streaming.api.java.JavaStreamingContext;
+import org.apache.spark.streaming.dstream.InputDStream;
+import org.apache.spark.util.ManualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.Option;
+import scala.Tuple2;
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the work done on each micro batch by a streaming count/sum aggregation that keeps a running
+ * aggregate per key in Spark state, at 50k events per second with 10 second micro batches, run with a local Spark
+ * streaming context.
+ *
+ * Both runs compute the same output on every micro batch: the running aggregate of each key that got events in the
+ * micro batch, with keys that were idle for longer than the TTL removed from the state. The events of a micro batch
+ * are combined by key first, like the stateful streaming aggregation does. The mapWithState run then merges the
+ * partial aggregates into the state of the updated keys only, the way the stateful streaming aggregation does. The
+ * updateStateByKey run cogroups the partial aggregates with the state of every key, like Spark's older state API
+ * does. Both state streams are checkpointed every 10 micro batches. The output of every micro batch is checked against
+ * the aggregates computed from the event indexes.
+ *
+ * The streaming context runs on a manual clock. Each invocation advances the clock by a batch interval and waits for
+ * the output of the micro batch, so the time measured is the time Spark takes to process one micro batch.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StreamingAggregationBenchmark {
+
+  // outputs of the micro batches, added by the output operation of the streaming context
+  private static final BlockingQueue<BatchOutput> BATCH_OUTPUTS = new LinkedBlockingQueue<>();
+
+  @Param({"mapWithState", "updateStateByKey"})
+  private String stateOperation;
+
+  @Param({"50000"})
+  private int eventsPerSecond;
+
+  @Param({"10"})
+  private int batchSeconds;
+
+  @Param({"3600"})
+  private int ttlSeconds;
+
+  @Param({"1000", "1000000"})
+  private int numKeys;
+
+  @Param({"4"})
+  private int partitions;
+
+  private File checkpointDir;
+  private JavaStreamingContext streamingContext;
+  private BatchOutput lastOutput;
+
+  @Setup
+  public void setup() throws Exception {
+    checkpointDir = Files.createTempDirectory("streaming-aggregation").toFile();
+    SparkConf sparkConf = new SparkConf()
+      .setMaster("local[" + partitions + "]")
+      .setAppName(getClass().getSimpleName())
+      .set("spark.ui.enabled", "false")
+      .set("spark.streaming.clock", ManualClock.class.getName());
+    streamingContext = new JavaStreamingContext(sparkConf, Durations.seconds(batchSeconds));
+    streamingContext.checkpoint(checkpointDir.getAbsolutePath());
+
+    CountSumReducibleAggregator aggregator = new CountSumReducibleAggregator(numKeys);
+    long batchEvents = (long) eventsPerSecond * batchSeconds;
+    ClassTag<Long> classTag = ClassTag$.MODULE$.apply(Long.class);
+    JavaDStream<Long> events = new JavaDStream<>(
+      new EventsInputDStream(streamingContext.ssc(), classTag, batchEvents, partitions), classTag);
+    JavaPairDStream<String, long[]> combined = events
+      .flatMapToPair(new GroupByFunction(aggregator))
+      .combineByKey(new InitializeFunction(aggregator), new MergeValuesFunction(aggregator),
+                    new MergePartitionsFunction(aggregator), new HashPartitioner(partitions));
+
+    JavaDStream<long[]> outputs;
+    if ("mapWithState".equals(stateOperation)) {
+      // the state stream of mapWithState is checkpointed every 10 micro batches by default
+      outputs = combined
+        .mapWithState(StateSpec.function(new MapWithStateFunction(aggregator))
+                        .numPartitions(partitions)
+                        .timeout(Durations.seconds(ttlSeconds)))
+        .flatMap(new FlattenFunction());
+    } else {
+      JavaPairDStream<String, KeyState> states =
+        combined.updateStateByKey(new UpdateStateFunction(aggregator, ttlSeconds / batchSeconds), partitions);
+      states.checkpoint(Durations.seconds(batchSeconds * 10));
+      outputs = states.flatMap(new UpdatedOutputFunction(aggregator));
+    }
+    outputs.foreachRDD(new CollectOutputFunction(TimeUnit.SECONDS.toMillis(batchSeconds)));
+
+    BATCH_OUTPUTS.clear();
+    streamingContext.start();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    streamingContext.stop(true, false);
+    DirUtils.deleteDirectoryContents(checkpointDir);
+  }
+
+  /**
+   * Checks the output of the last micro batch processed in the iteration.
+   */
+  @TearDown(Level.Iteration)
+  public void verify() {
+    if (lastOutput == null) {
+      return;
+    }
+    long batchEvents = (long) eventsPerSecond * batchSeconds;
+    long end = (lastOutput.batch + 1) * batchEvents;
+    // keys are assigned round robin, so every key that got an event was updated within the TTL
+    long updatedKeys = Math.min(batchEvents, numKeys);
+    long expectedCount = 0;
+    long expectedSum = 0;
+    for (long value = end - updatedKeys; value < end; value++) {
+      // the count and the sum of the values of the key, from the first event to the end of the micro batch
+      long key = value % numKeys;
+      long count = (end - 1 - key) / numKeys + 1;
+      expectedCount += count;
+      expectedSum += count * key + numKeys * count * (count - 1) / 2;
+    }
+    if (lastOutput.keys != updatedKeys || lastOutput.count != expectedCount || lastOutput.sum != expectedSum) {
+      throw new IllegalStateException(String.format(
+        "Unexpected output for micro batch %d: %d keys, count %d, sum %d. Expected %d keys, count %d, sum %d.",
+        lastOutput.batch, lastOutput.keys, lastOutput.count, lastOutput.sum,
+        updatedKeys, expectedCount, expectedSum));
+    }
+  }
+
+  @Benchmark
+  public long microBatch() throws Exception {
+    ManualClock clock = (ManualClock) streamingContext.ssc().scheduler().clock();
+    clock.advance(TimeUnit.SECONDS.toMillis(batchSeconds));
+    BatchOutput output = BATCH_OUTPUTS.poll(5, TimeUnit.MINUTES);
+    if (output == null) {
+      throw new IllegalStateException("Timeout waiting for the output of a micro batch");
+    }
+    lastOutput = output;
+    return output.keys;
+  }
+
+  /**
+   * An input stream that generates the events of a micro batch from their index, spread across partitions.
+   * The event with index i is the value i, and micro batch n contains the events from n * batchEvents.
+   */
+  private static final class EventsInputDStream extends InputDStream<Long> {
+
+    private final long batchEvents;
+    private final int partitions;
+
+    private EventsInputDStream(StreamingContext ssc, ClassTag<Long> classTag, long batchEvents, int partitions) {
+      super(ssc, classTag);
+      this.batchEvents = batchEvents;
+      this.partitions = partitions;
+    }
+
+    @Override
+    public void start() {
+      // no-op
+    }
+
+    @Override
+    public void stop() {
+      // no-op
+    }
+
+    @Override
+    public Option<RDD<Long>> compute(Time validTime) {
+      long batch = validTime.milliseconds() / slideDuration().milliseconds() - 1;
+      List<Integer> partitionIds = new ArrayList<>();
+      for (int i = 0; i < partitions; i++) {
+        partitionIds.add(i);
+      }
+      JavaSparkContext sparkContext = JavaSparkContext.fromSparkContext(context().sparkContext());
+      return Option.apply(sparkContext.parallelize(partitionIds, partitions)
+                            .flatMap(new GenerateEventsFunction(batch * batchEvents, batchEvents, partitions))
+                            .rdd());
+    }
+  }
+
+  /**
+   * Generates the events of a partition of a micro batch.
+   */
+  private static final class GenerateEventsFunction implements FlatMapFunction<Integer, Long> {
+
+    private final long start;
+    private final long batchEvents;
+    private final int partitions;
+
+    private GenerateEventsFunction(long start, long batchEvents, int partitions) {
+      this.start = start;
+      this.batchEvents = batchEvents;
+      this.partitions = partitions;
+    }
+
+    @Override
+    public Iterable<Long> call(Integer partition) {
+      long partitionEvents = batchEvents / partitions;
+      long partitionStart = start + partition * partitionEvents;
+      long partitionEnd = partition == partitions - 1 ? start + batchEvents : partitionStart + partitionEvents;
+      List<Long> events = new ArrayList<>((int) (partitionEnd - partitionStart));
+      for (long value = partitionStart; value < partitionEnd; value++) {
+        events.add(value);
+      }
+      return events;
+    }
+  }
+
+  /**
+   * Keys the events with the group keys of the aggregator.
+   */
+  private static final class GroupByFunction implements PairFlatMapFunction<Long, String, Long> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private GroupByFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public Iterable<Tuple2<String, Long>> call(Long value) {
+      KeyEmitter keyEmitter = new KeyEmitter();
+      aggregator.groupBy(value, keyEmitter);
+      List<Tuple2<String, Long>> keyed = new ArrayList<>(keyEmitter.keys.size());
+      for (String key : keyEmitter.keys) {
+        keyed.add(new Tuple2<>(key, value));
+      }
+      return keyed;
+    }
+  }
+
+  /**
+   * Initializes the aggregate value of a group from its first value in a partition.
+   */
+  private static final class InitializeFunction implements Function<Long, long[]> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private InitializeFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public long[] call(Long value) {
+      return aggregator.initializeAggregateValue(value);
+    }
+  }
+
+  /**
+   * Merges a value into the aggregate value of its group.
+   */
+  private static final class MergeValuesFunction implements Function2<long[], Long, long[]> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private MergeValuesFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public long[] call(long[] aggValue, Long value) {
+      return aggregator.mergeValues(aggValue, value);
+    }
+  }
+
+  /**
+   * Merges the aggregate values of a group computed in different partitions.
+   */
+  private static final class MergePartitionsFunction implements Function2<long[], long[], long[]> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private MergePartitionsFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public long[] call(long[] aggValue1, long[] aggValue2) {
+      return aggregator.mergePartitions(aggValue1, aggValue2);
+    }
+  }
+
+  /**
+   * Merges the partial aggregate of a key in a micro batch into its state and emits the finalized aggregate.
+   * Emits nothing for keys that are timing out.
+   */
+  private static final class MapWithStateFunction
+    implements Function3<String, Optional<long[]>, State<long[]>, Iterable<long[]>> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private MapWithStateFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public Iterable<long[]> call(String key, Optional<long[]> partial, State<long[]> state) {
+      if (!partial.isPresent()) {
+        return Collections.emptyList();
+      }
+      // merge into the partial aggregate of the micro batch, since the state may be shared with earlier batches
+      long[] aggValue = state.exists() ? aggregator.mergePartitions(partial.get(), state.get()) : partial.get();
+      state.update(aggValue);
+      OutputEmitter outputEmitter = new OutputEmitter();
+      aggregator.finalize(key, aggValue, outputEmitter);
+      return outputEmitter.outputs;
+    }
+  }
+
+  /**
+   * Flattens the outputs of the mapWithState function.
+   */
+  private static final class FlattenFunction implements FlatMapFunction<Iterable<long[]>, long[]> {
+
+    @Override
+    public Iterable<long[]> call(Iterable<long[]> outputs) {
+      return outputs;
+    }
+  }
+
+  /**
+   * The aggregate value kept for a key by updateStateByKey, together with the number of micro batches since it was
+   * last updated.
+   */
+  private static final class KeyState implements Serializable {
+    private final long[] aggValue;
+    private final long idleBatches;
+
+    private KeyState(long[] aggValue, long idleBatches) {
+      this.aggValue = aggValue;
+      this.idleBatches = idleBatches;
+    }
+  }
+
+  /**
+   * Merges the partial aggregates of a key in a micro batch into its state, and removes the keys that were idle for
+   * longer than the TTL. Called for every key in the state, on every micro batch.
+   */
+  private static final class UpdateStateFunction
+    implements Function2<List<long[]>, Optional<KeyState>, Optional<KeyState>> {
+
+    private final CountSumReducibleAggregator aggregator;
+    private final long ttlBatches;
+
+    private UpdateStateFunction(CountSumReducibleAggregator aggregator, long ttlBatches) {
+      this.aggregator = aggregator;
+      this.ttlBatches = ttlBatches;
+    }
+
+    @Override
+    public Optional<KeyState> call(List<long[]> partials, Optional<KeyState> state) {
+      if (partials.isEmpty()) {
+        KeyState keyState = state.get();
+        return keyState.idleBatches >= ttlBatches ?
+          Optional.<KeyState>absent() : Optional.of(new KeyState(keyState.aggValue, keyState.idleBatches + 1));
+      }
+      long[] aggValue = null;
+      for (long[] partial : partials) {
+        aggValue = aggValue == null ? partial : aggregator.mergePartitions(aggValue, partial);
+      }
+      if (state.isPresent()) {
+        aggValue = aggregator.mergePartitions(aggValue, state.get().aggValue);
+      }
+      return Optional.of(new KeyState(aggValue, 0));
+    }
+  }
+
+  /**
+   * Emits the finalized aggregate of the keys updated in the micro batch.
+   */
+  private static final class UpdatedOutputFunction implements FlatMapFunction<Tuple2<String, KeyState>, long[]> {
+
+    private final CountSumReducibleAggregator aggregator;
+
+    private UpdatedOutputFunction(CountSumReducibleAggregator aggregator) {
+      this.aggregator = aggregator;
+    }
+
+    @Override
+    public Iterable<long[]> call(Tuple2<String, KeyState> keyState) {
+      if (keyState._2().idleBatches > 0) {
+        return Collections.emptyList();
+      }
+      OutputEmitter outputEmitter = new OutputEmitter();
+      aggregator.finalize(keyState._1(), keyState._2().aggValue, outputEmitter);
+      return outputEmitter.outputs;
+    }
+  }
+
+  /**
+   * Sums up the number of outputs of a micro batch, their counts and their sums, and hands them over to the
+   * benchmark.
+   */
+  private static final class CollectOutputFunction implements VoidFunction2<JavaRDD<long[]>, Time> {
+
+    private final long batchMillis;
+
+    private CollectOutputFunction(long batchMillis) {
+      this.batchMillis = batchMillis;
+    }
+
+    @Override
+    public void call(JavaRDD<long[]> outputs, Time time) {
+      long[] totals = outputs.map(new TotalsFunction()).fold(new long[3], new AddTotalsFunction());
+      BATCH_OUTPUTS.add(new BatchOutput(time.milliseconds() / batchMillis - 1, totals[0], totals[1], totals[2]));
+    }
+  }
+
+  /**
+   * Turns an output into {1, count, sum} totals.
+   */
+  private static final class TotalsFunction implements Function<long[], long[]> {
+
+    @Override
+    public long[] call(long[] output) {
+      return new long[] { 1, output[0], output[1] };
+    }
+  }
+
+  /**
+   * Adds up two totals.
+   */
+  private static final class AddTotalsFunction implements Function2<long[], long[], long[]> {
+
+    @Override
+    public long[] call(long[] totals1, long[] totals2) {
+      return new long[] { totals1[0] + totals2[0], totals1[1] + totals2[1], totals1[2] + totals2[2] };
+    }
+  }
+
+  /**
+   * The totals of the outputs of a micro batch.
+   */
+  private static final class BatchOutput {
+    private final long batch;
+    private final long keys;
+    private final long count;
+    private final long sum;
+
+    private BatchOutput(long batch, long keys, long count, long sum) {
+      this.batch = batch;
+      this.keys = keys;
+      this.count = count;
+      this.sum = sum;
+    }
+  }
+
+  /**
+   * Computes the count and the sum of the values of each group, with a {count, sum} array as aggregate value.
+   * Values are assigned to keys round robin.
+   */
+  private static final class CountSumReducibleAggregator
+    extends BatchReducibleAggregator<String, Long, long[], long[]> implements Serializable {
+
+    private final int numKeys;
+
+    private CountSumReducibleAggregator(int numKeys) {
+      this.numKeys = numKeys;
+    }
+
+    @Override
+    public void groupBy(Long value, Emitter<String> emitter) {
+      emitter.emit("key" + value % numKeys);
+    }
+
+    @Override
+    public long[] initializeAggregateValue(Long value) {
+      return new long[] { 1, value };
+    }
+
+    @Override
+    public long[] mergeValues(long[] aggValue, Long value) {
+      aggValue[0]++;
+      aggValue[1] += value;
+      return aggValue;
+    }
+
+    @Override
+    public long[] mergePartitions(long[] aggValue1, long[] aggValue2) {
+      aggValue1[0] += aggValue2[0];
+      aggValue1[1] += aggValue2[1];
+      return aggValue1;
+    }
+
+    @Override
+    public void finalize(String groupKey, long[] aggValue, Emitter<long[]> emitter) {
+      emitter.emit(aggValue);
+    }
+  }
+
+  /**
+   * An {@link Emitter} that collects the group keys emitted.
+   */
+  private static final class KeyEmitter extends NoAlertEmitter<String> {
+
+    private final List<String> keys = new ArrayList<>(1);
+
+    @Override
+    public void emit(String value) {
+      keys.add(value);
+    }
+  }
+
+  /**
+   * An {@link Emitter} that collects the outputs emitted.
+   */
+  private static final class OutputEmitter extends NoAlertEmitter<long[]> {
+
+    private final List<long[]> outputs = new ArrayList<>(1);
+
+    @Override
+    public void emit(long[] value) {
+      outputs.add(value);
+    }
+  }
+
+  /**
+   * Base {@link Emitter} that doesn't support alerts and errors.
+   */
+  private abstract static class NoAlertEmitter<T> implements Emitter<T> {
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void emitError(InvalidEntry<T> invalidEntry) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the binary encoding and decoding of {@link StructuredRecord} with
+ * {@link StructuredRecordDatumWriter} and {@link StructuredRecordDatumReader}, using wide pipeline records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredRecordCodecBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int numFields;
+
+  private final StructuredRecordDatumWriter writer = new StructuredRecordDatumWriter();
+  private final StructuredRecordDatumReader reader = new StructuredRecordDatumReader();
+  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+  private Schema schema;
+  private StructuredRecord record;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws IOException {
+    schema = BenchmarkData.createWideSchema(numFields);
+    record = BenchmarkData.createRecord(schema, new Random(0));
+    encoded = encode();
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    os.reset();
+    writer.encode(record, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+
+  @Benchmark
+  public StructuredRecord decode() throws IOException {
+    return reader.read(new BinaryDecoder(new ByteArrayInputStream(encoded)), schema);
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.InvalidEntry;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
+import io.cdap.cdap.etl.common.FusedTransform;
+import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.RecordType;
+import io.cdap.cdap.etl.common.TrackedTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks for a chain of transforms executed as a single {@link FusedTransform}, compared with a model of the
+ * MapReduce engine executing each stage as its own pipe stage.
+ *
+ * The pipe stages of the engine are in cdap-etl-batch, which this module does not depend on. {@link PipeStageModel}
+ * models the path a record takes through {@code UnwrapPipeStage} and {@code PipeEmitter} with the real
+ * {@link TrackedTransform}: one tracked emitter created for every record, metrics counted for every record, failures
+ * caught for every stage and every output wrapped in a {@link RecordInfo} and sent to a set of consumers. The
+ * {@code pipeModel} results are for that model, not for the engine classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransformChainBenchmark {
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "record",
+    Schema.Field.of("id", Schema.of(Schema.Type.LONG)),
+    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+
+  @Param({"1000000"})
+  private int numRecords;
+
+  @Param({"10"})
+  private int numTransforms;
+
+  private List<StructuredRecord> records;
+  private PipeStageModel firstStage;
+  private FusedTransform<StructuredRecord, Object> fused;
+  private CountingEmitter output;
+
+  @Setup
+  public void setup() {
+    records = new ArrayList<>(numRecords);
+    for (int i = 0; i < numRecords; i++) {
+      records.add(StructuredRecord.builder(SCHEMA).set("id", (long) i).set("name", "name" + i).build());
+    }
+
+    CountingMetrics metrics = new CountingMetrics();
+    output = new CountingEmitter();
+    FusedTransform.Builder builder = FusedTransform.builder();
+    PipeStageModel next = null;
+    for (int i = numTransforms - 1; i >= 0; i--) {
+      String stageName = "transform" + i;
+      DefaultStageMetrics stageMetrics = new DefaultStageMetrics(metrics, stageName);
+      TrackedTransform<StructuredRecord, StructuredRecord> transform =
+        new TrackedTransform<>(new IdFilter(), stageMetrics, new DisabledDataTracer(stageName));
+      next = new PipeStageModel(stageName, transform, next == null ? output : next);
+    }
+    firstStage = next;
+    for (int i = 0; i < numTransforms; i++) {
+      String stageName = "transform" + i;
+      builder.addStage(stageName, new IdFilter(), new DefaultStageMetrics(metrics, stageName),
+                       new NoopStageStatisticsCollector(), output);
+    }
+    fused = builder.build();
+  }
+
+  @Benchmark
+  public long pipeModel() {
+    output.count = 0;
+    for (StructuredRecord record : records) {
+      firstStage.consume(RecordInfo.builder(record, "source", RecordType.OUTPUT).build());
+    }
+    return output.count;
+  }
+
+  @Benchmark
+  public long fused() throws Exception {
+    output.count = 0;
+    for (StructuredRecord record : records) {
+      fused.transform(record, output);
+    }
+    return output.count;
+  }
+
+  /**
+   * A transform that drops records with a negative id, which never happens, so that every record goes through
+   * the whole chain.
+   */
+  private static final class IdFilter extends Transform<StructuredRecord, StructuredRecord> {
+
+    @Override
+    public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
+      Long id = input.get("id");
+      if (id >= 0) {
+        emitter.emit(input);
+      }
+    }
+  }
+
+  /**
+   * A model of a transform stage of the MapReduce engine. Like {@code PipeStage} and {@code UnwrapPipeStage}, it
+   * unwraps its input and fails with the stage name if the transform throws. Like {@code PipeEmitter}, it wraps every
+   * output in a {@link RecordInfo} and sends it to each of the consumers of the stage.
+   */
+  private static final class PipeStageModel implements Emitter<Object> {
+    private final String stageName;
+    private final TrackedTransform<StructuredRecord, StructuredRecord> transform;
+    private final Set<PipeStageModel> consumers;
+    private final Emitter<Object> output;
+
+    private PipeStageModel(String stageName, TrackedTransform<StructuredRecord, StructuredRecord> transform,
+                           Emitter<Object> next) {
+      this.stageName = stageName;
+      this.transform = transform;
+      this.consumers = next instanceof PipeStageModel ?
+        ImmutableSet.of((PipeStageModel) next) : ImmutableSet.of();
+      this.output = next;
+    }
+
+    @SuppressWarnings("unchecked")
+    void consume(RecordInfo<?> input) {
+      try {
+        transform.transform((StructuredRecord) input.getValue(), (Emitter) this);
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to execute pipeline stage " + stageName, e);
+      }
+    }
+
+    @Override
+    public void emit(Object value) {
+      RecordInfo<Object> record = RecordInfo.builder(value, stageName, RecordType.OUTPUT).build();
+      if (consumers.isEmpty()) {
+        output.emit(record.getValue());
+        return;
+      }
+      for (PipeStageModel consumer : consumers) {
+        consumer.consume(record);
+      }
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Object> invalidEntry) {
+      output.emitError(invalidEntry);
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      output.emitAlert(payload);
+    }
+  }
+
+  /**
+   * A data tracer that is never enabled, like outside of preview.
+   */
+  private static final class DisabledDataTracer implements DataTracer {
+    private final String name;
+
+    private DisabledDataTracer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void info(String propertyName, Object propertyValue) {
+      // no-op
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+  }
+
+  /**
+   * Emitter that counts the records output by the last stage.
+   */
+  private static final class CountingEmitter implements Emitter<Object> {
+    private long count;
+
+    @Override
+    public void emit(Object value) {
+      count++;
+    }
+
+    @Override
+    public void emitError(InvalidEntry<Object> invalidEntry) {
+      // no-op
+    }
+
+    @Override
+    public void emitAlert(Map<String, String> payload) {
+      // no-op
+    }
+  }
+
+  /**
+   * Metrics that aggregate counts in memory, like the metrics collectors of programs do until they are reported.
+   */
+  private static final class CountingMetrics implements Metrics {
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void count(String metricName, int delta) {
+      counts.computeIfAbsent(metricName, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+}
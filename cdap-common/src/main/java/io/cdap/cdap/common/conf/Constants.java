@@ -587,6 +587,8 @@ public final class Constants {
     public static final String SERVICE_DESCRIPTION = "Service to handle metrics requests.";
     public static final String PROCESSOR_MAX_DELAY_MS = "metrics.processor.max.delay.ms";
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
+    public static final String WRITE_COMBINING_WINDOW_MS = "metrics.processor.write.combining.window.ms";
+    public static final String WRITE_COMBINING_BUFFER_BYTES = "metrics.processor.write.combining.buffer.bytes";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
@@ -775,6 +777,14 @@ public final class Constants {
     public static final class MetadataStorage {
       public static final String METRICS_PREFIX = "metadata.storage.";
     }
+
+    /**
+     * App metadata store metrics
+     */
+    public static final class AppMetadataStore {
+      public static final String APPLICATION_CACHE_HITS = "app.metadata.store.application.cache.hits";
+      public static final String APPLICATION_CACHE_MISSES = "app.metadata.store.application.cache.misses";
+    }
   }
 
   /**
@@ -1206,6 +1216,9 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
+  public static final String CFG_DATA_LEVELDB_FACTORY = "data.local.storage.factory";
+  public static final String CFG_DATA_LEVELDB_COMPRESSION = "data.local.storage.compression";
+  public static final String CFG_DATA_LEVELDB_TOTAL_CACHESIZE = "data.local.storage.total.cachesize";
 
   /**
    * Defaults for Data Fabric.
@@ -1214,6 +1227,9 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final String DEFAULT_DATA_LEVELDB_FACTORY = "org.iq80.leveldb.impl.Iq80DBFactory";
+  public static final String DEFAULT_DATA_LEVELDB_COMPRESSION = "NONE";
+  public static final long DEFAULT_DATA_LEVELDB_TOTAL_CACHESIZE = 1024 * 1024 * 512;
 
   /**
    * Used for upgrade and backwards compatability
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.leveldb;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.DirUtils;
+import org.iq80.leveldb.CompressionType;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBComparator;
+import org.iq80.leveldb.DBFactory;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Opens LevelDB databases with the {@link DBFactory}, block size and compression configured in the
+ * {@link CConfiguration}, and shares the configured total block cache size between all databases it opened.
+ *
+ * Each database gets at most the configured cache size. Once the total is used up, each further database still
+ * gets a cache of {@link #MIN_CACHE_SIZE}, which is counted against the total as well. A cache size of zero is
+ * never used, because some LevelDB implementations replace it with their own default.
+ */
+@Singleton
+public final class LevelDBProvider {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LevelDBProvider.class);
+
+  @VisibleForTesting
+  static final long MIN_CACHE_SIZE = 1024 * 1024;
+
+  private final DBFactory factory;
+  private final int blockSize;
+  private final long cacheSize;
+  private final long minCacheSize;
+  private final long totalCacheSize;
+  private final CompressionType compressionType;
+  // cache size reserved by each open database, keyed by the absolute database directory
+  private final Map<String, Long> cacheSizes;
+  private long reservedCacheSize;
+
+  @Inject
+  public LevelDBProvider(CConfiguration cConf) {
+    this.factory = createDBFactory(cConf.get(Constants.CFG_DATA_LEVELDB_FACTORY,
+                                             Constants.DEFAULT_DATA_LEVELDB_FACTORY));
+    this.blockSize = cConf.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE);
+    this.cacheSize = cConf.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
+    Preconditions.checkArgument(cacheSize > 0, "The LevelDB cache size '%s' must be positive, but is %s.",
+                                Constants.CFG_DATA_LEVELDB_CACHESIZE, cacheSize);
+    this.minCacheSize = Math.min(cacheSize, MIN_CACHE_SIZE);
+    this.totalCacheSize = cConf.getLong(Constants.CFG_DATA_LEVELDB_TOTAL_CACHESIZE,
+                                        Constants.DEFAULT_DATA_LEVELDB_TOTAL_CACHESIZE);
+    this.compressionType = CompressionType.valueOf(
+      cConf.get(Constants.CFG_DATA_LEVELDB_COMPRESSION,
+                Constants.DEFAULT_DATA_LEVELDB_COMPRESSION).trim().toUpperCase(Locale.ENGLISH));
+    this.cacheSizes = new HashMap<>();
+  }
+
+  /**
+   * Opens the database in the given directory and reserves its block cache. The reservation is kept until
+   * {@link #release(File)} or {@link #destroy(File)} is called for the same directory.
+   *
+   * @param dir the database directory
+   * @param createIfMissing whether to create the database if it does not exist
+   * @param comparator the key comparator, or {@code null} to use the default one
+   * @return the opened database
+   * @throws IOException if the database cannot be opened
+   */
+  public DB open(File dir, boolean createIfMissing, @Nullable DBComparator comparator) throws IOException {
+    // The JNI implementation only creates the database directory itself, not its parents
+    File parent = dir.getAbsoluteFile().getParentFile();
+    if (createIfMissing && parent != null && !DirUtils.mkdirs(parent)) {
+      throw new IOException("Failed to create directory " + parent);
+    }
+    Options options = new Options()
+      .createIfMissing(createIfMissing)
+      .errorIfExists(false)
+      .blockSize(blockSize)
+      .compressionType(compressionType)
+      .cacheSize(reserve(dir));
+    if (comparator != null) {
+      options.comparator(comparator);
+    }
+    try {
+      return factory.open(dir, options);
+    } catch (IOException | RuntimeException e) {
+      release(dir);
+      throw e;
+    }
+  }
+
+  /**
+   * Releases the block cache reserved for the database in the given directory. The database must be closed
+   * by the caller.
+   */
+  public synchronized void release(File dir) {
+    Long size = cacheSizes.remove(dir.getAbsolutePath());
+    if (size != null) {
+      reservedCacheSize -= size;
+    }
+  }
+
+  /**
+   * Releases the block cache reserved for the database in the given directory and deletes the database. The
+   * database must be closed by the caller.
+   */
+  public void destroy(File dir) throws IOException {
+    release(dir);
+    factory.destroy(dir, new Options());
+  }
+
+  /**
+   * Returns the block cache size reserved for the database in the given directory, or {@code 0} if it is not open.
+   */
+  public synchronized long getCacheSize(File dir) {
+    Long size = cacheSizes.get(dir.getAbsolutePath());
+    return size == null ? 0L : size;
+  }
+
+  @VisibleForTesting
+  public DBFactory getDBFactory() {
+    return factory;
+  }
+
+  private synchronized long reserve(File dir) {
+    release(dir);
+    long size = Math.max(minCacheSize, Math.min(cacheSize, totalCacheSize - reservedCacheSize));
+    cacheSizes.put(dir.getAbsolutePath(), size);
+    reservedCacheSize += size;
+    return size;
+  }
+
+  /**
+   * Creates the {@link DBFactory} of the given class name. Falls back to the pure Java implementation if the class
+   * cannot be loaded or instantiated, for example because the native library of a JNI implementation is missing.
+   */
+  @VisibleForTesting
+  static DBFactory createDBFactory(String className) {
+    if (Iq80DBFactory.class.getName().equals(className)) {
+      return Iq80DBFactory.factory;
+    }
+    try {
+      return Class.forName(className).asSubclass(DBFactory.class).newInstance();
+    } catch (Exception | LinkageError e) {
+      LOG.warn("Failed to create LevelDB factory {}. Using {} instead.",
+               className, Iq80DBFactory.class.getName(), e);
+      return Iq80DBFactory.factory;
+    }
+  }
+}
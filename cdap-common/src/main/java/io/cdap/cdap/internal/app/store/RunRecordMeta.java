@@ -207,10 +207,16 @@ public final class RunRecordMeta extends RunRecord {
     }
 
     public Builder setSystemArgs(@Nullable Map<String, String> systemArgs) {
-      this.systemArgs.clear();
-      if (systemArgs != null) {
-        this.systemArgs.putAll(systemArgs);
-      }
+      this.systemArgs = systemArgs == null ? new HashMap<>() : new HashMap<>(systemArgs);
+      return this;
+    }
+
+    /**
+     * Sets the system arguments to the given map instead of a copy of it, so that a map decoded lazily by the
+     * {@link RunRecordMetaCodec} is not decoded when the run record is built.
+     */
+    Builder setSystemArgsWithoutCopy(Map<String, String> systemArgs) {
+      this.systemArgs = systemArgs;
       return this;
     }
 
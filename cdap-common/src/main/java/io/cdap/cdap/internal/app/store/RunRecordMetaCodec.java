@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.cdap.cdap.internal.app.store;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes and decodes {@link RunRecordMeta} to and from the string stored in the run records table.
+ *
+ * Run records are written in a versioned compact binary format, which is Base64 encoded so that it can be
+ * stored in the same string column that holds the JSON run records written by older versions. Decoding accepts
+ * both formats, so that existing run records remain readable and get rewritten in the binary format on their
+ * next state transition, or when the run records are migrated in the background.
+ *
+ * The system arguments of a run are the largest part of its run record, but most reads of run records don't use
+ * them. They are encoded as a separate block that is only decoded when the system arguments are first accessed.
+ * Run records in the first version of the binary format, which didn't have that block, are still decoded.
+ */
+public final class RunRecordMetaCodec {
+
+  private static final Gson GSON = new Gson();
+  private static final int VERSION = 2;
+  // the first binary version, which encoded the system arguments inline
+  private static final int VERSION_INLINE_SYSTEM_ARGS = 1;
+
+  private RunRecordMetaCodec() {
+    // prevent instantiation
+  }
+
+  /**
+   * Encodes the given {@link RunRecordMeta} in the current binary format. The {@link ProgramId} of the run
+   * is not encoded, as it is part of the key of the run record.
+   */
+  public static String encode(RunRecordMeta meta) {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(256);
+    Encoder encoder = new BinaryEncoder(os);
+    try {
+      encoder.writeInt(VERSION);
+      encoder.writeString(meta.getPid());
+      encoder.writeLong(meta.getStartTs());
+      writeNullableLong(encoder, meta.getRunTs());
+      writeNullableLong(encoder, meta.getStopTs());
+      writeNullableLong(encoder, meta.getSuspendTs());
+      writeNullableLong(encoder, meta.getResumeTs());
+      encoder.writeString(meta.getStatus().name());
+      writeMap(encoder, meta.getProperties());
+
+      ProgramRunCluster cluster = meta.getCluster();
+      encoder.writeBool(cluster != null);
+      if (cluster != null) {
+        encoder.writeString(cluster.getStatus().name());
+        writeNullableLong(encoder, cluster.getEnd());
+        encoder.writeBool(cluster.getNumNodes() != null);
+        if (cluster.getNumNodes() != null) {
+          encoder.writeInt(cluster.getNumNodes());
+        }
+      }
+
+      ProfileId profileId = meta.getProfileId();
+      encoder.writeBool(profileId != null);
+      if (profileId != null) {
+        encoder.writeString(profileId.getNamespace());
+        encoder.writeString(profileId.getProfile());
+      }
+
+      writeNullableString(encoder, meta.getTwillRunId());
+      ByteArrayOutputStream systemArgs = new ByteArrayOutputStream(256);
+      writeMap(new BinaryEncoder(systemArgs), meta.getSystemArgs());
+      encoder.writeBytes(systemArgs.toByteArray());
+
+      byte[] sourceId = meta.getSourceId();
+      encoder.writeBool(sourceId != null);
+      if (sourceId != null) {
+        encoder.writeBytes(sourceId);
+      }
+
+      ArtifactId artifactId = meta.getArtifactId();
+      encoder.writeBool(artifactId != null);
+      if (artifactId != null) {
+        encoder.writeString(artifactId.getName());
+        encoder.writeString(artifactId.getVersion().getVersion());
+        encoder.writeString(artifactId.getScope().name());
+      }
+
+      writeNullableString(encoder, meta.getPrincipal());
+    } catch (IOException e) {
+      // Shouldn't happen since it is writing to memory
+      throw new RuntimeException("Failed to encode run record " + meta, e);
+    }
+    return Base64.getEncoder().encodeToString(os.toByteArray());
+  }
+
+  /**
+   * Returns whether the given encoded run record is in JSON, as written by older versions.
+   */
+  public static boolean isJson(String data) {
+    return data.startsWith("{");
+  }
+
+  /**
+   * Decodes a {@link RunRecordMeta} that was encoded either by {@link #encode(RunRecordMeta)} or as JSON.
+   *
+   * @param programId the program that the run record belongs to
+   * @param data the encoded run record
+   * @return the decoded {@link RunRecordMeta}
+   */
+  public static RunRecordMeta decode(ProgramId programId, String data) {
+    if (isJson(data)) {
+      RunRecordMeta existing = GSON.fromJson(data, RunRecordMeta.class);
+      return RunRecordMeta.builder(existing).setProgramRunId(programId.run(existing.getPid())).build();
+    }
+
+    Decoder decoder = new BinaryDecoder(new ByteArrayInputStream(Base64.getDecoder().decode(data)));
+    try {
+      int version = decoder.readInt();
+      if (version != VERSION && version != VERSION_INLINE_SYSTEM_ARGS) {
+        throw new IllegalArgumentException("Unsupported run record encoding version " + version);
+      }
+      RunRecordMeta.Builder builder = RunRecordMeta.builder()
+        .setProgramRunId(programId.run(decoder.readString()))
+        .setStartTime(decoder.readLong())
+        .setRunTime(readNullableLong(decoder))
+        .setStopTime(readNullableLong(decoder))
+        .setSuspendTime(readNullableLong(decoder))
+        .setResumeTime(readNullableLong(decoder))
+        .setStatus(ProgramRunStatus.valueOf(decoder.readString()))
+        .setProperties(readMap(decoder));
+
+      if (decoder.readBool()) {
+        ProgramRunClusterStatus clusterStatus = ProgramRunClusterStatus.valueOf(decoder.readString());
+        Long end = readNullableLong(decoder);
+        Integer numNodes = decoder.readBool() ? decoder.readInt() : null;
+        builder.setCluster(new ProgramRunCluster(clusterStatus, end, numNodes));
+      }
+      if (decoder.readBool()) {
+        builder.setProfileId(new ProfileId(decoder.readString(), decoder.readString()));
+      }
+
+      builder.setTwillRunId(readNullableString(decoder));
+      if (version == VERSION_INLINE_SYSTEM_ARGS) {
+        builder.setSystemArgs(readMap(decoder));
+      } else {
+        builder.setSystemArgsWithoutCopy(new LazyDecodedMap(readBytes(decoder)));
+      }
+
+      if (decoder.readBool()) {
+        builder.setSourceId(readBytes(decoder));
+      }
+      if (decoder.readBool()) {
+        builder.setArtifactId(new ArtifactId(decoder.readString(), new ArtifactVersion(decoder.readString()),
+                                             ArtifactScope.valueOf(decoder.readString())));
+      }
+      builder.setPrincipal(readNullableString(decoder));
+      return builder.build();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to decode run record of program " + programId, e);
+    }
+  }
+
+  private static byte[] readBytes(Decoder decoder) throws IOException {
+    ByteBuffer buffer = decoder.readBytes();
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static void writeNullableLong(Encoder encoder, @Nullable Long value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeLong(value);
+    }
+  }
+
+  @Nullable
+  private static Long readNullableLong(Decoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readLong() : null;
+  }
+
+  private static void writeNullableString(Encoder encoder, @Nullable String value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeString(value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(Decoder decoder) throws IOException {
+    return decoder.readBool() ? decoder.readString() : null;
+  }
+
+  private static void writeMap(Encoder encoder, Map<String, String> map) throws IOException {
+    encoder.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      encoder.writeString(entry.getKey());
+      encoder.writeString(entry.getValue());
+    }
+  }
+
+  private static Map<String, String> readMap(Decoder decoder) throws IOException {
+    int size = decoder.readInt();
+    Map<String, String> map = new HashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      map.put(decoder.readString(), decoder.readString());
+    }
+    return map;
+  }
+
+  /**
+   * An unmodifiable map that is decoded from its binary encoding when it is first accessed.
+   */
+  private static final class LazyDecodedMap extends AbstractMap<String, String> {
+
+    private final byte[] encoded;
+    private volatile Map<String, String> decoded;
+
+    private LazyDecodedMap(byte[] encoded) {
+      this.encoded = encoded;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return getDecoded().entrySet();
+    }
+
+    @Override
+    public int size() {
+      return getDecoded().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return getDecoded().containsKey(key);
+    }
+
+    @Override
+    public String get(Object key) {
+      return getDecoded().get(key);
+    }
+
+    private Map<String, String> getDecoded() {
+      Map<String, String> map = decoded;
+      if (map == null) {
+        try {
+          map = Collections.unmodifiableMap(readMap(new BinaryDecoder(new ByteArrayInputStream(encoded))));
+        } catch (IOException e) {
+          // Shouldn't happen since it is reading from memory
+          throw new IllegalStateException("Failed to decode map", e);
+        }
+        decoded = map;
+      }
+      return map;
+    }
+  }
+}
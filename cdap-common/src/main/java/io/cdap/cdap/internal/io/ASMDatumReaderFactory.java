@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.asm.ByteCodeClassLoader;
+import io.cdap.cdap.internal.asm.ClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * A factory class for creating {@link DatumReader} instance for different data type and schema.
+ * It serves as an in memory cache for {@link DatumReader} generated using ASM, one for each combination of
+ * data type, source schema and target schema. Since the source schema is only known when decoding, the
+ * {@link DatumReader} created by this factory picks the generated {@link DatumReader} on the first read and whenever
+ * the source schema changes. If a {@link DatumReader} cannot be generated for a combination, decoding falls back to
+ * {@link ReflectionDatumReader}, which is logged once per combination.
+ */
+public final class ASMDatumReaderFactory implements DatumReaderFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ASMDatumReaderFactory.class);
+
+  private final LoadingCache<CacheKey, Optional<DatumReader<?>>> datumReaders;
+
+  @Inject
+  public ASMDatumReaderFactory(FieldAccessorFactory fieldAccessorFactory) {
+    this.datumReaders = CacheBuilder.newBuilder().build(new ASMCacheLoader(fieldAccessorFactory));
+  }
+
+  /**
+   * Creates a {@link DatumReader} that is able to decode given data type with the given {@link Schema}.
+   * Creating a {@link DatumReader} is cheap, as the generated classes are shared by all instances.
+   *
+   * @param type Type information of the data type to be decoded.
+   * @param schema Schema of the data type.
+   * @param <T> Type of the data type.
+   * @return A {@link DatumReader} instance.
+   */
+  @Override
+  public <T> DatumReader<T> create(TypeToken<T> type, Schema schema) {
+    return new ASMDatumReader<>(type, schema);
+  }
+
+  /**
+   * Returns the generated {@link DatumReader} used for decoding data written with the given source schema, or
+   * {@code null} if it cannot be generated and decoding falls back to {@link ReflectionDatumReader}.
+   */
+  @VisibleForTesting
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> DatumReader<T> getGenerated(TypeToken<T> type, Schema sourceSchema, Schema targetSchema) {
+    return (DatumReader<T>) datumReaders.getUnchecked(new CacheKey(type, sourceSchema, targetSchema)).orNull();
+  }
+
+  /**
+   * A {@link DatumReader} that delegates to the generated {@link DatumReader} for the source schema.
+   *
+   * @param <T> Type of the data type.
+   */
+  private final class ASMDatumReader<T> implements DatumReader<T> {
+
+    private final TypeToken<T> type;
+    private final Schema schema;
+    private volatile ResolvedReader resolved;
+    private DatumReader<T> reflectionReader;
+
+    private ASMDatumReader(TypeToken<T> type, Schema schema) {
+      this.type = type;
+      this.schema = schema;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T read(Decoder decoder, Schema sourceSchema) throws IOException {
+      ResolvedReader resolved = this.resolved;
+      if (resolved == null
+        || (resolved.sourceSchema != sourceSchema && !resolved.sourceSchema.equals(sourceSchema))) {
+        resolved = new ResolvedReader(sourceSchema,
+                                      datumReaders.getUnchecked(new CacheKey(type, sourceSchema, schema)).orNull());
+        this.resolved = resolved;
+      }
+      if (resolved.reader != null) {
+        return (T) resolved.reader.read(decoder, sourceSchema);
+      }
+      return getReflectionReader().read(decoder, sourceSchema);
+    }
+
+    private synchronized DatumReader<T> getReflectionReader() {
+      if (reflectionReader == null) {
+        reflectionReader = new ReflectionDatumReader<>(schema, type);
+      }
+      return reflectionReader;
+    }
+  }
+
+  /**
+   * A source schema together with the generated {@link DatumReader} for it, or {@code null} if there is none.
+   */
+  private static final class ResolvedReader {
+    private final Schema sourceSchema;
+    private final DatumReader<?> reader;
+
+    private ResolvedReader(Schema sourceSchema, DatumReader<?> reader) {
+      this.sourceSchema = sourceSchema;
+      this.reader = reader;
+    }
+  }
+
+  /**
+   * A private {@link CacheLoader} for generating {@link DatumReader} for different data type and schemas.
+   */
+  private static final class ASMCacheLoader extends CacheLoader<CacheKey, Optional<DatumReader<?>>> {
+
+    private final Map<TypeToken<?>, ByteCodeClassLoader> classloaders = Maps.newIdentityHashMap();
+    private final FieldAccessorFactory fieldAccessorFactory;
+    private final InstantiatorFactory instantiatorFactory;
+
+    private ASMCacheLoader(FieldAccessorFactory fieldAccessorFactory) {
+      this.fieldAccessorFactory = fieldAccessorFactory;
+      this.instantiatorFactory = new InstantiatorFactory(true);
+    }
+
+    @Override
+    public Optional<DatumReader<?>> load(CacheKey key) {
+      try {
+        ClassDefinition classDef = new DatumReaderGenerator().generate(key.getType(), key.getSourceSchema(),
+                                                                       key.getTargetSchema());
+        Class<?> readerClass;
+        synchronized (this) {
+          ByteCodeClassLoader classloader = classloaders.get(key.getType());
+          if (classloader == null) {
+            // The ClassLoader of the generated DatumReader has CDAP system ClassLoader as parent.
+            // The ClassDefinition contains list of classes that should not be loaded by the generated class ClassLoader
+            classloader = new ByteCodeClassLoader(ASMDatumReaderFactory.class.getClassLoader());
+            classloaders.put(key.getType(), classloader);
+          }
+          readerClass = classloader.addClass(classDef).loadClass(classDef.getClassName());
+        }
+        return Optional.<DatumReader<?>>of(
+          (DatumReader<?>) readerClass.getConstructor(FieldAccessorFactory.class, InstantiatorFactory.class)
+            .newInstance(fieldAccessorFactory, instantiatorFactory));
+      } catch (Exception | LinkageError e) {
+        // LinkageError covers generated classes that fail verification when they are loaded or instantiated.
+        // The result is cached, so this is logged once for each combination of type and schemas.
+        LOG.warn("Failed to generate DatumReader for type {} with source schema {} and target schema {}. "
+                    + "Using reflection based DatumReader instead.",
+                  key.getType(), key.getSourceSchema(), key.getTargetSchema(), e);
+        return Optional.absent();
+      }
+    }
+  }
+
+  private static final class CacheKey {
+    private final TypeToken<?> type;
+    private final Schema sourceSchema;
+    private final Schema targetSchema;
+
+    private CacheKey(TypeToken<?> type, Schema sourceSchema, Schema targetSchema) {
+      this.type = type;
+      this.sourceSchema = sourceSchema;
+      this.targetSchema = targetSchema;
+    }
+
+    public TypeToken<?> getType() {
+      return type;
+    }
+
+    public Schema getSourceSchema() {
+      return sourceSchema;
+    }
+
+    public Schema getTargetSchema() {
+      return targetSchema;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return type.equals(cacheKey.type) && sourceSchema.equals(cacheKey.sourceSchema)
+        && targetSchema.equals(cacheKey.targetSchema);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(type, sourceSchema, targetSchema);
+    }
+  }
+}
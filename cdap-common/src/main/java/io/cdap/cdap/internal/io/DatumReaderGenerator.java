@@ -0,0 +1,1455 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.internal.io;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.lang.Instantiator;
+import io.cdap.cdap.common.lang.InstantiatorFactory;
+import io.cdap.cdap.internal.asm.ClassDefinition;
+import io.cdap.cdap.internal.asm.Methods;
+import io.cdap.cdap.internal.asm.Signatures;
+import io.cdap.cdap.internal.lang.Fields;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.commons.TableSwitchGenerator;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Class for generating {@link DatumReader} bytecodes using ASM. A generated class decodes data written with a given
+ * source schema into objects of a given type with a given target schema. Since both schemas are known when the class
+ * is generated, the schema resolution, including the projection of record fields and the promotion of simple
+ * types, is done at generation time and the generated code only decodes and assigns values. The class generated will
+ * have a skeleton looks like the following:
+ * <pre>
+ * {@code
+ *
+ *  public final class generatedClassName implements DatumReader<InputType> {
+ *    private final FieldAccessor recordTypeName$fieldName;
+ *    private final Instantiator recordTypeName$instantiator;
+ *
+ *    public generatedClassName(FieldAccessorFactory accessorFactory, InstantiatorFactory instantiatorFactory) {
+ *      // Get the field accessors and instantiators of the record types
+ *    }
+ *
+ *    @Override
+ *    public Object read(Decoder decoder, Schema sourceSchema) throws IOException {
+ *      return generatedReadMethod(decoder);
+ *    }
+ *
+ *    private InputType generatedReadMethod(Decoder decoder) throws IOException {
+ *      // Do actual decoding by calling methods on decoder based on the source schema.
+ *    }
+ *
+ *    // Could have more generatedReadMethods and generatedSkipMethods...
+ *  }
+ * }
+ * </pre>
+ *
+ * For example, to decode a record with a {@code long} field and a {@code String} field, written with a schema
+ * that has an extra {@code int} field in between, a generated {@link DatumReader} will looks like this after
+ * decompile.
+ * <pre>
+ * {@code
+ *
+ *   public final class RecordDatumReader3B1C...9A0E implements DatumReader<Record> {
+ *     private final FieldAccessor Record$id;
+ *     private final FieldAccessor Record$name;
+ *
+ *     public Object read(Decoder paramDecoder, Schema paramSchema) throws IOException {
+ *       return readRecord3B1C...9A0E(paramDecoder);
+ *     }
+ *
+ *     private Object readRecord3B1C...9A0E(Decoder paramDecoder) throws IOException {
+ *       Record localRecord = new Record();
+ *       this.Record$id.setLong(localRecord, readlong5D2F...(paramDecoder));
+ *       skip9E68...(paramDecoder);
+ *       this.Record$name.set(localRecord, readString8E1B...(paramDecoder));
+ *       return localRecord;
+ *     }
+ *
+ *     private long readlong5D2F...(Decoder paramDecoder) throws IOException {
+ *       return paramDecoder.readLong();
+ *     }
+ *
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * The schema resolution follows the one done by {@link ReflectionDatumReader}, except that the branch of a target
+ * union schema is chosen by comparing the schemas instead of by trying to decode the data with each branch.
+ */
+@NotThreadSafe
+final class DatumReaderGenerator {
+
+  private static final Type DECODER_TYPE = Type.getType(Decoder.class);
+  private static final Type OBJECT_TYPE = Type.getType(Object.class);
+  private static final Type STRING_TYPE = Type.getType(String.class);
+  private static final Type BYTE_BUFFER_TYPE = Type.getType(ByteBuffer.class);
+  private static final Type IO_EXCEPTION_TYPE = Type.getType(IOException.class);
+
+  private final Map<String, Method> readMethods = Maps.newHashMap();
+  private final Map<String, Method> skipMethods = Maps.newHashMap();
+  private final Multimap<TypeToken<?>, String> fieldAccessorRequests = LinkedHashMultimap.create();
+  private final Set<Class<?>> instantiatorRequests = Sets.newLinkedHashSet();
+  private final Set<Class<?>> classRequests = Sets.newLinkedHashSet();
+  private final Map<Label, Label> blockEnds = Maps.newHashMap();
+  private ClassWriter classWriter;
+  private Type classType;
+  private List<Class<?>> preservedClasses;
+
+  /**
+   * Generates a {@link DatumReader} class for decoding data written with the given source schema into the given
+   * type with the given target schema.
+   *
+   * @param inputType Type information of the data type to decode to.
+   * @param sourceSchema Schema the data was written with.
+   * @param targetSchema Schema of the data type.
+   * @return A {@link ClassDefinition} that contains generated class information.
+   */
+  ClassDefinition generate(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    preservedClasses = Lists.newArrayList();
+
+    TypeToken<?> interfaceType = getInterfaceType(inputType);
+
+    // Generate the class
+    String className = getClassName(interfaceType, sourceSchema, targetSchema);
+    classType = Type.getObjectType(className);
+    classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL,
+                      className, Signatures.getClassSignature(interfaceType),
+                      Type.getInternalName(Object.class),
+                      new String[]{Type.getInternalName(interfaceType.getRawType())});
+
+    // Read method
+    generateRead(inputType, sourceSchema, targetSchema);
+
+    // Constructor
+    generateConstructor();
+
+    ClassDefinition classDefinition = new ClassDefinition(classWriter.toByteArray(), className, preservedClasses);
+    // DEBUG block. Uncomment for debug
+//    io.cdap.cdap.internal.asm.Debugs.debugByteCode(classDefinition, new java.io.PrintWriter(System.out));
+    // End DEBUG block
+    return classDefinition;
+  }
+
+  /**
+   * Generates the constructor. The constructor generated has signature
+   * {@code (FieldAccessorFactory, InstantiatorFactory)}.
+   */
+  private void generateConstructor() {
+    Method constructor = getMethod(void.class, "<init>", FieldAccessorFactory.class, InstantiatorFactory.class);
+
+    // Constructor(FieldAccessorFactory accessorFactory, InstantiatorFactory instantiatorFactory)
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, classWriter);
+
+    // super(); // Calling Object constructor
+    mg.loadThis();
+    mg.invokeConstructor(OBJECT_TYPE, getMethod(void.class, "<init>"));
+
+    // For each record field that needs an accessor, get the accessor and store it in field.
+    for (Map.Entry<TypeToken<?>, String> entry : fieldAccessorRequests.entries()) {
+      String fieldAccessorName = getFieldAccessorName(entry.getKey(), entry.getValue());
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, fieldAccessorName,
+                             Type.getDescriptor(FieldAccessor.class), null, null).visitEnd();
+      // this.fieldAccessorName
+      //  = accessorFactory.getFieldAccessor(TypeToken.of(Class.forName("className")), "fieldName");
+      mg.loadThis();
+      mg.loadArg(0);
+      mg.push(entry.getKey().getRawType().getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.push(entry.getValue());
+      mg.invokeInterface(Type.getType(FieldAccessorFactory.class),
+                         getMethod(FieldAccessor.class, "getFieldAccessor", TypeToken.class, String.class));
+      mg.putField(classType, fieldAccessorName, Type.getType(FieldAccessor.class));
+    }
+
+    // For each type that cannot be created with its public default constructor, get the instantiator.
+    for (Class<?> rawType : instantiatorRequests) {
+      String instantiatorName = getInstantiatorName(rawType);
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, instantiatorName,
+                             Type.getDescriptor(Instantiator.class), null, null).visitEnd();
+      // this.instantiatorName = instantiatorFactory.get(TypeToken.of(Class.forName("className")));
+      mg.loadThis();
+      mg.loadArg(1);
+      mg.push(rawType.getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.invokeVirtual(Type.getType(InstantiatorFactory.class),
+                       getMethod(Instantiator.class, "get", TypeToken.class));
+      mg.putField(classType, instantiatorName, Type.getType(Instantiator.class));
+    }
+
+    // For each type that is not accessible from the generated class, store the class in a field.
+    for (Class<?> rawType : classRequests) {
+      String className = getClassFieldName(rawType);
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, className,
+                             Type.getDescriptor(Class.class), null, null).visitEnd();
+      // this.className = Class.forName("className");
+      mg.loadThis();
+      mg.push(rawType.getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.putField(classType, className, Type.getType(Class.class));
+    }
+
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates the {@link DatumReader#read(Decoder, Schema)} method.
+   *
+   * @param inputType Type information of the data type to decode to.
+   * @param sourceSchema Schema the data was written with.
+   * @param targetSchema Schema of the data type.
+   */
+  private void generateRead(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    Method readMethod = getMethod(Object.class, "read", Decoder.class, Schema.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, readMethod, null,
+                                               new Type[] {IO_EXCEPTION_TYPE}, classWriter);
+
+    // Delegate to the actual read method(decoder) and box the result if needed.
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, getReadMethod(inputType, sourceSchema, targetSchema));
+    Type callType = getCallType(inputType);
+    if (callType.getSort() != Type.OBJECT) {
+      mg.valueOf(callType);
+    }
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Returns the read method for the given type and schemas. The same method will be returned if the same type and
+   * schemas have been passed to the method before.
+   *
+   * @param inputType Type information of the data type to decode to.
+   * @param sourceSchema Schema the data was written with.
+   * @param targetSchema Schema of the data type.
+   * @return A method for decoding the given type with the given schemas.
+   */
+  private Method getReadMethod(TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    String key = String.format("%s%s%s", normalizeTypeName(inputType),
+                               sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+
+    Method method = readMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    // Generate the read method (decoder)
+    method = new Method(String.format("read%s", key), getCallType(inputType), new Type[] {DECODER_TYPE});
+
+    // Put the method into map first before generating the body in order to support recursive data type.
+    readMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[] {IO_EXCEPTION_TYPE}, classWriter);
+    generateReadBody(mg, inputType, sourceSchema, targetSchema);
+    mg.returnValue();
+    mg.endMethod();
+
+    return method;
+  }
+
+  /**
+   * Generates the read method body, which leaves the decoded value on the stack.
+   *
+   * @param mg Method generator for generating method code body
+   * @param inputType Type information of the data type to decode to.
+   * @param sourceSchema Schema the data was written with.
+   * @param targetSchema Schema of the data type.
+   */
+  private void generateReadBody(GeneratorAdapter mg, TypeToken<?> inputType,
+                                Schema sourceSchema, Schema targetSchema) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType != Schema.Type.UNION && targetType == Schema.Type.UNION) {
+      // Resolve to the first union schema that the source schema can be resolved to
+      Schema resolvedSchema = null;
+      for (Schema schema : targetSchema.getUnionSchemas()) {
+        if (isResolvable(sourceSchema, schema)) {
+          resolvedSchema = schema;
+          break;
+        }
+      }
+      if (resolvedSchema == null) {
+        throwResolveException(mg, inputType, sourceSchema, targetSchema);
+      } else {
+        invokeRead(mg, inputType, sourceSchema, resolvedSchema);
+      }
+      return;
+    }
+
+    switch (sourceType) {
+      case NULL:
+        if (targetType != Schema.Type.NULL) {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        } else if (inputType.getRawType().isPrimitive()) {
+          throwIOException(mg, inputType, "Cannot assign null to type " + inputType);
+        } else {
+          mg.loadArg(0);
+          mg.invokeInterface(DECODER_TYPE, getMethod(Object.class, "readNull"));
+        }
+        break;
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        if (isResolvable(sourceSchema, targetSchema)) {
+          readSimple(mg, inputType, sourceType, targetType);
+        } else {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        }
+        break;
+      case BYTES:
+        if (targetType == Schema.Type.BYTES) {
+          readBytes(mg, inputType);
+        } else {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        }
+        break;
+      case ENUM:
+        if (targetType == Schema.Type.ENUM) {
+          readEnum(mg, inputType, sourceSchema, targetSchema);
+        } else {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        }
+        break;
+      case ARRAY:
+        if (targetType != Schema.Type.ARRAY) {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        } else if (inputType.isArray()) {
+          readArray(mg, inputType, sourceSchema.getComponentSchema(), targetSchema.getComponentSchema());
+        } else if (Collection.class.isAssignableFrom(inputType.getRawType())) {
+          Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                      "Only support parameterized collection type.");
+          TypeToken<?> componentType = TypeToken.of(((ParameterizedType) inputType.getType())
+                                                      .getActualTypeArguments()[0]);
+          readCollection(mg, inputType, componentType,
+                         sourceSchema.getComponentSchema(), targetSchema.getComponentSchema());
+        } else {
+          throw new IllegalArgumentException("Only array or collection type is supported for array value.");
+        }
+        break;
+      case MAP:
+        if (targetType != Schema.Type.MAP) {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        } else {
+          Preconditions.checkArgument(Map.class.isAssignableFrom(inputType.getRawType()),
+                                      "Only %s type is supported.", Map.class.getName());
+          Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                      "Only support parameterized map type.");
+          java.lang.reflect.Type[] mapArgs = ((ParameterizedType) inputType.getType()).getActualTypeArguments();
+          readMap(mg, inputType, TypeToken.of(mapArgs[0]), TypeToken.of(mapArgs[1]),
+                  sourceSchema.getMapSchema(), targetSchema.getMapSchema());
+        }
+        break;
+      case RECORD:
+        if (targetType == Schema.Type.RECORD) {
+          readRecord(mg, inputType, sourceSchema, targetSchema);
+        } else {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        }
+        break;
+      case UNION:
+        readUnion(mg, inputType, sourceSchema, targetSchema);
+        break;
+    }
+  }
+
+  /**
+   * Generates code for calling the read method of the given type and schemas, which leaves the decoded value on the
+   * stack.
+   */
+  private void invokeRead(GeneratorAdapter mg, TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    Method method = getReadMethod(inputType, sourceSchema, targetSchema);
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, method);
+  }
+
+  /**
+   * Generates code for decoding a simple type, with type promotion from the source schema type to the target
+   * schema type. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * // For example, reading an int into a long field
+   * return (long) decoder.readInt();
+   * }
+   * </pre>
+   */
+  private void readSimple(GeneratorAdapter mg, TypeToken<?> inputType,
+                          Schema.Type sourceType, Schema.Type targetType) {
+    Class<?> readClass = getSimpleClass(sourceType);
+    String readMethod = sourceType == Schema.Type.BOOLEAN ?
+      "readBool" : "read" + sourceType.name().charAt(0) + sourceType.name().substring(1).toLowerCase();
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(readClass, readMethod));
+
+    Class<?> rawType = inputType.getRawType();
+    if (sourceType == Schema.Type.STRING) {
+      if (URI.class.equals(rawType)) {
+        // URI.create(str)
+        mg.invokeStatic(Type.getType(URI.class), getMethod(URI.class, "create", String.class));
+      } else if (URL.class.equals(rawType)) {
+        // new URL(str)
+        int str = mg.newLocal(STRING_TYPE);
+        mg.storeLocal(str);
+        mg.newInstance(Type.getType(URL.class));
+        mg.dup();
+        mg.loadLocal(str);
+        mg.invokeConstructor(Type.getType(URL.class), getMethod(void.class, "<init>", String.class));
+      }
+      return;
+    }
+    if (targetType == Schema.Type.STRING) {
+      // String.valueOf(value)
+      mg.invokeStatic(STRING_TYPE, getMethod(String.class, "valueOf", readClass));
+      return;
+    }
+
+    Type valueType = Type.getType(readClass);
+    Type targetValueType = Type.getType(getSimpleClass(targetType));
+    if (!valueType.equals(targetValueType)) {
+      mg.cast(valueType, targetValueType);
+    }
+    toCallType(mg, targetValueType, inputType);
+  }
+
+  /**
+   * Generates code to convert a primitive value on the stack to the call type of the given type. The value is
+   * converted to the primitive type or to the wrapper type of the given type, e.g. an int value is converted to
+   * short for the {@code Short} type, and otherwise boxed.
+   */
+  private void toCallType(GeneratorAdapter mg, Type valueType, TypeToken<?> inputType) {
+    Class<?> rawType = inputType.getRawType();
+    if (rawType.isPrimitive()) {
+      Type primitiveType = Type.getType(rawType);
+      if (!primitiveType.equals(valueType)) {
+        mg.cast(valueType, primitiveType);
+      }
+      return;
+    }
+    if (Primitives.isWrapperType(rawType)) {
+      Type primitiveType = Type.getType(Primitives.unwrap(rawType));
+      if (!primitiveType.equals(valueType)) {
+        mg.cast(valueType, primitiveType);
+      }
+      mg.valueOf(primitiveType);
+      return;
+    }
+    mg.valueOf(valueType);
+  }
+
+  /**
+   * Generates code for decoding a bytes value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * ByteBuffer buffer = decoder.readBytes();
+   * // If the type is byte[]
+   * if (buffer.hasArray() && buffer.remaining() == buffer.array().length) {
+   *   return buffer.array();
+   * }
+   * byte[] bytes = new byte[buffer.remaining()];
+   * buffer.get(bytes);
+   * return bytes;
+   *
+   * // If the type is UUID
+   * return buffer.remaining() == 16 ? new UUID(buffer.getLong(), buffer.getLong()) : buffer;
+   *
+   * // Otherwise
+   * return buffer;
+   * }
+   * </pre>
+   */
+  private void readBytes(GeneratorAdapter mg, TypeToken<?> inputType) {
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(ByteBuffer.class, "readBytes"));
+
+    Class<?> rawType = inputType.getRawType();
+    if (!byte[].class.equals(rawType) && !UUID.class.equals(rawType)) {
+      return;
+    }
+
+    int buffer = mg.newLocal(BYTE_BUFFER_TYPE);
+    mg.storeLocal(buffer);
+    Label end = mg.newLabel();
+
+    if (byte[].class.equals(rawType)) {
+      Label copy = mg.newLabel();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(boolean.class, "hasArray"));
+      mg.ifZCmp(GeneratorAdapter.EQ, copy);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(int.class, "remaining"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(byte[].class, "array"));
+      mg.arrayLength();
+      mg.ifICmp(GeneratorAdapter.NE, copy);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(byte[].class, "array"));
+      mg.goTo(end);
+
+      mg.mark(copy);
+      int bytes = mg.newLocal(Type.getType(byte[].class));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(int.class, "remaining"));
+      mg.newArray(Type.BYTE_TYPE);
+      mg.storeLocal(bytes);
+      mg.loadLocal(buffer);
+      mg.loadLocal(bytes);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(ByteBuffer.class, "get", byte[].class));
+      mg.pop();
+      mg.loadLocal(bytes);
+    } else {
+      Label notUUID = mg.newLabel();
+      Type uuidType = Type.getType(UUID.class);
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(int.class, "remaining"));
+      mg.push(Longs.BYTES * 2);
+      mg.ifICmp(GeneratorAdapter.NE, notUUID);
+      mg.newInstance(uuidType);
+      mg.dup();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(long.class, "getLong"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(BYTE_BUFFER_TYPE, getMethod(long.class, "getLong"));
+      mg.invokeConstructor(uuidType, getMethod(void.class, "<init>", long.class, long.class));
+      mg.checkCast(OBJECT_TYPE);
+      mg.goTo(end);
+
+      mg.mark(notUUID);
+      mg.loadLocal(buffer);
+      mg.checkCast(OBJECT_TYPE);
+    }
+    mg.mark(end);
+  }
+
+  /**
+   * Generates code for decoding an enum value. The enum index in the source schema is mapped to the enum constant
+   * of the same name. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * switch (decoder.readInt()) {
+   *   case 0:
+   *     return EnumType.VALUE1;
+   *   case 1:
+   *     throw new IOException("Enum value 'VALUE2' missing in target.");
+   *   ...
+   *   default:
+   *     throw new IOException("Invalid enum index.");
+   * }
+   * }
+   * </pre>
+   */
+  private void readEnum(GeneratorAdapter mg, final TypeToken<?> inputType,
+                        final Schema sourceSchema, final Schema targetSchema) {
+    final Class<?> rawType = inputType.getRawType();
+    Preconditions.checkArgument(rawType.isEnum(), "Only enum type is supported for enum value.");
+
+    // Enum type might be defined by the user, hence need to preserve class loading of it
+    preservedClasses.add(rawType);
+    final boolean accessible = isAccessible(rawType);
+    if (!accessible) {
+      classRequests.add(rawType);
+    }
+
+    final Set<String> constants = Sets.newHashSet();
+    for (Object constant : rawType.getEnumConstants()) {
+      constants.add(((Enum<?>) constant).name());
+    }
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.tableSwitch(getIndices(sourceSchema.getEnumValues().size()), new TableSwitchGenerator() {
+      @Override
+      public void generateCase(int key, Label end) {
+        String value = sourceSchema.getEnumValue(key);
+        if (!targetSchema.getEnumValues().contains(value) || !constants.contains(value)) {
+          throwIOException(mg, inputType, String.format("Enum value '%s' missing in target.", value));
+        } else if (accessible) {
+          Type enumType = Type.getType(rawType);
+          mg.getStatic(enumType, value, enumType);
+          mg.checkCast(OBJECT_TYPE);
+        } else {
+          // Enum.valueOf(this.enumClass, "value")
+          mg.loadThis();
+          mg.getField(classType, getClassFieldName(rawType), Type.getType(Class.class));
+          mg.push(value);
+          mg.invokeStatic(Type.getType(Enum.class), getMethod(Enum.class, "valueOf", Class.class, String.class));
+          mg.checkCast(OBJECT_TYPE);
+        }
+        mg.goTo(end);
+      }
+
+      @Override
+      public void generateDefault() {
+        throwIOException(mg, inputType, "Invalid enum index.");
+      }
+    });
+  }
+
+  /**
+   * Generates code for decoding an array value into a collection. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Collection collection = new CollectionType();
+   * int len = decoder.readInt();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     collection.add(readElement(decoder));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return collection;
+   * }
+   * </pre>
+   */
+  private void readCollection(GeneratorAdapter mg, TypeToken<?> inputType, TypeToken<?> componentType,
+                              Schema sourceComponentSchema, Schema targetComponentSchema) {
+    Type collectionType = Type.getType(Collection.class);
+    int collection = mg.newLocal(collectionType);
+    create(mg, inputType);
+    mg.checkCast(collectionType);
+    mg.storeLocal(collection);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    int idx = mg.newLocal(Type.INT_TYPE);
+    Label beginBlock = readBlockLength(mg, len);
+
+    // for (int idx = 0; idx < len; idx++)
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(len);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // collection.add(readElement(decoder));
+    mg.loadLocal(collection);
+    invokeRead(mg, componentType, sourceComponentSchema, targetComponentSchema);
+    boxCallType(mg, componentType);
+    mg.invokeInterface(collectionType, getMethod(boolean.class, "add", Object.class));
+    mg.pop();
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    endBlock(mg, len, beginBlock);
+    mg.loadLocal(collection);
+  }
+
+  /**
+   * Generates code for decoding an array value into a Java array. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * int len = decoder.readInt();
+   * ComponentType[] array = new ComponentType[len];
+   * int size = 0;
+   * while (len != 0) {
+   *   if (size + len > array.length) {
+   *     array = Arrays.copyOf(array, size + len);
+   *   }
+   *   for (int i = 0; i < len; i++) {
+   *     array[size++] = readElement(decoder);
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return array;
+   * }
+   * </pre>
+   */
+  private void readArray(GeneratorAdapter mg, TypeToken<?> inputType,
+                         Schema sourceComponentSchema, Schema targetComponentSchema) {
+    TypeToken<?> componentType = inputType.getComponentType();
+    Class<?> componentRawType = componentType.getRawType();
+    Type elementType = componentRawType.isPrimitive() ? Type.getType(componentRawType) : OBJECT_TYPE;
+    // Arrays of types that are not accessible are referred to as Object[]
+    Type arrayType = componentRawType.isPrimitive() || isAccessible(componentRawType) ?
+      Type.getType(inputType.getRawType()) : Type.getType(Object[].class);
+    Type copyType = componentRawType.isPrimitive() ? arrayType : Type.getType(Object[].class);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    int array = mg.newLocal(arrayType);
+    int size = mg.newLocal(Type.INT_TYPE);
+    int idx = mg.newLocal(Type.INT_TYPE);
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.loadLocal(len);
+    newArray(mg, componentRawType, arrayType);
+    mg.storeLocal(array);
+    mg.push(0);
+    mg.storeLocal(size);
+
+    // while (len != 0)
+    Label beginBlock = mg.mark();
+    Label endBlock = mg.newLabel();
+    mg.loadLocal(len);
+    mg.ifZCmp(GeneratorAdapter.EQ, endBlock);
+
+    // if (size + len > array.length) { array = Arrays.copyOf(array, size + len); }
+    Label hasCapacity = mg.newLabel();
+    mg.loadLocal(size);
+    mg.loadLocal(len);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.loadLocal(array);
+    mg.arrayLength();
+    mg.ifICmp(GeneratorAdapter.LE, hasCapacity);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    mg.loadLocal(len);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.invokeStatic(Type.getType(Arrays.class), new Method("copyOf", copyType, new Type[] {copyType, Type.INT_TYPE}));
+    if (!copyType.equals(arrayType)) {
+      mg.checkCast(arrayType);
+    }
+    mg.storeLocal(array);
+    mg.mark(hasCapacity);
+
+    // for (int idx = 0; idx < len; idx++)
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(len);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // array[size++] = readElement(decoder);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    invokeRead(mg, componentType, sourceComponentSchema, targetComponentSchema);
+    mg.arrayStore(elementType);
+    mg.iinc(size, 1);
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    // len = decoder.readInt();
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginBlock);
+    mg.mark(endBlock);
+
+    mg.loadLocal(array);
+    mg.checkCast(OBJECT_TYPE);
+  }
+
+  /**
+   * Generates code for creating an array with the length on the stack.
+   */
+  private void newArray(GeneratorAdapter mg, Class<?> componentRawType, Type arrayType) {
+    if (componentRawType.isPrimitive() || isAccessible(componentRawType)) {
+      mg.newArray(Type.getType(componentRawType));
+      return;
+    }
+    // (Object[]) Array.newInstance(this.componentClass, len)
+    preservedClasses.add(componentRawType);
+    classRequests.add(componentRawType);
+    int len = mg.newLocal(Type.INT_TYPE);
+    mg.storeLocal(len);
+    mg.loadThis();
+    mg.getField(classType, getClassFieldName(componentRawType), Type.getType(Class.class));
+    mg.loadLocal(len);
+    mg.invokeStatic(Type.getType(Array.class), getMethod(Object.class, "newInstance", Class.class, int.class));
+    mg.checkCast(arrayType);
+  }
+
+  /**
+   * Generates code for decoding a map value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Map map = new MapType();
+   * int len = decoder.readInt();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     map.put(readKey(decoder), readValue(decoder));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return map;
+   * }
+   * </pre>
+   */
+  private void readMap(GeneratorAdapter mg, TypeToken<?> inputType, TypeToken<?> keyType, TypeToken<?> valueType,
+                       Map.Entry<Schema, Schema> sourceMapSchema, Map.Entry<Schema, Schema> targetMapSchema) {
+    Type mapType = Type.getType(Map.class);
+    int map = mg.newLocal(mapType);
+    create(mg, inputType);
+    mg.checkCast(mapType);
+    mg.storeLocal(map);
+
+    int len = mg.newLocal(Type.INT_TYPE);
+    int idx = mg.newLocal(Type.INT_TYPE);
+    Label beginBlock = readBlockLength(mg, len);
+
+    // for (int idx = 0; idx < len; idx++)
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(len);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // map.put(readKey(decoder), readValue(decoder));
+    mg.loadLocal(map);
+    invokeRead(mg, keyType, sourceMapSchema.getKey(), targetMapSchema.getKey());
+    boxCallType(mg, keyType);
+    invokeRead(mg, valueType, sourceMapSchema.getValue(), targetMapSchema.getValue());
+    boxCallType(mg, valueType);
+    mg.invokeInterface(mapType, getMethod(Object.class, "put", Object.class, Object.class));
+    mg.pop();
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    endBlock(mg, len, beginBlock);
+    mg.loadLocal(map);
+  }
+
+  /**
+   * Generates code for decoding a record value. Fields of the source schema that are not in the target schema are
+   * skipped, and fields of the target schema that are not in the source schema are left untouched. The logic is
+   * like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * RecordType record = new RecordType();
+   * this.fieldAccessor1.set(record, readField1(decoder));
+   * skipField2(decoder);
+   * ...
+   * return record;
+   * }
+   * </pre>
+   */
+  private void readRecord(GeneratorAdapter mg, TypeToken<?> inputType, Schema sourceSchema, Schema targetSchema) {
+    try {
+      Class<?> rawType = inputType.getRawType();
+
+      // Record type might be defined by the user, hence need to preserve class loading of it
+      preservedClasses.add(rawType);
+
+      int record = mg.newLocal(OBJECT_TYPE);
+      create(mg, inputType);
+      mg.storeLocal(record);
+
+      for (Schema.Field sourceField : sourceSchema.getFields()) {
+        Schema.Field targetField = targetSchema.getField(sourceField.getName());
+        if (targetField == null) {
+          invokeSkip(mg, sourceField.getSchema());
+          continue;
+        }
+
+        // this.fieldAccessor.set(record, readField(decoder));
+        Field field = Fields.findField(inputType.getType(), sourceField.getName());
+        TypeToken<?> fieldType = inputType.resolveType(field.getGenericType());
+        fieldAccessorRequests.put(inputType, sourceField.getName());
+        mg.loadThis();
+        mg.getField(classType, getFieldAccessorName(inputType, sourceField.getName()),
+                    Type.getType(FieldAccessor.class));
+        mg.loadLocal(record);
+        invokeRead(mg, fieldType, sourceField.getSchema(), targetField.getSchema());
+        mg.invokeInterface(Type.getType(FieldAccessor.class), getAccessorMethod(fieldType));
+      }
+      mg.loadLocal(record);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Generates code for decoding a union value. The union index is read from the data, and the value is decoded with
+   * the schema at that index. If the target schema is also a union, the value is decoded with the target union
+   * schema at the same index if it is of the same type, otherwise with the first target union schema that the
+   * source schema can be resolved to. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * switch (decoder.readInt()) {
+   *   case 0:
+   *     return readValue0(decoder);
+   *   case 1:
+   *     return readValue1(decoder);
+   *   default:
+   *     throw new IOException("Invalid union index.");
+   * }
+   * }
+   * </pre>
+   */
+  private void readUnion(final GeneratorAdapter mg, final TypeToken<?> inputType,
+                         final Schema sourceSchema, final Schema targetSchema) {
+    final List<Schema> unionSchemas = sourceSchema.getUnionSchemas();
+
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.tableSwitch(getIndices(unionSchemas.size()), new TableSwitchGenerator() {
+      @Override
+      public void generateCase(int key, Label end) {
+        Schema sourceValueSchema = unionSchemas.get(key);
+        Schema targetValueSchema = targetSchema;
+        if (targetSchema.getType() == Schema.Type.UNION) {
+          targetValueSchema = resolveUnion(key, sourceValueSchema, targetSchema);
+        }
+        if (targetValueSchema == null) {
+          throwResolveException(mg, inputType, sourceSchema, targetSchema);
+        } else {
+          invokeRead(mg, inputType, sourceValueSchema, targetValueSchema);
+        }
+        mg.goTo(end);
+      }
+
+      @Override
+      public void generateDefault() {
+        throwIOException(mg, inputType, "Invalid union index.");
+      }
+    });
+  }
+
+  /**
+   * Returns the target union schema to decode a source union value with the given index and schema, or
+   * {@code null} if there is none.
+   */
+  @Nullable
+  private Schema resolveUnion(int index, Schema sourceValueSchema, Schema targetSchema) {
+    List<Schema> targetSchemas = targetSchema.getUnionSchemas();
+    if (index < targetSchemas.size()) {
+      Schema targetValueSchema = targetSchemas.get(index);
+      if (targetValueSchema.getType() == sourceValueSchema.getType()
+        && isResolvable(sourceValueSchema, targetValueSchema)) {
+        return targetValueSchema;
+      }
+    }
+    for (Schema targetValueSchema : targetSchemas) {
+      if (isResolvable(sourceValueSchema, targetValueSchema)) {
+        return targetValueSchema;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether data written with the source schema can be decoded with the target schema.
+   */
+  private boolean isResolvable(Schema sourceSchema, Schema targetSchema) {
+    return isResolvable(sourceSchema, targetSchema, Sets.<String>newHashSet());
+  }
+
+  private boolean isResolvable(Schema sourceSchema, Schema targetSchema, Set<String> seenRecords) {
+    Schema.Type sourceType = sourceSchema.getType();
+    Schema.Type targetType = targetSchema.getType();
+
+    if (sourceType == Schema.Type.UNION) {
+      for (Schema schema : sourceSchema.getUnionSchemas()) {
+        if (isResolvable(schema, targetSchema, seenRecords)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (targetType == Schema.Type.UNION) {
+      for (Schema schema : targetSchema.getUnionSchemas()) {
+        if (isResolvable(sourceSchema, schema, seenRecords)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    switch (sourceType) {
+      case NULL:
+      case BYTES:
+      case ENUM:
+        return sourceType == targetType;
+      case BOOLEAN:
+        return targetType == Schema.Type.BOOLEAN || targetType == Schema.Type.STRING;
+      case INT:
+        return targetType == Schema.Type.INT || targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case LONG:
+        return targetType == Schema.Type.LONG || targetType == Schema.Type.FLOAT
+          || targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case FLOAT:
+        return targetType == Schema.Type.FLOAT || targetType == Schema.Type.DOUBLE
+          || targetType == Schema.Type.STRING;
+      case DOUBLE:
+        return targetType == Schema.Type.DOUBLE || targetType == Schema.Type.STRING;
+      case STRING:
+        return targetType == Schema.Type.STRING;
+      case ARRAY:
+        return targetType == Schema.Type.ARRAY
+          && isResolvable(sourceSchema.getComponentSchema(), targetSchema.getComponentSchema(), seenRecords);
+      case MAP:
+        return targetType == Schema.Type.MAP
+          && isResolvable(sourceSchema.getMapSchema().getKey(), targetSchema.getMapSchema().getKey(), seenRecords)
+          && isResolvable(sourceSchema.getMapSchema().getValue(), targetSchema.getMapSchema().getValue(),
+                          seenRecords);
+      case RECORD:
+        if (targetType != Schema.Type.RECORD) {
+          return false;
+        }
+        // Recursive records are resolvable if they are resolvable on the first visit
+        if (!seenRecords.add(sourceSchema.getSchemaHash().toString() + targetSchema.getSchemaHash())) {
+          return true;
+        }
+        for (Schema.Field sourceField : sourceSchema.getFields()) {
+          Schema.Field targetField = targetSchema.getField(sourceField.getName());
+          if (targetField != null && !isResolvable(sourceField.getSchema(), targetField.getSchema(), seenRecords)) {
+            return false;
+          }
+        }
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Generates code for reading the length of the first block of an array or a map into the given local, and
+   * returns the label of the beginning of the block loop.
+   */
+  private Label readBlockLength(GeneratorAdapter mg, int len) {
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+
+    // while (len != 0)
+    Label beginBlock = mg.mark();
+    mg.loadLocal(len);
+    Label endBlock = mg.newLabel();
+    mg.ifZCmp(GeneratorAdapter.EQ, endBlock);
+    blockEnds.put(beginBlock, endBlock);
+    return beginBlock;
+  }
+
+  /**
+   * Generates code for reading the length of the next block of an array or a map and for looping back to the
+   * beginning of the block loop.
+   */
+  private void endBlock(GeneratorAdapter mg, int len, Label beginBlock) {
+    mg.loadArg(0);
+    mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+    mg.storeLocal(len);
+    mg.goTo(beginBlock);
+    mg.mark(blockEnds.remove(beginBlock));
+  }
+
+  /**
+   * Generates code for creating an instance of the given type. The public default constructor is called directly
+   * if the type has one, otherwise an {@link Instantiator} is used.
+   */
+  private void create(GeneratorAdapter mg, TypeToken<?> inputType) {
+    Class<?> rawType = inputType.getRawType();
+    if (hasPublicDefaultConstructor(rawType)) {
+      Type type = Type.getType(rawType);
+      mg.newInstance(type);
+      mg.dup();
+      mg.invokeConstructor(type, getMethod(void.class, "<init>"));
+      mg.checkCast(OBJECT_TYPE);
+      return;
+    }
+
+    // this.instantiator.create()
+    preservedClasses.add(rawType);
+    instantiatorRequests.add(rawType);
+    mg.loadThis();
+    mg.getField(classType, getInstantiatorName(rawType), Type.getType(Instantiator.class));
+    mg.invokeInterface(Type.getType(Instantiator.class), getMethod(Object.class, "create"));
+  }
+
+  /**
+   * Generates code for calling the skip method of the given schema.
+   */
+  private void invokeSkip(GeneratorAdapter mg, Schema schema) {
+    Method method = getSkipMethod(schema);
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.invokeVirtual(classType, method);
+  }
+
+  /**
+   * Returns the skip method for the given schema, which skips over a value written with the given schema.
+   */
+  private Method getSkipMethod(Schema schema) {
+    String key = schema.getSchemaHash().toString();
+    Method method = skipMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    method = getMethod(void.class, String.format("skip%s", key), Decoder.class);
+    // Put the method into map first before generating the body in order to support recursive data type.
+    skipMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[] {IO_EXCEPTION_TYPE}, classWriter);
+    generateSkipBody(mg, schema);
+    mg.returnValue();
+    mg.endMethod();
+    return method;
+  }
+
+  /**
+   * Generates the skip method body.
+   */
+  private void generateSkipBody(final GeneratorAdapter mg, Schema schema) {
+    switch (schema.getType()) {
+      case NULL:
+        break;
+      case BOOLEAN:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(boolean.class, "readBool"));
+        mg.pop();
+        break;
+      case INT:
+      case ENUM:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+        mg.pop();
+        break;
+      case LONG:
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(long.class, "readLong"));
+        mg.pop2();
+        break;
+      case FLOAT:
+      case DOUBLE:
+      case BYTES:
+      case STRING:
+        String skipMethod = "skip" + schema.getType().name().charAt(0) + schema.getType().name().substring(1)
+          .toLowerCase();
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(void.class, skipMethod));
+        break;
+      case ARRAY:
+        skipBlocks(mg, schema.getComponentSchema(), null);
+        break;
+      case MAP:
+        skipBlocks(mg, schema.getMapSchema().getKey(), schema.getMapSchema().getValue());
+        break;
+      case RECORD:
+        for (Schema.Field field : schema.getFields()) {
+          invokeSkip(mg, field.getSchema());
+        }
+        break;
+      case UNION:
+        final List<Schema> unionSchemas = schema.getUnionSchemas();
+        mg.loadArg(0);
+        mg.invokeInterface(DECODER_TYPE, getMethod(int.class, "readInt"));
+        mg.tableSwitch(getIndices(unionSchemas.size()), new TableSwitchGenerator() {
+          @Override
+          public void generateCase(int key, Label end) {
+            invokeSkip(mg, unionSchemas.get(key));
+            mg.goTo(end);
+          }
+
+          @Override
+          public void generateDefault() {
+            mg.throwException(IO_EXCEPTION_TYPE, "Invalid union index.");
+          }
+        });
+        break;
+    }
+  }
+
+  /**
+   * Generates code for skipping the blocks of an array, or of a map if the value schema is not {@code null}.
+   */
+  private void skipBlocks(GeneratorAdapter mg, Schema schema, @Nullable Schema valueSchema) {
+    int len = mg.newLocal(Type.INT_TYPE);
+    int idx = mg.newLocal(Type.INT_TYPE);
+    Label beginBlock = readBlockLength(mg, len);
+
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(len);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+    invokeSkip(mg, schema);
+    if (valueSchema != null) {
+      invokeSkip(mg, valueSchema);
+    }
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    endBlock(mg, len, beginBlock);
+  }
+
+  /**
+   * Generates code for throwing an {@link IOException} for schemas that cannot be resolved.
+   */
+  private void throwResolveException(GeneratorAdapter mg, TypeToken<?> inputType,
+                                     Schema sourceSchema, Schema targetSchema) {
+    throwIOException(mg, inputType, String.format("Fails to resolve %s to %s", sourceSchema, targetSchema));
+  }
+
+  /**
+   * Generates code for throwing an {@link IOException} in place of decoding a value of the given type. A default
+   * value is pushed after the throw, so that the unreachable code that follows sees a consistent stack.
+   */
+  private void throwIOException(GeneratorAdapter mg, TypeToken<?> inputType, String message) {
+    mg.throwException(IO_EXCEPTION_TYPE, message);
+    Type callType = getCallType(inputType);
+    switch (callType.getSort()) {
+      case Type.OBJECT:
+        mg.visitInsn(Opcodes.ACONST_NULL);
+        break;
+      case Type.LONG:
+        mg.push(0L);
+        break;
+      case Type.FLOAT:
+        mg.push(0f);
+        break;
+      case Type.DOUBLE:
+        mg.push(0d);
+        break;
+      default:
+        mg.push(0);
+    }
+  }
+
+  /**
+   * Generates code for boxing the value of the given type on the stack if its call type is primitive.
+   */
+  private void boxCallType(GeneratorAdapter mg, TypeToken<?> type) {
+    Type callType = getCallType(type);
+    if (callType.getSort() != Type.OBJECT) {
+      mg.valueOf(callType);
+    }
+  }
+
+  /**
+   * Returns the type returned by the read methods of the given type. Read methods of primitive types return the
+   * primitive value, and read methods of other types return an {@link Object}, since the type might not be accessible
+   * from the generated class.
+   */
+  private Type getCallType(TypeToken<?> type) {
+    Class<?> rawType = type.getRawType();
+    return rawType.isPrimitive() ? Type.getType(rawType) : OBJECT_TYPE;
+  }
+
+  /**
+   * Returns the Java type decoded for a simple schema type.
+   */
+  private Class<?> getSimpleClass(Schema.Type schemaType) {
+    switch (schemaType) {
+      case BOOLEAN:
+        return boolean.class;
+      case INT:
+        return int.class;
+      case LONG:
+        return long.class;
+      case FLOAT:
+        return float.class;
+      case DOUBLE:
+        return double.class;
+      case STRING:
+        return String.class;
+    }
+    throw new IllegalArgumentException("Not a simple type " + schemaType);
+  }
+
+  /**
+   * Returns whether the given class can be referred to from the generated class, which is only the case for public
+   * classes that are nested in public classes.
+   */
+  private boolean isAccessible(Class<?> cls) {
+    if (cls.isArray()) {
+      return isAccessible(cls.getComponentType());
+    }
+    for (Class<?> c = cls; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasPublicDefaultConstructor(Class<?> cls) {
+    if (!isAccessible(cls) || cls.isInterface() || Modifier.isAbstract(cls.getModifiers())
+      || (cls.getEnclosingClass() != null && !Modifier.isStatic(cls.getModifiers()))) {
+      return false;
+    }
+    try {
+      return Modifier.isPublic(cls.getConstructor().getModifiers());
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private int[] getIndices(int size) {
+    int[] indices = new int[size];
+    for (int i = 0; i < size; i++) {
+      indices[i] = i;
+    }
+    return indices;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> TypeToken<DatumReader<T>> getInterfaceType(TypeToken<T> type) {
+    // Primitive types are decoded as their wrapper types
+    if (type.getRawType().isPrimitive()) {
+      type = (TypeToken<T>) TypeToken.of(Primitives.wrap(type.getRawType()));
+    }
+    return new TypeToken<DatumReader<T>>() {
+    }.where(new TypeParameter<T>() {
+    }, type);
+  }
+
+  private String getClassName(TypeToken<?> interfaceType, Schema sourceSchema, Schema targetSchema) {
+    return String.format("%s/%s%s%s%s",
+                         interfaceType.getRawType().getPackage().getName().replace('.', '/'),
+                         normalizeTypeName(TypeToken.of(((ParameterizedType) interfaceType.getType())
+                                                          .getActualTypeArguments()[0])),
+                         interfaceType.getRawType().getSimpleName(),
+                         sourceSchema.getSchemaHash(), targetSchema.getSchemaHash());
+  }
+
+  private String normalizeTypeName(TypeToken<?> type) {
+    String typeName = type.toString();
+    int dimension = 0;
+    while (type.isArray()) {
+      type = type.getComponentType();
+      typeName = type.toString();
+      dimension++;
+    }
+
+    typeName = typeName.replace(".", "")
+                        .replace("<", "Of")
+                        .replace(">", "")
+                        .replace(",", "To")
+                        .replace(" ", "")
+                        .replace("$", "");
+    if (dimension > 0) {
+      typeName = "Array" + dimension + typeName;
+    }
+    return typeName;
+  }
+
+  private Method getMethod(Class<?> returnType, String name, Class<?>...args) {
+    return Methods.getMethod(returnType, name, args);
+  }
+
+  /**
+   * Returns the method for calling {@link FieldAccessor} to set a field based on the data type.
+   * @param type Data type.
+   * @return A {@link Method} for calling {@link FieldAccessor}.
+   */
+  private Method getAccessorMethod(TypeToken<?> type) {
+    Class<?> rawType = type.getRawType();
+    if (rawType.isPrimitive()) {
+      return getMethod(void.class,
+                       String.format("set%c%s",
+                                     Character.toUpperCase(rawType.getName().charAt(0)),
+                                     rawType.getName().substring(1)),
+                       Object.class, rawType);
+    } else {
+      return getMethod(void.class, "set", Object.class, Object.class);
+    }
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link FieldAccessor} for the given record field.
+   * @param recordType Type of the record.
+   * @param fieldName name of the field.
+   * @return name of the class field.
+   */
+  private String getFieldAccessorName(TypeToken<?> recordType, String fieldName) {
+    return String.format("%s$%s", normalizeTypeName(recordType), fieldName);
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link Instantiator} for the given type.
+   */
+  private String getInstantiatorName(Class<?> rawType) {
+    return String.format("%s$instantiator", normalizeTypeName(TypeToken.of(rawType)));
+  }
+
+  /**
+   * Generates the name of the class field for storing the {@link Class} of the given type.
+   */
+  private String getClassFieldName(Class<?> rawType) {
+    return String.format("%s$class", normalizeTypeName(TypeToken.of(rawType)));
+  }
+}
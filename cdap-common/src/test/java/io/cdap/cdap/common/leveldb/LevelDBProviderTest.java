@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.common.leveldb;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+/**
+ * Unit tests for {@link LevelDBProvider}.
+ */
+public class LevelDBProviderTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final long MB = LevelDBProvider.MIN_CACHE_SIZE;
+
+  @Test
+  public void testCacheSizeBudget() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, 4 * MB);
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_TOTAL_CACHESIZE, 6 * MB);
+    LevelDBProvider provider = new LevelDBProvider(cConf);
+
+    File dir1 = TEMP_FOLDER.newFolder();
+    File dir2 = TEMP_FOLDER.newFolder();
+    File dir3 = TEMP_FOLDER.newFolder();
+    File dir4 = TEMP_FOLDER.newFolder();
+    try (DB db1 = provider.open(dir1, true, null)) {
+      Assert.assertEquals(4 * MB, provider.getCacheSize(dir1));
+      try (DB db2 = provider.open(dir2, true, null)) {
+        Assert.assertEquals(2 * MB, provider.getCacheSize(dir2));
+        // Once the budget is used up, each database still gets the minimum cache size
+        try (DB db3 = provider.open(dir3, true, null)) {
+          Assert.assertEquals(MB, provider.getCacheSize(dir3));
+        }
+        // The minimum cache size counts against the budget until released
+        provider.release(dir1);
+        try (DB db4 = provider.open(dir4, true, null)) {
+          Assert.assertEquals(3 * MB, provider.getCacheSize(dir4));
+        }
+        provider.destroy(dir4);
+        Assert.assertEquals(0L, provider.getCacheSize(dir4));
+      }
+    }
+  }
+
+  @Test
+  public void testSmallCacheSize() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, 10 * 1024);
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_TOTAL_CACHESIZE, 10 * 1024);
+    LevelDBProvider provider = new LevelDBProvider(cConf);
+
+    File dir1 = TEMP_FOLDER.newFolder();
+    File dir2 = TEMP_FOLDER.newFolder();
+    try (DB db1 = provider.open(dir1, true, null); DB db2 = provider.open(dir2, true, null)) {
+      // The minimum is never larger than the configured cache size of a database
+      Assert.assertEquals(10 * 1024, provider.getCacheSize(dir1));
+      Assert.assertEquals(10 * 1024, provider.getCacheSize(dir2));
+    }
+  }
+
+  @Test
+  public void testFactoryFallback() {
+    Assert.assertSame(Iq80DBFactory.factory, LevelDBProvider.createDBFactory(Iq80DBFactory.class.getName()));
+    Assert.assertSame(Iq80DBFactory.factory, LevelDBProvider.createDBFactory("org.example.MissingDBFactory"));
+    Assert.assertSame(Iq80DBFactory.factory, LevelDBProvider.createDBFactory(String.class.getName()));
+  }
+}
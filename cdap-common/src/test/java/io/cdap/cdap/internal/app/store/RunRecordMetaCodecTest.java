@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.store;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.proto.ProgramRunCluster;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
+import io.cdap.cdap.proto.ProgramRunStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
+import io.cdap.cdap.proto.id.ProgramId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Unit test for {@link RunRecordMetaCodec}.
+ */
+public class RunRecordMetaCodecTest {
+
+  private static final ProgramId PROGRAM_ID = NamespaceId.DEFAULT.app("app").workflow("workflow");
+
+  @Test
+  public void testEncodeDecode() {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(100L)
+      .setRunTime(110L)
+      .setStopTime(200L)
+      .setSuspendTime(120L)
+      .setResumeTime(130L)
+      .setStatus(ProgramRunStatus.COMPLETED)
+      .setProperties(ImmutableMap.of("node1", "run1", "node2", "run2"))
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.DEPROVISIONED, 210L, 3))
+      .setProfileId(NamespaceId.DEFAULT.profile("profile"))
+      .setTwillRunId("twillRunId")
+      .setSystemArgs(ImmutableMap.of("profile", "native", "principal", "user"))
+      .setSourceId(new byte[] { 1, 2, 3 })
+      .setArtifactId(new ArtifactId("artifact", new ArtifactVersion("1.0.0"), ArtifactScope.SYSTEM))
+      .setPrincipal("user")
+      .build();
+
+    assertDecoded(meta, RunRecordMetaCodec.decode(PROGRAM_ID, RunRecordMetaCodec.encode(meta)));
+  }
+
+  @Test
+  public void testNullableFields() {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(100L)
+      .setStatus(ProgramRunStatus.PENDING)
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONING, null, null))
+      .setSourceId(new byte[0])
+      .build();
+
+    assertDecoded(meta, RunRecordMetaCodec.decode(PROGRAM_ID, RunRecordMetaCodec.encode(meta)));
+  }
+
+  @Test
+  public void testDecodeJson() {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(100L)
+      .setRunTime(110L)
+      .setStatus(ProgramRunStatus.RUNNING)
+      .setProperties(ImmutableMap.of("key", "value"))
+      .setCluster(new ProgramRunCluster(ProgramRunClusterStatus.PROVISIONED, null, 2))
+      .setProfileId(ProfileId.NATIVE)
+      .setSystemArgs(ImmutableMap.of("arg", "value"))
+      .setSourceId(new byte[] { 1 })
+      .build();
+
+    // Run records written by older versions are stored as JSON
+    assertDecoded(meta, RunRecordMetaCodec.decode(PROGRAM_ID, new Gson().toJson(meta)));
+  }
+
+  @Test
+  public void testDecodeInlineSystemArgs() throws IOException {
+    // Run records written in the first binary version have the system arguments inline
+    String runId = RunIds.generate().getId();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(1).writeString(runId).writeLong(100L);
+    // run, stop, suspend and resume times are absent
+    encoder.writeBool(false).writeBool(false).writeBool(false).writeBool(false);
+    encoder.writeString(ProgramRunStatus.PENDING.name());
+    // properties, cluster, profile and twill run id
+    encoder.writeInt(0).writeBool(false).writeBool(false).writeBool(false);
+    // system arguments
+    encoder.writeInt(1).writeString("arg").writeString("value");
+    // source id, artifact and principal
+    encoder.writeBool(true).writeBytes(new byte[] { 1 }).writeBool(false).writeBool(false);
+
+    RunRecordMeta expected = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(runId))
+      .setStartTime(100L)
+      .setStatus(ProgramRunStatus.PENDING)
+      .setSystemArgs(ImmutableMap.of("arg", "value"))
+      .setSourceId(new byte[] { 1 })
+      .build();
+    assertDecoded(expected, RunRecordMetaCodec.decode(PROGRAM_ID,
+                                                      Base64.getEncoder().encodeToString(os.toByteArray())));
+  }
+
+  @Test
+  public void testRebuildDecoded() {
+    RunRecordMeta meta = RunRecordMeta.builder()
+      .setProgramRunId(PROGRAM_ID.run(RunIds.generate()))
+      .setStartTime(100L)
+      .setStatus(ProgramRunStatus.RUNNING)
+      .setSystemArgs(ImmutableMap.of("arg", "value"))
+      .setSourceId(new byte[] { 1 })
+      .build();
+
+    // the lazily decoded system arguments are copied by the builder when the run record is updated
+    RunRecordMeta decoded = RunRecordMetaCodec.decode(PROGRAM_ID, RunRecordMetaCodec.encode(meta));
+    RunRecordMeta updated = RunRecordMeta.builder(decoded).setStatus(ProgramRunStatus.COMPLETED).build();
+    Assert.assertEquals(meta.getSystemArgs(), updated.getSystemArgs());
+    Assert.assertEquals(meta.getSystemArgs(),
+                        RunRecordMetaCodec.decode(PROGRAM_ID, RunRecordMetaCodec.encode(updated)).getSystemArgs());
+    Assert.assertEquals(new Gson().toJsonTree(meta).getAsJsonObject().get("systemargs"),
+                        new Gson().toJsonTree(decoded).getAsJsonObject().get("systemargs"));
+  }
+
+  private void assertDecoded(RunRecordMeta expected, RunRecordMeta actual) {
+    Assert.assertEquals(expected, actual);
+    // fields not covered by RunRecordMeta.equals
+    Assert.assertEquals(expected.getSystemArgs(), actual.getSystemArgs());
+    Assert.assertEquals(expected.getCluster(), actual.getCluster());
+    Assert.assertEquals(expected.getProfileId(), actual.getProfileId());
+  }
+}
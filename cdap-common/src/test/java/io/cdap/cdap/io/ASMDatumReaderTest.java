@@ -0,0 +1,450 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.DatumReader;
+import io.cdap.cdap.internal.io.ASMDatumReaderFactory;
+import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
+import io.cdap.cdap.internal.io.ReflectionDatumReader;
+import io.cdap.cdap.internal.io.ReflectionDatumWriter;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * Unit tests for {@link ASMDatumReaderFactory}. Results of the generated {@link DatumReader} are compared with the
+ * ones of {@link ReflectionDatumReader}.
+ */
+public class ASMDatumReaderTest {
+
+  private static final ASMDatumReaderFactory DATUM_READER_FACTORY
+    = new ASMDatumReaderFactory(new ASMFieldAccessorFactory());
+
+  /**
+   *
+   */
+  public enum TestEnum {
+    VALUE1, VALUE2, VALUE3
+  }
+
+  /**
+   *
+   */
+  public enum LessEnum {
+    VALUE3, VALUE1
+  }
+
+  /**
+   *
+   */
+  public static final class Value {
+    private int id;
+    private String name;
+
+    public Value() {
+      // For the generated reader
+    }
+
+    Value(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Value value = (Value) o;
+      return id == value.id && Objects.equals(name, value.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, name);
+    }
+  }
+
+  /**
+   * Record without default constructor, which is instantiated through an instantiator.
+   */
+  private static final class Record {
+    private final boolean flag;
+    private final byte b;
+    private final short s;
+    private final int i;
+    private final long l;
+    private final float f;
+    private final double d;
+    private final Integer boxed;
+    private final String str;
+    @Nullable
+    private final String nullStr;
+    private final URI uri;
+    private final URL url;
+    private final UUID uuid;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final TestEnum testEnum;
+    private final int[] ints;
+    private final Value[] values;
+    private final List<String> list;
+    private final SortedSet<Long> set;
+    private final Map<String, List<Value>> map;
+    private final Value value;
+
+    private Record(int seed) throws IOException {
+      this.flag = seed % 2 == 0;
+      this.b = (byte) seed;
+      this.s = (short) (seed * 3);
+      this.i = seed * 100;
+      this.l = seed * 10000000000L;
+      this.f = seed / 3f;
+      this.d = seed / 7d;
+      this.boxed = seed;
+      this.str = "str" + seed;
+      this.nullStr = null;
+      this.uri = URI.create("http://cdap.io/" + seed);
+      this.url = new URL("http://cdap.io/" + seed);
+      this.uuid = UUID.randomUUID();
+      this.bytes = new byte[] {1, 2, (byte) seed};
+      this.buffer = ByteBuffer.wrap(new byte[] {3, 4, 5, (byte) seed});
+      this.testEnum = TestEnum.values()[seed % TestEnum.values().length];
+      this.ints = new int[] {seed, seed + 1, seed + 2};
+      this.values = new Value[] {new Value(seed, "v1"), new Value(seed + 1, "v2")};
+      this.list = ImmutableList.of("a", "b", "c" + seed);
+      this.set = new TreeSet<>(Arrays.asList((long) seed, seed + 10L));
+      this.map = ImmutableMap.<String, List<Value>>of("k" + seed, ImmutableList.of(new Value(seed, "m")),
+                                                      "empty", ImmutableList.<Value>of());
+      this.value = new Value(seed, null);
+    }
+
+    private void assertEquals(Record other) {
+      Assert.assertEquals(flag, other.flag);
+      Assert.assertEquals(b, other.b);
+      Assert.assertEquals(s, other.s);
+      Assert.assertEquals(i, other.i);
+      Assert.assertEquals(l, other.l);
+      Assert.assertEquals(f, other.f, 0f);
+      Assert.assertEquals(d, other.d, 0d);
+      Assert.assertEquals(boxed, other.boxed);
+      Assert.assertEquals(str, other.str);
+      Assert.assertEquals(nullStr, other.nullStr);
+      Assert.assertEquals(uri, other.uri);
+      Assert.assertEquals(url, other.url);
+      Assert.assertEquals(uuid, other.uuid);
+      Assert.assertArrayEquals(bytes, other.bytes);
+      Assert.assertEquals(buffer, other.buffer);
+      Assert.assertEquals(testEnum, other.testEnum);
+      Assert.assertArrayEquals(ints, other.ints);
+      Assert.assertArrayEquals(values, other.values);
+      Assert.assertEquals(list, other.list);
+      Assert.assertEquals(set, other.set);
+      Assert.assertEquals(map, other.map);
+      Assert.assertEquals(value, other.value);
+    }
+  }
+
+  /**
+   * Source record of the schema evolution test.
+   */
+  public static final class RecordV1 {
+    private int i;
+    private long l;
+    private List<Map<String, Value>> removed;
+    private String str;
+    private float f;
+    private TestEnum testEnum;
+    private Value value;
+    private Value nullValue;
+    @Nullable
+    private Integer count;
+    @Nullable
+    private Integer nullCount;
+  }
+
+  /**
+   * Target record of the schema evolution test.
+   */
+  public static final class RecordV2 {
+    private long i;
+    private String l;
+    private String str;
+    private double f;
+    private String added = "default";
+    private LessEnum testEnum;
+    @Nullable
+    private Value value;
+    @Nullable
+    private Value nullValue;
+    @Nullable
+    private Long count;
+    @Nullable
+    private Long nullCount;
+  }
+
+  /**
+   * Recursive record.
+   */
+  public static final class Node {
+    private int d;
+    @Nullable
+    private Node next;
+  }
+
+  @Test
+  public void testSimpleTypes() throws Exception {
+    testReadEquals(new TypeToken<Boolean>() { }, true);
+    testReadEquals(new TypeToken<Short>() { }, (short) 3000);
+    testReadEquals(new TypeToken<Integer>() { }, 12234234);
+    testReadEquals(new TypeToken<Long>() { }, Long.MAX_VALUE);
+    testReadEquals(new TypeToken<Float>() { }, 3.14f);
+    testReadEquals(new TypeToken<Double>() { }, 3.14d);
+    testReadEquals(new TypeToken<String>() { }, "Testing message");
+    testReadEquals(new TypeToken<URI>() { }, URI.create("http://cdap.io"));
+    testReadEquals(new TypeToken<UUID>() { }, UUID.randomUUID());
+    testReadEquals(new TypeToken<ByteBuffer>() { }, ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    testReadEquals(new TypeToken<TestEnum>() { }, TestEnum.VALUE3);
+
+    for (byte[] bytes : read(new TypeToken<byte[]>() { }, new byte[] {1, 2, 3})) {
+      Assert.assertArrayEquals(new byte[] {1, 2, 3}, bytes);
+    }
+  }
+
+  @Test
+  public void testCollections() throws Exception {
+    testReadEquals(new TypeToken<List<String>>() { }, Lists.newArrayList("1", "2", "3"));
+    testReadEquals(new TypeToken<Set<Integer>>() { }, ImmutableSet.of(1, 2, 3));
+    testReadEquals(new TypeToken<Map<String, List<Long>>>() { },
+                   ImmutableMap.<String, List<Long>>of("a", ImmutableList.of(1L, 2L), "b", ImmutableList.<Long>of()));
+    testReadEquals(new TypeToken<List<Value>>() { }, ImmutableList.of(new Value(1, "a"), new Value(2, null)));
+
+    for (int[] ints : read(new TypeToken<int[]>() { }, new int[] {1, 2, 3})) {
+      Assert.assertArrayEquals(new int[] {1, 2, 3}, ints);
+    }
+    for (String[] strings : read(new TypeToken<String[]>() { }, new String[] {"1", "2"})) {
+      Assert.assertArrayEquals(new String[] {"1", "2"}, strings);
+    }
+    for (long[] longs : read(new TypeToken<long[]>() { }, new long[0])) {
+      Assert.assertArrayEquals(new long[0], longs);
+    }
+  }
+
+  @Test
+  public void testRecord() throws Exception {
+    TypeToken<Record> type = TypeToken.of(Record.class);
+    Record record = new Record(7);
+    for (Record decoded : read(type, record)) {
+      record.assertEquals(decoded);
+    }
+
+    // Decode multiple records from the same stream with the same reader
+    Schema schema = getSchema(type);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    ReflectionDatumWriter<Record> writer = new ReflectionDatumWriter<>(schema);
+    for (int i = 0; i < 10; i++) {
+      writer.encode(new Record(i), encoder);
+    }
+    DatumReader<Record> reader = DATUM_READER_FACTORY.create(type, schema);
+    BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(os.toByteArray()));
+    for (int i = 0; i < 10; i++) {
+      Record expected = new Record(i);
+      Record actual = reader.read(decoder, schema);
+      Assert.assertEquals(expected.i, actual.i);
+      Assert.assertEquals(expected.map, actual.map);
+    }
+  }
+
+  @Test
+  public void testRecursiveRecord() throws Exception {
+    Node head = new Node();
+    head.d = 1;
+    head.next = new Node();
+    head.next.d = 2;
+
+    for (Node node : read(TypeToken.of(Node.class), head)) {
+      Assert.assertEquals(1, node.d);
+      Assert.assertEquals(2, node.next.d);
+      Assert.assertNull(node.next.next);
+    }
+  }
+
+  @Test
+  public void testSchemaEvolution() throws Exception {
+    RecordV1 v1 = new RecordV1();
+    v1.i = 10;
+    v1.l = 20L;
+    v1.removed = ImmutableList.<Map<String, Value>>of(ImmutableMap.of("x", new Value(1, "x")),
+                                                      ImmutableMap.<String, Value>of());
+    v1.str = "str";
+    v1.f = 0.5f;
+    v1.testEnum = TestEnum.VALUE3;
+    v1.value = new Value(3, "value");
+    v1.count = 5;
+
+    Schema sourceSchema = getSchema(TypeToken.of(RecordV1.class));
+    Schema targetSchema = getSchema(TypeToken.of(RecordV2.class));
+    byte[] bytes = encode(sourceSchema, v1);
+
+    // Both readers must decode the evolved data to the same values
+    for (RecordV2 v2 : read(TypeToken.of(RecordV2.class), targetSchema, sourceSchema, bytes)) {
+      Assert.assertEquals(10L, v2.i);
+      Assert.assertEquals("20", v2.l);
+      Assert.assertEquals("str", v2.str);
+      Assert.assertEquals(0.5d, v2.f, 0d);
+      Assert.assertEquals("default", v2.added);
+      Assert.assertEquals(LessEnum.VALUE3, v2.testEnum);
+      Assert.assertEquals(v1.value, v2.value);
+      Assert.assertNull(v2.nullValue);
+      Assert.assertEquals(Long.valueOf(5L), v2.count);
+      Assert.assertNull(v2.nullCount);
+    }
+
+    // Enum value that is missing in the target fails the decoding with both readers
+    v1.testEnum = TestEnum.VALUE2;
+    bytes = encode(sourceSchema, v1);
+    DatumReader<RecordV2> generated = DATUM_READER_FACTORY.getGenerated(TypeToken.of(RecordV2.class),
+                                                                         sourceSchema, targetSchema);
+    Assert.assertNotNull(generated);
+    try {
+      generated.read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+    try {
+      new ReflectionDatumReader<>(targetSchema, TypeToken.of(RecordV2.class))
+        .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testPromotion() throws Exception {
+    Schema intSchema = Schema.of(Schema.Type.INT);
+    byte[] bytes = encode(intSchema, 1234);
+
+    Assert.assertEquals(ImmutableList.of(1234L, 1234L, 1234L),
+                        read(TypeToken.of(Long.class), Schema.of(Schema.Type.LONG), intSchema, bytes));
+    Assert.assertEquals(ImmutableList.of(1234d, 1234d, 1234d),
+                        read(TypeToken.of(Double.class), Schema.of(Schema.Type.DOUBLE), intSchema, bytes));
+    Assert.assertEquals(ImmutableList.of("1234", "1234", "1234"),
+                        read(TypeToken.of(String.class), Schema.of(Schema.Type.STRING), intSchema, bytes));
+    Assert.assertEquals(ImmutableList.of("1234", "1234", "1234"),
+                        read(TypeToken.of(String.class), Schema.nullableOf(Schema.of(Schema.Type.STRING)),
+                             intSchema, bytes));
+  }
+
+  @Test
+  public void testSourceSchemaChange() throws Exception {
+    TypeToken<Long> type = TypeToken.of(Long.class);
+    DatumReader<Long> reader = DATUM_READER_FACTORY.create(type, Schema.of(Schema.Type.LONG));
+
+    Schema intSchema = Schema.of(Schema.Type.INT);
+    Schema longSchema = Schema.of(Schema.Type.LONG);
+    Assert.assertEquals(Long.valueOf(1L),
+                        reader.read(new BinaryDecoder(new ByteArrayInputStream(encode(intSchema, 1))), intSchema));
+    Assert.assertEquals(Long.valueOf(2L),
+                        reader.read(new BinaryDecoder(new ByteArrayInputStream(encode(longSchema, 2L))), longSchema));
+    Assert.assertEquals(Long.valueOf(3L),
+                        reader.read(new BinaryDecoder(new ByteArrayInputStream(encode(intSchema, 3))), intSchema));
+
+    // Both source schemas are decoded by generated readers
+    Assert.assertNotNull(DATUM_READER_FACTORY.getGenerated(type, intSchema, longSchema));
+    Assert.assertNotNull(DATUM_READER_FACTORY.getGenerated(type, longSchema, longSchema));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnresolvable() throws Exception {
+    Schema stringSchema = Schema.of(Schema.Type.STRING);
+    DATUM_READER_FACTORY.create(TypeToken.of(Integer.class), Schema.of(Schema.Type.INT))
+      .read(new BinaryDecoder(new ByteArrayInputStream(encode(stringSchema, "1"))), stringSchema);
+  }
+
+  private <T> void testReadEquals(TypeToken<T> type, T value) throws Exception {
+    for (T decoded : read(type, value)) {
+      Assert.assertEquals(value, decoded);
+    }
+  }
+
+  /**
+   * Encodes the given value and decodes it with the generated and the reflection based {@link DatumReader}.
+   */
+  private <T> List<T> read(TypeToken<T> type, T value) throws Exception {
+    Schema schema = getSchema(type);
+    return read(type, schema, schema, encode(schema, value));
+  }
+
+  /**
+   * Decodes the given bytes with the generated {@link DatumReader}, the one created by the factory and the
+   * reflection based {@link DatumReader}, in that order. Fails if no {@link DatumReader} can be generated, so that
+   * the factory falling back to reflection does not go unnoticed.
+   */
+  private <T> List<T> read(TypeToken<T> type, Schema targetSchema,
+                           Schema sourceSchema, byte[] bytes) throws IOException {
+    DatumReader<T> generated = DATUM_READER_FACTORY.getGenerated(type, sourceSchema, targetSchema);
+    Assert.assertNotNull("Failed to generate DatumReader for " + type, generated);
+    T generatedValue = generated.read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+    T factoryValue = DATUM_READER_FACTORY.create(type, targetSchema)
+      .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+    T reflectionValue = new ReflectionDatumReader<>(targetSchema, type)
+      .read(new BinaryDecoder(new ByteArrayInputStream(bytes)), sourceSchema);
+    return Arrays.asList(generatedValue, factoryValue, reflectionValue);
+  }
+
+  private <T> byte[] encode(Schema schema, T value) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ReflectionDatumWriter<T>(schema).encode(value, new BinaryEncoder(os));
+    return os.toByteArray();
+  }
+
+  private Schema getSchema(TypeToken<?> type) throws UnsupportedTypeException {
+    return new ReflectionSchemaGenerator().generate(type.getType());
+  }
+}
@@ -48,6 +48,7 @@ import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -70,7 +71,7 @@ import javax.annotation.Nullable;
 /**
  * Default implementation of {@link io.cdap.cdap.api.dataset.lib.cube.Cube}.
  */
-public class DefaultCube implements Cube, MeteredDataset {
+public class DefaultCube implements Cube, MeteredDataset, Flushable {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCube.class);
 
   private static final DimensionValueComparator DIMENSION_VALUE_COMPARATOR = new DimensionValueComparator();
@@ -508,6 +509,29 @@ public class DefaultCube implements Cube, MeteredDataset {
     add(cubeFact);
   }
 
+  /**
+   * Returns whether the buffer of the fact table of any resolution is full, in which case the caller should
+   * {@link #flush()} the cube.
+   */
+  public boolean isFlushRequired() {
+    for (FactTable factTable : resolutionToFactTable.values()) {
+      if (factTable.isFlushRequired()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Flushes the writes buffered by the fact tables of all resolutions.
+   */
+  @Override
+  public void flush() throws IOException {
+    for (FactTable factTable : resolutionToFactTable.values()) {
+      factTable.flush();
+    }
+  }
+
   @Override
   public void close() throws IOException {
     try {
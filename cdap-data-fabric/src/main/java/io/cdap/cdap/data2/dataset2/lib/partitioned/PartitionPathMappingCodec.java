@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.partitioned;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the mapping from partition path to {@link PartitionKey} that is passed to the tasks of a job reading
+ * a partitioned file set. The encoding is compact: the common prefix of all paths and the names of the partition
+ * fields are only written once, the field values are written in binary, and the result is compressed.
+ *
+ * Mappings encoded as JSON, by older versions, can be decoded as well.
+ */
+public final class PartitionPathMappingCodec {
+
+  private static final Gson GSON =
+    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+  private static final Type STRING_PARTITION_KEY_MAP_TYPE = new TypeToken<Map<String, PartitionKey>>() { }.getType();
+
+  // prefix of the encoded form, it can never be the start of a JSON object
+  private static final String PREFIX = "b1:";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final byte STRING_TYPE = 0;
+  private static final byte LONG_TYPE = 1;
+  private static final byte INT_TYPE = 2;
+
+  private PartitionPathMappingCodec() {
+    // no-op
+  }
+
+  /**
+   * Encodes the given mapping from path to partition key.
+   *
+   * @throws IllegalArgumentException if a partition key has a field value that is not a String, Long or Integer
+   */
+  public static String encode(Map<String, PartitionKey> pathToKey) {
+    String prefix = getCommonPrefix(pathToKey.keySet());
+    Map<String, Integer> fieldIndexes = new LinkedHashMap<>();
+    for (PartitionKey key : pathToKey.values()) {
+      for (String field : key.getFields().keySet()) {
+        fieldIndexes.putIfAbsent(field, fieldIndexes.size());
+      }
+    }
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bos, deflater, BUFFER_SIZE))) {
+      out.writeUTF(prefix);
+      out.writeInt(fieldIndexes.size());
+      for (String field : fieldIndexes.keySet()) {
+        out.writeUTF(field);
+      }
+      out.writeInt(pathToKey.size());
+      for (Map.Entry<String, PartitionKey> entry : pathToKey.entrySet()) {
+        out.writeUTF(entry.getKey().substring(prefix.length()));
+        Map<String, Comparable> fields = entry.getValue().getFields();
+        out.writeInt(fields.size());
+        for (Map.Entry<String, Comparable> field : fields.entrySet()) {
+          out.writeInt(fieldIndexes.get(field.getKey()));
+          writeValue(out, field.getKey(), field.getValue());
+        }
+      }
+    } catch (IOException e) {
+      // can't happen, since it is written to memory
+      throw new IllegalStateException("Failed to encode partition path mapping", e);
+    } finally {
+      deflater.end();
+    }
+    return PREFIX + Base64.getEncoder().encodeToString(bos.toByteArray());
+  }
+
+  /**
+   * Decodes a mapping from path to partition key that was encoded by {@link #encode(Map)}, or as JSON.
+   *
+   * @throws IllegalArgumentException if the given string is not a valid encoded mapping
+   */
+  public static Map<String, PartitionKey> decode(String encoded) {
+    if (!encoded.startsWith(PREFIX)) {
+      return GSON.fromJson(encoded, STRING_PARTITION_KEY_MAP_TYPE);
+    }
+
+    byte[] bytes = Base64.getDecoder().decode(encoded.substring(PREFIX.length()));
+    Inflater inflater = new Inflater();
+    try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes),
+                                                                          inflater, BUFFER_SIZE))) {
+      String prefix = in.readUTF();
+      int fieldCount = in.readInt();
+      List<String> fieldNames = new ArrayList<>(fieldCount);
+      for (int i = 0; i < fieldCount; i++) {
+        fieldNames.add(in.readUTF());
+      }
+      int size = in.readInt();
+      Map<String, PartitionKey> pathToKey = new HashMap<>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        String path = prefix + in.readUTF();
+        int keyFieldCount = in.readInt();
+        PartitionKey.Builder builder = PartitionKey.builder();
+        for (int j = 0; j < keyFieldCount; j++) {
+          builder.addField(fieldNames.get(in.readInt()), readValue(in));
+        }
+        pathToKey.put(path, builder.build());
+      }
+      return pathToKey;
+    } catch (IOException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid partition path mapping", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static void writeValue(DataOutputStream out, String field, Comparable value) throws IOException {
+    if (value instanceof String) {
+      out.writeByte(STRING_TYPE);
+      out.writeUTF((String) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG_TYPE);
+      out.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT_TYPE);
+      out.writeInt((Integer) value);
+    } else {
+      throw new IllegalArgumentException(String.format("Unsupported type %s of partition field '%s'",
+                                                       value.getClass().getName(), field));
+    }
+  }
+
+  private static Comparable readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case STRING_TYPE:
+        return in.readUTF();
+      case LONG_TYPE:
+        return in.readLong();
+      case INT_TYPE:
+        return in.readInt();
+      default:
+        throw new IOException("Unknown partition field type " + type);
+    }
+  }
+
+  private static String getCommonPrefix(Iterable<String> paths) {
+    String prefix = null;
+    for (String path : paths) {
+      if (prefix == null) {
+        prefix = path;
+        continue;
+      }
+      int length = Math.min(prefix.length(), path.length());
+      int i = 0;
+      while (i < length && prefix.charAt(i) == path.charAt(i)) {
+        i++;
+      }
+      prefix = prefix.substring(0, i);
+      if (prefix.isEmpty()) {
+        break;
+      }
+    }
+    return prefix == null ? "" : prefix;
+  }
+}
@@ -25,8 +25,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.inject.Provider;
 import io.cdap.cdap.api.Predicate;
 import io.cdap.cdap.api.Transactional;
@@ -59,7 +57,7 @@ import io.cdap.cdap.api.dataset.lib.PartitionedFileSet;
 import io.cdap.cdap.api.dataset.lib.PartitionedFileSetArguments;
 import io.cdap.cdap.api.dataset.lib.Partitioning;
 import io.cdap.cdap.api.dataset.lib.Partitioning.FieldType;
-import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -86,6 +84,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -104,8 +103,6 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
   private static final Logger LOG = LoggerFactory.getLogger(PartitionedFileSetDataset.class);
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(TimeUnit.MINUTES.toMillis(1)));
-  private static final Gson GSON =
-    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
   private static final String QUARANTINE_DIR = ".quarantine";
 
   // A function to convert PartitionOperation into PartitionKey by getting the key from the operation.
@@ -118,11 +115,14 @@ public class PartitionedFileSetDataset extends AbstractDataset
     };
 
   /**
-   * A key that is guaranteed to be in the input format in configuration, where the value represents a GSON-serialized
-   * mapping from a partition's path to its partition key.
+   * A key that is guaranteed to be in the input format in configuration, where the value represents a mapping from
+   * a partition's path to its partition key, encoded with {@link PartitionPathMappingCodec}.
    */
   public static final String PATH_TO_PARTITIONING_MAPPING = "path.to.partition.mapping";
 
+  // number of partitions to read from the partitions table in one multi-get when resolving the input partitions
+  private static final int INPUT_PARTITIONS_BATCH_SIZE = 1000;
+
   // column keys
   protected static final byte[] WRITE_PTR_COL = { 'w' };
   protected static final byte[] CREATION_TIME_COL = { 'c' };
@@ -151,6 +151,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
   // this will store the result of getInputKeys() after it is called (the result is needed by
   // both getInputFormat() and getInputFormatConfiguration(), and we don't want to compute it twice).
   private AtomicReference<Collection<PartitionKey>> inputKeysCache = null;
+  // relative paths of the input partitions that were read while computing the input keys, so that they don't need
+  // to be read again by getInputFormatConfiguration()
+  private final Map<PartitionKey, String> inputPathsCache = new HashMap<>();
 
   public PartitionedFileSetDataset(DatasetContext datasetContext, String name,
                                    Partitioning partitioning, FileSet fileSet, IndexedTable partitionTable,
@@ -744,11 +747,20 @@ public class PartitionedFileSetDataset extends AbstractDataset
       @Override
       public void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
         partitionKeys.add(key);
+        cacheInputPartitionPath(key, path);
       }
     }, false);
     return partitionKeys;
   }
 
+  /**
+   * Remembers the relative path of a partition read by {@link #computeInputKeys()}, so that it is not read again
+   * when computing the input format configuration.
+   */
+  protected void cacheInputPartitionPath(PartitionKey key, String path) {
+    inputPathsCache.put(key, path);
+  }
+
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer) {
     // by default, parse the metadata from the rows
     getPartitions(filter, consumer, true);
@@ -872,19 +884,50 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
     List<Location> inputLocations = new ArrayList<>(inputKeys.size());
     Map<String, PartitionKey> pathToKey = new HashMap<>(inputKeys.size());
-    for (PartitionKey key : inputKeys) {
-      PartitionDetail partition = getPartition(key);
-      String path = Objects.requireNonNull(partition).getRelativePath();
-      Location partitionLocation = files.getLocation(path);
+    for (Map.Entry<PartitionKey, String> entry : getRelativePaths(inputKeys).entrySet()) {
+      Location partitionLocation = files.getLocation(entry.getValue());
       inputLocations.add(partitionLocation);
-      pathToKey.put(partitionLocation.toURI().toString(), key);
+      pathToKey.put(partitionLocation.toURI().toString(), entry.getKey());
     }
 
     Map<String, String> inputFormatConfiguration = files.getInputFormatConfiguration(inputLocations);
-    inputFormatConfiguration.put(PATH_TO_PARTITIONING_MAPPING, GSON.toJson(pathToKey));
+    inputFormatConfiguration.put(PATH_TO_PARTITIONING_MAPPING, PartitionPathMappingCodec.encode(pathToKey));
     return inputFormatConfiguration;
   }
 
+  /**
+   * Returns the relative paths of the given partitions, in the order of the keys. The partitions that were not read
+   * while computing the input keys are read from the partitions table with batched multi-gets, rather than one get
+   * per partition.
+   *
+   * @throws NullPointerException if any of the partitions does not exist
+   */
+  private Map<PartitionKey, String> getRelativePaths(Collection<PartitionKey> keys) {
+    Map<PartitionKey, String> paths = new LinkedHashMap<>();
+    List<PartitionKey> missing = new ArrayList<>();
+    for (PartitionKey key : keys) {
+      String path = inputPathsCache.get(key);
+      if (path == null) {
+        missing.add(key);
+      } else {
+        paths.put(key, path);
+      }
+    }
+    for (List<PartitionKey> batch : Lists.partition(missing, INPUT_PARTITIONS_BATCH_SIZE)) {
+      List<Get> gets = new ArrayList<>(batch.size());
+      for (PartitionKey key : batch) {
+        gets.add(new Get(generateRowKey(key, partitioning), RELATIVE_PATH));
+      }
+      List<Row> rows = partitionsTable.get(gets);
+      for (int i = 0; i < batch.size(); i++) {
+        byte[] pathBytes = rows.get(i).get(RELATIVE_PATH);
+        PartitionKey key = batch.get(i);
+        paths.put(key, Bytes.toString(Objects.requireNonNull(pathBytes, "Partition not found for key " + key)));
+      }
+    }
+    return paths;
+  }
+
   /**
    * Computes and returns the input partition keys given by the partition filter - if present. Otherwise, get the list
    * of partition keys explicitly specified in the runtime arguments.
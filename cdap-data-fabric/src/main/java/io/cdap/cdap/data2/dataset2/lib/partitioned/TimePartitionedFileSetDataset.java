@@ -151,6 +151,7 @@ public class TimePartitionedFileSetDataset extends PartitionedFileSetDataset imp
         @Override
         public void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
           partitionKeys.add(key);
+          cacheInputPartitionPath(key, path);
         }
       });
     }
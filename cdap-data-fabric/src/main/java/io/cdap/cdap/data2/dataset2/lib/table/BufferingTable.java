@@ -446,25 +446,37 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public List<Row> get(List<Get> gets) {
     ensureTransactionIsStarted();
+    reportRead(gets.size());
     try {
-      // get persisted, then overwrite with whats buffered
-      List<Map<byte[], byte[]>> persistedRows = getPersisted(gets);
+      // get persisted in one batch for the gets that cannot be answered from the buffer alone,
+      // then overwrite with whats buffered
+      boolean[] fromBuffer = new boolean[gets.size()];
+      List<Get> persistedGets = Lists.newArrayListWithCapacity(gets.size());
+      int idx = 0;
+      for (Get get : gets) {
+        fromBuffer[idx] = isInBuffer(get);
+        if (!fromBuffer[idx]) {
+          persistedGets.add(get);
+        }
+        idx++;
+      }
+      List<Map<byte[], byte[]>> persistedRows = persistedGets.isEmpty()
+        ? Collections.<Map<byte[], byte[]>>emptyList() : getPersisted(persistedGets);
       // gets and rows lists are always of the same size
-      Preconditions.checkArgument(gets.size() == persistedRows.size(),
+      Preconditions.checkArgument(persistedGets.size() == persistedRows.size(),
         "Invalid number of rows fetched when performing multi-get. There must be one row for each get.");
 
-      List<Row> result = Lists.newArrayListWithCapacity(persistedRows.size());
+      List<Row> result = Lists.newArrayListWithCapacity(gets.size());
 
       Iterator<Map<byte[], byte[]>> persistedRowsIter = persistedRows.iterator();
-      Iterator<Get> getIter = gets.iterator();
-      while (persistedRowsIter.hasNext() && getIter.hasNext()) {
-        Get get = getIter.next();
-        Map<byte[], byte[]> persistedRow = persistedRowsIter.next();
-
+      idx = 0;
+      for (Get get : gets) {
         // navigable copy of the persisted data. Implementation may return immutable or unmodifiable maps,
         // so we make a copy here.
         NavigableMap<byte[], byte[]> rowColumns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        rowColumns.putAll(persistedRow);
+        if (!fromBuffer[idx++]) {
+          rowColumns.putAll(persistedRowsIter.next());
+        }
 
         byte[] row = get.getRow();
         NavigableMap<byte[], Update> buffCols = buff.get(row);
@@ -485,6 +497,25 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  /**
+   * Returns whether the given get can be answered from the buffer alone, that is, it is for a set of columns that
+   * are all buffered with a put or a delete.
+   */
+  private boolean isInBuffer(Get get) {
+    List<byte[]> columns = get.getColumns();
+    NavigableMap<byte[], Update> buffCols = columns == null ? null : buff.get(get.getRow());
+    if (buffCols == null) {
+      return false;
+    }
+    for (byte[] column : columns) {
+      // buffered increments will need to the applied on top of the persisted values
+      if (!buffCols.containsKey(column) || buffCols.get(column) instanceof IncrementValue) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * NOTE: if value is null corresponded column is deleted. It will not be in result set when reading.
    *
@@ -812,40 +843,46 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
    * @param buffered The buffered values to overlay on the persisted map.
    */
   private static void mergeToPersisted(Map<byte[], byte[]> persisted, Map<byte[], Update> buffered, byte[][] columns) {
-    List<byte[]> columnKeys;
-    if (columns != null) {
-      columnKeys = Arrays.asList(columns);
-    } else {
-      // NOTE: we want to copy key's byte array because it may be leaked to table's client and we don't want client
-      //       to affect the buffer by changing it in place
-      columnKeys = Lists.newArrayListWithExpectedSize(buffered.size());
-      for (byte[] key : buffered.keySet()) {
-        columnKeys.add(copy(key));
+    if (columns == null) {
+      // overlay all buffered columns in a single pass over the buffered row
+      for (Map.Entry<byte[], Update> entry : buffered.entrySet()) {
+        // NOTE: we want to copy key's byte array because it may be leaked to table's client and we don't want client
+        //       to affect the buffer by changing it in place
+        mergeToPersisted(persisted, entry.getKey(), entry.getValue(), true);
       }
+      return;
     }
-    // overlay buffered values on persisted, applying increments where necessary
-    for (byte[] key : columnKeys) {
+    for (byte[] key : columns) {
       Update val = buffered.get(key);
-      if (val == null) {
-        if (buffered.containsKey(key)) {
-          persisted.remove(key);
-        }
-      } else if (val instanceof IncrementValue) {
-        long persistedValue = 0L;
-        byte[] persistedBytes = persisted.get(key);
-        if (persistedBytes != null) {
-          persistedValue = Bytes.toLong(persistedBytes);
-        }
-        long newValue = persistedValue + ((IncrementValue) val).getValue();
-        persisted.put(key, Bytes.toBytes(newValue));
-      } else if (val instanceof PutValue) {
-        // overwrite the current
-        // NOTE: we want to copy value's byte array because it may be leaked to table's client and we don't want client
-        // to affect the buffer by changing it in place
-        persisted.put(key, copy(((PutValue) val).getValue()));
+      if (val != null || buffered.containsKey(key)) {
+        mergeToPersisted(persisted, key, val, false);
+      }
+    }
+  }
+
+  /**
+   * Applies the buffered update of one column on top of the map of persisted values.
+   */
+  private static void mergeToPersisted(Map<byte[], byte[]> persisted, byte[] key, @Nullable Update val,
+                                       boolean copyKey) {
+    // overlay buffered values on persisted, applying increments where necessary
+    if (val == null) {
+      persisted.remove(key);
+    } else if (val instanceof IncrementValue) {
+      long persistedValue = 0L;
+      byte[] persistedBytes = persisted.get(key);
+      if (persistedBytes != null) {
+        persistedValue = Bytes.toLong(persistedBytes);
       }
-      // unknown type?!
+      long newValue = persistedValue + ((IncrementValue) val).getValue();
+      persisted.put(copyKey ? copy(key) : key, Bytes.toBytes(newValue));
+    } else if (val instanceof PutValue) {
+      // overwrite the current
+      // NOTE: we want to copy value's byte array because it may be leaked to table's client and we don't want client
+      // to affect the buffer by changing it in place
+      persisted.put(copyKey ? copy(key) : key, copy(((PutValue) val).getValue()));
     }
+    // unknown type?!
   }
 
   // utilities useful for underlying implementations
@@ -84,11 +84,18 @@ public final class FuzzyRowFilter implements Filter {
   }
 
   public ReturnCode filterRow(byte[] rowKey) {
+    return filterRow(rowKey, 0, rowKey.length);
+  }
+
+  /**
+   * Same as {@link #filterRow(byte[])}, for a row key that is a range of the given buffer.
+   */
+  public ReturnCode filterRow(byte[] buffer, int offset, int length) {
     // assigning "worst" result first and looking for better options
     SatisfiesCode bestOption = SatisfiesCode.NO_NEXT;
     for (ImmutablePair<byte[], byte[]> fuzzyData : fuzzyKeysData) {
       SatisfiesCode satisfiesCode =
-        satisfies(rowKey, fuzzyData.getFirst(), fuzzyData.getSecond());
+        satisfies(buffer, offset, length, fuzzyData.getFirst(), fuzzyData.getSecond());
       if (satisfiesCode == SatisfiesCode.YES) {
         return ReturnCode.INCLUDE;
       }
@@ -107,10 +114,17 @@ public final class FuzzyRowFilter implements Filter {
   }
 
   public byte[] getNextRowHint(byte[] rowKey) {
+    return getNextRowHint(rowKey, 0, rowKey.length);
+  }
+
+  /**
+   * Same as {@link #getNextRowHint(byte[])}, for a row key that is a range of the given buffer.
+   */
+  public byte[] getNextRowHint(byte[] buffer, int offset, int length) {
     byte[] nextRowKey = null;
     // Searching for the "smallest" row key that satisfies at least one fuzzy row key
     for (ImmutablePair<byte[], byte[]> fuzzyData : fuzzyKeysData) {
-      byte[] nextRowKeyCandidate = getNextForFuzzyRule(rowKey,
+      byte[] nextRowKeyCandidate = getNextForFuzzyRule(buffer, offset, length,
                                                        fuzzyData.getFirst(), fuzzyData.getSecond());
       if (nextRowKeyCandidate == null) {
         continue;
@@ -126,7 +140,7 @@ public final class FuzzyRowFilter implements Filter {
       throw new IllegalStateException("No next row key that satisfies fuzzy exists when" +
                                         " getNextKeyHint() is invoked." +
                                         " Filter: " + this.toString() +
-                                        " RowKey: " + Bytes.toStringBinary(rowKey));
+                                        " RowKey: " + Bytes.toStringBinary(buffer, offset, length));
     }
     return nextRowKey;
   }
@@ -155,11 +169,6 @@ public final class FuzzyRowFilter implements Filter {
     NO_NEXT
   }
 
-  private static SatisfiesCode satisfies(byte[] row,
-                                         byte[] fuzzyKeyBytes, byte[] fuzzyKeyMeta) {
-    return satisfies(row, 0, row.length, fuzzyKeyBytes, fuzzyKeyMeta);
-  }
-
   private static SatisfiesCode satisfies(byte[] row, int offset, int length,
                                          byte[] fuzzyKeyBytes, byte[] fuzzyKeyMeta) {
     if (row == null) {
@@ -204,10 +213,6 @@ public final class FuzzyRowFilter implements Filter {
     return (fuzzyKeyByte & 0xFF) == 255;
   }
 
-  private static byte[] getNextForFuzzyRule(byte[] row, byte[] fuzzyKeyBytes, byte[] fuzzyKeyMeta) {
-    return getNextForFuzzyRule(row, 0, row.length, fuzzyKeyBytes, fuzzyKeyMeta);
-  }
-
   /**
    * @return greater byte array than given (row) which satisfies the fuzzy rule if it exists,
    *         null otherwise
@@ -230,7 +235,7 @@ public final class FuzzyRowFilter implements Filter {
     for (int i = 0; i < result.length; i++) {
       if (i >= fuzzyKeyMeta.length || fuzzyKeyMeta[i] == 1) {
         result[i] = row[offset + i];
-        if (!isMax(row[i])) {
+        if (!isMax(row[offset + i])) {
           // this is "non-fixed" position and is not at max value, hence we can increase it
           toInc = i;
         }
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Scanner;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MetricsTable} that combines the writes to the same cell in memory before writing them to another
+ * {@link MetricsTable}. Increments to a cell are summed up into a single delta, and an increment to a cell with a
+ * pending put is added to the value of the put. The combined writes are written as one batch of puts and one batch
+ * of increments when {@link #flush()} is called. The table never flushes on its own when the estimated size of the
+ * pending writes exceeds the configured buffer size, it only reports it through {@link #isFull()}, so that callers
+ * that track what has been persisted can flush all their tables and record their progress right after.
+ *
+ * All other operations flush the pending writes first, hence reads through this table always see all the writes done
+ * through it. Pending writes are not visible to other tables until they are flushed, and are lost if the process
+ * dies before that. Callers that track what has been persisted, such as the consumer offsets of the metrics
+ * processor, must flush before recording their progress.
+ *
+ * The row and column keys given to {@link #put(SortedMap)} and the increment methods are kept until the next flush,
+ * hence they must not be modified by the caller.
+ */
+public class WriteCombiningMetricsTable implements MetricsTable, Flushable {
+
+  // Rough per cell overhead of the buffer, accounting for the tree map entries and the boxed value
+  private static final int CELL_OVERHEAD = 64;
+
+  private final MetricsTable delegate;
+  private final long maxBufferBytes;
+  // Pending puts and increments. A cell is never in both maps.
+  private NavigableMap<byte[], NavigableMap<byte[], Long>> puts;
+  private NavigableMap<byte[], NavigableMap<byte[], Long>> increments;
+  private long bufferBytes;
+
+  /**
+   * Creates an instance that writes to the given table.
+   *
+   * @param delegate the table to write to
+   * @param maxBufferBytes the estimated size of the pending writes above which the table reports to be full
+   */
+  public WriteCombiningMetricsTable(MetricsTable delegate, long maxBufferBytes) {
+    this.delegate = delegate;
+    this.maxBufferBytes = maxBufferBytes;
+    this.puts = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    this.increments = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+  }
+
+  @Nullable
+  @Override
+  public synchronized byte[] get(byte[] row, byte[] column) {
+    flush();
+    return delegate.get(row, column);
+  }
+
+  @Override
+  public synchronized void put(SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
+    for (Map.Entry<byte[], ? extends SortedMap<byte[], Long>> rowEntry : updates.entrySet()) {
+      byte[] row = rowEntry.getKey();
+      NavigableMap<byte[], Long> incrementRow = increments.get(row);
+      for (Map.Entry<byte[], Long> entry : rowEntry.getValue().entrySet()) {
+        byte[] column = entry.getKey();
+        if (incrementRow != null && incrementRow.remove(column) != null) {
+          if (incrementRow.isEmpty()) {
+            increments.remove(row);
+            incrementRow = null;
+          }
+        } else {
+          bufferBytes += cellSize(row, column);
+        }
+        puts.computeIfAbsent(row, k -> new TreeMap<>(Bytes.BYTES_COMPARATOR)).put(column, entry.getValue());
+      }
+    }
+  }
+
+  @Override
+  public synchronized void putBytes(SortedMap<byte[], ? extends SortedMap<byte[], byte[]>> updates) {
+    flush();
+    delegate.putBytes(updates);
+  }
+
+  @Override
+  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
+    flush();
+    return delegate.swap(row, column, oldValue, newValue);
+  }
+
+  @Override
+  public synchronized void increment(byte[] row, Map<byte[], Long> increments) {
+    addIncrements(row, increments);
+  }
+
+  @Override
+  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) {
+    for (Map.Entry<byte[], NavigableMap<byte[], Long>> entry : updates.entrySet()) {
+      addIncrements(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public synchronized long incrementAndGet(byte[] row, byte[] column, long delta) {
+    flush();
+    return delegate.incrementAndGet(row, column, delta);
+  }
+
+  @Override
+  public synchronized void delete(byte[] row, byte[][] columns) {
+    flush();
+    delegate.delete(row, columns);
+  }
+
+  @Override
+  public synchronized Scanner scan(@Nullable byte[] start, @Nullable byte[] stop, @Nullable FuzzyRowFilter filter) {
+    flush();
+    return delegate.scan(start, stop, filter);
+  }
+
+  /**
+   * Returns whether the estimated size of the pending writes exceeds the configured buffer size, in which case the
+   * caller should {@link #flush()} the table.
+   */
+  public synchronized boolean isFull() {
+    return bufferBytes > maxBufferBytes;
+  }
+
+  /**
+   * Writes all pending puts and increments to the underlying table. Pending writes that failed to be written are
+   * kept, so that they can be retried by the next flush.
+   *
+   * Puts are written as one batch, because writing them again is harmless. Increments are written one row at a time,
+   * and each row is removed from the pending writes as soon as it is written. A batch increment is not atomic across
+   * rows in every implementation, hence retrying a failed batch could apply the increments of the rows that were
+   * written twice. An increment of a single row is atomic in all implementations.
+   */
+  @Override
+  public synchronized void flush() {
+    if (!puts.isEmpty()) {
+      delegate.put(puts);
+      bufferBytes -= size(puts);
+      puts = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    }
+    Iterator<Map.Entry<byte[], NavigableMap<byte[], Long>>> iterator = increments.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<byte[], NavigableMap<byte[], Long>> row = iterator.next();
+      delegate.increment(row.getKey(), row.getValue());
+      iterator.remove();
+      bufferBytes -= size(row.getKey(), row.getValue());
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      delegate.close();
+    }
+  }
+
+  private void addIncrements(byte[] row, Map<byte[], Long> rowIncrements) {
+    NavigableMap<byte[], Long> putRow = puts.get(row);
+    NavigableMap<byte[], Long> incrementRow = increments.get(row);
+    for (Map.Entry<byte[], Long> entry : rowIncrements.entrySet()) {
+      byte[] column = entry.getKey();
+      long delta = entry.getValue();
+      if (putRow != null && putRow.computeIfPresent(column, (k, value) -> value + delta) != null) {
+        continue;
+      }
+      if (incrementRow == null) {
+        incrementRow = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        increments.put(row, incrementRow);
+      }
+      Long existing = incrementRow.putIfAbsent(column, delta);
+      if (existing == null) {
+        bufferBytes += cellSize(row, column);
+      } else {
+        incrementRow.put(column, existing + delta);
+      }
+    }
+  }
+
+  private static long cellSize(byte[] row, byte[] column) {
+    return row.length + column.length + CELL_OVERHEAD;
+  }
+
+  private static long size(byte[] row, NavigableMap<byte[], Long> columns) {
+    long size = 0L;
+    for (byte[] column : columns.keySet()) {
+      size += cellSize(row, column);
+    }
+    return size;
+  }
+
+  private static long size(NavigableMap<byte[], NavigableMap<byte[], Long>> rows) {
+    long size = 0L;
+    for (Map.Entry<byte[], NavigableMap<byte[], Long>> row : rows.entrySet()) {
+      size += size(row.getKey(), row.getValue());
+    }
+    return size;
+  }
+}
@@ -33,9 +33,9 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
-import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -51,6 +51,8 @@ public class InMemoryTable extends BufferingTable {
    */
   public static final String TYPE = "memoryTable";
 
+  private static final int SCAN_BLOCK_SIZE = 1000;
+
   /**
    * To be used in tests which do not need namespaces
    */
@@ -138,18 +140,8 @@ public class InMemoryTable extends BufferingTable {
   @ReadOnly
   @Override
   protected Scanner scanPersisted(Scan scan) {
-    // todo: a lot of inefficient copying from one map to another
-    byte[] startRow = scan.getStartRow();
-    byte[] stopRow = scan.getStopRow();
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> rowRange =
-      InMemoryTableService.getRowRange(getTableName(), startRow, stopRow,
-          tx == null ? null : tx);
-    NavigableMap<byte[], NavigableMap<byte[], byte[]>> visibleRowRange = getLatestNotExcludedRows(rowRange, tx);
-    NavigableMap<byte[], NavigableMap<byte[], byte[]>> rows = unwrapDeletesForRows(visibleRowRange);
-
-    rows = applyFilter(rows, scan.getFilter());
-
-    return new InMemoryScanner(wrapIterator(rows.entrySet().iterator()));
+    return new InMemoryScanner(wrapIterator(new RowIterator(scan.getStartRow(), scan.getStopRow(),
+                                                            scan.getFilter())));
   }
 
   private NavigableMap<byte[], NavigableMap<byte[], byte[]>> applyFilter(
@@ -176,28 +168,12 @@ public class InMemoryTable extends BufferingTable {
 
   @ReadOnly
   private NavigableMap<byte[], byte[]> getInternal(byte[] row, @Nullable byte[][] columns) throws IOException {
-    // no tx logic needed
-    if (tx == null) {
-      NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap =
-        InMemoryTableService.get(getTableName(), row, tx);
-
-      return unwrapDeletes(filterByColumns(getLatest(rowMap), columns));
-    }
-
-    NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap =
-      InMemoryTableService.get(getTableName(), row, tx);
-
+    // the table service only returns versions visible to the transaction, hence no extra tx logic needed
+    NavigableMap<byte[], byte[]> rowMap = InMemoryTableService.getLatest(getTableName(), row, tx);
     if (rowMap == null) {
       return EMPTY_ROW_MAP;
     }
-
-    // if exclusion list is empty, do simple "read last" value call todo: explain
-    if (!tx.hasExcludes()) {
-      return unwrapDeletes(filterByColumns(getLatest(rowMap), columns));
-    }
-
-    NavigableMap<byte[], byte[]> result = filterByColumns(getLatestNotExcluded(rowMap, tx), columns);
-    return unwrapDeletes(result);
+    return unwrapDeletes(filterByColumns(rowMap, columns));
   }
 
   private NavigableMap<byte[], byte[]> filterByColumns(NavigableMap<byte[], byte[]> rowMap,
@@ -216,53 +192,6 @@ public class InMemoryTable extends BufferingTable {
 
   }
 
-  private NavigableMap<byte[], byte[]> getLatest(NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap) {
-    if (rowMap == null) {
-      return EMPTY_ROW_MAP;
-    }
-
-    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, byte[]>> column : rowMap.entrySet()) {
-      // latest go first
-      result.put(column.getKey(), column.getValue().firstEntry().getValue());
-    }
-    return result;
-  }
-
-  protected static NavigableMap<byte[], byte[]> getLatestNotExcluded(
-    NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap, Transaction tx) {
-
-    // todo: for some subclasses it is ok to do changes in place...
-    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, byte[]>> column : rowMap.entrySet()) {
-      // NOTE: versions map already sorted, first comes latest version
-      // todo: not cool to rely on external implementation specifics
-      for (Map.Entry<Long, byte[]> versionAndValue : column.getValue().entrySet()) {
-        // NOTE: we know that excluded versions are ordered
-        if (tx == null || tx.isVisible(versionAndValue.getKey())) {
-          result.put(column.getKey(), versionAndValue.getValue());
-          break;
-        }
-      }
-    }
-
-    return result;
-  }
-
-  protected static NavigableMap<byte[], NavigableMap<byte[], byte[]>> getLatestNotExcludedRows(
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> rows, Transaction tx) {
-    NavigableMap<byte[], NavigableMap<byte[], byte[]>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-
-    for (Map.Entry<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> rowMap : rows.entrySet()) {
-      NavigableMap<byte[], byte[]> visibleRowMap = getLatestNotExcluded(rowMap.getValue(), tx);
-      if (visibleRowMap.size() > 0) {
-        result.put(rowMap.getKey(), visibleRowMap);
-      }
-    }
-
-    return result;
-  }
-
   // Following methods assist the Dataset authorization of the scanner
   @ReadOnly
   private <T> boolean hasNext(Iterator<T> iterator) {
@@ -282,4 +211,41 @@ public class InMemoryTable extends BufferingTable {
       }
     };
   }
+
+  /**
+   * Iterates over the persisted rows of a scan, fetching them from the {@link InMemoryTableService} in blocks of
+   * {@link #SCAN_BLOCK_SIZE} rows, so that a scan doesn't copy the whole range upfront.
+   */
+  private final class RowIterator extends AbstractIterator<Map.Entry<byte[], NavigableMap<byte[], byte[]>>> {
+
+    private final byte[] stopRow;
+    private final Filter filter;
+    private byte[] startRow;
+    private Iterator<Map.Entry<byte[], NavigableMap<byte[], byte[]>>> block = Collections.emptyIterator();
+    private boolean lastBlock;
+
+    private RowIterator(@Nullable byte[] startRow, @Nullable byte[] stopRow, @Nullable Filter filter) {
+      this.startRow = startRow;
+      this.stopRow = stopRow;
+      this.filter = filter;
+    }
+
+    @Override
+    protected Map.Entry<byte[], NavigableMap<byte[], byte[]>> computeNext() {
+      while (!block.hasNext()) {
+        if (lastBlock) {
+          return endOfData();
+        }
+        NavigableMap<byte[], NavigableMap<byte[], byte[]>> rows =
+          InMemoryTableService.getLatestRowRange(getTableName(), startRow, stopRow, SCAN_BLOCK_SIZE, tx);
+        lastBlock = rows.size() < SCAN_BLOCK_SIZE;
+        if (!rows.isEmpty()) {
+          // the next block starts right after the last row of this block
+          startRow = Bytes.add(rows.lastKey(), new byte[] { 0 });
+        }
+        block = applyFilter(unwrapDeletesForRows(rows), filter).entrySet().iterator();
+      }
+      return block.next();
+    }
+  }
 }
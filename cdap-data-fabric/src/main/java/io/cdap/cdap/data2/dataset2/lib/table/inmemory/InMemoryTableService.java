@@ -17,7 +17,6 @@
 package io.cdap.cdap.data2.dataset2.lib.table.inmemory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
@@ -35,189 +34,195 @@ import java.util.Comparator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 
 /**
  * Holds all in-memory tables for {@link InMemoryTable}.
+ *
+ * Each table is guarded by a read write lock of its own, so that operations on different tables don't block each
+ * other, and reads of the same table run concurrently. Writes hold the write lock of the table, hence every operation,
+ * including multi-row merges and scans, is atomic. Dropping a table waits for the operations in progress on it, and
+ * later operations on the dropped table fail as if it never existed.
  */
-// todo: use locks instead of synchronize
 // todo: consider using SortedMap instead of NavigableMap in APIs
 public class InMemoryTableService {
-  private static Map<String, ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>>> tables =
-    Maps.newHashMap();
 
-  public static synchronized boolean exists(String tableName) {
+  private static final ConcurrentMap<String, TableData> tables = new ConcurrentHashMap<>();
+
+  public static boolean exists(String tableName) {
     return tables.containsKey(tableName);
   }
 
-  public static synchronized void create(String tableName) {
-    if (!tables.containsKey(tableName)) {
-      tables.put(tableName, new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR));
-    }
+  public static void create(String tableName) {
+    tables.putIfAbsent(tableName, new TableData(tableName));
   }
 
-  public static synchronized void truncate(String tableName) {
-    tables.get(tableName).clear();
+  public static void truncate(String tableName) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      table.rows.clear();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public static synchronized void drop(String tableName) {
-    tables.remove(tableName);
+  public static void drop(String tableName) {
+    TableData table = tables.remove(tableName);
+    if (table != null) {
+      table.drop();
+    }
   }
 
-  public static synchronized void reset() {
-    tables.clear();
+  public static void reset() {
+    for (String tableName : tables.keySet()) {
+      drop(tableName);
+    }
   }
 
   // no nulls
-  public static synchronized void merge(String tableName,
-                                        SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
-                                        long version) {
+  public static void merge(String tableName, SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> changes,
+                           long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    SortedMap<byte[], ? extends SortedMap<byte[], Update>> changesCopy = deepCopyUpdates(changes);
-    for (Map.Entry<byte[], ? extends SortedMap<byte[], Update>> change : changesCopy.entrySet()) {
-      merge(table, change.getKey(), change.getValue(), version);
-    }
-  }
-
-  private static void merge(ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table,
-                            byte[] row, Map<byte[], Update> changes, long version) {
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now merge the changes into the row, one by one
-    for (Map.Entry<byte[], Update> keyVal : changes.entrySet()) {
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(keyVal.getKey());
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(keyVal.getKey(), colMap);
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      for (Map.Entry<byte[], ? extends SortedMap<byte[], ? extends Update>> change : changes.entrySet()) {
+        NavigableMap<byte[], Column> rowMap = table.getOrCreateRow(change.getKey());
+        // now merge the changes into the row, one by one
+        for (Map.Entry<byte[], ? extends Update> keyVal : change.getValue().entrySet()) {
+          Column column = getOrCreateColumn(rowMap, keyVal.getKey());
+          // put into the column with given version
+          column.put(version, Updates.mergeUpdates(column.get(version), keyVal.getValue().deepCopy()));
+        }
       }
-      // put into the column with given version
-      Update merged = Updates.mergeUpdates(colMap.get(version), keyVal.getValue());
-      colMap.put(version, merged);
+    } finally {
+      lock.unlock();
     }
   }
 
   // todo: remove it from here: only used by "system" metrics table, which should be revised
   @Deprecated
-  public static synchronized Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
+  public static Map<byte[], Long> increment(String tableName, byte[] row, Map<byte[], Long> increments) {
     Map<byte[], Long> resultMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    if (rowMap == null) {
-      rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      table.put(row, rowMap);
-    }
-    // now increment each column, one by one
-    long versionForWrite = System.currentTimeMillis();
-    for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
-      IncrementValue increment = new IncrementValue(inc.getValue());
-      // create the column in the row if it does not exist
-      NavigableMap<Long, Update> colMap = rowMap.get(inc.getKey());
-      Update last = null;
-      if (colMap == null) {
-        colMap = Maps.newTreeMap();
-        rowMap.put(inc.getKey(), colMap);
-      } else {
-        last = colMap.lastEntry().getValue();
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      NavigableMap<byte[], Column> rowMap = table.getOrCreateRow(row);
+      // now increment each column, one by one
+      long versionForWrite = System.currentTimeMillis();
+      for (Map.Entry<byte[], Long> inc : increments.entrySet()) {
+        Column column = getOrCreateColumn(rowMap, inc.getKey());
+        Update merged = Updates.mergeUpdates(column.getLatest(), new IncrementValue(inc.getValue()));
+        // put into the column with given version
+        long newValue = Bytes.toLong(merged.getBytes());
+        resultMap.put(inc.getKey(), newValue);
+        column.put(versionForWrite, merged);
       }
-      Update merged = Updates.mergeUpdates(last, increment);
-      // put into the column with given version
-      long newValue = Bytes.toLong(merged.getBytes());
-      resultMap.put(inc.getKey(), newValue);
-      colMap.put(versionForWrite, merged);
+    } finally {
+      lock.unlock();
     }
     return resultMap;
   }
 
-  public static synchronized boolean swap(String tableName, byte[] row, byte[] column,
-                                          byte[] oldValue, byte[] newValue) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    // get the correct row from the table, create it if it doesn't exist
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    Update existingValue = null;
-    if (rowMap != null) {
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap != null) {
-        existingValue = columnMap.lastEntry().getValue();
+  public static boolean swap(String tableName, byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      NavigableMap<byte[], Column> rowMap = table.rows.get(row);
+      Column columnData = rowMap == null ? null : rowMap.get(column);
+      Update existingValue = columnData == null ? null : columnData.getLatest();
+      // verify existing value matches
+      if (oldValue == null && existingValue != null) {
+        return false;
       }
-    }
-    // verify existing value matches
-    if (oldValue == null && existingValue != null) {
-      return false;
-    }
-    if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
-      return false;
-    }
-    // write new value
-    if (newValue == null) {
-      if (rowMap != null) {
-        rowMap.remove(column);
-      }
-    } else {
-      if (rowMap == null) {
-        rowMap = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        table.put(row, rowMap);
+      if (oldValue != null && (existingValue == null || !Bytes.equals(oldValue, existingValue.getBytes()))) {
+        return false;
       }
-      NavigableMap<Long, Update> columnMap = rowMap.get(column);
-      if (columnMap == null) {
-        columnMap = Maps.newTreeMap();
-        rowMap.put(column, columnMap);
+      // write new value
+      if (newValue == null) {
+        if (rowMap != null) {
+          rowMap.remove(column);
+        }
+      } else {
+        getOrCreateColumn(table.getOrCreateRow(row), column).put(System.currentTimeMillis(),
+                                                                 new PutValue(copy(newValue)));
       }
-      PutValue newPut = new PutValue(newValue);
-      columnMap.put(System.currentTimeMillis(), newPut);
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public static synchronized void undo(String tableName,
-                                       NavigableMap<byte[], NavigableMap<byte[], Update>> changes,
-                                       long version) {
+  public static void undo(String tableName, NavigableMap<byte[], NavigableMap<byte[], Update>> changes, long version) {
     // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
-      byte[] row = change.getKey();
-      NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-      if (rowMap != null) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      for (Map.Entry<byte[], NavigableMap<byte[], Update>> change : changes.entrySet()) {
+        NavigableMap<byte[], Column> rowMap = table.rows.get(change.getKey());
+        if (rowMap == null) {
+          continue;
+        }
         for (byte[] column : change.getValue().keySet()) {
-          NavigableMap<Long, Update> values = rowMap.get(column);
-          values.remove(version);
+          Column columnData = rowMap.get(column);
+          if (columnData != null && columnData.remove(version) && columnData.isEmpty()) {
+            rowMap.remove(column);
+          }
         }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
-  public static synchronized void delete(String tableName, Iterable<byte[]> rows) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    for (byte[] row : rows) {
-      table.remove(row);
+  public static void delete(String tableName, Iterable<byte[]> rows) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      for (byte[] row : rows) {
+        table.rows.remove(row);
+      }
+    } finally {
+      lock.unlock();
     }
   }
 
-  public static synchronized void deleteColumns(String tableName, byte[] row, byte[] column) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> columnValues = table.get(row);
-    columnValues.remove(column);
+  public static void deleteColumns(String tableName, byte[] row, byte[] column) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      NavigableMap<byte[], Column> rowMap = table.rows.get(row);
+      if (rowMap != null) {
+        rowMap.remove(column);
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public static synchronized void delete(String tableName, byte[] rowPrefix) {
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    if (rowPrefix.length == 0) {
-      table.clear();
-    } else {
-      byte[] rowAfter = rowAfterPrefix(rowPrefix);
-      if (rowAfter == null) {
-        table.tailMap(rowPrefix).clear();
+  public static void delete(String tableName, byte[] rowPrefix) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(true);
+    try {
+      if (rowPrefix.length == 0) {
+        table.rows.clear();
       } else {
-        table.subMap(rowPrefix, rowAfter).clear();
+        byte[] rowAfter = rowAfterPrefix(rowPrefix);
+        if (rowAfter == null) {
+          table.rows.tailMap(rowPrefix).clear();
+        } else {
+          table.rows.subMap(rowPrefix, rowAfter).clear();
+        }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -238,116 +243,144 @@ public class InMemoryTableService {
     return null;
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName,
-                                                                                  byte[] row,
-                                                                                  @Nullable Transaction tx) {
-    // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> table = tables.get(tableName);
-    Preconditions.checkArgument(table != null, "table not found: " + tableName);
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap = table.get(row);
-    return deepCopy(Updates.rowToBytes(getVisible(rowMap, tx)));
+  @Nullable
+  public static NavigableMap<byte[], NavigableMap<Long, byte[]>> get(String tableName, byte[] row,
+                                                                     @Nullable Transaction tx) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(false);
+    try {
+      NavigableMap<byte[], Column> rowMap = table.rows.get(row);
+      return rowMap == null ? null : getVisible(rowMap, tx);
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public static synchronized NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
-                             getRowRange(String tableName,
-                                         byte[] startRow,
-                                         byte[] stopRow,
-                                         @Nullable Transaction tx) {
-    // todo: handle nulls
-    ConcurrentNavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> tableData = tables.get(tableName);
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rows;
-    if (startRow == null && stopRow == null) {
-      rows = tableData;
-    } else if (startRow == null) {
-      rows = tableData.headMap(stopRow, false);
-    } else if (stopRow == null) {
-      rows = tableData.tailMap(startRow, true);
-    } else {
-      rows = tableData.subMap(startRow, true, stopRow, false);
+  public static NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>>
+                getRowRange(String tableName, @Nullable byte[] startRow, @Nullable byte[] stopRow,
+                            @Nullable Transaction tx) {
+    TableData table = getTable(tableName);
+    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> result =
+      new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    Lock lock = table.lock(false);
+    try {
+      for (Map.Entry<byte[], NavigableMap<byte[], Column>> rowMap : getRows(table, startRow, stopRow).entrySet()) {
+        result.put(copy(rowMap.getKey()), getVisible(rowMap.getValue(), tx));
+      }
+    } finally {
+      lock.unlock();
     }
+    return result;
+  }
 
-    NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> result =
-      Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<byte[], NavigableMap<Long, Update>>> rowMap : rows.entrySet()) {
-      NavigableMap<byte[], NavigableMap<Long, Update>> columns =
-        tx == null ? rowMap.getValue() : getVisible(rowMap.getValue(), tx);
-      result.put(copy(rowMap.getKey()), deepCopy(Updates.rowToBytes(columns)));
+  /**
+   * Returns the latest version visible to the given transaction of each column of the given row, or the latest
+   * version if the transaction is {@code null}. Returns {@code null} if the row doesn't exist.
+   */
+  @Nullable
+  public static NavigableMap<byte[], byte[]> getLatest(String tableName, byte[] row, @Nullable Transaction tx) {
+    TableData table = getTable(tableName);
+    Lock lock = table.lock(false);
+    try {
+      NavigableMap<byte[], Column> rowMap = table.rows.get(row);
+      return rowMap == null ? null : getLatestVisible(rowMap, tx);
+    } finally {
+      lock.unlock();
     }
+  }
 
+  /**
+   * Same as {@link #getLatest(String, byte[], Transaction)} for the rows in the given range, returning at most
+   * {@code limit} rows. Rows without any visible column are omitted.
+   */
+  public static NavigableMap<byte[], NavigableMap<byte[], byte[]>> getLatestRowRange(String tableName,
+                                                                                     @Nullable byte[] startRow,
+                                                                                     @Nullable byte[] stopRow,
+                                                                                     int limit,
+                                                                                     @Nullable Transaction tx) {
+    TableData table = getTable(tableName);
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    Lock lock = table.lock(false);
+    try {
+      for (Map.Entry<byte[], NavigableMap<byte[], Column>> rowMap : getRows(table, startRow, stopRow).entrySet()) {
+        if (result.size() >= limit) {
+          break;
+        }
+        NavigableMap<byte[], byte[]> columns = getLatestVisible(rowMap.getValue(), tx);
+        if (!columns.isEmpty()) {
+          result.put(copy(rowMap.getKey()), columns);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
     return result;
   }
 
-  public static synchronized Collection<String> list() {
+  public static Collection<String> list() {
     return ImmutableList.copyOf(tables.keySet());
   }
 
-  private static NavigableMap<byte[], NavigableMap<Long, Update>> getVisible(
-    NavigableMap<byte[], NavigableMap<Long, Update>> rowMap, final Transaction tx) {
+  private static TableData getTable(String tableName) {
+    TableData table = tables.get(tableName);
+    Preconditions.checkArgument(table != null, "table not found: " + tableName);
+    return table;
+  }
 
-    if (rowMap == null) {
-      return null;
+  private static NavigableMap<byte[], NavigableMap<byte[], Column>> getRows(TableData table, @Nullable byte[] startRow,
+                                                                           @Nullable byte[] stopRow) {
+    if (startRow == null && stopRow == null) {
+      return table.rows;
     }
-    NavigableMap<byte[], NavigableMap<Long, Update>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, Update>> column : rowMap.entrySet()) {
-      SortedMap<Long, Update> visbleValues = column.getValue();
-      if (tx != null) {
-        visbleValues = Maps.filterKeys(visbleValues, new Predicate<Long>() {
-          @Override
-          public boolean apply(Long version) {
-            return tx.isVisible(version);
-          }
-        });
-      }
-      if (visbleValues.size() > 0) {
-        NavigableMap<Long, Update> colMap = createVersionedValuesMap(visbleValues);
-        result.put(column.getKey(), colMap);
-      }
+    if (startRow == null) {
+      return table.rows.headMap(stopRow, false);
     }
-    return result;
+    if (stopRow == null) {
+      return table.rows.tailMap(startRow, true);
+    }
+    return table.rows.subMap(startRow, true, stopRow, false);
   }
 
-  private static NavigableMap<Long, Update> createVersionedValuesMap(SortedMap<Long, Update> copy) {
-    NavigableMap<Long, Update> map = Maps.newTreeMap(VERSIONED_VALUE_MAP_COMPARATOR);
-    map.putAll(copy);
-    return map;
+  private static Column getOrCreateColumn(NavigableMap<byte[], Column> rowMap, byte[] column) {
+    Column columnData = rowMap.get(column);
+    if (columnData == null) {
+      columnData = new Column();
+      rowMap.put(copy(column), columnData);
+    }
+    return columnData;
   }
 
-  private static SortedMap<byte[], SortedMap<byte[], Update>> deepCopyUpdates(
-    SortedMap<byte[], ? extends SortedMap<byte[], ? extends Update>> src) {
-
-    SortedMap<byte[], SortedMap<byte[], Update>> copy = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], ? extends SortedMap<byte[], ? extends Update>> entry : src.entrySet()) {
-      byte[] key = copy(entry.getKey());
-      SortedMap<byte[], Update> columnUpdates = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      copy.put(key, columnUpdates);
-      for (Map.Entry<byte[], ? extends Update> updateEntry : entry.getValue().entrySet()) {
-        byte[] col = copy(updateEntry.getKey());
-        columnUpdates.put(col, updateEntry.getValue().deepCopy());
+  /**
+   * Returns a copy of the versions of the given row that are visible to the given transaction, or all versions if
+   * the transaction is {@code null}. Columns without visible versions are omitted. Must be called with a lock of
+   * the table held.
+   */
+  private static NavigableMap<byte[], NavigableMap<Long, byte[]>> getVisible(NavigableMap<byte[], Column> rowMap,
+                                                                            @Nullable Transaction tx) {
+    NavigableMap<byte[], NavigableMap<Long, byte[]>> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], Column> column : rowMap.entrySet()) {
+      NavigableMap<Long, byte[]> values = column.getValue().getVisible(tx);
+      if (values != null) {
+        result.put(copy(column.getKey()), values);
       }
     }
-
-    return copy;
+    return result;
   }
 
-  @Nullable
-  private static NavigableMap<byte[], NavigableMap<Long, byte[]>> deepCopy(
-    @Nullable NavigableMap<byte[], NavigableMap<Long, byte[]>> src) {
-
-    if (src == null) {
-      return null;
-    }
-
-    NavigableMap<byte[], NavigableMap<Long, byte[]>> copy = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], NavigableMap<Long, byte[]>> entry : src.entrySet()) {
-      byte[] key = copy(entry.getKey());
-      NavigableMap<Long, byte[]> columnValues = Maps.newTreeMap(VERSIONED_VALUE_MAP_COMPARATOR);
-      copy.put(key, columnValues);
-      for (Map.Entry<Long, byte[]> valueEntry : entry.getValue().entrySet()) {
-        columnValues.put(valueEntry.getKey(), copy(valueEntry.getValue()));
+  /**
+   * Returns a copy of the latest version visible to the given transaction of each column of the given row. Must be
+   * called with a lock of the table held.
+   */
+  private static NavigableMap<byte[], byte[]> getLatestVisible(NavigableMap<byte[], Column> rowMap,
+                                                               @Nullable Transaction tx) {
+    NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], Column> column : rowMap.entrySet()) {
+      Update update = column.getValue().getLatestVisible(tx);
+      if (update != null) {
+        result.put(copy(column.getKey()), copy(update.getBytes()));
       }
     }
-
-    return copy;
+    return result;
   }
 
   @Nullable
@@ -364,4 +397,157 @@ public class InMemoryTableService {
       return Longs.compare(right, left);
     }
   };
+
+  /**
+   * The rows of a table, together with the lock that guards them. The rows are only accessed with the read lock held,
+   * and only modified with the write lock held.
+   */
+  private static final class TableData {
+    private final String name;
+    private final NavigableMap<byte[], NavigableMap<byte[], Column>> rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by the write lock, read with either lock held
+    private boolean dropped;
+
+    private TableData(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Acquires and returns the write lock of the table if {@code exclusive} is {@code true}, or its read lock
+     * otherwise.
+     *
+     * @throws IllegalArgumentException if the table has been dropped
+     */
+    Lock lock(boolean exclusive) {
+      Lock result = exclusive ? lock.writeLock() : lock.readLock();
+      result.lock();
+      if (dropped) {
+        result.unlock();
+        throw new IllegalArgumentException("table not found: " + name);
+      }
+      return result;
+    }
+
+    /**
+     * Marks the table as dropped, after the operations in progress on it are done.
+     */
+    void drop() {
+      Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        dropped = true;
+        rows.clear();
+      } finally {
+        writeLock.unlock();
+      }
+    }
+
+    /**
+     * Returns the given row, creating it if it doesn't exist. Must be called with the write lock held.
+     */
+    NavigableMap<byte[], Column> getOrCreateRow(byte[] row) {
+      NavigableMap<byte[], Column> rowMap = rows.get(row);
+      if (rowMap == null) {
+        rowMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        rows.put(copy(row), rowMap);
+      }
+      return rowMap;
+    }
+  }
+
+  /**
+   * The versions of a column, kept as a primitive array of versions in ascending order, and the updates of these
+   * versions at the same indexes.
+   */
+  private static final class Column {
+    private long[] versions = new long[1];
+    private Update[] updates = new Update[1];
+    private int size;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    @Nullable
+    Update get(long version) {
+      int idx = Arrays.binarySearch(versions, 0, size, version);
+      return idx < 0 ? null : updates[idx];
+    }
+
+    /**
+     * Returns the update of the highest version, or {@code null} if the column is empty.
+     */
+    @Nullable
+    Update getLatest() {
+      return size == 0 ? null : updates[size - 1];
+    }
+
+    /**
+     * Returns the update of the highest version visible to the given transaction, or of the highest version if the
+     * transaction is {@code null}, or {@code null} if no version is visible.
+     */
+    @Nullable
+    Update getLatestVisible(@Nullable Transaction tx) {
+      for (int i = size - 1; i >= 0; i--) {
+        if (tx == null || tx.isVisible(versions[i])) {
+          return updates[i];
+        }
+      }
+      return null;
+    }
+
+    void put(long version, Update update) {
+      // Versions are mostly written in increasing order, hence check the last one first
+      int idx = size > 0 && versions[size - 1] < version ? -size - 1 : Arrays.binarySearch(versions, 0, size, version);
+      if (idx >= 0) {
+        updates[idx] = update;
+        return;
+      }
+      idx = -idx - 1;
+      if (size == versions.length) {
+        versions = Arrays.copyOf(versions, size * 2);
+        updates = Arrays.copyOf(updates, size * 2);
+      }
+      System.arraycopy(versions, idx, versions, idx + 1, size - idx);
+      System.arraycopy(updates, idx, updates, idx + 1, size - idx);
+      versions[idx] = version;
+      updates[idx] = update;
+      size++;
+    }
+
+    /**
+     * Removes the given version, returning whether it existed.
+     */
+    boolean remove(long version) {
+      int idx = Arrays.binarySearch(versions, 0, size, version);
+      if (idx < 0) {
+        return false;
+      }
+      System.arraycopy(versions, idx + 1, versions, idx, size - idx - 1);
+      System.arraycopy(updates, idx + 1, updates, idx, size - idx - 1);
+      size--;
+      updates[size] = null;
+      return true;
+    }
+
+    /**
+     * Returns a copy of the values of the versions visible to the given transaction, or of all versions if the
+     * transaction is {@code null}, or {@code null} if no version is visible.
+     */
+    @Nullable
+    NavigableMap<Long, byte[]> getVisible(@Nullable Transaction tx) {
+      NavigableMap<Long, byte[]> result = null;
+      for (int i = 0; i < size; i++) {
+        if (tx != null && !tx.isVisible(versions[i])) {
+          continue;
+        }
+        if (result == null) {
+          result = new TreeMap<>(VERSIONED_VALUE_MAP_COMPARATOR);
+        }
+        result.put(versions[i], updates[i] == null ? null : copy(updates[i].getBytes()));
+      }
+      return result;
+    }
+  }
 }
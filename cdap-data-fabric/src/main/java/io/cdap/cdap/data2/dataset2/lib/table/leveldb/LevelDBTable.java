@@ -20,21 +20,27 @@ import com.google.common.collect.Maps;
 import io.cdap.cdap.api.annotation.ReadOnly;
 import io.cdap.cdap.api.annotation.WriteOnly;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.data.batch.Split;
 import io.cdap.cdap.api.dataset.DataSetException;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.dataset.table.TableSplit;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTable;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.IncrementValue;
 import io.cdap.cdap.data2.dataset2.lib.table.PutValue;
+import io.cdap.cdap.data2.dataset2.lib.table.SplitsUtil;
 import io.cdap.cdap.data2.dataset2.lib.table.Update;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import javax.annotation.Nullable;
@@ -44,6 +50,11 @@ import javax.annotation.Nullable;
  */
 public class LevelDBTable extends BufferingTable {
 
+  // if the number of splits is not given, splits are made of about this size, but there are at least
+  // SplitsUtil.DEFAULT_NUMBER_OF_SPLITS and at most MAX_NUMBER_OF_SPLITS of them
+  private static final long DEFAULT_SPLIT_SIZE = 64 * 1024 * 1024L;
+  private static final int MAX_NUMBER_OF_SPLITS = 1024;
+
   private final LevelDBTableCore core;
   private long persistedVersion;
 
@@ -126,6 +137,12 @@ public class LevelDBTable extends BufferingTable {
     return core.getRow(row, null, startColumn, stopColumn, limit, tx);
   }
 
+  @ReadOnly
+  @Override
+  protected List<Map<byte[], byte[]>> getPersisted(List<Get> gets) throws Exception {
+    return core.getRows(gets, tx);
+  }
+
   @ReadOnly
   @Override
   protected Scanner scanPersisted(Scan scan) throws Exception {
@@ -154,6 +171,45 @@ public class LevelDBTable extends BufferingTable {
     };
   }
 
+  /**
+   * Returns splits of about equal size on disk, based on the approximate sizes estimated by LevelDB. Falls back to
+   * splitting the row space evenly if the table has no data on disk yet.
+   *
+   * @param numSplits Desired number of splits. If greater than zero, at most this many splits will be returned.
+   *                  If less or equal to zero, the number of splits is based on the size of the data.
+   * @param start If non-null, the returned splits will only cover keys that are greater or equal.
+   * @param stop If non-null, the returned splits will only cover keys that are less.
+   * @return list of {@link Split}
+   */
+  @ReadOnly
+  @Override
+  public List<Split> getSplits(int numSplits, byte[] start, byte[] stop) {
+    ensureTransactionIsStarted();
+    if (start != null && stop != null && Bytes.compareTo(start, stop) >= 0) {
+      return new ArrayList<>();
+    }
+    try {
+      long size = core.getApproximateSize(start, stop);
+      if (size <= 0) {
+        return super.getSplits(numSplits, start, stop);
+      }
+      if (numSplits <= 0) {
+        numSplits = (int) Math.max(SplitsUtil.DEFAULT_NUMBER_OF_SPLITS,
+                                   Math.min(MAX_NUMBER_OF_SPLITS, size / DEFAULT_SPLIT_SIZE));
+      }
+      List<Split> splits = new ArrayList<>(numSplits);
+      byte[] splitStart = start;
+      for (byte[] splitRow : core.getSplitRows(numSplits, start, stop)) {
+        splits.add(new TableSplit(splitStart, splitRow));
+        splitStart = splitRow;
+      }
+      splits.add(new TableSplit(splitStart, stop));
+      return splits;
+    } catch (IOException e) {
+      throw new DataSetException("Failed to compute splits of table " + getTableName(), e);
+    }
+  }
+
   // Helper methods to help operate on the Scanner with authroization
 
   @ReadOnly
@@ -18,6 +18,7 @@ package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Result;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -26,6 +27,7 @@ import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import org.apache.tephra.Transaction;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Range;
 import org.iq80.leveldb.ReadOptions;
 import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
@@ -34,10 +36,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
@@ -64,6 +69,21 @@ public class LevelDBTableCore {
   // used for obtaining the next row/column for upper bound
   private static final byte[] ONE_ZERO = { 0x00 };
 
+  // number of older versions of a column to skip by iterating, before seeking past all of them
+  private static final int MAX_SKIP_VERSIONS = 8;
+
+  // used as the upper bound of the row space when estimating sizes of ranges without stop row
+  private static final byte[] MAX_ROW = createMaxRow(1024);
+
+  // maximum number of leading bytes of the rows used for computing split rows
+  private static final int MAX_SPLIT_ROW_WIDTH = 64;
+
+  // number of bytes beyond the given rows used for computing split rows, to be able to split between close rows
+  private static final int SPLIT_ROW_EXTRA_WIDTH = 8;
+
+  // split rows are accepted if the size of the split is within 1/SPLIT_SIZE_TOLERANCE of the desired size
+  private static final int SPLIT_SIZE_TOLERANCE = 20;
+
   private static byte[] upperBound(byte[] column) {
     return Bytes.add(column, ONE_ZERO);
   }
@@ -209,12 +229,153 @@ public class LevelDBTableCore {
     return new LevelDBScanner(iterator, endKey, filter, columns, tx);
   }
 
+  /**
+   * Returns the approximate size on disk of a range of rows, as estimated by LevelDB from the table files. Data that
+   * is only in the memory buffer of LevelDB is not accounted for.
+   *
+   * @param startRow the first row of the range, or {@code null} to start at the beginning of the table
+   * @param stopRow the row to stop before, or {@code null} to go to the end of the table
+   * @return the approximate size in bytes
+   */
+  public long getApproximateSize(@Nullable byte[] startRow, @Nullable byte[] stopRow) throws IOException {
+    return getApproximateSize(getDB(), createStartKey(startRow == null ? Bytes.EMPTY_BYTE_ARRAY : startRow),
+                              createStartKey(stopRow == null ? MAX_ROW : stopRow));
+  }
+
+  /**
+   * Computes the rows that divide a range of rows into the given number of ranges of about equal size on disk. The
+   * boundaries are found by bisecting the row space, using the approximate sizes of ranges that LevelDB estimates
+   * from the index of the table files, hence no data is read. Fewer rows are returned if the data is not large enough
+   * to be split, for example because it is only in the memory buffer of LevelDB.
+   *
+   * @param numSplits the desired number of ranges
+   * @param startRow the first row of the range, or {@code null} to start at the beginning of the table
+   * @param stopRow the row to stop before, or {@code null} to go to the end of the table
+   * @return the rows to split at, in ascending order and strictly between the start and stop rows
+   */
+  public List<byte[]> getSplitRows(int numSplits, @Nullable byte[] startRow,
+                                   @Nullable byte[] stopRow) throws IOException {
+    DB db = getDB();
+    byte[] startKey = createStartKey(startRow == null ? Bytes.EMPTY_BYTE_ARRAY : startRow);
+    long totalSize = getApproximateSize(db, startKey, createStartKey(stopRow == null ? MAX_ROW : stopRow));
+    if (numSplits <= 1 || totalSize <= 0) {
+      return Collections.emptyList();
+    }
+
+    byte[] firstRow = startRow;
+    if (firstRow == null) {
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seekToFirst();
+        if (!iterator.hasNext()) {
+          return Collections.emptyList();
+        }
+        byte[] key = iterator.peekNext().getKey();
+        firstRow = Arrays.copyOfRange(key, KeyValue.ROW_LENGTH_SIZE, KeyValue.ROW_LENGTH_SIZE + getRowLength(key));
+      }
+    }
+
+    // rows are mapped to unsigned integers of a fixed number of bytes, so that the row space can be bisected
+    int width = Math.min(MAX_SPLIT_ROW_WIDTH,
+                         Math.max(firstRow.length, stopRow == null ? 0 : stopRow.length) + SPLIT_ROW_EXTRA_WIDTH);
+    BigInteger low = toInteger(firstRow, width);
+    BigInteger high = stopRow == null ? BigInteger.ONE.shiftLeft(width * Byte.SIZE) : toInteger(stopRow, width);
+    long tolerance = totalSize / numSplits / SPLIT_SIZE_TOLERANCE;
+
+    List<byte[]> splitRows = new ArrayList<>();
+    byte[] previous = firstRow;
+    for (int i = 1; i < numSplits; i++) {
+      long targetSize = totalSize * i / numSplits;
+      // bisect between the previous split row and the stop row for the row where the range reaches the target size
+      BigInteger lower = low;
+      BigInteger upper = high;
+      while (lower.compareTo(upper) < 0) {
+        BigInteger middle = lower.add(upper).shiftRight(1);
+        long size = getApproximateSize(db, startKey, createStartKey(toRow(middle, width)));
+        if (Math.abs(size - targetSize) <= tolerance) {
+          lower = middle;
+          break;
+        }
+        if (size < targetSize) {
+          lower = middle.add(BigInteger.ONE);
+        } else {
+          upper = middle;
+        }
+      }
+      byte[] row = toRow(lower, width);
+      if (Bytes.compareTo(row, previous) > 0 && (stopRow == null || Bytes.compareTo(row, stopRow) < 0)) {
+        splitRows.add(row);
+        previous = row;
+        low = lower;
+      }
+    }
+    return splitRows;
+  }
+
+  private static long getApproximateSize(DB db, byte[] startKey, byte[] stopKey) {
+    return db.getApproximateSizes(new Range(startKey, stopKey))[0];
+  }
+
+  /**
+   * Returns the given row as an unsigned integer of the given number of bytes, padding or truncating it at the end.
+   */
+  private static BigInteger toInteger(byte[] row, int width) {
+    return new BigInteger(1, Arrays.copyOf(row, width));
+  }
+
+  /**
+   * Returns the row for an unsigned integer of the given number of bytes, without trailing zeros.
+   */
+  private static byte[] toRow(BigInteger value, int width) {
+    byte[] bytes = value.toByteArray();
+    byte[] row = new byte[width];
+    int length = Math.min(bytes.length, width);
+    System.arraycopy(bytes, bytes.length - length, row, width - length, length);
+    int end = width;
+    while (end > 1 && row[end - 1] == 0) {
+      end--;
+    }
+    return Arrays.copyOf(row, end);
+  }
+
+  private static byte[] createMaxRow(int length) {
+    byte[] row = new byte[length];
+    Arrays.fill(row, (byte) 0xff);
+    return row;
+  }
+
   /**
    * if columns are not null, then limit param is ignored and limit is columns.length
    */
   public NavigableMap<byte[], byte[]> getRow(byte[] row, @Nullable byte[][] columns,
                                              @Nullable byte[] startCol, @Nullable byte[] stopCol,
                                              int limit, @Nullable Transaction tx) throws IOException {
+    try (DBIterator iterator = getDB().iterator()) {
+      return getRow(iterator, row, columns, startCol, stopCol, limit, tx);
+    }
+  }
+
+  /**
+   * Reads multiple rows, reusing the same iterator over the database for all of them.
+   *
+   * @param gets the rows to read
+   * @param tx the transaction to use for visibility
+   * @return list of rows, one for each get and in the same order
+   */
+  public List<Map<byte[], byte[]>> getRows(List<Get> gets, @Nullable Transaction tx) throws IOException {
+    List<Map<byte[], byte[]>> rows = new ArrayList<>(gets.size());
+    try (DBIterator iterator = getDB().iterator()) {
+      for (Get get : gets) {
+        List<byte[]> getColumns = get.getColumns();
+        byte[][] columns = getColumns == null ? null : getColumns.toArray(new byte[getColumns.size()][]);
+        rows.add(getRow(iterator, get.getRow(), columns, null, null, -1, tx));
+      }
+    }
+    return rows;
+  }
+
+  private NavigableMap<byte[], byte[]> getRow(DBIterator iterator, byte[] row, @Nullable byte[][] columns,
+                                              @Nullable byte[] startCol, @Nullable byte[] stopCol,
+                                              int limit, @Nullable Transaction tx) throws IOException {
     if (columns != null) {
       if (columns.length == 0) {
         return Collections.emptyNavigableMap();
@@ -226,10 +387,8 @@ public class LevelDBTableCore {
 
     byte[] startKey = createStartKey(row, columns == null ? startCol : columns[0]);
     byte[] endKey = createEndKey(row, columns == null ? stopCol : upperBound(columns[columns.length - 1]));
-    try (DBIterator iterator = getDB().iterator()) {
-      iterator.seek(startKey);
-      return getRow(iterator, endKey, tx, false, columns, limit).getSecond();
-    }
+    iterator.seek(startKey);
+    return getRow(iterator, endKey, tx, false, null, columns, limit).getSecond();
   }
 
   private static Scanner createEmptyScanner() {
@@ -249,6 +408,11 @@ public class LevelDBTableCore {
 
   /**
    * Read one row of the table. This is used both by getRow() and by Scanner.next().
+   *
+   * The raw LevelDB keys are decoded in place: row, column and timestamp are compared directly in the key bytes,
+   * and only the row key and the columns of the returned row are copied. Older versions of a column are skipped
+   * by advancing the iterator, or by seeking past them if there are many of them.
+   *
    * @param iterator An iterator over the database. This is passed in such that the caller can reuse the same
    *                 iterator if scanning multiple rows.
    * @param endKey An upper bound for the (leveldb) keys to read. This method never reads past that key.
@@ -256,37 +420,56 @@ public class LevelDBTableCore {
    * @param multiRow If true indicates that the row may end before the endKey. In that case,
    *                 this method will stop reading as soon as it sees more than one row key. The iterator will not be
    *                 advanced past the beginning of the next row (so that next time, we still see the entire next row).
+   * @param filter If non-null, rows are only read if they pass this filter, which is applied before any of the
+   *               columns of the row is read. It is ignored if multiRow is false.
    * @param columns If non-null, only columns contained in this will be returned. The given columns should be sorted.
    * @param limit If non-negative, at most this many columns will be returned. If multiRow is true, this is ignored.
    * @return a pair consisting of the row key of the next non-empty row and the column map for that row. If multiRow
-   *         is false, null is returned for row key because the caller already knows it.
+   *         is false, null is returned for row key because the caller already knows it. If multiRow is true and
+   *         there is no more row, null is returned for the row key.
    */
   private static ImmutablePair<byte[], NavigableMap<byte[], byte[]>> getRow(DBIterator iterator,
                                                                             @Nullable byte[] endKey,
                                                                             @Nullable Transaction tx,
                                                                             boolean multiRow,
+                                                                            @Nullable FuzzyRowFilter filter,
                                                                             @Nullable byte[][] columns, int limit) {
     byte[] rowBeingRead = null;
-    byte[] previousRow = null;
-    byte[] previousCol = null;
-    NavigableMap<byte[], byte[]> map = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    // the raw key of the last row that passed the filter
+    byte[] filteredKey = null;
+    // the raw key of the last column that was seen, and how many older versions of it were skipped since
+    byte[] previousKey = null;
+    int skippedVersions = 0;
+    NavigableMap<byte[], byte[]> map = null;
 
     while (iterator.hasNext()) {
       Map.Entry<byte[], byte[]> entry = iterator.peekNext();
+      byte[] key = entry.getKey();
 
       // if we have reached past the endKey, nothing was found, return null
-      if (endKey != null && KeyValue.KEY_COMPARATOR.compare(entry.getKey(), endKey) >= 0) {
+      if (endKey != null && KeyValue.KEY_COMPARATOR.compare(key, endKey) >= 0) {
         break;
       }
 
-      // if this is part of a multi-row scan and we reach the next row, stop without advancing iterator
-      KeyValue kv = KeyValue.fromKey(entry.getKey());
+      int rowLength = getRowLength(key);
       if (multiRow) {
-        byte[] rowKey = kv.getRow();
         if (rowBeingRead != null) {
-          if (Bytes.compareTo(rowKey, rowBeingRead) > 0) {
+          // if this is part of a multi-row scan and we reach the next row, stop without advancing iterator
+          if (Bytes.compareTo(key, KeyValue.ROW_LENGTH_SIZE, rowLength, rowBeingRead, 0, rowBeingRead.length) > 0) {
+            break;
+          }
+        } else if (filter != null && (filteredKey == null || !isSameRow(key, filteredKey))) {
+          // apply the row filter when entering a new row, before reading any of its columns
+          FuzzyRowFilter.ReturnCode code = filter.filterRow(key, KeyValue.ROW_LENGTH_SIZE, rowLength);
+          if (code == FuzzyRowFilter.ReturnCode.DONE) {
             break;
           }
+          if (code == FuzzyRowFilter.ReturnCode.SEEK_NEXT_USING_HINT) {
+            // row does not match but another one could. seek to next possible matching row and iterate
+            iterator.seek(createStartKey(filter.getNextRowHint(key, KeyValue.ROW_LENGTH_SIZE, rowLength)));
+            continue;
+          }
+          filteredKey = key;
         }
       }
 
@@ -294,31 +477,39 @@ public class LevelDBTableCore {
       iterator.next();
 
       // Determine if this KV is visible
-      if (tx != null && !tx.isVisible(kv.getTimestamp())) {
+      if (tx != null && !tx.isVisible(getTimestamp(key))) {
         continue;
       }
 
       // have we seen this row & column before?
-      byte[] row = kv.getRow();
-      byte[] column = kv.getQualifier();
-      boolean seenThisColumn = previousRow != null && Bytes.equals(previousRow, row) &&
-                               previousCol != null && Bytes.equals(previousCol, column);
-      if (seenThisColumn) {
+      if (previousKey != null && isSameColumn(key, previousKey)) {
+        // skip the older version. If there are many of them, seek past all of them
+        if (++skippedVersions >= MAX_SKIP_VERSIONS) {
+          byte[] row = Arrays.copyOfRange(key, KeyValue.ROW_LENGTH_SIZE, KeyValue.ROW_LENGTH_SIZE + rowLength);
+          byte[] column = Arrays.copyOfRange(key, getQualifierOffset(key, rowLength), getQualifierEnd(key));
+          iterator.seek(createStartKey(row, upperBound(column)));
+          skippedVersions = 0;
+        }
         continue;
       }
       // remember that this is the last column we have seen
-      previousRow = row;
-      previousCol = column;
+      previousKey = key;
+      skippedVersions = 0;
 
       // is it a column we want?
-      if (columns == null || Arrays.binarySearch(columns, column, Bytes.BYTES_COMPARATOR) >= 0) {
+      int qualifierOffset = getQualifierOffset(key, rowLength);
+      int qualifierLength = getQualifierLength(key, qualifierOffset);
+      if (columns == null || containsColumn(columns, key, qualifierOffset, qualifierLength)) {
         byte[] value = entry.getValue();
         // only add to map if it is not a delete
         if (tx == null || !Bytes.equals(value, DELETE_MARKER)) {
-          map.put(column, value);
+          if (map == null) {
+            map = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+          }
+          map.put(Arrays.copyOfRange(key, qualifierOffset, qualifierOffset + qualifierLength), value);
           // first time we add a column. must remember the row key to know when to stop
           if (multiRow && rowBeingRead == null) {
-            rowBeingRead = kv.getRow();
+            rowBeingRead = Arrays.copyOfRange(key, KeyValue.ROW_LENGTH_SIZE, KeyValue.ROW_LENGTH_SIZE + rowLength);
           }
           if (limit > 0 && map.size() >= limit) {
             break;
@@ -327,7 +518,61 @@ public class LevelDBTableCore {
       }
     }
     // note this will return null for the row being read if multiRow is false (because the caller knows the row)
-    return new ImmutablePair<>(rowBeingRead, map);
+    return new ImmutablePair<>(rowBeingRead, map == null ? new TreeMap<>(Bytes.BYTES_COMPARATOR) : map);
+  }
+
+  // ------- helpers to decode the raw leveldb keys in place ----------
+  // A raw key consists of: row length (short), row, family length (byte), family, qualifier, timestamp, type
+
+  private static int getRowLength(byte[] key) {
+    return Bytes.toShort(key, 0);
+  }
+
+  private static int getQualifierOffset(byte[] key, int rowLength) {
+    int familyLengthOffset = KeyValue.ROW_LENGTH_SIZE + rowLength;
+    return familyLengthOffset + KeyValue.FAMILY_LENGTH_SIZE + key[familyLengthOffset];
+  }
+
+  private static int getQualifierEnd(byte[] key) {
+    return key.length - KeyValue.TIMESTAMP_TYPE_SIZE;
+  }
+
+  private static int getQualifierLength(byte[] key, int qualifierOffset) {
+    return getQualifierEnd(key) - qualifierOffset;
+  }
+
+  private static long getTimestamp(byte[] key) {
+    return Bytes.toLong(key, key.length - KeyValue.TIMESTAMP_TYPE_SIZE);
+  }
+
+  private static boolean isSameRow(byte[] key1, byte[] key2) {
+    return Bytes.equals(key1, 0, KeyValue.ROW_LENGTH_SIZE + getRowLength(key1),
+                        key2, 0, KeyValue.ROW_LENGTH_SIZE + getRowLength(key2));
+  }
+
+  private static boolean isSameColumn(byte[] key1, byte[] key2) {
+    // row, family and qualifier are all before the timestamp
+    return Bytes.equals(key1, 0, getQualifierEnd(key1), key2, 0, getQualifierEnd(key2));
+  }
+
+  /**
+   * Returns whether the given sorted columns contain the column at the given position of a key.
+   */
+  private static boolean containsColumn(byte[][] columns, byte[] key, int offset, int length) {
+    int low = 0;
+    int high = columns.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = Bytes.compareTo(columns[mid], 0, columns[mid].length, key, offset, length);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -489,31 +734,12 @@ public class LevelDBTableCore {
     @Override
     public Row next() {
       try {
-        while (true) {
-          ImmutablePair<byte[], NavigableMap<byte[], byte[]>> result = getRow(iterator, endKey, tx, true, columns, -1);
-          if (result.getFirst() == null) {
-            return null;
-          }
-          // apply row filter if any
-          if (filter != null) {
-            FuzzyRowFilter.ReturnCode code = filter.filterRow(result.getFirst());
-            switch (code) {
-              case DONE: {
-                return null;
-              }
-              case SEEK_NEXT_USING_HINT: {
-                // row does not match but another one could. seek to next possible matching row and iterate
-                byte[] seekToRow = filter.getNextRowHint(result.getFirst());
-                iterator.seek(createStartKey(seekToRow));
-                continue;
-              }
-              case INCLUDE: {
-                break;
-              }
-            }
-          }
-          return new Result(result.getFirst(), result.getSecond());
+        ImmutablePair<byte[], NavigableMap<byte[], byte[]>> result = getRow(iterator, endKey, tx, true,
+                                                                            filter, columns, -1);
+        if (result.getFirst() == null) {
+          return null;
         }
+        return new Result(result.getFirst(), result.getSecond());
       } catch (Exception e) {
         throw Throwables.propagate(e);
       }
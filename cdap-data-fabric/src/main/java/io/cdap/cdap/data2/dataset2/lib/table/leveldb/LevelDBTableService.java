@@ -27,10 +27,11 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.leveldb.LevelDBProvider;
 import io.cdap.cdap.data2.util.TableId;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBComparator;
-import org.iq80.leveldb.Options;
+import org.iq80.leveldb.DBFactory;
 import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,8 +45,6 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
-import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
-
 /**
  * Service maintaining all LevelDB tables.
  */
@@ -54,8 +53,7 @@ public class LevelDBTableService implements AutoCloseable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
 
-  private int blockSize;
-  private long cacheSize;
+  private LevelDBProvider levelDBProvider;
   private String basePath;
   private WriteOptions writeOptions;
   private boolean isClosed;
@@ -79,15 +77,22 @@ public class LevelDBTableService implements AutoCloseable {
   }
 
   /**
-   * For guice injecting configuration object to this singleton.
+   * Sets the configuration, with a {@link LevelDBProvider} of its own.
    */
-  @Inject
   public void setConfiguration(CConfiguration config) {
+    setConfiguration(config, new LevelDBProvider(config));
+  }
+
+  /**
+   * For guice injecting configuration object to this singleton. The {@link LevelDBProvider} is shared with the
+   * other LevelDB users of the process, so that they share the block cache budget.
+   */
+  @Inject
+  public void setConfiguration(CConfiguration config, LevelDBProvider levelDBProvider) {
     basePath = config.get(Constants.CFG_DATA_LEVELDB_DIR);
     Preconditions.checkNotNull(basePath, "No base directory configured for LevelDB.");
 
-    blockSize = config.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE);
-    cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
+    this.levelDBProvider = levelDBProvider;
     writeOptions = new WriteOptions().sync(
       config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, Constants.DEFAULT_DATA_LEVELDB_FSYNC));
   }
@@ -96,10 +101,13 @@ public class LevelDBTableService implements AutoCloseable {
    * only use in unit test since the singleton may be reused for multiple tests.
    */
   public void clearTables() {
-    for (DB entries : tables.values()) {
-      Closeables.closeQuietly(entries);
+    synchronized (tables) {
+      for (Map.Entry<String, DB> entry : tables.entrySet()) {
+        Closeables.closeQuietly(entry.getValue());
+        levelDBProvider.release(new File(getDBPath(basePath, entry.getKey())));
+      }
+      tables.clear();
     }
-    tables.clear();
   }
 
   private void ensureOpen() {
@@ -144,7 +152,7 @@ public class LevelDBTableService implements AutoCloseable {
       String tableName = getTableName(dir.getName());
       // NOTE: we are using recursion to traverse file tree as we know that leveldb table fs tree is couple levels deep.
       long size = getSize(dir);
-      builder.put(LevelDBNameConverter.from(tableName), new TableStats(size));
+      builder.put(LevelDBNameConverter.from(tableName), new TableStats(size, levelDBProvider.getCacheSize(dir)));
     }
     return builder.build();
   }
@@ -202,13 +210,6 @@ public class LevelDBTableService implements AutoCloseable {
   private DB openTable(String tableName) throws IOException {
     String dbPath = getDBPath(basePath, tableName);
 
-    Options options = new Options();
-    options.createIfMissing(false);
-    options.errorIfExists(false);
-    options.comparator(new KeyValueDBComparator());
-    options.blockSize(blockSize);
-    options.cacheSize(cacheSize);
-
     // unfortunately, with the java version of leveldb, with createIfMissing set to false, factory.open will
     // see that there is no table and throw an exception, but it wont clean up after itself and will leave a
     // directory there with a lock.  So we want to avoid calling open if the path doesn't already exist and
@@ -217,22 +218,14 @@ public class LevelDBTableService implements AutoCloseable {
     if (!dbDir.exists()) {
       throw new IOException("Database " + dbPath + " does not exist and the create if missing option is disabled");
     }
-    DB db = factory.open(dbDir, options);
+    DB db = levelDBProvider.open(dbDir, false, new KeyValueDBComparator());
     tables.put(tableName, db);
     return db;
   }
 
   private void createTable(String name) throws IOException {
     String dbPath = getDBPath(basePath, name);
-
-    Options options = new Options();
-    options.createIfMissing(true);
-    options.errorIfExists(false);
-    options.comparator(new KeyValueDBComparator());
-    options.blockSize(blockSize);
-    options.cacheSize(cacheSize);
-
-    DB db = factory.open(new File(dbPath), options);
+    DB db = levelDBProvider.open(new File(dbPath), true, new KeyValueDBComparator());
     tables.put(name, db);
   }
 
@@ -243,7 +236,12 @@ public class LevelDBTableService implements AutoCloseable {
       db.close();
     }
     String dbPath = getDBPath(basePath, name);
-    factory.destroy(new File(dbPath), new Options());
+    levelDBProvider.destroy(new File(dbPath));
+  }
+
+  @VisibleForTesting
+  DBFactory getDBFactory() {
+    return levelDBProvider.getDBFactory();
   }
 
 
@@ -289,13 +287,26 @@ public class LevelDBTableService implements AutoCloseable {
    */
   public static final class TableStats {
     private final long diskSizeBytes;
+    private final long cacheSizeBytes;
 
     public TableStats(long sizeInBytes) {
+      this(sizeInBytes, 0L);
+    }
+
+    public TableStats(long sizeInBytes, long cacheSizeBytes) {
       this.diskSizeBytes = sizeInBytes;
+      this.cacheSizeBytes = cacheSizeBytes;
     }
 
     public long getDiskSizeBytes() {
       return diskSizeBytes;
     }
+
+    /**
+     * Returns the block cache size reserved for the table, or {@code 0} if the table is not open.
+     */
+    public long getCacheSizeBytes() {
+      return cacheSizeBytes;
+    }
   }
 }
@@ -33,10 +33,12 @@ import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.WriteCombiningMetricsTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -58,7 +60,7 @@ import javax.annotation.Nullable;
  *
  * Thread safe as long as the passed into the constructor datasets are thread safe (usually is not the case).
  */
-public final class FactTable implements Closeable {
+public final class FactTable implements Closeable, Flushable {
   private static final Logger LOG = LoggerFactory.getLogger(FactTable.class);
   private static final int MAX_ROLL_TIME = 0xfffe;
 
@@ -439,6 +441,25 @@ public final class FactTable implements Closeable {
     return measureNames;
   }
 
+  /**
+   * Returns whether the underlying table buffers writes and its buffer is full, in which case the caller should
+   * {@link #flush()} this table.
+   */
+  public boolean isFlushRequired() {
+    return timeSeriesTable instanceof WriteCombiningMetricsTable &&
+      ((WriteCombiningMetricsTable) timeSeriesTable).isFull();
+  }
+
+  /**
+   * Flushes the writes buffered by the underlying table, if it buffers writes.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (timeSeriesTable instanceof Flushable) {
+      ((Flushable) timeSeriesTable).flush();
+    }
+  }
+
   @Override
   public void close() throws IOException {
     timeSeriesTable.close();
@@ -384,6 +384,8 @@ public final class StoreDefinition {
     public static final StructuredTableId PROGRAM_COUNTS = new StructuredTableId("program_counts");
     // TODO: CDAP-14876 Move this table into it's own store, along with associated methods
     public static final StructuredTableId SUBSCRIBER_STATES = new StructuredTableId("subscriber_state");
+    public static final StructuredTableId RUN_RECORDS_STOP_TIME_INDEX =
+      new StructuredTableId("run_records_stop_time_index");
 
     public static final String NAMESPACE_FIELD = "namespace";
     public static final String APPLICATION_FIELD = "application";
@@ -403,6 +405,8 @@ public final class StoreDefinition {
     public static final String SUBSCRIBER_TOPIC = "subscriber_topic";
     public static final String SUBSCRIBER_MESSAGE = "subscriber_message";
     public static final String SUBSCRIBER = "subscriber";
+    public static final String RUN_STOP_TIME_BUCKET = "run_stop_time_bucket";
+    public static final String RUN_STOP_TIME = "run_stop_time";
 
 
     public static final StructuredTableSpecification APPLICATION_SPECIFICATIONS_TABLE_SPEC =
@@ -483,6 +487,25 @@ public final class StoreDefinition {
         .withPrimaryKeys(SUBSCRIBER_TOPIC, SUBSCRIBER)
         .build();
 
+    // Index of completed run records by namespace and the time bucket the run stopped in, so that time window
+    // queries can do a bounded range scan per namespace instead of going through the whole run records table
+    public static final StructuredTableSpecification RUN_RECORDS_STOP_TIME_INDEX_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(RUN_RECORDS_STOP_TIME_INDEX)
+        .withFields(Fields.stringType(NAMESPACE_FIELD),
+                    Fields.longType(RUN_STOP_TIME_BUCKET),
+                    Fields.stringType(RUN_STATUS),
+                    Fields.stringType(APPLICATION_FIELD),
+                    Fields.stringType(VERSION_FIELD),
+                    Fields.stringType(PROGRAM_TYPE_FIELD),
+                    Fields.stringType(PROGRAM_FIELD),
+                    Fields.stringType(RUN_FIELD),
+                    Fields.longType(RUN_START_TIME),
+                    Fields.longType(RUN_STOP_TIME))
+        .withPrimaryKeys(NAMESPACE_FIELD, RUN_STOP_TIME_BUCKET, RUN_STATUS, APPLICATION_FIELD, VERSION_FIELD,
+                         PROGRAM_TYPE_FIELD, PROGRAM_FIELD, RUN_FIELD)
+        .build();
+
     public static void createTables(StructuredTableAdmin tableAdmin,
                                     boolean overWrite) throws IOException, TableAlreadyExistsException {
       if (overWrite || tableAdmin.getSpecification(APPLICATION_SPECIFICATIONS) == null) {
@@ -503,6 +526,9 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(SUBSCRIBER_STATES) == null) {
         tableAdmin.create(SUBSCRIBER_STATE_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(RUN_RECORDS_STOP_TIME_INDEX) == null) {
+        tableAdmin.create(RUN_RECORDS_STOP_TIME_INDEX_SPEC);
+      }
     }
   }
 
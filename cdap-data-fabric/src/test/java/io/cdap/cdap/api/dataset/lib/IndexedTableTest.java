@@ -338,6 +338,74 @@ public class IndexedTableTest {
     }
   }
 
+  @Test
+  public void testIndexScanBatching() throws Exception {
+    DatasetId batchedDs = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("batched");
+    // use a batch size that doesn't divide the number of matching rows
+    dsFrameworkUtil.createInstance("indexedTable", batchedDs, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.INDEX_SCAN_BATCH_SIZE, "3")
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(batchedDs);
+    TransactionExecutor txnl = dsFrameworkUtil.newTransactionExecutor(iTable);
+
+    try {
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // 10 rows with idx1 interleaved with 10 rows with idx2
+          for (int i = 0; i < 20; i++) {
+            iTable.put(new Put(Bytes.toBytes(String.format("row%02d", i)))
+                         .add(idxCol, i % 2 == 0 ? idx1 : idx2)
+                         .add(valCol, Bytes.toBytes(i)));
+          }
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // buffered writes of the transaction must be visible to the batched reads
+          iTable.put(new Put(Bytes.toBytes("row20")).add(idxCol, idx1).add(valCol, Bytes.toBytes(20)));
+          iTable.delete(new Delete(Bytes.toBytes("row04")));
+
+          try (Scanner scanner = iTable.readByIndex(idxCol, idx1)) {
+            for (int i = 0; i <= 20; i += 2) {
+              if (i == 4) {
+                continue;
+              }
+              Row row = scanner.next();
+              Assert.assertNotNull(row);
+              Assert.assertArrayEquals(Bytes.toBytes(String.format("row%02d", i)), row.getRow());
+              Assert.assertEquals(i, Bytes.toInt(row.get(valCol)));
+            }
+            assertEmpty(scanner);
+          }
+
+          try (Scanner scanner = iTable.scanByIndex(idxCol, idx2, null)) {
+            for (int i = 1; i < 20; i += 2) {
+              Row row = scanner.next();
+              Assert.assertNotNull(row);
+              Assert.assertArrayEquals(Bytes.toBytes(String.format("row%02d", i)), row.getRow());
+            }
+            assertEmpty(scanner);
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(batchedDs);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidIndexScanBatchSize() throws Exception {
+    dsFrameworkUtil.createInstance("indexedTable", DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("invalidBatch"),
+                                   DatasetProperties.builder()
+                                     .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+                                     .add(IndexedTable.INDEX_SCAN_BATCH_SIZE, "0")
+                                     .build());
+  }
+
   @Test
   public void testIndexKeyDelimiterAmbiguity() throws Exception {
     final byte[] a = { 'a' };
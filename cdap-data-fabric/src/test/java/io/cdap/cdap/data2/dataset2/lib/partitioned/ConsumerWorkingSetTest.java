@@ -16,12 +16,19 @@
 
 package io.cdap.cdap.data2.dataset2.lib.partitioned;
 
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.api.dataset.lib.PartitionConsumerState;
 import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.partitioned.ConsumablePartition;
 import io.cdap.cdap.api.dataset.lib.partitioned.ConsumerWorkingSet;
 import io.cdap.cdap.api.dataset.lib.partitioned.DefaultConsumablePartition;
+import io.cdap.cdap.api.dataset.lib.partitioned.ProcessState;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public class ConsumerWorkingSetTest {
@@ -48,10 +55,81 @@ public class ConsumerWorkingSetTest {
     testSerDe(workingSet);
   }
 
+  @Test
+  public void testDeserializeJsonKeys() {
+    // Working sets serialized with format version 0 have the partition keys as JSON
+    List<DefaultConsumablePartition> partitions = ImmutableList.of(
+      new DefaultConsumablePartition(generateUniqueKey()),
+      new DefaultConsumablePartition(generateUniqueKey(), ProcessState.IN_PROGRESS, 1000L, 2));
+    byte[] markerBytes = new PartitionConsumerState(10L, ImmutableList.of(3L, 5L)).toBytes();
+
+    List<byte[]> partitionsBytes = new ArrayList<>();
+    int numBytes = 1 + 4 + 4 + markerBytes.length;
+    for (DefaultConsumablePartition partition : partitions) {
+      partitionsBytes.add(partition.toBytes());
+      numBytes += 4 + partition.toBytes().length;
+    }
+    ByteBuffer bb = ByteBuffer.allocate(numBytes);
+    bb.put((byte) 0);
+    bb.putInt(partitions.size());
+    for (byte[] partitionBytes : partitionsBytes) {
+      bb.putInt(partitionBytes.length);
+      bb.put(partitionBytes);
+    }
+    bb.putInt(markerBytes.length);
+    bb.put(markerBytes);
+
+    ConsumerWorkingSet workingSet = ConsumerWorkingSet.fromBytes(bb.array());
+    Assert.assertEquals(partitions, workingSet.getPartitions());
+    Assert.assertEquals(workingSet, ConsumerWorkingSet.fromBytes(workingSet.toBytes()));
+  }
+
+  @Test
+  public void testUnsupportedKeyType() {
+    // Partition keys with fields of other types than those of a Partitioning are serialized as JSON
+    ConsumerWorkingSet workingSet = new ConsumerWorkingSet();
+    workingSet.getPartitions().add(new DefaultConsumablePartition(generateUniqueKey()));
+    workingSet.getPartitions().add(new DefaultConsumablePartition(PartitionKey.builder().addField("d", 1.5d).build()));
+    byte[] bytes = workingSet.toBytes();
+    Assert.assertEquals(0, bytes[0]);
+    Assert.assertEquals(workingSet, ConsumerWorkingSet.fromBytes(bytes));
+  }
+
+  @Test
+  public void testBatchLookupAndRemove() {
+    ConsumerWorkingSet workingSet = new ConsumerWorkingSet();
+    List<PartitionKey> keys = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      PartitionKey key = generateUniqueKey();
+      keys.add(key);
+      workingSet.addPartition(key);
+    }
+
+    List<PartitionKey> toLookup = ImmutableList.of(keys.get(7), keys.get(2), keys.get(5));
+    List<ConsumablePartition> found = workingSet.lookup(toLookup);
+    Assert.assertEquals(3, found.size());
+    for (int i = 0; i < toLookup.size(); i++) {
+      Assert.assertEquals(toLookup.get(i), found.get(i).getPartitionKey());
+    }
+
+    workingSet.removeAll(toLookup);
+    Assert.assertEquals(7, workingSet.getPartitions().size());
+    for (ConsumablePartition partition : workingSet.getPartitions()) {
+      Assert.assertFalse(toLookup.contains(partition.getPartitionKey()));
+    }
+
+    try {
+      workingSet.lookup(ImmutableList.of(keys.get(0), keys.get(2)));
+      Assert.fail("Expected lookup of a removed key to fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   private void testSerDe(ConsumerWorkingSet stateToSerialize) {
     byte[] bytes = stateToSerialize.toBytes();
-    // Assert that the serialization format version is 0
-    Assert.assertEquals(0, bytes[0]);
+    // Assert that the serialization format version is 1
+    Assert.assertEquals(1, bytes[0]);
     ConsumerWorkingSet deserializedState = ConsumerWorkingSet.fromBytes(bytes);
     Assert.assertEquals(stateToSerialize, deserializedState);
   }
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.partitioned;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cdap.cdap.api.dataset.lib.PartitionKey;
+import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link PartitionPathMappingCodec}.
+ */
+public class PartitionPathMappingCodecTest {
+
+  @Test
+  public void testEncodeDecode() {
+    Map<String, PartitionKey> pathToKey = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      PartitionKey key = PartitionKey.builder()
+        .addStringField("s", "value" + i)
+        .addLongField("l", 1000000000000L + i)
+        .addIntField("i", i % 7)
+        .build();
+      pathToKey.put("hdfs://namenode:8020/cdap/namespaces/default/data/pfs/value" + i + "/" + i, key);
+    }
+
+    String encoded = PartitionPathMappingCodec.encode(pathToKey);
+    Assert.assertEquals(pathToKey, PartitionPathMappingCodec.decode(encoded));
+
+    // The encoding should be much smaller than the JSON
+    String json = new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create()
+      .toJson(pathToKey);
+    Assert.assertTrue(encoded.length() * 4 < json.length());
+  }
+
+  @Test
+  public void testEdgeCases() {
+    Assert.assertEquals(Collections.emptyMap(),
+                        PartitionPathMappingCodec.decode(PartitionPathMappingCodec.encode(Collections.emptyMap())));
+
+    // A single path, and paths without common prefix
+    Map<String, PartitionKey> pathToKey = ImmutableMap.of("file:/a/b",
+                                                          PartitionKey.builder().addIntField("i", 1).build());
+    Assert.assertEquals(pathToKey, PartitionPathMappingCodec.decode(PartitionPathMappingCodec.encode(pathToKey)));
+
+    pathToKey = ImmutableMap.of("file:/a/b", PartitionKey.builder().addIntField("i", 1).build(),
+                                "hdfs:/a/b", PartitionKey.builder().addStringField("s", "").build(),
+                                "file:/a", PartitionKey.builder().addLongField("l", -1L).build());
+    Assert.assertEquals(pathToKey, PartitionPathMappingCodec.decode(PartitionPathMappingCodec.encode(pathToKey)));
+  }
+
+  @Test
+  public void testDecodeJson() {
+    Map<String, PartitionKey> pathToKey = ImmutableMap.of(
+      "file:/pfs/x/1", PartitionKey.builder().addStringField("s", "x").addLongField("l", 1L).build(),
+      "file:/pfs/y/2", PartitionKey.builder().addStringField("s", "y").addLongField("l", 2L).build());
+    Gson gson = new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+    Assert.assertEquals(pathToKey, PartitionPathMappingCodec.decode(gson.toJson(pathToKey)));
+  }
+}
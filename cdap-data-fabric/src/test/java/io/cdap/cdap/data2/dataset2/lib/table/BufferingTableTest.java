@@ -191,6 +191,72 @@ public abstract class BufferingTableTest<T extends BufferingTable> extends Table
     }
   }
 
+  @Test
+  public void testLargeScanWithBuffering() throws Exception {
+    // Scans and multi-gets over more rows than fetched from the persisted store at once, with a partially dirty buffer
+    String tableName = "testLargeScanWithBuffering";
+    int numRows = 2500;
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, tableName);
+    admin.create();
+    try (BufferingTable table = getTable(CONTEXT1, tableName)) {
+      Transaction tx1 = txClient.startShort();
+      table.startTx(tx1);
+      for (int i = 0; i < numRows; i++) {
+        table.put(Bytes.toBytes(i), C1, Bytes.toBytes((long) i));
+      }
+      txClient.canCommitOrThrow(tx1, table.getTxChanges());
+      Assert.assertTrue(table.commitTx());
+      txClient.commitOrThrow(tx1);
+      table.postTxCommit();
+
+      Transaction tx2 = txClient.startShort();
+      table.startTx(tx2);
+      // every 10th row gets a new column, every 7th row has its persisted column deleted
+      for (int i = 0; i < numRows; i++) {
+        if (i % 10 == 0) {
+          table.put(Bytes.toBytes(i), C2, Bytes.toBytes((long) -i));
+        }
+        if (i % 7 == 0) {
+          table.delete(Bytes.toBytes(i), a(C1));
+        }
+      }
+      // a buffered row after all persisted rows
+      table.put(Bytes.toBytes(numRows), C2, L1);
+
+      int count = 0;
+      try (Scanner scanner = table.scan(null, null)) {
+        Row row;
+        while ((row = scanner.next()) != null) {
+          int i = Bytes.toInt(row.getRow());
+          if (i == numRows) {
+            Assert.assertEquals(1L, (long) row.getLong(C2));
+            count++;
+            continue;
+          }
+          Assert.assertEquals(i % 7 == 0 ? null : (long) i, row.getLong(C1));
+          Assert.assertEquals(i % 10 == 0 ? (long) -i : null, row.getLong(C2));
+          count++;
+        }
+      }
+      // rows with only a deleted column are still returned by the buffered scan, but they are empty
+      Assert.assertEquals(numRows + 1, count);
+
+      // multi-get of rows that are partially answered from the buffer
+      List<Get> gets = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        gets.add(new Get(Bytes.toBytes(i), C1));
+      }
+      List<Row> rows = table.get(gets);
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals(i % 7 == 0 ? null : (long) i, rows.get(i).getLong(C1));
+      }
+      Assert.assertTrue(table.rollbackTx());
+      txClient.abort(tx2);
+    } finally {
+      admin.drop();
+    }
+  }
+
   @Test
   public void testChangingParamsAndReturnValues() throws Exception {
     // The test verifies that one can re-use byte arrays passed as parameters to write methods of a table without
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.DataSetException;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for {@link WriteCombiningMetricsTable}.
+ */
+public class WriteCombiningMetricsTableTest extends MetricsTableTest {
+
+  @Override
+  protected MetricsTable getTable(String name) {
+    return new WriteCombiningMetricsTable(getInMemoryTable(name), 1024 * 1024);
+  }
+
+  @Test
+  public void testCombineIncrements() throws Exception {
+    MetricsTable persisted = getInMemoryTable("testCombineIncrements");
+    WriteCombiningMetricsTable table = new WriteCombiningMetricsTable(persisted, 1024 * 1024);
+
+    for (int i = 0; i < 10; i++) {
+      table.increment(A, ImmutableMap.of(X, 1L, Y, 2L));
+      table.increment(incrementsOf(B, Z, 3L));
+    }
+    // Nothing is written until flush
+    Assert.assertNull(persisted.get(A, X));
+    Assert.assertNull(persisted.get(B, Z));
+
+    table.flush();
+    Assert.assertEquals(10L, Bytes.toLong(persisted.get(A, X)));
+    Assert.assertEquals(20L, Bytes.toLong(persisted.get(A, Y)));
+    Assert.assertEquals(30L, Bytes.toLong(persisted.get(B, Z)));
+
+    // Increments after the flush are added to the persisted values
+    table.increment(A, ImmutableMap.of(X, 5L));
+    Assert.assertEquals(15L, Bytes.toLong(table.get(A, X)));
+    Assert.assertEquals(15L, Bytes.toLong(persisted.get(A, X)));
+  }
+
+  @Test
+  public void testCombinePutsAndIncrements() throws Exception {
+    MetricsTable persisted = getInMemoryTable("testCombinePutsAndIncrements");
+    WriteCombiningMetricsTable table = new WriteCombiningMetricsTable(persisted, 1024 * 1024);
+    persisted.increment(A, ImmutableMap.of(X, 100L, Y, 100L));
+
+    // An increment after a put is added to the put value
+    table.put(putsOf(A, X, 5L));
+    table.increment(A, ImmutableMap.of(X, 2L));
+    // A put after an increment replaces the increment
+    table.increment(A, ImmutableMap.of(Y, 2L));
+    table.put(putsOf(A, Y, 7L));
+    table.flush();
+
+    Assert.assertEquals(7L, Bytes.toLong(persisted.get(A, X)));
+    Assert.assertEquals(7L, Bytes.toLong(persisted.get(A, Y)));
+  }
+
+  @Test
+  public void testFull() throws Exception {
+    MetricsTable persisted = getInMemoryTable("testFull");
+    // Buffer can only hold a few cells
+    WriteCombiningMetricsTable table = new WriteCombiningMetricsTable(persisted, 200);
+
+    table.increment(A, ImmutableMap.of(X, 1L));
+    table.increment(A, ImmutableMap.of(X, 1L));
+    Assert.assertFalse(table.isFull());
+    Assert.assertNull(persisted.get(A, X));
+
+    // Adding more cells makes the buffer exceed its size, which is reported without flushing
+    table.increment(A, ImmutableMap.of(Y, 1L, Z, 1L));
+    Assert.assertTrue(table.isFull());
+    Assert.assertNull(persisted.get(A, X));
+
+    table.flush();
+    Assert.assertFalse(table.isFull());
+    Assert.assertEquals(2L, Bytes.toLong(persisted.get(A, X)));
+    Assert.assertEquals(1L, Bytes.toLong(persisted.get(A, Z)));
+
+    // Close flushes the pending writes
+    table.increment(B, ImmutableMap.of(X, 1L));
+    table.close();
+    Assert.assertEquals(1L, Bytes.toLong(persisted.get(B, X)));
+  }
+
+  @Test
+  public void testRetryFailedRowsOnly() throws Exception {
+    String name = "testRetryFailedRowsOnly";
+    getInMemoryTable(name);
+    AtomicBoolean failRowB = new AtomicBoolean(true);
+    // A table that fails the first increment of row B, after row A has been written
+    MetricsTable persisted = new InMemoryMetricsTable(name) {
+      @Override
+      public void increment(byte[] row, Map<byte[], Long> increments) {
+        if (Bytes.equals(B, row) && failRowB.getAndSet(false)) {
+          throw new DataSetException("Failed to increment row B");
+        }
+        super.increment(row, increments);
+      }
+    };
+    WriteCombiningMetricsTable table = new WriteCombiningMetricsTable(persisted, 1024 * 1024);
+    table.increment(A, ImmutableMap.of(X, 1L));
+    table.increment(B, ImmutableMap.of(X, 2L));
+    table.increment(C, ImmutableMap.of(X, 3L));
+
+    try {
+      table.flush();
+      Assert.fail("Expected the flush to fail");
+    } catch (DataSetException e) {
+      // expected
+    }
+    Assert.assertEquals(1L, Bytes.toLong(persisted.get(A, X)));
+    Assert.assertNull(persisted.get(B, X));
+
+    // Only the rows that were not written are written again
+    table.flush();
+    Assert.assertEquals(1L, Bytes.toLong(persisted.get(A, X)));
+    Assert.assertEquals(2L, Bytes.toLong(persisted.get(B, X)));
+    Assert.assertEquals(3L, Bytes.toLong(persisted.get(C, X)));
+  }
+
+  private static MetricsTable getInMemoryTable(String name) {
+    if (!InMemoryTableService.exists(name)) {
+      InMemoryTableService.create(name);
+    }
+    return new InMemoryMetricsTable(name);
+  }
+
+  private static NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsOf(byte[] row, byte[] column,
+                                                                             long delta) {
+    NavigableMap<byte[], NavigableMap<byte[], Long>> increments = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    increments.computeIfAbsent(row, k -> new TreeMap<>(Bytes.BYTES_COMPARATOR)).put(column, delta);
+    return increments;
+  }
+
+  private static SortedMap<byte[], SortedMap<byte[], Long>> putsOf(byte[] row, byte[] column, long value) {
+    return ImmutableSortedMap.<byte[], SortedMap<byte[], Long>>orderedBy(Bytes.BYTES_COMPARATOR)
+      .put(row, ImmutableSortedMap.<byte[], Long>orderedBy(Bytes.BYTES_COMPARATOR).put(column, value).build())
+      .build();
+  }
+}
@@ -24,7 +24,16 @@ import org.apache.tephra.Transaction;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  *
@@ -97,6 +106,113 @@ public class InMemoryTableServiceTest {
     verify123();
   }
 
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    // Threads incrementing the same rows of two tables, while other threads scan the tables
+    int numThreads = 8;
+    int numIncrements = 1000;
+    byte[] column = new byte[] {0};
+    InMemoryTableService.create("concurrent1");
+    InMemoryTableService.create("concurrent2");
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads * 2);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        String tableName = "concurrent" + (i % 2 + 1);
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < numIncrements; j++) {
+            InMemoryTableService.increment(tableName, Bytes.toBytes(j % 10), Collections.singletonMap(column, 1L));
+          }
+        }));
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < numIncrements; j++) {
+            for (NavigableMap<byte[], NavigableMap<Long, byte[]>> row
+              : InMemoryTableService.getRowRange(tableName, null, null, null).values()) {
+              Assert.assertEquals(1, row.size());
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (String tableName : new String[] {"concurrent1", "concurrent2"}) {
+      for (int j = 0; j < 10; j++) {
+        // the latest version of the column holds the total
+        long total = Bytes.toLong(InMemoryTableService.get(tableName, Bytes.toBytes(j), null)
+                                    .get(column).firstEntry().getValue());
+        Assert.assertEquals(numThreads / 2 * numIncrements / 10, total);
+      }
+      InMemoryTableService.drop(tableName);
+    }
+  }
+
+  @Test
+  public void testScanSeesWholeMerge() throws Exception {
+    // One thread merges the same value into all rows, while another scans the rows and expects them to be equal
+    String tableName = "atomic";
+    InMemoryTableService.create(tableName);
+    byte[] column = new byte[] {0};
+    int numRows = 10;
+    int numMerges = 1000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < numMerges; i++) {
+          NavigableMap<byte[], NavigableMap<byte[], Update>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+          for (int row = 0; row < numRows; row++) {
+            NavigableMap<byte[], Update> rowChanges = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+            rowChanges.put(column, new PutValue(Bytes.toBytes(i)));
+            changes.put(Bytes.toBytes(row), rowChanges);
+          }
+          InMemoryTableService.merge(tableName, changes, i);
+        }
+      });
+      Future<?> reader = executor.submit(() -> {
+        while (!writer.isDone()) {
+          Collection<NavigableMap<byte[], byte[]>> rows =
+            InMemoryTableService.getLatestRowRange(tableName, null, null, Integer.MAX_VALUE, null).values();
+          Assert.assertTrue(rows.isEmpty() || rows.size() == numRows);
+          Set<Integer> values = new HashSet<>();
+          for (NavigableMap<byte[], byte[]> row : rows) {
+            values.add(Bytes.toInt(row.get(column)));
+          }
+          Assert.assertTrue(values.size() <= 1);
+        }
+      });
+      writer.get();
+      reader.get();
+    } finally {
+      executor.shutdownNow();
+    }
+    InMemoryTableService.drop(tableName);
+  }
+
+  @Test
+  public void testDroppedTable() {
+    String tableName = "dropped";
+    InMemoryTableService.create(tableName);
+    InMemoryTableService.drop(tableName);
+    Assert.assertFalse(InMemoryTableService.exists(tableName));
+    try {
+      InMemoryTableService.get(tableName, new byte[] {1}, null);
+      Assert.fail("Expected reads of a dropped table to fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    // A table created again with the same name starts empty
+    InMemoryTableService.create(tableName);
+    Assert.assertTrue(InMemoryTableService.getRowRange(tableName, null, null, null).isEmpty());
+    InMemoryTableService.drop(tableName);
+  }
+
   private void verify123() {
     NavigableMap<byte[], NavigableMap<Long, byte[]>> rowFromGet =
       InMemoryTableService.get("table", new byte[]{1}, new Transaction(1L, 2L, new long[0], new long[0], 1L));
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the {@link LevelDBTableTest} with the JNI LevelDB implementation. The tests are skipped if the native library
+ * is not available on the platform.
+ */
+public class LevelDBJniTableTest extends LevelDBTableTest {
+
+  @BeforeClass
+  public static void init() throws Exception {
+    Assume.assumeTrue("The LevelDB JNI library is not available on this platform",
+                      LevelDBTableServiceTest.isJniAvailable());
+    init(LevelDBTableServiceTest.JNI_DB_FACTORY);
+  }
+}
@@ -31,6 +31,7 @@ import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.authorization.AuthorizationTestModule;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -44,6 +45,9 @@ import java.util.concurrent.TimeUnit;
  *
  */
 public class LevelDBTableServiceTest {
+  private static final long MB = 1024 * 1024;
+  static final String JNI_DB_FACTORY = "org.fusesource.leveldbjni.JniDBFactory";
+
   @ClassRule
   public static TemporaryFolder tmpFolder = new TemporaryFolder();
 
@@ -110,6 +114,85 @@ public class LevelDBTableServiceTest {
     Assert.assertEquals(table2Size, service.getTableStats().get(tableId2).getDiskSizeBytes());
   }
 
+  @Test
+  public void testCacheSizeBudget() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, tmpFolder.newFolder().getAbsolutePath());
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, 4 * MB);
+    cConf.setLong(Constants.CFG_DATA_LEVELDB_TOTAL_CACHESIZE, 10 * MB);
+    LevelDBTableService budgetService = new LevelDBTableService();
+    budgetService.setConfiguration(cConf);
+    try {
+      for (int i = 1; i <= 4; i++) {
+        budgetService.ensureTableExists("cdap_default.table" + i);
+      }
+      Assert.assertEquals(4 * MB, getCacheSize(budgetService, "table1"));
+      Assert.assertEquals(4 * MB, getCacheSize(budgetService, "table2"));
+      Assert.assertEquals(2 * MB, getCacheSize(budgetService, "table3"));
+      // Once the budget is used up, tables still get the minimum cache size, which counts against the budget
+      Assert.assertEquals(MB, getCacheSize(budgetService, "table4"));
+
+      // Dropping a table releases its cache for the tables opened later
+      budgetService.dropTable("cdap_default.table1");
+      budgetService.ensureTableExists("cdap_default.table5");
+      Assert.assertEquals(3 * MB, getCacheSize(budgetService, "table5"));
+
+      budgetService.clearTables();
+      Assert.assertEquals(0, getCacheSize(budgetService, "table2"));
+      budgetService.getTable("cdap_default.table4");
+      Assert.assertEquals(4 * MB, getCacheSize(budgetService, "table4"));
+    } finally {
+      budgetService.close();
+    }
+  }
+
+  @Test
+  public void testJniFactory() throws Exception {
+    Assume.assumeTrue("The LevelDB JNI library is not available on this platform", isJniAvailable());
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, tmpFolder.newFolder().getAbsolutePath());
+    cConf.set(Constants.CFG_DATA_LEVELDB_FACTORY, JNI_DB_FACTORY);
+    cConf.set(Constants.CFG_DATA_LEVELDB_COMPRESSION, "snappy");
+    LevelDBTableService jniService = new LevelDBTableService();
+    jniService.setConfiguration(cConf);
+    try {
+      Assert.assertEquals(JNI_DB_FACTORY, jniService.getDBFactory().getClass().getName());
+
+      String tableName = "cdap_default.jni";
+      jniService.ensureTableExists(tableName);
+      LevelDBTableCore table = new LevelDBTableCore(tableName, jniService);
+      for (int i = 0; i < 10; i++) {
+        table.put(Bytes.toBytes("row" + i), Bytes.toBytes("col"), Bytes.toBytes(i), 1L);
+      }
+      for (int i = 0; i < 10; i++) {
+        Assert.assertArrayEquals(Bytes.toBytes(i),
+                                 table.getRow(Bytes.toBytes("row" + i), new byte[][] { Bytes.toBytes("col") },
+                                              null, null, -1, null).get(Bytes.toBytes("col")));
+      }
+      jniService.dropTable(tableName);
+      Assert.assertTrue(jniService.list().isEmpty());
+    } finally {
+      jniService.close();
+    }
+  }
+
+  /**
+   * Returns whether the JNI LevelDB factory can be created, which requires the native library for the platform.
+   */
+  static boolean isJniAvailable() {
+    try {
+      Class.forName(JNI_DB_FACTORY).newInstance();
+      return true;
+    } catch (Exception | LinkageError e) {
+      return false;
+    }
+  }
+
+  private long getCacheSize(LevelDBTableService service, String table) throws Exception {
+    LevelDBTableService.TableStats stats = service.getTableStats().get(TableId.from("default", table));
+    return stats == null ? -1L : stats.getCacheSizeBytes();
+  }
+
   private void writeSome(String tableName) throws IOException {
     LevelDBTableCore table = new LevelDBTableCore(tableName, service);
     Random r = new Random();
@@ -17,23 +17,33 @@
 package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.DatasetContext;
 import io.cdap.cdap.api.dataset.DatasetProperties;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
 import io.cdap.cdap.common.guice.NonCustomLocationUnitTestModule;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data.runtime.DataFabricLevelDBModule;
 import io.cdap.cdap.data.runtime.TransactionMetricsModule;
 import io.cdap.cdap.data2.dataset2.lib.table.BufferingTableTest;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import io.cdap.cdap.security.auth.context.AuthenticationContextModules;
 import io.cdap.cdap.security.authorization.AuthorizationEnforcementModule;
 import io.cdap.cdap.security.authorization.AuthorizationTestModule;
+import org.apache.tephra.Transaction;
+import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -41,10 +51,18 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
- * test for LevelDB tables.
+ * test for LevelDB tables, with the pure Java LevelDB implementation. {@link LevelDBJniTableTest} runs the same tests
+ * with the JNI implementation.
  */
 public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
 
@@ -58,8 +76,16 @@ public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
 
   @BeforeClass
   public static void init() throws Exception {
+    init(Iq80DBFactory.class.getName());
+  }
+
+  /**
+   * Creates the {@link LevelDBTableService} used by the tests with the given LevelDB factory.
+   */
+  static void init(String dbFactory) throws Exception {
     cConf = CConfiguration.create();
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, tmpFolder.newFolder().getAbsolutePath());
+    cConf.set(Constants.CFG_DATA_LEVELDB_FACTORY, dbFactory);
     Injector injector = Guice.createInjector(
       new ConfigModule(cConf),
       new NonCustomLocationUnitTestModule(),
@@ -70,6 +96,8 @@ public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
       new AuthorizationEnforcementModule().getStandaloneModules(),
       new AuthenticationContextModules().getMasterModule());
     service = injector.getInstance(LevelDBTableService.class);
+    // Make sure the tests don't silently run with the fallback factory
+    Assert.assertEquals(dbFactory, service.getDBFactory().getClass().getName());
   }
 
   @Override
@@ -111,4 +139,117 @@ public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
         PrefixedNamespaces.namespace(cConf, CONTEXT1.getNamespaceId(), tableName)));
     }
   }
+
+  @Test
+  public void testManyVersions() throws Exception {
+    String tableName = PrefixedNamespaces.namespace(cConf, CONTEXT1.getNamespaceId(), "versions");
+    service.ensureTableExists(tableName);
+    LevelDBTableCore core = new LevelDBTableCore(tableName, service);
+
+    // write 20 versions of two columns in three rows
+    byte[][] rows = { b("r1"), b("r2"), b("r3") };
+    for (long version = 1; version <= 20; version++) {
+      for (byte[] row : rows) {
+        core.persist(ImmutableMap.of(row, ImmutableMap.of(b("c1"), b("v" + version), b("c2"), b("w" + version))),
+                     version);
+      }
+    }
+    // delete c2 of r2 in version 21
+    core.persist(ImmutableMap.of(b("r2"), ImmutableMap.of(b("c2"), new byte[0])), 21L);
+
+    // a transaction that sees up to version 15, except for version 15 itself which is in progress
+    Transaction tx = new Transaction(15L, 22L, new long[0], new long[] { 15L }, 15L);
+    NavigableMap<byte[], byte[]> columns = core.getRow(b("r1"), null, null, null, -1, tx);
+    Assert.assertEquals(2, columns.size());
+    Assert.assertArrayEquals(b("v14"), columns.get(b("c1")));
+    Assert.assertArrayEquals(b("w14"), columns.get(b("c2")));
+
+    // latest versions, all columns
+    Transaction latestTx = new Transaction(100L, 101L, new long[0], new long[0], Transaction.NO_TX_IN_PROGRESS);
+    try (Scanner scanner = core.scan(null, null, null, null, latestTx)) {
+      Row row = scanner.next();
+      Assert.assertArrayEquals(b("r1"), row.getRow());
+      Assert.assertArrayEquals(b("v20"), row.get(b("c1")));
+      Assert.assertArrayEquals(b("w20"), row.get(b("c2")));
+      row = scanner.next();
+      Assert.assertArrayEquals(b("r2"), row.getRow());
+      Assert.assertEquals(1, row.getColumns().size());
+      Assert.assertArrayEquals(b("v20"), row.get(b("c1")));
+      row = scanner.next();
+      Assert.assertArrayEquals(b("r3"), row.getRow());
+      Assert.assertEquals(2, row.getColumns().size());
+      Assert.assertNull(scanner.next());
+    }
+
+    // select a column and filter rows
+    FuzzyRowFilter filter = new FuzzyRowFilter(ImmutableList.of(ImmutablePair.of(b("r3"), new byte[] { 0, 0 })));
+    try (Scanner scanner = core.scan(null, null, filter, new byte[][] { b("c2") }, tx)) {
+      Row row = scanner.next();
+      Assert.assertArrayEquals(b("r3"), row.getRow());
+      Assert.assertEquals(1, row.getColumns().size());
+      Assert.assertArrayEquals(b("w14"), row.get(b("c2")));
+      Assert.assertNull(scanner.next());
+    }
+
+    // r2 has no visible c2, hence the scan moves on to r3, which must be filtered out
+    filter = new FuzzyRowFilter(ImmutableList.of(ImmutablePair.of(b("r2"), new byte[] { 0, 0 })));
+    try (Scanner scanner = core.scan(b("r2"), null, filter, new byte[][] { b("c2") }, latestTx)) {
+      Assert.assertNull(scanner.next());
+    }
+  }
+
+  @Test
+  public void testSplitRows() throws Exception {
+    String tableName = PrefixedNamespaces.namespace(cConf, CONTEXT1.getNamespaceId(), "splits");
+    service.ensureTableExists(tableName);
+    LevelDBTableCore core = new LevelDBTableCore(tableName, service);
+
+    // nothing to split in an empty table
+    Assert.assertTrue(core.getSplitRows(4, null, null).isEmpty());
+
+    // write 16MB in random row order, so that the data is spread over several files. All rows have the same prefix,
+    // which means that splitting the row space evenly would put all of them in the same split.
+    int numRows = 16 * 1024;
+    List<Integer> rowIds = IntStream.range(0, numRows).boxed().collect(Collectors.toList());
+    Collections.shuffle(rowIds, new Random(0));
+    byte[] value = new byte[1024];
+    for (List<Integer> batch : Lists.partition(rowIds, 1024)) {
+      Map<byte[], Map<byte[], byte[]>> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (int rowId : batch) {
+        changes.put(b(String.format("row%06d", rowId)), ImmutableMap.of(b("c"), value));
+      }
+      core.persist(changes, 1L);
+    }
+    // mimic a restart, which writes the in-memory data of LevelDB to files, so that it is accounted for in sizes
+    service.clearTables();
+
+    List<byte[]> splitRows = core.getSplitRows(4, null, null);
+    Assert.assertEquals(3, splitRows.size());
+    byte[] start = null;
+    for (int i = 0; i <= splitRows.size(); i++) {
+      byte[] stop = i < splitRows.size() ? splitRows.get(i) : null;
+      int count = 0;
+      try (Scanner scanner = core.scan(start, stop, null, null, null)) {
+        while (scanner.next() != null) {
+          count++;
+        }
+      }
+      // each split must hold about a quarter of the rows
+      Assert.assertTrue("Unbalanced split with " + count + " rows",
+                        count > numRows / 4 * 0.7 && count < numRows / 4 * 1.3);
+      start = stop;
+    }
+
+    // splits within a range are between the start and stop rows
+    byte[] startRow = b("row004000");
+    byte[] stopRow = b("row012000");
+    splitRows = core.getSplitRows(2, startRow, stopRow);
+    Assert.assertEquals(1, splitRows.size());
+    Assert.assertTrue(Bytes.compareTo(splitRows.get(0), startRow) > 0);
+    Assert.assertTrue(Bytes.compareTo(splitRows.get(0), stopRow) < 0);
+  }
+
+  private static byte[] b(String value) {
+    return Bytes.toBytes(value);
+  }
 }
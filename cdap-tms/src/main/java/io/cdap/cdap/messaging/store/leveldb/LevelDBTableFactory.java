@@ -22,6 +22,7 @@ import com.google.inject.Inject;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.leveldb.LevelDBProvider;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.store.MessageTable;
@@ -32,8 +33,6 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.apache.twill.common.Threads;
 import org.iq80.leveldb.DB;
-import org.iq80.leveldb.Options;
-import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,10 +53,9 @@ import java.util.concurrent.TimeUnit;
 public final class LevelDBTableFactory implements TableFactory {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableFactory.class);
-  private static final Iq80DBFactory LEVEL_DB_FACTORY = Iq80DBFactory.factory;
 
+  private final LevelDBProvider levelDBProvider;
   private final File baseDir;
-  private final Options dbOptions;
   private final String metadataTableName;
   private final String messageTableName;
   private final String payloadTableName;
@@ -66,14 +64,14 @@ public final class LevelDBTableFactory implements TableFactory {
   private LevelDBMetadataTable metadataTable;
 
   @VisibleForTesting
-  @Inject
   public LevelDBTableFactory(CConfiguration cConf) {
+    this(cConf, new LevelDBProvider(cConf));
+  }
+
+  @Inject
+  LevelDBTableFactory(CConfiguration cConf, LevelDBProvider levelDBProvider) {
+    this.levelDBProvider = levelDBProvider;
     this.baseDir = new File(cConf.get(Constants.MessagingSystem.LOCAL_DATA_DIR));
-    this.dbOptions = new Options()
-      .blockSize(cConf.getInt(Constants.CFG_DATA_LEVELDB_BLOCKSIZE, Constants.DEFAULT_DATA_LEVELDB_BLOCKSIZE))
-      .cacheSize(cConf.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE))
-      .errorIfExists(false)
-      .createIfMissing(true);
     ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
       Threads.createDaemonThreadFactory("leveldb-tms-data-cleanup"));
     executor.scheduleAtFixedRate(new DataCleanup(), 0L,
@@ -93,7 +91,7 @@ public final class LevelDBTableFactory implements TableFactory {
     }
 
     File dbPath = getMetadataDBPath(metadataTableName);
-    metadataTable = new LevelDBMetadataTable(LEVEL_DB_FACTORY.open(dbPath, dbOptions));
+    metadataTable = new LevelDBMetadataTable(levelDBProvider.open(dbPath, true, null));
     LOG.info("Messaging metadata table created at {}", dbPath);
     return metadataTable;
   }
@@ -126,7 +124,7 @@ public final class LevelDBTableFactory implements TableFactory {
         return db;
       }
 
-      db = LEVEL_DB_FACTORY.open(ensureDirExists(dbPath), dbOptions);
+      db = levelDBProvider.open(ensureDirExists(dbPath), true, null);
       levelDBs.put(dbPath, db);
     }
 
@@ -182,6 +180,7 @@ public final class LevelDBTableFactory implements TableFactory {
             }
             // We can safely remove and close the levelDB as no one should be accessing them anymore
             Closeables.closeQuietly(levelDBs.remove(dataDBPath));
+            levelDBProvider.release(dataDBPath);
             filesToDelete.add(dataDBPath);
 
             // Payload table
@@ -191,6 +190,7 @@ public final class LevelDBTableFactory implements TableFactory {
             }
             // We can safely remove and close the levelDB as no one should be accessing them anymore
             Closeables.closeQuietly(levelDBs.remove(dataDBPath));
+            levelDBProvider.release(dataDBPath);
             filesToDelete.add(dataDBPath);
           }
 
@@ -42,6 +42,25 @@ public interface MetricStore {
    */
   void add(Collection<? extends MetricValues> metricValues);
 
+  /**
+   * Writes the metric values that were added to the store but are still buffered in memory. After this method
+   * returns, all metric values added before are persisted. The default implementation does nothing, which is
+   * correct for stores that don't buffer.
+   */
+  default void flush() {
+    // no-op
+  }
+
+  /**
+   * Returns whether the metric values buffered in memory exceed the size the store is configured to buffer, in which
+   * case the caller should {@link #flush()} the store. A store never flushes on its own, so that callers can record
+   * what has been persisted right after each flush. The default implementation returns {@code false}, which is
+   * correct for stores that don't buffer.
+   */
+  default boolean isFlushRequired() {
+    return false;
+  }
+
   /**
    * Queries metrics data.
    * @param query query to execute
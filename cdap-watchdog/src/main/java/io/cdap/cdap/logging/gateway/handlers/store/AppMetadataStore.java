@@ -16,9 +16,9 @@
 
 package io.cdap.cdap.logging.gateway.handlers.store;
 
-import com.google.gson.Gson;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
+import io.cdap.cdap.internal.app.store.RunRecordMetaCodec;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.cdap.proto.id.ApplicationId;
 import io.cdap.cdap.proto.id.ProgramId;
@@ -41,7 +41,6 @@ import javax.annotation.Nullable;
  */
 public class AppMetadataStore {
 
-  private static final Gson GSON = new Gson();
   private static final String TYPE_RUN_RECORD_ACTIVE = "runRecordActive";
   private static final String TYPE_RUN_RECORD_COMPLETED = "runRecordCompleted";
 
@@ -83,14 +82,8 @@ public class AppMetadataStore {
   }
 
   private static RunRecordMeta deserializeRunRecordMeta(StructuredRow row) {
-    RunRecordMeta existing =
-      GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA), RunRecordMeta.class);
-    RunRecordMeta newMeta =
-      RunRecordMeta.builder(existing)
-        .setProgramRunId(
-          getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())).run(existing.getPid()))
-        .build();
-    return newMeta;
+    return RunRecordMetaCodec.decode(getProgramIdFromRunRecordsPrimaryKeys(new ArrayList(row.getPrimaryKeys())),
+                                     row.getString(StoreDefinition.AppMetadataStore.RUN_RECORD_DATA));
   }
 
   private static ProgramId getProgramIdFromRunRecordsPrimaryKeys(List<Field<?>> primaryKeys) {
@@ -76,6 +76,7 @@ public final class LocalMetricsCollectionService extends AggregatedMetricsCollec
       metricValues.add(metrics.next());
     }
     metricStore.add(metricValues);
+    metricStore.flush();
   }
 
   @Override
@@ -85,6 +85,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final Map<String, String> metricsContextMap;
   private final int fetcherLimit;
   private final long maxDelayMillis;
+  private final long writeCombiningWindowMillis;
   private final int queueSize;
   private final BlockingDeque<MetricValues> metricsFromAllTopics;
   private final ConcurrentMap<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap;
@@ -96,6 +97,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final String processMetricName;
   private final String metricsPrefixForDelayMetrics;
   private long metricsProcessedCount;
+  private long lastFlushTime;
 
   private MetricsConsumerMetaTable metaTable;
 
@@ -145,6 +147,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     this.metricStore = metricStore;
     this.metricStore.setMetricsContext(metricsContext);
     this.maxDelayMillis = cConf.getLong(Constants.Metrics.PROCESSOR_MAX_DELAY_MS);
+    this.writeCombiningWindowMillis = cConf.getLong(Constants.Metrics.WRITE_COMBINING_WINDOW_MS);
     this.queueSize = cConf.getInt(Constants.Metrics.QUEUE_SIZE);
     this.fetcherLimit = Math.max(1, queueSize / topicNumbers.size()); // fetcherLimit is at least one
     this.metricsContextMap = metricsContext.getTags();
@@ -218,7 +221,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
 
     // Persist metricsFromAllTopics and messageId's after all ProcessMetricsThread's complete.
     // No need to make a copy of metricsFromAllTopics and topicProcessMetaMap because no thread is writing to them
-    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap);
+    persistMetricsAndTopicProcessMeta(metricsFromAllTopics, topicProcessMetaMap, true);
   }
 
   @Override
@@ -233,18 +236,29 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
 
   /**
    * Persist metrics from all topics into metric store and messageId's of the last persisted metrics of each topic
-   * into metrics meta table
+   * into metrics meta table. If the metric store combines writes in memory, the messageId's are only persisted
+   * after the metric store is flushed, which happens once the write combining window has passed or the buffer of the
+   * store is full, so that the persisted messageId's never get ahead of the persisted metrics. The messageId's are
+   * persisted right after every flush, so that no flushed metric is processed again after a restart.
    *
    * @param metricValues a deque of {@link MetricValues}
    * @param topicProcessMetaMap a map with each key {@link TopicIdMetaKey} representing a topic
    *                            and {@link TopicProcessMeta} which has info on messageId and processing stats
+   * @param forceFlush whether to flush the metric store regardless of the write combining window
    */
   private void persistMetricsAndTopicProcessMeta(Deque<MetricValues> metricValues,
-                                                 Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap) {
+                                                 Map<TopicIdMetaKey, TopicProcessMeta> topicProcessMetaMap,
+                                                 boolean forceFlush) {
     try {
       if (!metricValues.isEmpty()) {
         persistMetrics(metricValues, topicProcessMetaMap);
       }
+      long now = System.currentTimeMillis();
+      if (!forceFlush && now - lastFlushTime < writeCombiningWindowMillis && !metricStore.isFlushRequired()) {
+        return;
+      }
+      metricStore.flush();
+      lastFlushTime = now;
       persistTopicProcessMeta(topicProcessMetaMap);
     } catch (Exception e) {
       LOG.warn("Failed to persist metrics.", e);
@@ -449,7 +463,7 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
           iterator.remove();
         }
         // Persist the copy of metrics and MessageId's
-        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy);
+        persistMetricsAndTopicProcessMeta(metricsCopy, topicProcessMetaMapCopy, false);
       } catch (Exception e) {
         LOG.warn("Failed to persist metrics. Will be retried in next iteration.", e);
       } finally {
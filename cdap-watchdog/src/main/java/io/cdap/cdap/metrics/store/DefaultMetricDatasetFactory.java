@@ -29,6 +29,7 @@ import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
+import io.cdap.cdap.data2.dataset2.lib.table.WriteCombiningMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
 import io.cdap.cdap.metrics.process.MetricsConsumerMetaTable;
@@ -82,6 +83,10 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
     }
 
     MetricsTable table = getOrCreateMetricsTable(tableName, props.build());
+    if (cConf.getLong(Constants.Metrics.WRITE_COMBINING_WINDOW_MS) > 0) {
+      // Combine the increments of the same counters in memory. The writer flushes them through the FactTable.
+      table = new WriteCombiningMetricsTable(table, cConf.getLong(Constants.Metrics.WRITE_COMBINING_BUFFER_BYTES));
+    }
     return new FactTable(table, entityTable.get(), resolution, getRollTime(resolution));
   }
 